@@ -5,6 +5,7 @@ import type {
   ExtractedListingRef,
   MessageSearchRequest,
   PagedResponse,
+  CursorPage,
 } from '../types/message';
 
 /**
@@ -16,20 +17,22 @@ export async function getGroups(): Promise<WhatsappGroup[]> {
 }
 
 export interface GetGroupMessagesParams {
-  page?: number;
+  /** Continuation token from the previous page; omit for the first page. */
+  cursor?: string;
   size?: number;
 }
 
 /**
- * Fetch paginated messages for a specific group.
+ * Fetch messages for a specific group, newest first, using keyset pagination
+ * so deep scrolling costs the same as the first page.
  */
 export async function getGroupMessages(
   groupId: string,
-  params: GetGroupMessagesParams = {}
-): Promise<PagedResponse<ReplayMessage>> {
-  const response = await apiClient.get<PagedResponse<ReplayMessage>>(
+  { cursor = '', size }: GetGroupMessagesParams = {}
+): Promise<CursorPage<ReplayMessage>> {
+  const response = await apiClient.get<CursorPage<ReplayMessage>>(
     `/messages/groups/${groupId}/messages`,
-    { params }
+    { params: { cursor, size } }
   );
   return response.data;
 }
@@ -9,20 +9,22 @@ interface MediaPreviewProps {
 export function MediaPreview({ message }: MediaPreviewProps) {
   const [imageError, setImageError] = useState(false);
 
-  const { messageType, mediaUrl, mediaMimeType } = message;
+  const { messageType, mediaUrl, thumbnailUrl, mediaMimeType } = message;
 
   if (!mediaUrl) return null;
 
   if (messageType === 'image' && !imageError) {
     return (
       <div className="mb-2 overflow-hidden rounded-lg">
-        <img
-          src={mediaUrl}
-          alt="Message image"
-          className="max-h-48 w-auto max-w-full rounded-lg object-cover cursor-pointer"
-          onError={() => setImageError(true)}
-          loading="lazy"
-        />
+        <a href={mediaUrl} target="_blank" rel="noopener noreferrer">
+          <img
+            src={thumbnailUrl ?? mediaUrl}
+            alt="Message image"
+            className="max-h-48 w-auto max-w-full rounded-lg object-cover cursor-pointer"
+            onError={() => setImageError(true)}
+            loading="lazy"
+          />
+        </a>
       </div>
     );
   }
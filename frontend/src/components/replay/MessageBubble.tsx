@@ -242,7 +242,7 @@ export function MessageBubble({
             </p>
             {quotedMessage.mediaUrl && quotedMessage.messageType === 'image' && (
               <img
-                src={quotedMessage.mediaUrl}
+                src={quotedMessage.thumbnailUrl ?? quotedMessage.mediaUrl}
                 alt="Quoted media"
                 className="mb-1 h-12 w-12 rounded object-cover"
               />
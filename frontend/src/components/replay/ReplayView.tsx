@@ -65,11 +65,10 @@ export function ReplayView() {
     hasNextPage,
   } = useInfiniteQuery({
     queryKey: ['groupMessages', selectedGroupId],
-    queryFn: ({ pageParam = 0 }) =>
-      getGroupMessages(selectedGroupId!, { page: pageParam as number, size: PAGE_SIZE }),
-    initialPageParam: 0,
-    getNextPageParam: (lastPage) =>
-      lastPage.last ? undefined : lastPage.number + 1,
+    queryFn: ({ pageParam }) =>
+      getGroupMessages(selectedGroupId!, { cursor: pageParam, size: PAGE_SIZE }),
+    initialPageParam: '',
+    getNextPageParam: (lastPage) => lastPage.nextCursor ?? undefined,
     enabled: selectedGroupId !== null,
     staleTime: 60_000,
   });
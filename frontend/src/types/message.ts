@@ -38,6 +38,7 @@ export interface ReplayMessage {
   messageBody: string | null;
   messageType: MessageType;
   mediaUrl: string | null;
+  thumbnailUrl: string | null;
   mediaMimeType: string | null;
   mediaLocalPath: string | null;
   replyToMsgId: string | null;
@@ -66,3 +67,14 @@ export interface PagedResponse<T> {
   first: boolean;
   last: boolean;
 }
+
+/** Keyset-paginated page; pass nextCursor back as `cursor` for the next page. */
+export interface CursorPage<T> {
+  content: T[];
+  size: number;
+  nextCursor: string | null;
+  hasNext: boolean;
+  /** Only present when requested with approxTotal; capped server-side. */
+  total?: number | null;
+  totalExact?: boolean | null;
+}
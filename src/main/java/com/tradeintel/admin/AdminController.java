@@ -9,15 +9,25 @@ import com.tradeintel.admin.dto.UpdateGroupRequest;
 import com.tradeintel.admin.dto.UserCostSummaryDTO;
 import com.tradeintel.admin.dto.UserDTO;
 import com.tradeintel.admin.dto.WhatsappGroupDTO;
+import com.tradeintel.archive.EmbeddingService;
+import com.tradeintel.archive.MediaDownloadService;
+import com.tradeintel.archive.MediaStore;
 import com.tradeintel.archive.RawMessageRepository;
 import com.tradeintel.archive.WhatsappGroupRepository;
+import com.tradeintel.auth.PrincipalCache;
 import com.tradeintel.auth.UserPrincipal;
 import com.tradeintel.common.entity.Listing;
 import com.tradeintel.common.entity.RawMessage;
 import com.tradeintel.common.entity.WhatsappGroup;
 import com.tradeintel.common.exception.ResourceNotFoundException;
 import com.tradeintel.common.security.UberAdminOnly;
+import com.tradeintel.notification.NotificationDeliveryService;
+import com.tradeintel.processing.CatchupProgress;
+import com.tradeintel.processing.ExtractionCache;
 import com.tradeintel.processing.MessageProcessingService;
+import com.tradeintel.processing.ExchangeRateService;
+import com.tradeintel.processing.NormalizationResolver;
+import com.tradeintel.processing.ProcessingQueueService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.apache.logging.log4j.LogManager;
@@ -43,6 +53,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -73,19 +84,46 @@ public class AdminController {
     private final WhatsappGroupRepository groupRepository;
     private final MessageProcessingService messageProcessingService;
     private final RawMessageRepository rawMessageRepository;
+    private final EmbeddingService embeddingService;
+    private final ExtractionCache extractionCache;
+    private final NotificationDeliveryService notificationDeliveryService;
+    private final ProcessingQueueService processingQueueService;
+    private final NormalizationResolver normalizationResolver;
+    private final ExchangeRateService exchangeRateService;
+    private final PrincipalCache principalCache;
+    private final MediaDownloadService mediaDownloadService;
+    private final MediaStore mediaStore;
 
     public AdminController(UserManagementService userManagementService,
                            CostReportService costReportService,
                            AuditService auditService,
                            WhatsappGroupRepository groupRepository,
                            MessageProcessingService messageProcessingService,
-                           RawMessageRepository rawMessageRepository) {
+                           RawMessageRepository rawMessageRepository,
+                           EmbeddingService embeddingService,
+                           ExtractionCache extractionCache,
+                           NotificationDeliveryService notificationDeliveryService,
+                           ProcessingQueueService processingQueueService,
+                           NormalizationResolver normalizationResolver,
+                           ExchangeRateService exchangeRateService,
+                           PrincipalCache principalCache,
+                           MediaDownloadService mediaDownloadService,
+                           MediaStore mediaStore) {
         this.userManagementService = userManagementService;
         this.costReportService = costReportService;
         this.auditService = auditService;
         this.groupRepository = groupRepository;
         this.messageProcessingService = messageProcessingService;
         this.rawMessageRepository = rawMessageRepository;
+        this.embeddingService = embeddingService;
+        this.extractionCache = extractionCache;
+        this.notificationDeliveryService = notificationDeliveryService;
+        this.processingQueueService = processingQueueService;
+        this.normalizationResolver = normalizationResolver;
+        this.exchangeRateService = exchangeRateService;
+        this.principalCache = principalCache;
+        this.mediaDownloadService = mediaDownloadService;
+        this.mediaStore = mediaStore;
     }
 
     // =========================================================================
@@ -511,7 +549,11 @@ public class AdminController {
     }
 
     /**
-     * Returns processing statistics: total, processed, and unprocessed message counts.
+     * Returns processing statistics: total, processed, and unprocessed message counts,
+     * plus embedding and extraction cache counters, the normalization snapshot version,
+     * the latest prefetched exchange rate date, authentication principal cache counters,
+     * processing queue depth, lag and throughput per lane, and queue depth and latency
+     * per pipeline stage.
      *
      * <p>GET /api/admin/processing/stats
      *
@@ -524,11 +566,22 @@ public class AdminController {
         long processed = rawMessageRepository.countByProcessedTrue();
         long unprocessed = rawMessageRepository.countUnprocessed();
 
-        return ResponseEntity.ok(Map.of(
-                "totalMessages", total,
-                "processedMessages", processed,
-                "unprocessedMessages", unprocessed,
-                "catchupRunning", messageProcessingService.isCatchupRunning()));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("totalMessages", total);
+        body.put("processedMessages", processed);
+        body.put("unprocessedMessages", unprocessed);
+        body.put("catchupRunning", messageProcessingService.isCatchupRunning());
+        body.put("embeddingCache", embeddingService.getCacheStats());
+        body.put("extractionCache", extractionCache.getStats());
+        body.put("normalizationSnapshot", normalizationResolver.snapshot().getStats());
+        body.put("exchangeRates", exchangeRateService.getStats());
+        body.put("principalCache", principalCache.getStats());
+        body.put("notificationQueue", notificationDeliveryService.getQueueStats());
+        body.put("processingQueue", processingQueueService.getQueueStats());
+        body.put("mediaDownloads", mediaDownloadService.getQueueStats());
+        body.put("mediaStore", mediaStore.getStats());
+        body.put("pipelineStages", messageProcessingService.getPipelineStats());
+        return ResponseEntity.ok(body);
     }
 
     // =========================================================================
@@ -567,19 +620,26 @@ public class AdminController {
     }
 
     /**
-     * Returns the current catchup status: whether it's running and how many
-     * unprocessed messages remain.
+     * Returns the current catchup status: whether it's running, how many
+     * unprocessed messages remain and, once a run has started, its worker count,
+     * processed/error counters, throughput over the last minute and ETA.
      *
      * <p>GET /api/admin/processing/catchup/status
      *
-     * @return 200 with running flag and remaining count
+     * @return 200 with running flag, remaining count and run progress
      */
     @UberAdminOnly
     @GetMapping("/processing/catchup/status")
     public ResponseEntity<Map<String, Object>> getCatchupStatus() {
-        return ResponseEntity.ok(Map.of(
-                "running", messageProcessingService.isCatchupRunning(),
-                "unprocessedRemaining", messageProcessingService.getUnprocessedCount()));
+        long remaining = messageProcessingService.getUnprocessedCount();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("running", messageProcessingService.isCatchupRunning());
+        body.put("unprocessedRemaining", remaining);
+        CatchupProgress progress = messageProcessingService.getCatchupProgress();
+        if (progress != null) {
+            body.putAll(progress.toMap(remaining));
+        }
+        return ResponseEntity.ok(body);
     }
 
     // =========================================================================
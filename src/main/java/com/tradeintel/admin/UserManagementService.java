@@ -7,9 +7,11 @@ import com.tradeintel.admin.dto.UserDTO;
 import com.tradeintel.auth.UserRepository;
 import com.tradeintel.common.entity.User;
 import com.tradeintel.common.entity.UserRole;
+import com.tradeintel.common.event.UserAccessChangedEvent;
 import com.tradeintel.common.exception.ResourceNotFoundException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,7 +25,9 @@ import java.util.UUID;
  *
  * <p>Every mutating operation produces an audit log entry via {@link AuditService}
  * so that all role changes and account activations/deactivations are permanently
- * recorded with actor, target, before/after state, and client IP.
+ * recorded with actor, target, before/after state, and client IP. Role and
+ * activation changes also publish a {@link UserAccessChangedEvent} so that cached
+ * authentication principals of the user are evicted once the change commits.
  */
 @Service
 public class UserManagementService {
@@ -34,15 +38,18 @@ public class UserManagementService {
     private final ChatSessionRepository chatSessionRepository;
     private final AuditService auditService;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public UserManagementService(UserRepository userRepository,
                                  ChatSessionRepository chatSessionRepository,
                                  AuditService auditService,
-                                 ObjectMapper objectMapper) {
+                                 ObjectMapper objectMapper,
+                                 ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.chatSessionRepository = chatSessionRepository;
         this.auditService = auditService;
         this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     // -------------------------------------------------------------------------
@@ -114,6 +121,7 @@ public class UserManagementService {
 
         auditService.log(actorId, "user.role_change", "User", userId,
                 oldValues, newValues, ipAddress);
+        eventPublisher.publishEvent(new UserAccessChangedEvent(userId));
 
         log.info("Role changed for user {} from {} to {} by actor {}",
                 userId, previousRole, newRole, actorId);
@@ -125,9 +133,9 @@ public class UserManagementService {
      * Enables or disables the specified user account and records the change in
      * the audit log.
      *
-     * <p>A disabled user cannot authenticate: the JWT filter will reject their
-     * token because {@link com.tradeintel.auth.UserPrincipal#isEnabled()} returns
-     * {@code false} for inactive accounts.
+     * <p>A disabled user cannot authenticate: the JWT filter rejects their token
+     * because inactive accounts get no principal, and any cached principal is
+     * evicted when this change commits.
      *
      * @param userId    the UUID of the user to enable or disable
      * @param active    {@code true} to enable, {@code false} to disable
@@ -150,6 +158,7 @@ public class UserManagementService {
         String action = active ? "user.activated" : "user.deactivated";
 
         auditService.log(actorId, action, "User", userId, oldValues, newValues, ipAddress);
+        eventPublisher.publishEvent(new UserAccessChangedEvent(userId));
 
         log.info("User {} isActive set to {} by actor {}", userId, active, actorId);
 
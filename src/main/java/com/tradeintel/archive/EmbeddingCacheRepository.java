@@ -0,0 +1,39 @@
+package com.tradeintel.archive;
+
+import com.tradeintel.common.entity.EmbeddingCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Spring Data JPA repository for the persistent embedding cache.
+ */
+@Repository
+public interface EmbeddingCacheRepository extends JpaRepository<EmbeddingCacheEntry, String> {
+
+    /**
+     * Stores an embedding unless another worker already stored the same key.
+     *
+     * <p>Runs in its own transaction: search callers embed their query inside a
+     * read-only transaction, which PostgreSQL refuses to write in. Pipeline stages
+     * embed outside any transaction, so there the write takes no second connection.
+     * {@code ON CONFLICT DO NOTHING} makes a race on the same key a no-op instead of
+     * an error. The extraction cache writes the same way.</p>
+     *
+     * @return 1 if inserted, 0 if the key already existed
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO embedding_cache (content_hash, model, dimensions, vector) " +
+                   "VALUES (:contentHash, :model, :dimensions, :vector) " +
+                   "ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("contentHash") String contentHash,
+                       @Param("model") String model,
+                       @Param("dimensions") int dimensions,
+                       @Param("vector") byte[] vector);
+}
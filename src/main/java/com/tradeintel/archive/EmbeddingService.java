@@ -1,31 +1,366 @@
 package com.tradeintel.archive;
 
+import com.tradeintel.common.entity.EmbeddingCacheEntry;
 import com.tradeintel.common.openai.OpenAIClient;
+import com.tradeintel.config.CacheConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Generates OpenAI embeddings for message bodies, listing descriptions and search queries.
+ *
+ * <p>Single-text {@link #embed(String)} calls are coalesced by a micro-batching collector:
+ * callers enqueue their text and block, while a dispatcher thread gathers everything that
+ * arrives within {@code app.openai.embedding-batch.window-ms} (or until
+ * {@code app.openai.embedding-batch.max-size} texts are pending) and sends it as one
+ * {@link OpenAIClient#embedBatch} request. Concurrent pipeline workers therefore share
+ * round-trips instead of each paying for their own. A window of {@code 0} disables the
+ * collector and every call goes straight to the API.</p>
+ *
+ * <p>{@link #embedBatch(List)} is available to callers that already hold several texts
+ * (e.g. all listings from one message) and bypasses the collector.</p>
+ *
+ * <p>Both paths consult a two-tier cache before calling OpenAI. Input text is
+ * normalized (NFKC, whitespace collapsed, trimmed) and keyed by the SHA-256 of
+ * model name plus normalized text. Tier one is the in-process
+ * {@link CacheConfig#CACHE_EMBEDDINGS} Caffeine cache; tier two is the
+ * {@code embedding_cache} table, so forwards and cross-posts are embedded once across
+ * restarts. Hit and miss counts are exposed via {@link #getCacheStats()}.</p>
+ */
 @Service
 public class EmbeddingService {
 
     private static final Logger log = LogManager.getLogger(EmbeddingService.class);
 
+    /** Rough cap of ~8000 tokens per input. */
+    private static final int MAX_INPUT_CHARS = 30000;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     private final OpenAIClient openAIClient;
+    private final EmbeddingCacheRepository cacheRepository;
+    private final CacheManager cacheManager;
     private final String embeddingModel;
+    private final int maxBatchSize;
+    private final long windowMs;
+
+    private final BlockingQueue<PendingEmbedding> pending = new LinkedBlockingQueue<>();
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder storeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
     public EmbeddingService(OpenAIClient openAIClient,
-                           @Value("${app.openai.embedding-model}") String embeddingModel) {
+                            EmbeddingCacheRepository cacheRepository,
+                            CacheManager cacheManager,
+                            @Value("${app.openai.embedding-model}") String embeddingModel,
+                            @Value("${app.openai.embedding-batch.max-size:64}") int maxBatchSize,
+                            @Value("${app.openai.embedding-batch.window-ms:20}") long windowMs) {
+        if (maxBatchSize < 1 || maxBatchSize > 2048) {
+            throw new IllegalArgumentException("app.openai.embedding-batch.max-size must be within [1, 2048]");
+        }
         this.openAIClient = openAIClient;
+        this.cacheRepository = cacheRepository;
+        this.cacheManager = cacheManager;
         this.embeddingModel = embeddingModel;
+        this.maxBatchSize = maxBatchSize;
+        this.windowMs = Math.max(0, windowMs);
+    }
+
+    @PostConstruct
+    void start() {
+        if (windowMs == 0) {
+            log.info("Embedding micro-batching disabled");
+            return;
+        }
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "embedding-batcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("Embedding micro-batching enabled: window={}ms, maxBatchSize={}", windowMs, maxBatchSize);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        PendingEmbedding p;
+        while ((p = pending.poll()) != null) {
+            p.future.completeExceptionally(new IllegalStateException("EmbeddingService is shutting down"));
+        }
     }
 
+    /**
+     * Embeds a single text, sharing the HTTP round-trip with any other calls made within
+     * the batching window. Cached embeddings are returned without an API call.
+     *
+     * @param text the text to embed
+     * @return the embedding, or null if {@code text} is null or blank
+     * @throws RuntimeException if the OpenAI call fails
+     */
     public float[] embed(String text) {
         if (text == null || text.isBlank()) {
             return null;
         }
-        // Truncate to ~8000 tokens worth of text (rough estimate)
-        String truncated = text.length() > 30000 ? text.substring(0, 30000) : text;
-        return openAIClient.embed(truncated, embeddingModel);
+        String input = prepare(text);
+        String key = cacheKey(input);
+
+        float[] cached = lookup(List.of(key)).get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        float[] embedding = embedUncached(input);
+        store(key, embedding);
+        return embedding;
+    }
+
+    /**
+     * Embeds several texts, consulting the cache first and splitting the remaining
+     * texts into API calls of at most {@code max-size} inputs.
+     *
+     * @param texts texts to embed; null or blank entries are allowed
+     * @return one vector per input in the same order, with null for null/blank inputs
+     * @throws RuntimeException if an OpenAI call fails
+     */
+    public List<float[]> embedBatch(List<String> texts) {
+        String[] keys = new String[texts.size()];
+        Map<String, String> inputsByKey = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (text != null && !text.isBlank()) {
+                String input = prepare(text);
+                keys[i] = cacheKey(input);
+                inputsByKey.putIfAbsent(keys[i], input);
+            }
+        }
+
+        Map<String, float[]> resolved = lookup(inputsByKey.keySet());
+        List<String> missingKeys = inputsByKey.keySet().stream()
+                .filter(k -> !resolved.containsKey(k))
+                .toList();
+
+        for (int from = 0; from < missingKeys.size(); from += maxBatchSize) {
+            List<String> chunkKeys = missingKeys.subList(from, Math.min(from + maxBatchSize, missingKeys.size()));
+            List<float[]> chunk = requestBatch(chunkKeys.stream().map(inputsByKey::get).toList());
+            for (int i = 0; i < chunkKeys.size(); i++) {
+                resolved.put(chunkKeys.get(i), chunk.get(i));
+                store(chunkKeys.get(i), chunk.get(i));
+            }
+        }
+
+        float[][] results = new float[texts.size()][];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                results[i] = resolved.get(keys[i]);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Returns cache effectiveness counters since startup: hits served from memory,
+     * hits served from the {@code embedding_cache} table, and misses that required an
+     * OpenAI call.
+     */
+    public Map<String, Object> getCacheStats() {
+        long memory = memoryHits.sum();
+        long store = storeHits.sum();
+        long miss = misses.sum();
+        long total = memory + store + miss;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("memoryHits", memory);
+        stats.put("storeHits", store);
+        stats.put("misses", miss);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) (memory + store) / total);
+        return stats;
+    }
+
+    // -------------------------------------------------------------------------
+    // Cache tiers
+    // -------------------------------------------------------------------------
+
+    /** Resolves keys from memory, then from the table; returns only the hits. */
+    private Map<String, float[]> lookup(Collection<String> keys) {
+        Map<String, float[]> found = new HashMap<>();
+        if (keys.isEmpty()) {
+            return found;
+        }
+        Cache memory = cacheManager.getCache(CacheConfig.CACHE_EMBEDDINGS);
+
+        List<String> notInMemory = new ArrayList<>();
+        for (String key : keys) {
+            float[] hit = memory != null ? memory.get(key, float[].class) : null;
+            if (hit != null) {
+                found.put(key, hit);
+            } else {
+                notInMemory.add(key);
+            }
+        }
+        memoryHits.add(found.size());
+
+        if (!notInMemory.isEmpty()) {
+            try {
+                for (EmbeddingCacheEntry entry : cacheRepository.findAllById(notInMemory)) {
+                    float[] embedding = entry.toEmbedding();
+                    found.put(entry.getContentHash(), embedding);
+                    storeHits.increment();
+                    if (memory != null) {
+                        memory.put(entry.getContentHash(), embedding);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Embedding cache lookup failed (non-fatal): {}", e.getMessage());
+            }
+        }
+
+        misses.add(keys.size() - found.size());
+        return found;
+    }
+
+    private void store(String key, float[] embedding) {
+        Cache memory = cacheManager.getCache(CacheConfig.CACHE_EMBEDDINGS);
+        if (memory != null) {
+            memory.put(key, embedding);
+        }
+        try {
+            cacheRepository.insertIfAbsent(key, embeddingModel, embedding.length,
+                    EmbeddingCacheEntry.encode(embedding));
+        } catch (Exception e) {
+            log.warn("Embedding cache write failed (non-fatal): {}", e.getMessage());
+        }
+    }
+
+    /** NFKC-normalizes, collapses whitespace runs, trims, then applies the input length cap. */
+    static String prepare(String text) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFKC))
+                .replaceAll(" ")
+                .trim();
+        return normalized.length() > MAX_INPUT_CHARS ? normalized.substring(0, MAX_INPUT_CHARS) : normalized;
+    }
+
+    private String cacheKey(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(embeddingModel.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            return HexFormat.of().formatHex(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private float[] embedUncached(String input) {
+        if (!running) {
+            return requestBatch(List.of(input)).get(0);
+        }
+
+        PendingEmbedding request = new PendingEmbedding(input);
+        pending.add(request);
+        if (!running && pending.remove(request)) {
+            // Lost a race with stop(); nobody will drain the queue any more
+            return requestBatch(List.of(input)).get(0);
+        }
+        try {
+            return request.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Micro-batching
+    // -------------------------------------------------------------------------
+
+    private void dispatchLoop() {
+        List<PendingEmbedding> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(pending.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingEmbedding next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(p -> p.future.completeExceptionally(
+                        new IllegalStateException("EmbeddingService is shutting down")));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<PendingEmbedding> batch) {
+        try {
+            List<float[]> embeddings = requestBatch(batch.stream().map(p -> p.text).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(embeddings.get(i));
+            }
+            log.debug("Embedded micro-batch of {} texts", batch.size());
+        } catch (RuntimeException e) {
+            batch.forEach(p -> p.future.completeExceptionally(e));
+        }
+    }
+
+    private List<float[]> requestBatch(List<String> inputs) {
+        List<float[]> embeddings = openAIClient.embedBatch(inputs, embeddingModel);
+        if (embeddings == null || embeddings.size() != inputs.size()) {
+            throw new IllegalStateException("Expected " + inputs.size() + " embeddings but got "
+                    + (embeddings == null ? 0 : embeddings.size()));
+        }
+        return embeddings;
+    }
+
+    private static final class PendingEmbedding {
+        final String text;
+        final CompletableFuture<float[]> future = new CompletableFuture<>();
+
+        PendingEmbedding(String text) {
+            this.text = text;
+        }
     }
 }
@@ -0,0 +1,62 @@
+package com.tradeintel.archive;
+
+import com.tradeintel.common.entity.MediaBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Spring Data JPA repository for the content-addressed media store.
+ */
+@Repository
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, String> {
+
+    /**
+     * Records a stored blob unless its content is already known. Blobs are immutable,
+     * so an existing row is left as is; {@code ON CONFLICT DO NOTHING} keeps two workers
+     * storing the same content at once from failing on the primary key.
+     *
+     * @return 1 if inserted, 0 if the blob already existed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO media_blobs (sha256, mime_type, size_bytes, storage_path, thumbnail_path, " +
+                   "ref_count, created_at, last_referenced_at) " +
+                   "VALUES (:sha256, :mimeType, :sizeBytes, :storagePath, :thumbnailPath, 0, :now, :now) " +
+                   "ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("sha256") String sha256,
+                       @Param("mimeType") String mimeType,
+                       @Param("sizeBytes") long sizeBytes,
+                       @Param("storagePath") String storagePath,
+                       @Param("thumbnailPath") String thumbnailPath,
+                       @Param("now") OffsetDateTime now);
+
+    /** Counts one more message referencing the blob. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaBlob b SET b.refCount = b.refCount + 1, b.lastReferencedAt = :now " +
+           "WHERE b.sha256 = :sha256")
+    int addReference(@Param("sha256") String sha256, @Param("now") OffsetDateTime now);
+
+    /**
+     * Totals for the admin processing stats: distinct blobs, bytes on disk, message
+     * references and the bytes those references would have taken without sharing.
+     */
+    @Query("SELECT COUNT(b) AS blobs, COALESCE(SUM(b.sizeBytes), 0) AS storedBytes, " +
+           "COALESCE(SUM(b.refCount), 0) AS references, " +
+           "COALESCE(SUM(b.sizeBytes * b.refCount), 0) AS referencedBytes FROM MediaBlob b")
+    StoreTotals totals();
+
+    interface StoreTotals {
+        long getBlobs();
+        long getStoredBytes();
+        long getReferences();
+        long getReferencedBytes();
+    }
+}
@@ -1,24 +1,48 @@
 package com.tradeintel.archive;
 
+import com.tradeintel.common.entity.MediaBlob;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Serves locally-stored WhatsApp media files.
- * Files are stored at {@code <storage-dir>/<groupId>/<filename>}.
+ *
+ * <p>Media is stored once per content in the {@link MediaStore} and served by SHA-256
+ * from {@code /api/media/blobs/<sha256>}; {@code /api/media/blobs/<sha256>/thumbnail}
+ * serves the downscaled preview timeline views use, or the original where no thumbnail
+ * exists. Media downloaded before the store existed is still served from
+ * {@code <storage-dir>/<groupId>/<filename>}.</p>
+ *
+ * <p>A blob never changes, so its SHA-256 is a strong {@code ETag} and it is cached as
+ * {@code immutable} for a year; the content type is the one recorded when the blob was
+ * stored. A matching {@code If-None-Match} gets {@code 304} without touching the file.
+ * A single byte range ({@code Range}, honoured under {@code If-Range}) is answered with
+ * {@code 206}, so video and audio players can seek; multi-range requests get the whole
+ * file. Bodies are handed to Tomcat's sendfile where the connector supports it, so the
+ * kernel copies file to socket; otherwise they are written with
+ * {@link FileChannel#transferTo}.</p>
  */
 @RestController
 @RequestMapping("/api/media")
@@ -26,35 +50,200 @@ public class MediaController {
 
     private static final Logger log = LogManager.getLogger(MediaController.class);
 
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String LEGACY_CACHE_CONTROL = "public, max-age=86400";
+
+    /** Request attributes of Tomcat's sendfile support (see {@code org.apache.coyote.Constants}). */
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final Path storageDir;
+    private final MediaStore mediaStore;
 
-    public MediaController(@Value("${app.media.storage-dir:./media}") String storageDir) {
+    public MediaController(@Value("${app.media.storage-dir:./media}") String storageDir,
+                           MediaStore mediaStore) {
         this.storageDir = Path.of(storageDir).toAbsolutePath().normalize();
+        this.mediaStore = mediaStore;
+    }
+
+    @GetMapping("/blobs/{sha256}")
+    public void serveBlob(@PathVariable String sha256,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveBlob(sha256, false, request, response);
+    }
+
+    @GetMapping("/blobs/{sha256}/thumbnail")
+    public void serveThumbnail(@PathVariable String sha256,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveBlob(sha256, true, request, response);
     }
 
     @GetMapping("/{groupId}/{filename}")
-    public ResponseEntity<Resource> serveMedia(
+    public void serveMedia(
             @PathVariable String groupId,
-            @PathVariable String filename) {
+            @PathVariable String filename,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
         Path filePath = storageDir.resolve(groupId).resolve(filename).toAbsolutePath().normalize();
 
         // Prevent path traversal
         if (!filePath.startsWith(storageDir)) {
-            return ResponseEntity.badRequest().build();
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
         }
 
         if (!Files.exists(filePath)) {
-            return ResponseEntity.notFound().build();
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
         }
 
-        Resource resource = new FileSystemResource(filePath);
-        String contentType = resolveContentType(filename);
+        // Per-message files can be replaced by a re-download, so they only get a weak validator
+        String etag = "W/\"" + Files.size(filePath) + "-" + Files.getLastModifiedTime(filePath).toMillis() + "\"";
+        send(filePath, resolveContentType(filename), etag, LEGACY_CACHE_CONTROL, request, response);
+    }
+
+    private void serveBlob(String sha256, boolean thumbnail,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!SHA256.matcher(sha256).matches()) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        String etag = "\"" + sha256 + (thumbnail ? "-thumbnail" : "") + "\"";
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            // Content-addressed: a matching validator is current without a lookup
+            notModified(response, etag, IMMUTABLE);
+            return;
+        }
+
+        MediaBlob blob = mediaStore.find(sha256).orElse(null);
+        if (blob == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        boolean useThumbnail = thumbnail && blob.getThumbnailPath() != null;
+        Path filePath = mediaStore.resolve(useThumbnail ? blob.getThumbnailPath() : blob.getStoragePath());
+        String contentType = useThumbnail ? MediaType.IMAGE_JPEG_VALUE
+                : blob.getMimeType() != null ? blob.getMimeType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        try {
+            send(filePath, contentType, etag, IMMUTABLE, request, response);
+        } catch (NoSuchFileException e) {
+            log.warn("Media blob {} is recorded but missing on disk: {}", sha256, filePath);
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Response writing
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes a file, or the single byte range the request asks for, with its validators.
+     *
+     * @throws NoSuchFileException if the file does not exist; nothing has been written
+     */
+    private void send(Path file, String contentType, String etag, String cacheControl,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = Files.size(file);
+
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            notModified(response, etag, cacheControl);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(contentType);
+
+        long start = 0L;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), etag)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                // Malformed Range headers are ignored and the whole file is sent
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = in.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static void notModified(HttpServletResponse response, String etag, String cacheControl) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setStatus(HttpStatus.NOT_MODIFIED.value());
+    }
+
+    /** Weak comparison of an {@code If-None-Match} header against the current ETag. */
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String current = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A range is only served if {@code If-Range} is absent or names the current strong
+     * ETag. Dates and weak tags cannot prove the range is from the same representation.
+     */
+    private static boolean ifRangeMatches(String ifRange, String etag) {
+        return ifRange == null || (!etag.startsWith("W/") && ifRange.trim().equals(etag));
+    }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, contentType)
-                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=86400")
-                .body(resource);
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
     }
 
     private String resolveContentType(String filename) {
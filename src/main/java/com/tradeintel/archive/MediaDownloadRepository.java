@@ -0,0 +1,153 @@
+package com.tradeintel.archive;
+
+import com.tradeintel.common.entity.MediaDownload;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Spring Data JPA repository for the media download queue.
+ *
+ * <p>State transitions are single-row {@code UPDATE}s guarded by the current status
+ * so that a download is only ever claimed by one worker. A claim is a lease, identified
+ * by an owner token, that the worker renews while it transfers; expired leases are
+ * reclaimed. Every write of an attempt is guarded by its owner token, so a worker whose
+ * lease was reclaimed cannot touch the row of the attempt that replaced it.</p>
+ */
+@Repository
+public interface MediaDownloadRepository extends JpaRepository<MediaDownload, UUID> {
+
+    /**
+     * Queues a message's media unless it is already queued.
+     *
+     * @return 1 if queued, 0 if the message already had a row
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO media_downloads (message_id, status, attempts, next_attempt_at, " +
+                   "bytes_downloaded, created_at) " +
+                   "SELECT :messageId, 'pending', 0, :now, 0, :now " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM media_downloads WHERE message_id = :messageId)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("messageId") UUID messageId, @Param("now") OffsetDateTime now);
+
+    /**
+     * Returns the IDs of pending downloads that are due, oldest first.
+     *
+     * @param now      current time; downloads backing off until later are ignored
+     * @param pageable page limiting how many are returned
+     * @return message IDs of due downloads
+     */
+    @Query("SELECT d.messageId FROM MediaDownload d " +
+           "WHERE d.status = 'pending' AND d.nextAttemptAt <= :now ORDER BY d.createdAt ASC")
+    List<UUID> findDue(@Param("now") OffsetDateTime now, Pageable pageable);
+
+    /**
+     * Moves a pending download to {@code downloading} under a lease.
+     *
+     * @param owner          token of this claim, unique per attempt
+     * @param leaseExpiresAt when the claim lapses unless renewed
+     * @return 1 if claimed, 0 if another worker claimed it first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaDownload d SET d.status = 'downloading', d.leaseOwner = :owner, " +
+           "d.leaseExpiresAt = :leaseExpiresAt " +
+           "WHERE d.messageId = :messageId AND d.status = 'pending'")
+    int claim(@Param("messageId") UUID messageId,
+              @Param("owner") String owner,
+              @Param("leaseExpiresAt") OffsetDateTime leaseExpiresAt);
+
+    /**
+     * Extends the lease of a running download.
+     *
+     * @return 1 if renewed, 0 if the lease was reclaimed in the meantime
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaDownload d SET d.leaseExpiresAt = :leaseExpiresAt " +
+           "WHERE d.messageId = :messageId AND d.leaseOwner = :owner AND d.status = 'downloading'")
+    int renewLease(@Param("messageId") UUID messageId,
+                   @Param("owner") String owner,
+                   @Param("leaseExpiresAt") OffsetDateTime leaseExpiresAt);
+
+    /**
+     * Records the validator of the response a fresh partial file is being written from,
+     * for the {@code If-Range} of a later resume.
+     *
+     * @param validator strong ETag or Last-Modified date; null if the server sent neither
+     * @return 1 if recorded, 0 if the lease was reclaimed in the meantime
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaDownload d SET d.resumeValidator = :validator " +
+           "WHERE d.messageId = :messageId AND d.leaseOwner = :owner AND d.status = 'downloading'")
+    int recordValidator(@Param("messageId") UUID messageId,
+                        @Param("owner") String owner,
+                        @Param("validator") String validator);
+
+    /**
+     * Records a failed attempt and how much of the file was kept. Rows that reach
+     * {@code maxAttempts} become {@code failed}; the rest return to {@code pending}
+     * and become due again at {@code nextAttemptAt}.
+     *
+     * @return 1 if recorded, 0 if the lease was reclaimed in the meantime
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaDownload d SET d.attempts = d.attempts + 1, d.lastError = :error, " +
+           "d.nextAttemptAt = :nextAttemptAt, d.bytesDownloaded = :bytes, " +
+           "d.leaseOwner = NULL, d.leaseExpiresAt = NULL, " +
+           "d.status = CASE WHEN d.attempts + 1 >= :maxAttempts THEN 'failed' ELSE 'pending' END " +
+           "WHERE d.messageId = :messageId AND d.leaseOwner = :owner AND d.status = 'downloading'")
+    int markFailed(@Param("messageId") UUID messageId,
+                   @Param("owner") String owner,
+                   @Param("error") String error,
+                   @Param("nextAttemptAt") OffsetDateTime nextAttemptAt,
+                   @Param("bytes") long bytes,
+                   @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Returns downloads whose lease expired (worker crashed or hung past its heartbeat)
+     * to {@code pending}, counting the lost attempt, or to {@code failed} once they have
+     * used up their attempts. Their partial files are resumed.
+     *
+     * @return number of leases reclaimed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaDownload d SET d.attempts = d.attempts + 1, d.lastError = 'Lease expired', " +
+           "d.leaseOwner = NULL, d.leaseExpiresAt = NULL, " +
+           "d.status = CASE WHEN d.attempts + 1 >= :maxAttempts THEN 'failed' ELSE 'pending' END " +
+           "WHERE d.status = 'downloading' AND d.leaseExpiresAt < :now")
+    int reclaimExpired(@Param("now") OffsetDateTime now, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Removes a finished download's row, provided the finishing worker still holds the
+     * lease. Runs first in the completing transaction, so the row lock it takes also
+     * serialises completion against a reclaim.
+     *
+     * @return 1 if removed, 0 if the lease was reclaimed in the meantime
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MediaDownload d " +
+           "WHERE d.messageId = :messageId AND d.leaseOwner = :owner AND d.status = 'downloading'")
+    int release(@Param("messageId") UUID messageId, @Param("owner") String owner);
+
+    /**
+     * Counts queue rows in the given state.
+     *
+     * @param status one of {@code pending}, {@code downloading}, {@code failed}
+     * @return number of rows
+     */
+    long countByStatus(String status);
+}
@@ -1,101 +1,490 @@
 package com.tradeintel.archive;
 
+import com.tradeintel.common.entity.MediaDownload;
 import com.tradeintel.common.entity.RawMessage;
+import com.tradeintel.common.event.MediaPendingEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Downloads WhatsApp media files (images, documents, videos, audio) to local
  * filesystem storage. In production this would be swapped with an S3 client.
  *
- * <p>The service is called after a message is archived. If the message has a
- * {@code mediaUrl}, the file is downloaded and stored under
- * {@code ${app.media.storage-dir}/<groupId>/<messageId>.<ext>}.</p>
+ * <p>Archiving a message with a {@code mediaUrl} publishes a {@link MediaPendingEvent};
+ * the message is queued in {@code media_downloads} before the archive transaction
+ * commits, so no download is lost and none runs on the webhook thread. A scheduled poll
+ * (every {@code app.media.poll-interval-ms}) claims due downloads, never more than the
+ * {@code mediaExecutor} pool has threads ({@code app.media.download-pool-size}).</p>
+ *
+ * <p>Each attempt streams the response body into its own part file under
+ * {@code ${app.media.storage-dir}/partial/} and hashes it on the way. The body is
+ * written with {@link FileChannel#transferFrom} in bounded chunks; since the source is a
+ * channel over the response stream this is a buffered copy through the JDK, not a
+ * kernel zero-copy, but memory use stays at one buffer whatever the file size. When the
+ * transfer completes the file is handed to the {@link MediaStore}, which keeps one copy
+ * per SHA-256; the message is linked to the blob and the queue row deleted in one
+ * transaction. A failed attempt leaves its bytes at {@code partial/<messageId>.part},
+ * which the next attempt takes over by renaming it to its own file, and asks for the rest with
+ * a {@code Range} request under an {@code If-Range} naming the strong ETag (or
+ * Last-Modified date) the part file came from, and appends only if the server answers
+ * {@code 206} from the expected offset. A {@code 200} means the remote file changed or
+ * ranges are not supported, and the download starts over from byte zero; a part file
+ * without a recorded validator is never resumed. Attempts back off by
+ * {@code retry-base-seconds * 2^(attempts-1)} until {@code app.media.max-attempts};
+ * links the server rejects as gone fail at once.</p>
+ *
+ * <p>A claimed download holds a lease of {@code app.media.lease-seconds}, renewed while
+ * bytes keep arriving. Each poll first reclaims downloads whose lease ran out, i.e. whose
+ * worker died or hung, as a failed attempt, so one instance starting never resets
+ * downloads another is still running. Every claim carries an owner token that guards
+ * the heartbeat, failure and completion of its attempt: a worker whose lease was
+ * reclaimed abandons its attempt without touching the row, the blob references or the
+ * part file of the attempt that replaced it.</p>
  */
 @Service
 public class MediaDownloadService {
 
     private static final Logger log = LogManager.getLogger(MediaDownloadService.class);
 
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    /** Upper bound on bytes copied per {@code transferFrom} call. */
+    private static final long TRANSFER_CHUNK = 1L << 20;
+
+    private final MediaDownloadRepository downloadRepository;
+    private final RawMessageRepository rawMessageRepository;
+    private final MediaBlobRepository blobRepository;
+    private final MediaStore mediaStore;
+    private final Executor mediaExecutor;
     private final RestTemplate restTemplate;
-    private final Path storageDir;
+    private final int capacity;
+    private final int maxAttempts;
+    private final Duration retryBase;
+    private final Duration lease;
+
+    /** Downloads claimed by this process and not yet finished. */
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Lazy
+    @Autowired
+    private MediaDownloadService self;
 
     public MediaDownloadService(
-            @Value("${app.media.storage-dir:./media}") String storageDir) {
-        this.restTemplate = new RestTemplate();
-        this.storageDir = Path.of(storageDir);
+            MediaDownloadRepository downloadRepository,
+            RawMessageRepository rawMessageRepository,
+            MediaBlobRepository blobRepository,
+            MediaStore mediaStore,
+            @Qualifier("mediaExecutor") Executor mediaExecutor,
+            @Value("${app.media.download-pool-size:2}") int capacity,
+            @Value("${app.media.max-attempts:5}") int maxAttempts,
+            @Value("${app.media.retry-base-seconds:30}") long retryBaseSeconds,
+            @Value("${app.media.connect-timeout-ms:10000}") int connectTimeoutMs,
+            @Value("${app.media.read-timeout-ms:60000}") int readTimeoutMs,
+            @Value("${app.media.lease-seconds:300}") long leaseSeconds) {
+        this.downloadRepository = downloadRepository;
+        this.rawMessageRepository = rawMessageRepository;
+        this.blobRepository = blobRepository;
+        this.mediaStore = mediaStore;
+        this.mediaExecutor = mediaExecutor;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.capacity = Math.max(1, capacity);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBase = Duration.ofSeconds(retryBaseSeconds);
+        this.lease = Duration.ofSeconds(Math.max(1, leaseSeconds));
     }
 
+    // -------------------------------------------------------------------------
+    // Enqueueing
+    // -------------------------------------------------------------------------
+
     /**
-     * Downloads the media file for a raw message and updates its
-     * {@code mediaLocalPath} field.
+     * Queues the media of freshly archived messages. Runs before the archiving
+     * transaction commits, so a message and its download are stored atomically.
      *
-     * @param message the archived raw message with a non-null mediaUrl
-     * @return the local file path, or null if download failed or no media present
+     * @param event the archived messages with media
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onMediaPending(MediaPendingEvent event) {
+        OffsetDateTime now = OffsetDateTime.now();
+        for (UUID messageId : event.getMessageIds()) {
+            downloadRepository.insertIfAbsent(messageId, now);
+        }
+    }
+
+    /**
+     * Returns downloads whose lease expired to the queue, so downloads of a crashed or
+     * hung worker are resumed rather than stuck. Runs on startup and before every poll.
      */
-    public String download(RawMessage message) {
-        if (message.getMediaUrl() == null || message.getMediaUrl().isBlank()) {
-            return null;
+    @EventListener(ApplicationReadyEvent.class)
+    public void reclaimExpiredLeases() {
+        try {
+            int reclaimed = downloadRepository.reclaimExpired(OffsetDateTime.now(), maxAttempts);
+            if (reclaimed > 0) {
+                log.info("Reclaimed {} media downloads with an expired lease", reclaimed);
+            }
+        } catch (Exception e) {
+            log.warn("Could not reclaim expired media download leases (non-fatal): {}", e.getMessage());
         }
+    }
+
+    // -------------------------------------------------------------------------
+    // Draining
+    // -------------------------------------------------------------------------
 
+    /** Claims due downloads up to the free worker slots and runs them on the media executor. */
+    @Scheduled(fixedDelayString = "${app.media.poll-interval-ms:2000}")
+    public void pollQueue() {
+        reclaimExpiredLeases();
+        int free = capacity - inFlight.size();
+        if (free <= 0) {
+            return;
+        }
+        List<UUID> due;
         try {
-            String groupId = message.getGroup() != null
-                    ? message.getGroup().getId().toString()
-                    : "unknown";
+            due = downloadRepository.findDue(OffsetDateTime.now(), PageRequest.of(0, free));
+        } catch (Exception e) {
+            log.warn("Media download poll failed (non-fatal): {}", e.getMessage());
+            return;
+        }
+        for (UUID messageId : due) {
+            if (!inFlight.add(messageId)) {
+                continue;
+            }
+            try {
+                mediaExecutor.execute(() -> {
+                    try {
+                        downloadQueued(messageId);
+                    } finally {
+                        inFlight.remove(messageId);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(messageId);
+                log.warn("Media executor saturated; download for message {} deferred to next poll", messageId);
+            }
+        }
+    }
 
-            Path groupDir = storageDir.resolve(groupId);
-            Files.createDirectories(groupDir);
+    /**
+     * Returns queue row counts per status for the admin processing stats.
+     *
+     * @return map with {@code pending}, {@code downloading}, {@code failed} and {@code inFlight}
+     */
+    public Map<String, Long> getQueueStats() {
+        Map<String, Long> stats = new HashMap<>();
+        for (String status : List.of("pending", "downloading", "failed")) {
+            stats.put(status, downloadRepository.countByStatus(status));
+        }
+        stats.put("inFlight", (long) inFlight.size());
+        return stats;
+    }
 
-            String extension = resolveExtension(message.getMediaMimeType());
-            String fileName = message.getId().toString() + extension;
-            Path filePath = groupDir.resolve(fileName);
+    /**
+     * Claims one queued download, fetches the file and records the outcome.
+     *
+     * @return true if the file was stored
+     */
+    boolean downloadQueued(UUID messageId) {
+        String owner = UUID.randomUUID().toString();
+        if (downloadRepository.claim(messageId, owner, OffsetDateTime.now().plus(lease)) == 0) {
+            return false;
+        }
+        String validator = downloadRepository.findById(messageId)
+                .map(MediaDownload::getResumeValidator).orElse(null);
+        RawMessage message = rawMessageRepository.findById(messageId).orElse(null);
+        if (message == null || message.getMediaUrl() == null || message.getMediaUrl().isBlank()) {
+            downloadRepository.release(messageId, owner);
+            return false;
+        }
 
-            byte[] data = restTemplate.getForObject(message.getMediaUrl(), byte[].class);
-            if (data == null || data.length == 0) {
-                log.warn("Empty response downloading media for message={}", message.getWhapiMsgId());
-                return null;
+        Path part = mediaStore.leasePath(messageId, owner);
+        try {
+            Files.createDirectories(part.getParent());
+            takeOver(mediaStore.partialPath(messageId), part);
+            Transfer transfer = fetch(messageId, owner, message.getMediaUrl(), part, validator);
+            if (transfer.size() == 0) {
+                throw new IOException("Empty response");
+            }
+            MediaStore.StoredBlob blob = mediaStore.store(part, transfer.sha256(), message.getMediaMimeType());
+            if (!self.complete(messageId, owner, blob)) {
+                // The content is stored, but the attempt now holding the row links it
+                log.warn("Media download for message={} lost its lease before completing; not linked",
+                        message.getWhapiMsgId());
+                return false;
             }
+            // Bytes a reclaimed attempt parked after this one took over are no longer needed
+            deleteQuietly(mediaStore.partialPath(messageId));
+            log.info("Downloaded media for message={}: blob {} ({} bytes)",
+                    message.getWhapiMsgId(), blob.sha256(), blob.sizeBytes());
+            return true;
+        } catch (LeaseLostException e) {
+            // The row was reclaimed and may already be claimed again; leave it to that worker
+            deleteQuietly(part);
+            log.warn("Media download for message={} lost its lease; abandoning this attempt",
+                    message.getWhapiMsgId());
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE) {
+                // The part file no longer matches the remote file; start over next time
+                deleteQuietly(part);
+                fail(message, owner, part, e.getMessage(), false);
+            } else {
+                fail(message, owner, part, e.getMessage(), e.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS
+                        && e.getStatusCode() != HttpStatus.REQUEST_TIMEOUT);
+            }
+        } catch (Exception e) {
+            fail(message, owner, part, e.getMessage(), false);
+        }
+        return false;
+    }
 
-            Files.write(filePath, data, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            String localPath = filePath.toString();
-            log.info("Downloaded media for message={}: {} ({} bytes)",
-                    message.getWhapiMsgId(), localPath, data.length);
+    /**
+     * Records the blob, links the message to it and removes the queue row in one
+     * transaction, provided the attempt still holds its lease. Called through the proxy
+     * by {@link #downloadQueued}.
+     *
+     * @param owner lease owner token of the completing attempt
+     * @return true if completed, false if the lease was reclaimed and nothing was written
+     */
+    @Transactional
+    public boolean complete(UUID messageId, String owner, MediaStore.StoredBlob blob) {
+        if (downloadRepository.release(messageId, owner) == 0) {
+            return false;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        blobRepository.insertIfAbsent(blob.sha256(), blob.mimeType(), blob.sizeBytes(),
+                blob.storagePath(), blob.thumbnailPath(), now);
+        blobRepository.addReference(blob.sha256(), now);
+        rawMessageRepository.linkMedia(messageId, mediaStore.resolve(blob.storagePath()).toString(), blob.sha256());
+        return true;
+    }
 
-            return localPath;
+    // -------------------------------------------------------------------------
+    // Transfer
+    // -------------------------------------------------------------------------
 
+    /**
+     * Streams the media into the part file, resuming after the bytes it already holds
+     * when the server confirms, through {@code If-Range}, that they are still current,
+     * and hashes the content on the way. The lease is renewed as bytes arrive.
+     *
+     * @param validator validator recorded when the part file was started; null if unknown
+     * @return size and SHA-256 of the part file when the transfer ends
+     * @throws LeaseLostException if the download was reclaimed while it ran
+     */
+    private Transfer fetch(UUID messageId, String owner, String url, Path part, String validator)
+            throws IOException {
+        long existing = Files.exists(part) ? Files.size(part) : 0L;
+        boolean resume = existing > 0 && validator != null;
+        return restTemplate.execute(URI.create(url), HttpMethod.GET,
+                request -> {
+                    if (resume) {
+                        request.getHeaders().set(HttpHeaders.RANGE, "bytes=" + existing + "-");
+                        request.getHeaders().set(HttpHeaders.IF_RANGE, validator);
+                    }
+                },
+                response -> {
+                    boolean resumed = resume && response.getStatusCode().value() == HttpStatus.PARTIAL_CONTENT.value();
+                    if (resumed && !startsAt(response.getHeaders(), existing)) {
+                        deleteQuietly(part);
+                        throw new IOException("Unexpected Content-Range "
+                                + response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE) + " for byte " + existing);
+                    }
+                    if (!resumed) {
+                        // A fresh file, or the remote file changed under If-Range: start from zero
+                        if (downloadRepository.recordValidator(messageId, owner,
+                                strongValidator(response.getHeaders())) == 0) {
+                            throw new LeaseLostException();
+                        }
+                    }
+                    MessageDigest digest = sha256();
+                    try (FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE,
+                            StandardOpenOption.READ, StandardOpenOption.WRITE);
+                         ReadableByteChannel in = Channels.newChannel(
+                                 new DigestInputStream(response.getBody(), digest))) {
+                        long position = resumed ? existing : 0L;
+                        out.truncate(position);
+                        if (resumed) {
+                            digestPrefix(out, existing, digest);
+                            log.debug("Resumed media download at byte {}: {}", existing, url);
+                        }
+                        long renewAt = System.nanoTime() + lease.toNanos() / 3;
+                        long moved;
+                        while ((moved = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+                            position += moved;
+                            if (System.nanoTime() - renewAt >= 0) {
+                                if (downloadRepository.renewLease(messageId, owner,
+                                        OffsetDateTime.now().plus(lease)) == 0) {
+                                    throw new LeaseLostException();
+                                }
+                                renewAt = System.nanoTime() + lease.toNanos() / 3;
+                            }
+                        }
+                        return new Transfer(position, HexFormat.of().formatHex(digest.digest()));
+                    }
+                });
+    }
+
+    /** Whether a {@code 206} response starts at the requested offset. */
+    private static boolean startsAt(HttpHeaders headers, long offset) {
+        String contentRange = headers.getFirst(HttpHeaders.CONTENT_RANGE);
+        return contentRange != null && contentRange.trim().startsWith("bytes " + offset + "-");
+    }
+
+    /**
+     * Returns the validator {@code If-Range} may carry for this response: its ETag if
+     * strong, else its Last-Modified date. Weak ETags cannot validate a range.
+     */
+    private static String strongValidator(HttpHeaders headers) {
+        String etag = headers.getETag();
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return headers.getFirst(HttpHeaders.LAST_MODIFIED);
+    }
+
+    /** Feeds the bytes kept from an earlier attempt to the digest before the rest arrives. */
+    private static void digestPrefix(FileChannel file, long length, MessageDigest digest) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = 0L;
+        while (position < length) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), length - position));
+            int read = file.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            digest.update(buffer);
+            position += read;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Moves the bytes an earlier attempt left at {@code shared} to this attempt's file.
+     * The rename is atomic, so at most one attempt takes them over.
+     */
+    private static void takeOver(Path shared, Path part) throws IOException {
+        try {
+            Files.move(shared, part, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException ignored) {
+            // Nothing kept: the download starts from byte zero
+        }
+    }
+
+    /**
+     * Records a failed attempt if it still holds its lease and parks its bytes where the
+     * next attempt resumes them; a reclaimed attempt only discards its own file.
+     */
+    private void fail(RawMessage message, String owner, Path part, String error, boolean permanent) {
+        long kept = 0L;
+        try {
+            kept = Files.exists(part) ? Files.size(part) : 0L;
+        } catch (IOException ignored) {
+            // Size only feeds the status display
+        }
+        int attempts = downloadRepository.findById(message.getId())
+                .map(d -> d.getAttempts() + 1).orElse(1);
+        if (downloadRepository.markFailed(message.getId(), owner, error,
+                OffsetDateTime.now().plus(backoff(attempts)), kept, permanent ? attempts : maxAttempts) == 0) {
+            deleteQuietly(part);
+            log.warn("Media download for message={} failed after losing its lease; abandoning this attempt: {}",
+                    message.getWhapiMsgId(), error);
+            return;
+        }
+        if (permanent || attempts >= maxAttempts) {
+            deleteQuietly(part);
+        } else {
+            keep(part, mediaStore.partialPath(message.getId()));
+        }
+        log.warn("Media download for message={} failed (attempt {}/{}{}, {} bytes kept): {}",
+                message.getWhapiMsgId(), attempts, maxAttempts, permanent ? ", giving up" : "", kept, error);
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = retryBase.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private static void keep(Path part, Path shared) {
+        try {
+            if (Files.exists(part)) {
+                Files.move(part, shared, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
         } catch (IOException e) {
-            log.error("Failed to save media for message={}: {}",
-                    message.getWhapiMsgId(), e.getMessage());
-            return null;
-        } catch (Exception e) {
-            log.error("Failed to download media for message={}: {}",
-                    message.getWhapiMsgId(), e.getMessage());
-            return null;
-        }
-    }
-
-    private String resolveExtension(String mimeType) {
-        if (mimeType == null) return "";
-        return switch (mimeType) {
-            case "image/jpeg" -> ".jpg";
-            case "image/png" -> ".png";
-            case "image/webp" -> ".webp";
-            case "image/gif" -> ".gif";
-            case "video/mp4" -> ".mp4";
-            case "audio/ogg" -> ".ogg";
-            case "audio/mpeg" -> ".mp3";
-            case "application/pdf" -> ".pdf";
-            case "application/msword" -> ".doc";
-            default -> "";
-        };
+            log.debug("Could not keep {}: {}", part, e.getMessage());
+            deleteQuietly(part);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private record Transfer(long size, String sha256) {
+    }
+
+    /** The download's lease was reclaimed by another poll while it was transferring. */
+    private static final class LeaseLostException extends IOException {
+        LeaseLostException() {
+            super("Lease expired");
+        }
     }
 }
@@ -0,0 +1,281 @@
+package com.tradeintel.archive;
+
+import com.tradeintel.common.entity.MediaBlob;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Content-addressed store for downloaded media.
+ *
+ * <p>Every distinct file is kept once, at {@code blobs/<aa>/<sha256><ext>} under
+ * {@code app.media.storage-dir}, where {@code aa} is the first byte of the SHA-256 in
+ * hex. A forwarded image that arrives in twenty groups is downloaded twenty times but
+ * stored once; each message links to the blob through {@code raw_messages.media_sha256}
+ * and the blob's {@code ref_count} counts them. The blob's MIME type is resolved once
+ * here, so serving never guesses it from a file name.</p>
+ *
+ * <p>When a JPEG, PNG, GIF or BMP is stored, a JPEG thumbnail whose longest edge is
+ * {@code app.media.thumbnail-max-px} is written to {@code thumbs/<aa>/<sha256>.jpg}, so
+ * timeline views never load the full image. Large images are subsampled while decoding
+ * to bound memory. Images already within the thumbnail size, and formats
+ * {@link ImageIO} cannot decode, get no thumbnail and are served as they are.</p>
+ */
+@Component
+public class MediaStore {
+
+    private static final Logger log = LogManager.getLogger(MediaStore.class);
+
+    private static final String OCTET_STREAM = "application/octet-stream";
+
+    private static final Set<String> THUMBNAIL_TYPES =
+            Set.of("image/jpeg", "image/png", "image/gif", "image/bmp");
+
+    private final MediaBlobRepository blobRepository;
+    private final Path storageDir;
+    private final int thumbnailMaxPx;
+
+    public MediaStore(MediaBlobRepository blobRepository,
+                      @Value("${app.media.storage-dir:./media}") String storageDir,
+                      @Value("${app.media.thumbnail-max-px:320}") int thumbnailMaxPx) {
+        this.blobRepository = blobRepository;
+        this.storageDir = Path.of(storageDir);
+        this.thumbnailMaxPx = Math.max(16, thumbnailMaxPx);
+    }
+
+    /**
+     * A blob on disk, ready to be recorded and linked to a message.
+     *
+     * @param sha256        hex SHA-256 of the content
+     * @param mimeType      resolved MIME type the blob is served with
+     * @param sizeBytes     file size
+     * @param storagePath   path relative to the storage directory
+     * @param thumbnailPath thumbnail path relative to the storage directory, or null
+     */
+    public record StoredBlob(String sha256, String mimeType, long sizeBytes,
+                             String storagePath, String thumbnailPath) {
+    }
+
+    // -------------------------------------------------------------------------
+    // Ingest
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns where a message's download is written until it completes.
+     *
+     * @param messageId the raw message whose media is downloaded
+     * @return the partial file path
+     */
+    public Path partialPath(UUID messageId) {
+        return storageDir.resolve("partial").resolve(messageId + ".part");
+    }
+
+    /**
+     * Returns the file one attempt writes to. An attempt takes over the bytes kept at
+     * {@link #partialPath} by renaming them here, so a worker whose lease was reclaimed
+     * never writes into the file of the attempt that replaced it.
+     *
+     * @param messageId the raw message whose media is downloaded
+     * @param owner     lease owner token of the attempt
+     * @return the attempt's partial file path
+     */
+    public Path leasePath(UUID messageId, String owner) {
+        return storageDir.resolve("partial").resolve(messageId + "." + owner + ".part");
+    }
+
+    /**
+     * Moves a completed download into the store. If the content is already stored the
+     * download is discarded.
+     *
+     * @param part      the completed download
+     * @param sha256    hex SHA-256 of its content
+     * @param mimeType  MIME type reported by the message; resolved here once for serving
+     * @return the stored blob
+     * @throws IOException if the file cannot be moved into place
+     */
+    public StoredBlob store(Path part, String sha256, String mimeType) throws IOException {
+        Optional<MediaBlob> existing = blobRepository.findById(sha256);
+        if (existing.isPresent() && Files.exists(storageDir.resolve(existing.get().getStoragePath()))) {
+            Files.deleteIfExists(part);
+            MediaBlob blob = existing.get();
+            return new StoredBlob(sha256, blob.getMimeType(), blob.getSizeBytes(),
+                    blob.getStoragePath(), blob.getThumbnailPath());
+        }
+
+        String contentType = resolveMimeType(mimeType, part);
+        String storagePath = "blobs/" + sha256.substring(0, 2) + "/" + sha256 + extensionFor(contentType);
+        Path target = storageDir.resolve(storagePath);
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            // Stored by a concurrent download of the same content; bytes are identical
+            Files.deleteIfExists(part);
+        } else {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return new StoredBlob(sha256, contentType, Files.size(target), storagePath,
+                createThumbnail(target, sha256, contentType));
+    }
+
+    /**
+     * Resolves the MIME type a blob is served with: the type the message reported,
+     * without parameters, or when it reported none (or only
+     * {@code application/octet-stream}) a type sniffed from the leading bytes.
+     *
+     * @return the type, never null
+     */
+    static String resolveMimeType(String reported, Path file) {
+        if (reported != null && !reported.isBlank()) {
+            int params = reported.indexOf(';');
+            String type = (params >= 0 ? reported.substring(0, params) : reported).trim().toLowerCase(Locale.ROOT);
+            if (!type.isEmpty() && !type.equals(OCTET_STREAM)) {
+                return type;
+            }
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            String sniffed = URLConnection.guessContentTypeFromStream(in);
+            return sniffed != null ? sniffed : OCTET_STREAM;
+        } catch (IOException e) {
+            return OCTET_STREAM;
+        }
+    }
+
+    /**
+     * Writes a downscaled JPEG preview of an image blob.
+     *
+     * @return the thumbnail path relative to the storage directory, or null if the blob
+     *         is not a decodable image larger than the thumbnail size
+     */
+    String createThumbnail(Path blob, String sha256, String mimeType) {
+        if (mimeType == null || !THUMBNAIL_TYPES.contains(mimeType)) {
+            return null;
+        }
+        String thumbnailPath = "thumbs/" + sha256.substring(0, 2) + "/" + sha256 + ".jpg";
+        Path thumbnail = storageDir.resolve(thumbnailPath);
+        if (Files.exists(thumbnail)) {
+            return thumbnailPath;
+        }
+        try (ImageInputStream in = ImageIO.createImageInputStream(blob.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                if (longest <= thumbnailMaxPx) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longest / (thumbnailMaxPx * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage source = reader.read(0, param);
+
+                double scale = (double) thumbnailMaxPx / Math.max(source.getWidth(), source.getHeight());
+                int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+                int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+                BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = scaled.createGraphics();
+                try {
+                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    // JPEG has no alpha; flatten transparent PNGs onto white like the chat UI
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, width, height);
+                    g.drawImage(source, 0, 0, width, height, null);
+                } finally {
+                    g.dispose();
+                }
+
+                Files.createDirectories(thumbnail.getParent());
+                Path tmp = Files.createTempFile(thumbnail.getParent(), sha256, ".tmp");
+                try {
+                    if (!ImageIO.write(scaled, "jpg", tmp.toFile())) {
+                        return null;
+                    }
+                    Files.move(tmp, thumbnail, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+                return thumbnailPath;
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception e) {
+            log.warn("Thumbnail for media blob {} failed (non-fatal): {}", sha256, e.getMessage());
+            return null;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Lookup
+    // -------------------------------------------------------------------------
+
+    public Optional<MediaBlob> find(String sha256) {
+        return blobRepository.findById(sha256);
+    }
+
+    /**
+     * Resolves a path stored on a blob against the storage directory.
+     *
+     * @param storedPath a {@code storage_path} or {@code thumbnail_path}
+     * @return the file path
+     */
+    public Path resolve(String storedPath) {
+        return storageDir.resolve(storedPath);
+    }
+
+    /**
+     * Returns figures on the store for the admin processing stats.
+     *
+     * @return map with blob count, bytes stored, message references and bytes saved by sharing
+     */
+    public Map<String, Long> getStats() {
+        MediaBlobRepository.StoreTotals totals = blobRepository.totals();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("blobs", totals.getBlobs());
+        stats.put("storedBytes", totals.getStoredBytes());
+        stats.put("references", totals.getReferences());
+        stats.put("bytesSaved", Math.max(0L, totals.getReferencedBytes() - totals.getStoredBytes()));
+        return stats;
+    }
+
+    static String extensionFor(String mimeType) {
+        if (mimeType == null) return "";
+        return switch (mimeType) {
+            case "image/jpeg" -> ".jpg";
+            case "image/png" -> ".png";
+            case "image/webp" -> ".webp";
+            case "image/gif" -> ".gif";
+            case "video/mp4" -> ".mp4";
+            case "audio/ogg" -> ".ogg";
+            case "audio/mpeg" -> ".mp3";
+            case "application/pdf" -> ".pdf";
+            case "application/msword" -> ".doc";
+            default -> "";
+        };
+    }
+}
@@ -2,10 +2,16 @@ package com.tradeintel.archive;
 
 import com.tradeintel.common.entity.RawMessage;
 import com.tradeintel.common.entity.WhatsappGroup;
+import com.tradeintel.common.event.MediaPendingEvent;
+import com.tradeintel.common.event.NewMessageEvent;
 import com.tradeintel.webhook.WhapiApiClient;
 import com.tradeintel.webhook.WhapiMessageDTO;
+import com.tradeintel.webhook.WhapiPayloadReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,7 +19,28 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
-
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Archives incoming WhatsApp messages as {@link RawMessage}s.
+ *
+ * <p>A webhook payload is archived as one batch by {@link #archiveAll}: already archived
+ * ids are filtered with one query, the chats' groups are looked up with another
+ * (unseen chats get a new group), and all new messages are written in a single batched
+ * insert in one transaction. If a concurrent delivery of the same message wins the race
+ * the batch is retried message by message through {@link #archive}.</p>
+ *
+ * <p>Every archived message publishes a {@link NewMessageEvent}, which queues it for
+ * processing before the transaction commits. Media is not downloaded here: messages
+ * with media publish a {@link MediaPendingEvent}, on which {@link MediaDownloadService}
+ * queues the download in the same transaction and fetches the file later.</p>
+ */
 @Service
 public class MessageArchiveService {
 
@@ -21,19 +48,107 @@ public class MessageArchiveService {
 
     private final RawMessageRepository rawMessageRepository;
     private final WhatsappGroupRepository groupRepository;
-    private final MediaDownloadService mediaDownloadService;
     private final WhapiApiClient whapiApiClient;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Lazy
+    @Autowired
+    private MessageArchiveService self;
 
     public MessageArchiveService(RawMessageRepository rawMessageRepository,
                                  WhatsappGroupRepository groupRepository,
-                                 MediaDownloadService mediaDownloadService,
-                                 WhapiApiClient whapiApiClient) {
+                                 WhapiApiClient whapiApiClient,
+                                 ApplicationEventPublisher eventPublisher) {
         this.rawMessageRepository = rawMessageRepository;
         this.groupRepository = groupRepository;
-        this.mediaDownloadService = mediaDownloadService;
         this.whapiApiClient = whapiApiClient;
+        this.eventPublisher = eventPublisher;
     }
 
+    // -------------------------------------------------------------------------
+    // Batch
+    // -------------------------------------------------------------------------
+
+    /**
+     * Archives the messages of one webhook payload. Messages without an id or chat id,
+     * repeats within the payload and messages already archived are skipped.
+     *
+     * @param slices the payload's messages with their raw JSON
+     * @return number of messages archived
+     */
+    public int archiveAll(List<WhapiPayloadReader.Slice> slices) {
+        if (slices.isEmpty()) {
+            return 0;
+        }
+        try {
+            return self.insertBatch(slices);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Webhook batch raced a concurrent delivery; archiving one by one");
+            int archived = 0;
+            for (WhapiPayloadReader.Slice slice : slices) {
+                if (self.archive(slice.message(), slice.rawJson()) != null) {
+                    archived++;
+                }
+            }
+            return archived;
+        }
+    }
+
+    /**
+     * Inserts a payload's new messages in one transaction and one batched insert.
+     * Called through the proxy by {@link #archiveAll}.
+     *
+     * @param slices the payload's messages with their raw JSON
+     * @return number of messages archived
+     * @throws DataIntegrityViolationException if another transaction archived one of the messages first
+     */
+    @Transactional
+    public int insertBatch(List<WhapiPayloadReader.Slice> slices) {
+        Map<String, WhapiPayloadReader.Slice> byId = new LinkedHashMap<>();
+        for (WhapiPayloadReader.Slice slice : slices) {
+            WhapiMessageDTO.Message msg = slice.message();
+            if (msg.getId() == null || msg.getChatId() == null) {
+                log.warn("Skipping message with null id or chatId");
+                continue;
+            }
+            byId.putIfAbsent(msg.getId(), slice);
+        }
+        rawMessageRepository.findExistingWhapiMsgIds(byId.keySet()).forEach(byId::remove);
+        if (byId.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> chatIds = new HashSet<>();
+        byId.values().forEach(slice -> chatIds.add(slice.message().getChatId()));
+        Map<String, WhatsappGroup> groups = new LinkedHashMap<>();
+        groupRepository.findByWhapiGroupIdIn(chatIds).forEach(g -> groups.put(g.getWhapiGroupId(), g));
+
+        List<RawMessage> batch = new ArrayList<>(byId.size());
+        for (WhapiPayloadReader.Slice slice : byId.values()) {
+            WhapiMessageDTO.Message msg = slice.message();
+            WhatsappGroup group = groups.computeIfAbsent(msg.getChatId(), this::createGroup);
+            batch.add(toRawMessage(msg, slice.rawJson(), group));
+        }
+        List<RawMessage> saved = rawMessageRepository.saveAllAndFlush(batch);
+
+        List<UUID> withMedia = new ArrayList<>();
+        for (RawMessage message : saved) {
+            eventPublisher.publishEvent(new NewMessageEvent(message.getId()));
+            if (message.getMediaUrl() != null && !message.getMediaUrl().isBlank()) {
+                withMedia.add(message.getId());
+            }
+        }
+        if (!withMedia.isEmpty()) {
+            eventPublisher.publishEvent(new MediaPendingEvent(withMedia));
+        }
+        log.info("Archived {} webhook messages", saved.size());
+        return saved.size();
+    }
+
+    // -------------------------------------------------------------------------
+    // Single message
+    // -------------------------------------------------------------------------
+
     @Transactional
     public RawMessage archive(WhapiMessageDTO.Message msg) {
         return archive(msg, null);
@@ -54,23 +169,47 @@ public class MessageArchiveService {
 
         // Find or create group
         WhatsappGroup group = groupRepository.findByWhapiGroupId(msg.getChatId())
-                .orElseGet(() -> {
-                    WhatsappGroup newGroup = new WhatsappGroup();
-                    newGroup.setWhapiGroupId(msg.getChatId());
-                    newGroup.setIsActive(true);
-
-                    // Resolve friendly name from Whapi API
-                    WhapiApiClient.GroupInfo info = whapiApiClient.resolveGroupInfo(msg.getChatId());
-                    if (info != null) {
-                        newGroup.setGroupName(info.name() + " (" + msg.getChatId() + ")");
-                        newGroup.setAvatarUrl(info.avatarUrl());
-                    } else {
-                        newGroup.setGroupName(msg.getChatId());
-                    }
-
-                    return groupRepository.save(newGroup);
-                });
+                .orElseGet(() -> createGroup(msg.getChatId()));
 
+        RawMessage rawMessage = toRawMessage(msg, rawJson, group);
+
+        try {
+            RawMessage saved = rawMessageRepository.save(rawMessage);
+
+            // Queued for processing before this transaction commits (see ProcessingQueueService)
+            eventPublisher.publishEvent(new NewMessageEvent(saved.getId()));
+            if (saved.getMediaUrl() != null && !saved.getMediaUrl().isBlank()) {
+                eventPublisher.publishEvent(new MediaPendingEvent(List.of(saved.getId())));
+            }
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Duplicate message ignored: {}", msg.getId());
+            return null;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private WhatsappGroup createGroup(String chatId) {
+        WhatsappGroup newGroup = new WhatsappGroup();
+        newGroup.setWhapiGroupId(chatId);
+        newGroup.setIsActive(true);
+
+        // Resolve friendly name from Whapi API
+        WhapiApiClient.GroupInfo info = whapiApiClient.resolveGroupInfo(chatId);
+        if (info != null) {
+            newGroup.setGroupName(info.name() + " (" + chatId + ")");
+            newGroup.setAvatarUrl(info.avatarUrl());
+        } else {
+            newGroup.setGroupName(chatId);
+        }
+
+        return groupRepository.save(newGroup);
+    }
+
+    private static RawMessage toRawMessage(WhapiMessageDTO.Message msg, String rawJson, WhatsappGroup group) {
         RawMessage rawMessage = new RawMessage();
         rawMessage.setGroup(group);
         rawMessage.setWhapiMsgId(msg.getId());
@@ -94,23 +233,6 @@ public class MessageArchiveService {
         } else {
             rawMessage.setTimestampWa(OffsetDateTime.now(ZoneOffset.UTC));
         }
-
-        try {
-            RawMessage saved = rawMessageRepository.save(rawMessage);
-
-            // Download media to local storage if present
-            if (saved.getMediaUrl() != null && !saved.getMediaUrl().isBlank()) {
-                String localPath = mediaDownloadService.download(saved);
-                if (localPath != null) {
-                    saved.setMediaLocalPath(localPath);
-                    rawMessageRepository.save(saved);
-                }
-            }
-
-            return saved;
-        } catch (DataIntegrityViolationException e) {
-            log.debug("Duplicate message ignored: {}", msg.getId());
-            return null;
-        }
+        return rawMessage;
     }
 }
@@ -8,8 +8,11 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -20,9 +23,87 @@ public interface RawMessageRepository extends JpaRepository<RawMessage, UUID> {
 
     boolean existsByWhapiMsgId(String whapiMsgId);
 
+    /**
+     * Returns which of the given Whapi message ids are already archived, so a webhook
+     * batch is de-duplicated with one query.
+     */
+    @Query("SELECT m.whapiMsgId FROM RawMessage m WHERE m.whapiMsgId IN :whapiMsgIds")
+    List<String> findExistingWhapiMsgIds(@Param("whapiMsgIds") Collection<String> whapiMsgIds);
+
+    /** Links a message to its stored media blob. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RawMessage m SET m.mediaLocalPath = :path, m.mediaSha256 = :sha256 WHERE m.id = :id")
+    int linkMedia(@Param("id") UUID id, @Param("path") String path, @Param("sha256") String sha256);
+
+    // -------------------------------------------------------------------------
+    // Processing state
+    //
+    // The pipeline holds its copy of a message across the embedding and LLM calls,
+    // while media downloads link files to the same row. These updates touch only the
+    // processing columns, so a stale copy can never write old media columns back.
+    // -------------------------------------------------------------------------
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RawMessage m SET m.processed = true, m.processingError = null WHERE m.id = :id")
+    int markProcessed(@Param("id") UUID id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RawMessage m SET m.processingError = :error WHERE m.id = :id")
+    int recordProcessingError(@Param("id") UUID id, @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RawMessage m SET m.embedding = :embedding WHERE m.id = :id")
+    int storeEmbedding(@Param("id") UUID id, @Param("embedding") float[] embedding);
+
     @Query("SELECT m FROM RawMessage m WHERE m.group.id = :groupId ORDER BY m.timestampWa DESC")
     Page<RawMessage> findByGroupIdOrderByTimestampWaDesc(@Param("groupId") UUID groupId, Pageable pageable);
 
+    // -------------------------------------------------------------------------
+    // Keyset feed: timestampWa DESC, id DESC
+    //
+    // The redundant "timestampWa <= :timestamp" bound lets the planner start an
+    // index range scan at the cursor instead of filtering the OR row by row.
+    // -------------------------------------------------------------------------
+
+    /** First page of the all-groups replay feed; only the page size of {@code pageable} is used. */
+    @Query("SELECT m FROM RawMessage m ORDER BY m.timestampWa DESC, m.id DESC")
+    List<RawMessage> findFeed(Pageable pageable);
+
+    /** Messages of the all-groups replay feed strictly after the given sort key. */
+    @Query("SELECT m FROM RawMessage m " +
+           "WHERE m.timestampWa <= :timestamp " +
+           "AND (m.timestampWa < :timestamp OR (m.timestampWa = :timestamp AND m.id < :id)) " +
+           "ORDER BY m.timestampWa DESC, m.id DESC")
+    List<RawMessage> findFeedAfter(@Param("timestamp") OffsetDateTime timestamp,
+                                   @Param("id") UUID id,
+                                   Pageable pageable);
+
+    /** First page of one group's replay feed; only the page size of {@code pageable} is used. */
+    @Query("SELECT m FROM RawMessage m WHERE m.group.id = :groupId ORDER BY m.timestampWa DESC, m.id DESC")
+    List<RawMessage> findGroupFeed(@Param("groupId") UUID groupId, Pageable pageable);
+
+    /** Messages of one group's replay feed strictly after the given sort key. */
+    @Query("SELECT m FROM RawMessage m WHERE m.group.id = :groupId AND m.timestampWa <= :timestamp " +
+           "AND (m.timestampWa < :timestamp OR (m.timestampWa = :timestamp AND m.id < :id)) " +
+           "ORDER BY m.timestampWa DESC, m.id DESC")
+    List<RawMessage> findGroupFeedAfter(@Param("groupId") UUID groupId,
+                                        @Param("timestamp") OffsetDateTime timestamp,
+                                        @Param("id") UUID id,
+                                        Pageable pageable);
+
+    /** Counts messages, stopping after {@code limit} rows. */
+    @Query(value = "SELECT COUNT(*) FROM (SELECT 1 FROM raw_messages LIMIT :limit) t", nativeQuery = true)
+    long countUpTo(@Param("limit") int limit);
+
+    /** Counts one group's messages, stopping after {@code limit} rows. */
+    @Query(value = "SELECT COUNT(*) FROM (SELECT 1 FROM raw_messages WHERE group_id = :groupId LIMIT :limit) t",
+           nativeQuery = true)
+    long countByGroupIdUpTo(@Param("groupId") UUID groupId, @Param("limit") int limit);
+
     @Query("SELECT m FROM RawMessage m WHERE m.group.id = :groupId " +
            "AND (:senderName IS NULL OR LOWER(m.senderName) LIKE LOWER(CONCAT('%', :senderName, '%'))) " +
            "AND (:dateFrom IS NULL OR m.timestampWa >= :dateFrom) " +
@@ -51,12 +132,42 @@ public interface RawMessageRepository extends JpaRepository<RawMessage, UUID> {
 
     @Query("SELECT m FROM RawMessage m " +
            "WHERE (:textQuery IS NULL OR LOWER(m.messageBody) LIKE LOWER(CONCAT('%', :textQuery, '%'))) " +
+           "AND (:senderName IS NULL OR LOWER(m.senderName) LIKE LOWER(CONCAT('%', :senderName, '%'))) " +
+           "AND (:dateFrom IS NULL OR m.timestampWa >= :dateFrom) " +
+           "AND (:dateTo IS NULL OR m.timestampWa <= :dateTo) " +
            "ORDER BY m.timestampWa DESC")
-    Page<RawMessage> findByTextQuery(@Param("textQuery") String textQuery, Pageable pageable);
+    Page<RawMessage> findWithTextAndFilters(
+            @Param("textQuery") String textQuery,
+            @Param("senderName") String senderName,
+            @Param("dateFrom") OffsetDateTime dateFrom,
+            @Param("dateTo") OffsetDateTime dateTo,
+            Pageable pageable);
 
     @Query("SELECT m FROM RawMessage m WHERE m.processed = false ORDER BY m.receivedAt ASC")
     Page<RawMessage> findUnprocessed(Pageable pageable);
 
+    /**
+     * Locks and returns the oldest unprocessed message not locked by another
+     * transaction and not in {@code exclude}. The row lock is held until the caller's
+     * transaction ends, so parallel catch-up workers never process the same message.
+     * Messages with a leased job, a queued {@code live} job or a {@code catchup} job
+     * still backing off are left to the processing queue; a due {@code catchup} job
+     * (e.g. one the periodic sweep created) is taken over by the worker.
+     *
+     * @param exclude message IDs to skip (e.g. already failed in this run); must not be empty
+     * @param now     current time; {@code catchup} jobs available later are skipped
+     * @return zero or one message
+     */
+    @Query(value = "SELECT m.* FROM raw_messages m " +
+                   "WHERE m.processed = false AND m.id NOT IN (:exclude) " +
+                   "AND NOT EXISTS (SELECT 1 FROM processing_jobs j " +
+                   "WHERE j.message_id = m.id AND (j.status = 'leased' OR (j.status = 'queued' " +
+                   "AND (j.lane <> 'catchup' OR j.available_at > :now)))) " +
+                   "ORDER BY m.received_at ASC LIMIT 1 FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<RawMessage> claimNextUnprocessed(@Param("exclude") Collection<UUID> exclude,
+                                          @Param("now") OffsetDateTime now);
+
     @Query("SELECT COUNT(m) FROM RawMessage m WHERE m.processed = false")
     long countUnprocessed();
 
@@ -0,0 +1,114 @@
+package com.tradeintel.archive;
+
+import jakarta.persistence.EntityManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared plumbing for pgvector nearest-neighbour queries.
+ *
+ * <p>Reports whether the active data source can evaluate the pgvector distance
+ * functions ({@code cosine_distance}) contributed by {@code hibernate-vector}, which
+ * is only the case on PostgreSQL. Callers fall back to keyword matching otherwise
+ * (e.g. H2 in tests).</p>
+ *
+ * <p>Also owns the tuning knobs for the {@code ivfflat} indexes on
+ * {@code listings.embedding} and {@code raw_messages.embedding}:
+ * <ul>
+ *   <li>{@code app.search.semantic.ivfflat-probes} — number of inverted lists scanned
+ *       per query; higher improves recall at the cost of latency</li>
+ *   <li>{@code app.search.semantic.min-similarity} — cosine similarity below which a
+ *       neighbour is dropped from the results</li>
+ * </ul>
+ */
+@Component
+public class VectorSearchSupport {
+
+    private static final Logger log = LogManager.getLogger(VectorSearchSupport.class);
+
+    private final EntityManager entityManager;
+    private final int probes;
+    private final double minSimilarity;
+
+    private volatile Boolean available;
+
+    public VectorSearchSupport(EntityManager entityManager,
+                               @Value("${app.search.semantic.ivfflat-probes:10}") int probes,
+                               @Value("${app.search.semantic.min-similarity:0.3}") double minSimilarity) {
+        if (probes < 1) {
+            throw new IllegalArgumentException("app.search.semantic.ivfflat-probes must be >= 1");
+        }
+        if (minSimilarity < -1.0 || minSimilarity > 1.0) {
+            throw new IllegalArgumentException("app.search.semantic.min-similarity must be within [-1, 1]");
+        }
+        this.entityManager = entityManager;
+        this.probes = probes;
+        this.minSimilarity = minSimilarity;
+    }
+
+    /**
+     * Returns {@code true} when the underlying database supports pgvector distance
+     * operators. Resolved once from the Hibernate dialect and then cached.
+     */
+    public boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            result = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices()
+                    .getDialect() instanceof PostgreSQLDialect;
+            available = result;
+            log.info("pgvector semantic search {}", result ? "enabled" : "unavailable; using keyword fallback");
+        }
+        return result;
+    }
+
+    /**
+     * Applies {@code ivfflat.probes} to the current transaction only
+     * ({@code set_config(..., true)} is equivalent to {@code SET LOCAL}), so pooled
+     * connections never leak the setting. Must be called inside a transaction.
+     */
+    public void applyProbes() {
+        entityManager.createNativeQuery("SELECT set_config('ivfflat.probes', :probes, true)")
+                .setParameter("probes", Integer.toString(probes))
+                .getSingleResult();
+    }
+
+    /**
+     * Returns the largest cosine distance ({@code 1 - similarity}) a neighbour may have
+     * to be included in results.
+     */
+    public double maxCosineDistance() {
+        return 1.0 - minSimilarity;
+    }
+
+    /**
+     * Renders an embedding as a pgvector text literal ({@code [0.1,0.2,...]}) for use
+     * with {@code CAST(:param AS vector)} in native queries.
+     *
+     * @param embedding the vector; must not be null
+     * @return the literal form
+     */
+    public static String toVectorLiteral(float[] embedding) {
+        StringBuilder sb = new StringBuilder(embedding.length * 12 + 2).append('[');
+        for (int i = 0; i < embedding.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(embedding[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    public int getProbes() {
+        return probes;
+    }
+
+    public double getMinSimilarity() {
+        return minSimilarity;
+    }
+}
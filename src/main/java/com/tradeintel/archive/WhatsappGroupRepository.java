@@ -4,6 +4,7 @@ import com.tradeintel.common.entity.WhatsappGroup;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,5 +14,7 @@ public interface WhatsappGroupRepository extends JpaRepository<WhatsappGroup, UU
 
     Optional<WhatsappGroup> findByWhapiGroupId(String whapiGroupId);
 
+    List<WhatsappGroup> findByWhapiGroupIdIn(Collection<String> whapiGroupIds);
+
     List<WhatsappGroup> findByIsActiveTrueOrderByGroupNameAsc();
 }
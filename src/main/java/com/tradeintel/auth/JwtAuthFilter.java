@@ -15,8 +15,6 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Optional;
-import java.util.UUID;
 
 /**
  * Servlet filter that extracts a Bearer JWT from the {@code Authorization} header,
@@ -27,7 +25,8 @@ import java.util.UUID;
  * <ol>
  *   <li>Extract the raw token from the {@code Authorization: Bearer <token>} header.</li>
  *   <li>Delegate validation to {@link JwtTokenProvider}.</li>
- *   <li>Load the {@link User} from the database by the UUID encoded in the token subject.</li>
+ *   <li>Resolve the {@link UserPrincipal} for the token's user through {@link PrincipalCache},
+ *       which only reads the {@link User} from the database on a cache miss.</li>
  *   <li>Construct a {@link UsernamePasswordAuthenticationToken} and place it in the
  *       {@link SecurityContextHolder}.</li>
  * </ol>
@@ -42,11 +41,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private static final String BEARER_PREFIX = "Bearer ";
 
     private final JwtTokenProvider tokenProvider;
-    private final UserRepository   userRepository;
+    private final PrincipalCache   principalCache;
 
-    public JwtAuthFilter(JwtTokenProvider tokenProvider, UserRepository userRepository) {
+    public JwtAuthFilter(JwtTokenProvider tokenProvider, PrincipalCache principalCache) {
         this.tokenProvider  = tokenProvider;
-        this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -59,11 +58,10 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             String token = extractBearerToken(request);
 
             if (StringUtils.hasText(token) && tokenProvider.validateToken(token)) {
-                UUID userId = tokenProvider.getUserIdFromToken(token);
+                JwtTokenProvider.TokenIdentity identity = tokenProvider.getIdentityFromToken(token);
 
-                Optional<User> userOpt = userRepository.findById(userId);
-                if (userOpt.isPresent() && Boolean.TRUE.equals(userOpt.get().getIsActive())) {
-                    UserPrincipal principal = UserPrincipal.from(userOpt.get());
+                UserPrincipal principal = principalCache.get(identity);
+                if (principal != null) {
 
                     UsernamePasswordAuthenticationToken auth =
                             new UsernamePasswordAuthenticationToken(
@@ -76,7 +74,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                     SecurityContextHolder.getContext().setAuthentication(auth);
                 } else {
                     log.debug("JWT user {} not found or inactive — treating request as anonymous",
-                            userId);
+                            identity.userId());
                 }
             }
         } catch (Exception ex) {
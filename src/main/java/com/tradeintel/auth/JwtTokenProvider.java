@@ -21,6 +21,7 @@ import java.util.UUID;
  * <p>Token claims:
  * <ul>
  *   <li>{@code sub}   — user UUID</li>
+ *   <li>{@code jti}   — random token id</li>
  *   <li>{@code email} — user email</li>
  *   <li>{@code role}  — user role string (e.g. "admin")</li>
  *   <li>{@code iat}   — issued-at timestamp</li>
@@ -67,6 +68,7 @@ public class JwtTokenProvider {
 
         return Jwts.builder()
                 .subject(user.getId().toString())
+                .id(UUID.randomUUID().toString())
                 .claim(CLAIM_EMAIL, user.getEmail())
                 .claim(CLAIM_ROLE,  user.getRole().name())
                 .issuedAt(now)
@@ -111,6 +113,22 @@ public class JwtTokenProvider {
         return UUID.fromString(subject);
     }
 
+    /**
+     * Extracts the user UUID and token id, the key under which {@link PrincipalCache}
+     * keeps the token's principal. Tokens issued without a {@code jti} fall back to
+     * their issue time.
+     *
+     * @param token a valid compact JWT string
+     * @return the token's identity
+     */
+    public TokenIdentity getIdentityFromToken(String token) {
+        Claims claims = parseClaims(token);
+        String tokenId = claims.getId() != null
+                ? claims.getId()
+                : String.valueOf(claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L);
+        return new TokenIdentity(UUID.fromString(claims.getSubject()), tokenId);
+    }
+
     /**
      * Extracts the user email from the token's {@code email} claim.
      *
@@ -142,4 +160,17 @@ public class JwtTokenProvider {
                 .parseSignedClaims(token)
                 .getPayload();
     }
+
+    // -------------------------------------------------------------------------
+    // Token identity
+    // -------------------------------------------------------------------------
+
+    /**
+     * The user a token was issued to and the token's id.
+     *
+     * @param userId  the {@code sub} claim
+     * @param tokenId the {@code jti} claim, or the issue time for older tokens
+     */
+    public record TokenIdentity(UUID userId, String tokenId) {
+    }
 }
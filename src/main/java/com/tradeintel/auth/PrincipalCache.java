@@ -0,0 +1,116 @@
+package com.tradeintel.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tradeintel.common.entity.User;
+import com.tradeintel.common.event.UserAccessChangedEvent;
+import com.tradeintel.config.CacheConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the {@link UserPrincipal} built for a validated JWT, so that
+ * {@link JwtAuthFilter} and the STOMP CONNECT interceptor do not load the user from
+ * the database on every request.
+ *
+ * <p>Entries are keyed by user id and token id and live in the
+ * {@link CacheConfig#CACHE_PRINCIPALS} Caffeine cache, bounded by
+ * {@code app.cache.principals-max-entries} and expiring after
+ * {@code app.cache.principals-ttl-seconds}. Only active users are cached. When
+ * {@code UserManagementService} changes a role or active flag it publishes a
+ * {@link UserAccessChangedEvent}, and every entry of that user is evicted as soon as
+ * the change commits; the TTL only bounds staleness for edits made directly in the
+ * database.</p>
+ *
+ * <p>A load can race an eviction: the user is read before the change commits and
+ * the principal is put back after the eviction ran. Each user therefore has a
+ * generation, bumped on every eviction, that is read before the user is loaded and
+ * stored with the entry. An entry from an earlier generation is treated as a miss, so
+ * a principal loaded before an eviction is never served after it.</p>
+ */
+@Component
+public class PrincipalCache {
+
+    private static final Logger log = LogManager.getLogger(PrincipalCache.class);
+
+    private final UserRepository userRepository;
+    private final Cache<Object, Object> cache;
+
+    /** Eviction count per user; absent means zero. */
+    private final ConcurrentHashMap<UUID, Long> generations = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public PrincipalCache(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        CaffeineCache caffeineCache = (CaffeineCache) cacheManager.getCache(CacheConfig.CACHE_PRINCIPALS);
+        this.cache = caffeineCache.getNativeCache();
+    }
+
+    /**
+     * Returns the principal for a validated token, loading the user on a miss.
+     *
+     * @param identity user and token id read from the token
+     * @return the principal, or null if the user does not exist or is inactive
+     */
+    public UserPrincipal get(JwtTokenProvider.TokenIdentity identity) {
+        // Read before the user is loaded, so an eviction during the load outdates the entry
+        long generation = generations.getOrDefault(identity.userId(), 0L);
+        if (cache.getIfPresent(identity) instanceof CachedPrincipal cached && cached.generation() == generation) {
+            return cached.principal();
+        }
+        User user = userRepository.findById(identity.userId()).orElse(null);
+        if (user == null || !Boolean.TRUE.equals(user.getIsActive())) {
+            return null;
+        }
+        UserPrincipal principal = UserPrincipal.from(user);
+        cache.put(identity, new CachedPrincipal(principal, generation));
+        return principal;
+    }
+
+    /**
+     * Drops every cached principal of one user.
+     *
+     * @param userId the user whose role or active flag changed
+     */
+    public void invalidate(UUID userId) {
+        generations.merge(userId, 1L, Long::sum);
+        cache.asMap().keySet().removeIf(key ->
+                key instanceof JwtTokenProvider.TokenIdentity identity && identity.userId().equals(userId));
+        log.debug("Evicted cached principals for user {}", userId);
+    }
+
+    /** Evicts a user's principals after the role or active flag change commits. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAccessChanged(UserAccessChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    /**
+     * Returns hit/miss counters since startup for the admin processing stats.
+     *
+     * @return map with {@code hits}, {@code misses}, {@code hitRate}, {@code evictions} and {@code entries}
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictions", stats.evictionCount());
+        map.put("entries", cache.estimatedSize());
+        return map;
+    }
+
+    /** A cached principal and the user's generation when it was loaded. */
+    private record CachedPrincipal(UserPrincipal principal, long generation) {
+    }
+}
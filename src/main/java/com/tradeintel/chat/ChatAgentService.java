@@ -10,6 +10,7 @@ import com.tradeintel.chat.dto.ChatResponseDTO;
 import com.tradeintel.chat.tools.CreateNotificationTool;
 import com.tradeintel.chat.tools.GetListingDetailsTool;
 import com.tradeintel.chat.tools.MarketStatsTool;
+import com.tradeintel.chat.tools.PriceHistoryTool;
 import com.tradeintel.chat.tools.SearchListingsTool;
 import com.tradeintel.chat.tools.SearchMessagesTool;
 import com.tradeintel.common.entity.ChatMessage;
@@ -69,6 +70,7 @@ public class ChatAgentService {
     private final MarketStatsTool marketStatsTool;
     private final CreateNotificationTool createNotificationTool;
     private final GetListingDetailsTool getListingDetailsTool;
+    private final PriceHistoryTool priceHistoryTool;
     private final ObjectMapper objectMapper;
     private final String chatModel;
     private final String systemPrompt;
@@ -82,6 +84,7 @@ public class ChatAgentService {
                             MarketStatsTool marketStatsTool,
                             CreateNotificationTool createNotificationTool,
                             GetListingDetailsTool getListingDetailsTool,
+                            PriceHistoryTool priceHistoryTool,
                             ObjectMapper objectMapper,
                             @Value("${app.openai.chat-model}") String chatModel) {
         this.sessionRepository = sessionRepository;
@@ -93,6 +96,7 @@ public class ChatAgentService {
         this.marketStatsTool = marketStatsTool;
         this.createNotificationTool = createNotificationTool;
         this.getListingDetailsTool = getListingDetailsTool;
+        this.priceHistoryTool = priceHistoryTool;
         this.objectMapper = objectMapper;
         this.chatModel = chatModel;
         this.systemPrompt = loadSystemPrompt();
@@ -308,6 +312,7 @@ public class ChatAgentService {
             case "market_stats" -> marketStatsTool.execute(params);
             case "create_notification" -> createNotificationTool.execute(params, user);
             case "get_listing_details" -> getListingDetailsTool.execute(params);
+            case "price_history" -> priceHistoryTool.execute(params);
             default -> {
                 log.warn("Unknown tool requested: {}", toolName);
                 yield "{\"error\": \"Unknown tool: " + toolName + "\"}";
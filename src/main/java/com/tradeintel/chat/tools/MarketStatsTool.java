@@ -4,7 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.tradeintel.common.entity.IntentType;
 import com.tradeintel.common.entity.ListingStatus;
-import com.tradeintel.listing.ListingRepository;
+import com.tradeintel.listing.ListingStatsService;
+import com.tradeintel.listing.ListingStatsSnapshot;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.stereotype.Component;
@@ -14,19 +15,24 @@ import java.util.Map;
 /**
  * Chat tool that returns aggregate market statistics about listings.
  *
- * <p>Provides counts by intent (sell/want), by status, and total active
- * listings. Useful for giving the user an overview of market activity.</p>
+ * <p>Provides counts by intent (sell/want), by status, total active listings,
+ * and the top manufacturers, categories and groups by active listings, all from
+ * one read of the materialized counters. Useful for giving the user an overview
+ * of market activity.</p>
  */
 @Component
 public class MarketStatsTool {
 
     private static final Logger log = LogManager.getLogger(MarketStatsTool.class);
 
-    private final ListingRepository listingRepository;
+    /** Entries per manufacturer/category/group breakdown. */
+    private static final int TOP_LIMIT = 10;
+
+    private final ListingStatsService listingStatsService;
     private final ObjectMapper objectMapper;
 
-    public MarketStatsTool(ListingRepository listingRepository, ObjectMapper objectMapper) {
-        this.listingRepository = listingRepository;
+    public MarketStatsTool(ListingStatsService listingStatsService, ObjectMapper objectMapper) {
+        this.listingStatsService = listingStatsService;
         this.objectMapper = objectMapper;
     }
 
@@ -38,15 +44,17 @@ public class MarketStatsTool {
      */
     public String execute(Map<String, Object> params) {
         try {
-            long sellCount = listingRepository.countByIntent(IntentType.sell);
-            long wantCount = listingRepository.countByIntent(IntentType.want);
-            long unknownCount = listingRepository.countByIntent(IntentType.unknown);
+            ListingStatsSnapshot snapshot = listingStatsService.snapshot();
+
+            long sellCount = snapshot.countByIntent(IntentType.sell);
+            long wantCount = snapshot.countByIntent(IntentType.want);
+            long unknownCount = snapshot.countByIntent(IntentType.unknown);
 
-            long activeCount = listingRepository.countByStatusAndNotDeleted(ListingStatus.active);
-            long expiredCount = listingRepository.countByStatus(ListingStatus.expired);
-            long pendingReviewCount = listingRepository.countByStatus(ListingStatus.pending_review);
+            long activeCount = snapshot.countByStatusNotDeleted(ListingStatus.active);
+            long expiredCount = snapshot.countByStatus(ListingStatus.expired);
+            long pendingReviewCount = snapshot.countByStatus(ListingStatus.pending_review);
 
-            long totalListings = listingRepository.count();
+            long totalListings = snapshot.total();
 
             ObjectNode stats = objectMapper.createObjectNode();
             stats.put("totalListings", totalListings);
@@ -62,6 +70,10 @@ public class MarketStatsTool {
             byStatus.put("expired", expiredCount);
             byStatus.put("pending_review", pendingReviewCount);
 
+            putTop(stats, "topManufacturers", snapshot.activeByManufacturer());
+            putTop(stats, "topCategories", snapshot.activeByCategory());
+            putTop(stats, "topGroups", snapshot.activeByGroup());
+
             String json = objectMapper.writeValueAsString(stats);
             log.info("MarketStatsTool: total={}, active={}, sell={}, want={}",
                     totalListings, activeCount, sellCount, wantCount);
@@ -72,4 +84,9 @@ public class MarketStatsTool {
             return "{\"error\": \"Failed to retrieve market stats: " + e.getMessage() + "\"}";
         }
     }
+
+    private static void putTop(ObjectNode stats, String field, Map<String, Long> breakdown) {
+        ObjectNode node = stats.putObject(field);
+        ListingStatsSnapshot.top(breakdown, TOP_LIMIT).forEach(node::put);
+    }
 }
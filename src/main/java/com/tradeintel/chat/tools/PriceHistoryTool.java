@@ -0,0 +1,97 @@
+package com.tradeintel.chat.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradeintel.common.entity.Manufacturer;
+import com.tradeintel.listing.PriceHistoryService;
+import com.tradeintel.listing.dto.PriceHistoryDTO;
+import com.tradeintel.normalize.ManufacturerRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Chat tool that returns the price trend of a watch reference or model.
+ *
+ * <p>Reads the precomputed daily price aggregates through {@link PriceHistoryService},
+ * so questions like "how has the 126610LN traded over the last six months" are
+ * answered without scanning listings. Defaults to monthly points over six months.</p>
+ */
+@Component
+public class PriceHistoryTool {
+
+    private static final Logger log = LogManager.getLogger(PriceHistoryTool.class);
+
+    private static final int DEFAULT_MONTHS = 6;
+    private static final int MAX_MONTHS = 36;
+
+    private final PriceHistoryService priceHistoryService;
+    private final ManufacturerRepository manufacturerRepository;
+    private final ObjectMapper objectMapper;
+
+    public PriceHistoryTool(PriceHistoryService priceHistoryService,
+                            ManufacturerRepository manufacturerRepository,
+                            ObjectMapper objectMapper) {
+        this.priceHistoryService = priceHistoryService;
+        this.manufacturerRepository = manufacturerRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Executes the price_history tool with the given parameters.
+     *
+     * @param params map with "partNumber" and/or "model", and optional "manufacturer"
+     *               (name or alias), "currency", "months" and "granularity"
+     * @return JSON string with the price series, or an error message
+     */
+    public String execute(Map<String, Object> params) {
+        try {
+            String partNumber = stringParam(params, "partNumber");
+            String model = stringParam(params, "model");
+            if (partNumber == null && model == null) {
+                return "{\"error\": \"Provide partNumber or model\"}";
+            }
+
+            UUID manufacturerId = null;
+            String manufacturerName = stringParam(params, "manufacturer");
+            if (manufacturerName != null) {
+                Optional<Manufacturer> manufacturer = manufacturerRepository.findByNameIgnoreCase(manufacturerName)
+                        .or(() -> manufacturerRepository.findByAliasIgnoreCase(manufacturerName));
+                if (manufacturer.isEmpty()) {
+                    return "{\"error\": \"Unknown manufacturer: " + manufacturerName + "\"}";
+                }
+                manufacturerId = manufacturer.get().getId();
+            }
+
+            int months = DEFAULT_MONTHS;
+            if (params.get("months") != null) {
+                months = Math.max(1, Math.min(MAX_MONTHS, Integer.parseInt(params.get("months").toString())));
+            }
+            String granularity = stringParam(params, "granularity");
+
+            LocalDate to = LocalDate.now();
+            PriceHistoryDTO history = priceHistoryService.getHistory(partNumber, model, manufacturerId,
+                    stringParam(params, "currency"), to.minusMonths(months), to,
+                    granularity != null ? granularity : "month");
+
+            log.info("PriceHistoryTool: partNumber={}, model={}, months={}, points={}",
+                    partNumber, model, months, history.getPoints().size());
+            return objectMapper.writeValueAsString(history);
+
+        } catch (IllegalArgumentException e) {
+            return "{\"error\": \"" + e.getMessage() + "\"}";
+        } catch (Exception e) {
+            log.error("PriceHistoryTool failed", e);
+            return "{\"error\": \"Failed to retrieve price history: " + e.getMessage() + "\"}";
+        }
+    }
+
+    private static String stringParam(Map<String, Object> params, String name) {
+        Object value = params.get(name);
+        return value != null && !value.toString().isBlank() ? value.toString().trim() : null;
+    }
+}
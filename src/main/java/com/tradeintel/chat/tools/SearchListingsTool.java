@@ -4,16 +4,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.tradeintel.common.entity.IntentType;
-import com.tradeintel.common.entity.Listing;
-import com.tradeintel.listing.ListingRepository;
+import com.tradeintel.listing.ListingReadRepository;
 import com.tradeintel.listing.ListingSpecification;
+import com.tradeintel.listing.dto.ListingDTO;
 import com.tradeintel.listing.dto.ListingSearchRequest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,11 +29,11 @@ public class SearchListingsTool {
     private static final Logger log = LogManager.getLogger(SearchListingsTool.class);
     private static final int MAX_RESULTS = 10;
 
-    private final ListingRepository listingRepository;
+    private final ListingReadRepository listingReadRepository;
     private final ObjectMapper objectMapper;
 
-    public SearchListingsTool(ListingRepository listingRepository, ObjectMapper objectMapper) {
-        this.listingRepository = listingRepository;
+    public SearchListingsTool(ListingReadRepository listingReadRepository, ObjectMapper objectMapper) {
+        this.listingReadRepository = listingReadRepository;
         this.objectMapper = objectMapper;
     }
 
@@ -68,12 +68,11 @@ public class SearchListingsTool {
                 searchRequest.setPriceMax(new java.math.BigDecimal(params.get("priceMax").toString()));
             }
 
-            Page<Listing> results = listingRepository.findAll(
-                    ListingSpecification.from(searchRequest),
-                    PageRequest.of(0, MAX_RESULTS));
+            List<ListingDTO> results = listingReadRepository.find(
+                    ListingSpecification.from(searchRequest), Sort.unsorted(), 0, MAX_RESULTS);
 
             ArrayNode resultsArray = objectMapper.createArrayNode();
-            for (Listing listing : results.getContent()) {
+            for (ListingDTO listing : results) {
                 ObjectNode node = resultsArray.addObject();
                 node.put("id", listing.getId().toString());
                 node.put("description", listing.getItemDescription());
@@ -84,11 +83,11 @@ public class SearchListingsTool {
                     node.put("price", listing.getPrice().doubleValue());
                     node.put("currency", listing.getPriceCurrency());
                 }
-                if (listing.getManufacturer() != null) {
-                    node.put("manufacturer", listing.getManufacturer().getName());
+                if (listing.getManufacturerName() != null) {
+                    node.put("manufacturer", listing.getManufacturerName());
                 }
-                if (listing.getItemCategory() != null) {
-                    node.put("category", listing.getItemCategory().getName());
+                if (listing.getItemCategoryName() != null) {
+                    node.put("category", listing.getItemCategoryName());
                 }
                 if (listing.getPartNumber() != null) {
                     node.put("partNumber", listing.getPartNumber());
@@ -99,7 +98,7 @@ public class SearchListingsTool {
             }
 
             String json = objectMapper.writeValueAsString(resultsArray);
-            log.info("SearchListingsTool returned {} results for params={}", results.getNumberOfElements(), params);
+            log.info("SearchListingsTool returned {} results for params={}", results.size(), params);
             return json;
 
         } catch (Exception e) {
@@ -0,0 +1,113 @@
+package com.tradeintel.common.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.OffsetDateTime;
+
+/**
+ * A persisted OpenAI embedding, keyed by the SHA-256 of the embedding model name
+ * and the normalized input text.
+ *
+ * <p>Second tier of the {@code EmbeddingService} cache: forwarded and cross-posted
+ * messages, and repeated listing descriptions, resolve here instead of calling the
+ * embeddings API again. The vector is stored as packed little-endian float32 bytes
+ * rather than {@code vector(1536)} since it is never searched, only read back.</p>
+ *
+ * Maps to the {@code embedding_cache} table.
+ */
+@Entity
+@Table(name = "embedding_cache")
+public class EmbeddingCacheEntry {
+
+    /** Hex SHA-256 of {@code model + "\n" + normalizedText}. */
+    @Id
+    @Column(name = "content_hash", length = 64, updatable = false, nullable = false)
+    private String contentHash;
+
+    @Column(name = "model", nullable = false, length = 100)
+    private String model;
+
+    @Column(name = "dimensions", nullable = false)
+    private Integer dimensions;
+
+    @Column(name = "vector", nullable = false)
+    private byte[] vector;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    public EmbeddingCacheEntry() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Vector encoding
+    // -------------------------------------------------------------------------
+
+    /**
+     * Packs an embedding into the little-endian float32 layout stored in {@code vector}.
+     *
+     * @param embedding the embedding; must not be null
+     * @return the packed bytes
+     */
+    public static byte[] encode(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(embedding);
+        return buffer.array();
+    }
+
+    /** Unpacks {@link #getVector()} into a float array. */
+    public float[] toEmbedding() {
+        float[] embedding = new float[vector.length / Float.BYTES];
+        ByteBuffer.wrap(vector).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(embedding);
+        return embedding;
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public Integer getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(Integer dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public byte[] getVector() {
+        return vector;
+    }
+
+    public void setVector(byte[] vector) {
+        this.vector = vector;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,135 @@
+package com.tradeintel.common.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * The USD value of one unit of a currency on one business day.
+ *
+ * <p>Rows are written by the {@code ExchangeRateService} daily prefetch, which pulls a
+ * whole day's (or range of days') rates in one request, and are never updated
+ * afterwards. Lookups for weekends and holidays use the nearest prior
+ * {@code rate_date}.</p>
+ *
+ * Maps to the {@code exchange_rates} table.
+ */
+@Entity
+@Table(name = "exchange_rates")
+@IdClass(ExchangeRate.Key.class)
+public class ExchangeRate {
+
+    @Id
+    @Column(name = "rate_date", updatable = false, nullable = false)
+    private LocalDate rateDate;
+
+    /** ISO 4217 code, upper case. */
+    @Id
+    @Column(name = "currency", length = 3, updatable = false, nullable = false)
+    private String currency;
+
+    /** Such that {@code 1 currency * rateToUsd = X USD}. */
+    @Column(name = "rate_to_usd", nullable = false, precision = 19, scale = 10)
+    private BigDecimal rateToUsd;
+
+    /** Name of the rate source that supplied the row (e.g. {@code frankfurter}). */
+    @Column(name = "source", nullable = false, length = 32)
+    private String source;
+
+    @Column(name = "fetched_at", insertable = false, updatable = false)
+    private OffsetDateTime fetchedAt;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    public ExchangeRate() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    public LocalDate getRateDate() {
+        return rateDate;
+    }
+
+    public void setRateDate(LocalDate rateDate) {
+        this.rateDate = rateDate;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public BigDecimal getRateToUsd() {
+        return rateToUsd;
+    }
+
+    public void setRateToUsd(BigDecimal rateToUsd) {
+        this.rateToUsd = rateToUsd;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public OffsetDateTime getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public void setFetchedAt(OffsetDateTime fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+
+    // -------------------------------------------------------------------------
+    // Composite key
+    // -------------------------------------------------------------------------
+
+    /** Primary key: {@code (rate_date, currency)}. */
+    public static class Key implements Serializable {
+
+        private LocalDate rateDate;
+        private String currency;
+
+        public Key() {
+        }
+
+        public Key(LocalDate rateDate, String currency) {
+            this.rateDate = rateDate;
+            this.currency = currency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(rateDate, other.rateDate) && Objects.equals(currency, other.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(rateDate, currency);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.tradeintel.common.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A memoized LLM extraction result, keyed by the prompt-inputs version and the
+ * jargon-expanded message text.
+ *
+ * <p>Lets the processing pipeline skip the LLM call for forwarded and cross-posted
+ * messages whose text has already been extracted under the same categories,
+ * manufacturers, jargon and conditions dictionaries.</p>
+ *
+ * Maps to the {@code extraction_cache} table.
+ */
+@Entity
+@Table(name = "extraction_cache")
+public class ExtractionCacheEntry {
+
+    /** Hex SHA-256 of {@code promptVersion + expandedText}. */
+    @Id
+    @Column(name = "cache_key", length = 64, updatable = false, nullable = false)
+    private String cacheKey;
+
+    /** Fingerprint of the prompt inputs the result was produced with. */
+    @Column(name = "prompt_version", nullable = false, length = 64)
+    private String promptVersion;
+
+    /** The extraction result serialized as JSON (LLM schema, no cost fields). */
+    @Column(name = "result_json", nullable = false, columnDefinition = "text")
+    private String resultJson;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    public ExtractionCacheEntry() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getPromptVersion() {
+        return promptVersion;
+    }
+
+    public void setPromptVersion(String promptVersion) {
+        this.promptVersion = promptVersion;
+    }
+
+    public String getResultJson() {
+        return resultJson;
+    }
+
+    public void setResultJson(String resultJson) {
+        this.resultJson = resultJson;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
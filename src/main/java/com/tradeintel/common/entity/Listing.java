@@ -197,6 +197,15 @@ public class Listing {
     @Column(name = "buyer_name")
     private String buyerName;
 
+    // Cross-posts --------------------------------------------------------------
+
+    /**
+     * Cross-post cluster; written only by {@code CrossPostTracker} and
+     * {@code CrossPostClusterService}, never through the entity.
+     */
+    @Column(name = "cross_post_cluster_id", insertable = false, updatable = false)
+    private UUID crossPostClusterId;
+
     // Soft delete --------------------------------------------------------------
 
     /** Soft-delete timestamp; null means the listing is not deleted. */
@@ -530,4 +539,8 @@ public class Listing {
     public void setBuyerName(String buyerName) {
         this.buyerName = buyerName;
     }
+
+    public UUID getCrossPostClusterId() {
+        return crossPostClusterId;
+    }
 }
@@ -0,0 +1,100 @@
+package com.tradeintel.common.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Number of listings sharing one combination of status, intent, soft-delete flag,
+ * group, manufacturer and category.
+ *
+ * <p>Maintained incrementally by {@code ListingStatsTracker} and read whole by
+ * {@code ListingStatsService}, so listing statistics never count the {@code listings}
+ * table itself.</p>
+ *
+ * Maps to the {@code listing_stat_counters} table.
+ */
+@Entity
+@Table(name = "listing_stat_counters")
+public class ListingStatCounter {
+
+    /** {@code status|intent|deleted|groupId|manufacturerId|categoryId}; see {@code ListingStatsKey}. */
+    @Id
+    @Column(name = "dims_key", length = 200, updatable = false, nullable = false)
+    private String dimsKey;
+
+    @Column(name = "status", nullable = false, updatable = false)
+    private String status;
+
+    @Column(name = "intent", nullable = false, updatable = false)
+    private String intent;
+
+    @Column(name = "deleted", nullable = false, updatable = false)
+    private Boolean deleted;
+
+    @Column(name = "group_id", updatable = false)
+    private UUID groupId;
+
+    @Column(name = "manufacturer_id", updatable = false)
+    private UUID manufacturerId;
+
+    @Column(name = "category_id", updatable = false)
+    private UUID categoryId;
+
+    @Column(name = "listing_count", nullable = false)
+    private Long listingCount = 0L;
+
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private OffsetDateTime updatedAt;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    public ListingStatCounter() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters
+    // -------------------------------------------------------------------------
+
+    public String getDimsKey() {
+        return dimsKey;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getIntent() {
+        return intent;
+    }
+
+    public Boolean getDeleted() {
+        return deleted;
+    }
+
+    public UUID getGroupId() {
+        return groupId;
+    }
+
+    public UUID getManufacturerId() {
+        return manufacturerId;
+    }
+
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+
+    public Long getListingCount() {
+        return listingCount;
+    }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
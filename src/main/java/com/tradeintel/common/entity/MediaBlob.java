@@ -0,0 +1,126 @@
+package com.tradeintel.common.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One distinct media file in the content-addressed store, keyed by the SHA-256 of its
+ * bytes.
+ *
+ * <p>Messages carrying the same file (typically an image forwarded into several groups)
+ * all point at one blob through {@code raw_messages.media_sha256}; {@code refCount}
+ * counts them. Paths are relative to {@code app.media.storage-dir}.</p>
+ *
+ * Maps to the {@code media_blobs} table.
+ */
+@Entity
+@Table(name = "media_blobs")
+public class MediaBlob {
+
+    @Id
+    @Column(name = "sha256", updatable = false, nullable = false)
+    private String sha256;
+
+    /** MIME type reported when the blob was first downloaded. */
+    @Column(name = "mime_type")
+    private String mimeType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "storage_path", nullable = false, columnDefinition = "text")
+    private String storagePath;
+
+    /** Downscaled JPEG preview; null for non-images and images already thumbnail-sized. */
+    @Column(name = "thumbnail_path", columnDefinition = "text")
+    private String thumbnailPath;
+
+    /** Number of raw messages linked to this blob. */
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 0;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "last_referenced_at", nullable = false)
+    private OffsetDateTime lastReferencedAt;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    public MediaBlob() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public Long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(Long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public void setStoragePath(String storagePath) {
+        this.storagePath = storagePath;
+    }
+
+    public String getThumbnailPath() {
+        return thumbnailPath;
+    }
+
+    public void setThumbnailPath(String thumbnailPath) {
+        this.thumbnailPath = thumbnailPath;
+    }
+
+    public Integer getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(Integer refCount) {
+        this.refCount = refCount;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(OffsetDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public OffsetDateTime getLastReferencedAt() {
+        return lastReferencedAt;
+    }
+
+    public void setLastReferencedAt(OffsetDateTime lastReferencedAt) {
+        this.lastReferencedAt = lastReferencedAt;
+    }
+}
@@ -0,0 +1,157 @@
+package com.tradeintel.common.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A queued media download: the media of one archived raw message that has not been
+ * stored locally yet.
+ *
+ * <p>Rows are keyed by the message ID, so a message's media is queued at most once.
+ * They are claimed by media download workers and deleted once the file is stored.
+ * Downloads that keep failing end up in {@code failed} for inspection.</p>
+ *
+ * Maps to the {@code media_downloads} table.
+ */
+@Entity
+@Table(name = "media_downloads")
+public class MediaDownload {
+
+    @Id
+    @Column(name = "message_id", updatable = false, nullable = false)
+    private UUID messageId;
+
+    /**
+     * Queue state. One of: {@code pending}, {@code downloading}, {@code failed}.
+     * Enforced by a CHECK constraint in the Flyway migration.
+     */
+    @Column(name = "status", nullable = false)
+    private String status = "pending";
+
+    /** Number of attempts that ended in failure. */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    /** Earliest time the download may be claimed (pushed back after a failed attempt). */
+    @Column(name = "next_attempt_at", nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    /** Bytes in the partial file after the most recent attempt; the next one resumes there. */
+    @Column(name = "bytes_downloaded", nullable = false)
+    private Long bytesDownloaded = 0L;
+
+    /** Error message of the most recent failed attempt. */
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    /** Token of the claim holding a {@code downloading} row; guards every write of that attempt. */
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    /** When the worker's claim on a {@code downloading} row lapses unless renewed. */
+    @Column(name = "lease_expires_at")
+    private OffsetDateTime leaseExpiresAt;
+
+    /** Strong ETag or Last-Modified of the response the partial file came from; sent as {@code If-Range}. */
+    @Column(name = "resume_validator", length = 512)
+    private String resumeValidator;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    public MediaDownload() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    public UUID getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(UUID messageId) {
+        this.messageId = messageId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public OffsetDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(OffsetDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Long getBytesDownloaded() {
+        return bytesDownloaded;
+    }
+
+    public void setBytesDownloaded(Long bytesDownloaded) {
+        this.bytesDownloaded = bytesDownloaded;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(OffsetDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public OffsetDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(OffsetDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public String getResumeValidator() {
+        return resumeValidator;
+    }
+
+    public void setResumeValidator(String resumeValidator) {
+        this.resumeValidator = resumeValidator;
+    }
+}
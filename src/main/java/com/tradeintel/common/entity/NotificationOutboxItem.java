@@ -0,0 +1,176 @@
+package com.tradeintel.common.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A queued notification email for one (rule, listing) match.
+ *
+ * <p>Rows are written by the notification dispatcher while the processing pipeline
+ * runs and delivered later by the notification delivery worker, which groups all due
+ * rows for the same recipient into a single digest email.</p>
+ *
+ * Maps to the {@code notification_outbox} table.
+ */
+@Entity
+@Table(name = "notification_outbox")
+public class NotificationOutboxItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    /** The rule that matched. */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "rule_id", nullable = false)
+    private NotificationRule rule;
+
+    /** The listing that matched the rule. */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "listing_id", nullable = false)
+    private Listing listing;
+
+    /** Resolved email address: the rule's notify email, or the owner's account email. */
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    /**
+     * Delivery state. One of: {@code pending}, {@code sending}, {@code sent}, {@code failed}.
+     * Enforced by a CHECK constraint in the Flyway migration.
+     */
+    @Column(name = "status", nullable = false)
+    private String status = "pending";
+
+    /** Number of send attempts made so far. */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    /** Earliest time the next send attempt may be made (pushed back on failure). */
+    @Column(name = "next_attempt_at", nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    /** Error message of the most recent failed attempt. */
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+
+    /** Enqueue time, set by the dispatcher; the digest window is measured from the oldest one. */
+    @Column(name = "created_at", updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private OffsetDateTime sentAt;
+
+    /** When a delivery worker moved the row to {@code sending}; cleared when it leaves that state. */
+    @Column(name = "claimed_at")
+    private OffsetDateTime claimedAt;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    public NotificationOutboxItem() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public NotificationRule getRule() {
+        return rule;
+    }
+
+    public void setRule(NotificationRule rule) {
+        this.rule = rule;
+    }
+
+    public Listing getListing() {
+        return listing;
+    }
+
+    public void setListing(Listing listing) {
+        this.listing = listing;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public OffsetDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(OffsetDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(OffsetDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public OffsetDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(OffsetDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    public OffsetDateTime getClaimedAt() {
+        return claimedAt;
+    }
+
+    public void setClaimedAt(OffsetDateTime claimedAt) {
+        this.claimedAt = claimedAt;
+    }
+}
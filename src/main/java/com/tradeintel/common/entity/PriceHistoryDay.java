@@ -0,0 +1,126 @@
+package com.tradeintel.common.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Price aggregate of one day's sell listings for a manufacturer, part number and
+ * currency.
+ *
+ * <p>Recomputed by {@code PriceHistoryTracker} whenever a transaction touches one of
+ * the bucket's listings, and read by {@code PriceHistoryService} for price-trend
+ * queries. Rows whose listings have all gone keep a {@code listingCount} of zero.</p>
+ *
+ * Maps to the {@code price_history_daily} table.
+ */
+@Entity
+@Table(name = "price_history_daily")
+public class PriceHistoryDay {
+
+    /** {@code manufacturerId|PART_NUMBER|currency|date}; see {@code PriceHistoryKey}. */
+    @Id
+    @Column(name = "bucket_key", length = 320, updatable = false, nullable = false)
+    private String bucketKey;
+
+    @Column(name = "manufacturer_id", updatable = false)
+    private UUID manufacturerId;
+
+    /** Trimmed, upper-cased part number. */
+    @Column(name = "part_number", nullable = false, updatable = false)
+    private String partNumber;
+
+    @Column(name = "currency", nullable = false, updatable = false)
+    private String currency;
+
+    /** UTC day the listings were created. */
+    @Column(name = "price_date", nullable = false, updatable = false)
+    private LocalDate priceDate;
+
+    /** Model name of the bucket's most recent listing that has one. */
+    @Column(name = "model_name")
+    private String modelName;
+
+    @Column(name = "listing_count", nullable = false)
+    private Integer listingCount = 0;
+
+    @Column(name = "sold_count", nullable = false)
+    private Integer soldCount = 0;
+
+    @Column(name = "min_price", precision = 19, scale = 4)
+    private BigDecimal minPrice;
+
+    @Column(name = "max_price", precision = 19, scale = 4)
+    private BigDecimal maxPrice;
+
+    @Column(name = "median_price", precision = 19, scale = 4)
+    private BigDecimal medianPrice;
+
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private OffsetDateTime updatedAt;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    public PriceHistoryDay() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters
+    // -------------------------------------------------------------------------
+
+    public String getBucketKey() {
+        return bucketKey;
+    }
+
+    public UUID getManufacturerId() {
+        return manufacturerId;
+    }
+
+    public String getPartNumber() {
+        return partNumber;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public LocalDate getPriceDate() {
+        return priceDate;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public Integer getListingCount() {
+        return listingCount;
+    }
+
+    public Integer getSoldCount() {
+        return soldCount;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public BigDecimal getMedianPrice() {
+        return medianPrice;
+    }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,150 @@
+package com.tradeintel.common.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A queued unit of work for the message processing pipeline: one raw message
+ * awaiting extraction.
+ *
+ * <p>Rows are keyed by the message ID, so a message can be queued at most once.
+ * They are leased by processing queue workers, kept alive by a heartbeat while the
+ * pipeline runs, and deleted once the message has been processed. Messages that
+ * keep failing end up in {@code failed} for inspection.</p>
+ *
+ * Maps to the {@code processing_jobs} table.
+ */
+@Entity
+@Table(name = "processing_jobs")
+public class ProcessingJob {
+
+    @Id
+    @Column(name = "message_id", updatable = false, nullable = false)
+    private UUID messageId;
+
+    /**
+     * Priority lane. One of: {@code live} (webhook traffic, always served first) or
+     * {@code catchup} (backlog sweeps). Enforced by a CHECK constraint in the Flyway migration.
+     */
+    @Column(name = "lane", nullable = false)
+    private String lane = "live";
+
+    /**
+     * Queue state. One of: {@code queued}, {@code leased}, {@code failed}.
+     * Enforced by a CHECK constraint in the Flyway migration.
+     */
+    @Column(name = "status", nullable = false)
+    private String status = "queued";
+
+    /** Number of leases taken so far, including the current one. */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    /** Earliest time the job may be leased (pushed back after a failed attempt). */
+    @Column(name = "available_at", nullable = false)
+    private OffsetDateTime availableAt;
+
+    /** Worker instance holding the lease, while {@code leased}. */
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    /** Lease deadline; extended by the owner's heartbeat, reclaimed once passed. */
+    @Column(name = "lease_expires_at")
+    private OffsetDateTime leaseExpiresAt;
+
+    /** Error message of the most recent failed attempt. */
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+
+    /** Time the message entered the queue; used for the queue lag metric. */
+    @Column(name = "enqueued_at", nullable = false, updatable = false)
+    private OffsetDateTime enqueuedAt;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    public ProcessingJob() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    public UUID getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(UUID messageId) {
+        this.messageId = messageId;
+    }
+
+    public String getLane() {
+        return lane;
+    }
+
+    public void setLane(String lane) {
+        this.lane = lane;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public OffsetDateTime getAvailableAt() {
+        return availableAt;
+    }
+
+    public void setAvailableAt(OffsetDateTime availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public OffsetDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(OffsetDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public OffsetDateTime getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    public void setEnqueuedAt(OffsetDateTime enqueuedAt) {
+        this.enqueuedAt = enqueuedAt;
+    }
+}
@@ -74,6 +74,13 @@ public class RawMessage {
     @Column(name = "media_local_path")
     private String mediaLocalPath;
 
+    /**
+     * SHA-256 of the stored media; references the shared copy in {@code media_blobs}.
+     * Null until the media is downloaded, and for media stored before the blob store.
+     */
+    @Column(name = "media_sha256")
+    private String mediaSha256;
+
     /** Whapi message ID of the message this one quotes/replies to, if any. */
     @Column(name = "reply_to_msg_id")
     private String replyToMsgId;
@@ -222,6 +229,14 @@ public class RawMessage {
         this.mediaLocalPath = mediaLocalPath;
     }
 
+    public String getMediaSha256() {
+        return mediaSha256;
+    }
+
+    public void setMediaSha256(String mediaSha256) {
+        this.mediaSha256 = mediaSha256;
+    }
+
     public String getReplyToMsgId() {
         return replyToMsgId;
     }
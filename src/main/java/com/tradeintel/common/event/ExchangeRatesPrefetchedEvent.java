@@ -0,0 +1,26 @@
+package com.tradeintel.common.event;
+
+import java.time.LocalDate;
+
+/**
+ * Published by {@code ExchangeRateService} after a prefetch stored new rates, so that
+ * listings priced before those rates existed can be backfilled.
+ */
+public class ExchangeRatesPrefetchedEvent {
+
+    private final LocalDate from;
+    private final LocalDate to;
+
+    public ExchangeRatesPrefetchedEvent(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+}
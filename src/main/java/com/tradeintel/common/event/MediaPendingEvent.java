@@ -0,0 +1,21 @@
+package com.tradeintel.common.event;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published when archived messages carry media that still has to be downloaded, so the
+ * download runs after the archiving transaction commits instead of inside it.
+ */
+public class MediaPendingEvent {
+
+    private final List<UUID> messageIds;
+
+    public MediaPendingEvent(List<UUID> messageIds) {
+        this.messageIds = messageIds;
+    }
+
+    public List<UUID> getMessageIds() {
+        return messageIds;
+    }
+}
@@ -2,6 +2,10 @@ package com.tradeintel.common.event;
 
 import java.util.UUID;
 
+/**
+ * Published by {@code MessageArchiveService} inside the transaction that archives a
+ * new raw message; the processing queue turns it into a {@code live} job before commit.
+ */
 public class NewMessageEvent {
 
     private final UUID messageId;
@@ -0,0 +1,26 @@
+package com.tradeintel.common.event;
+
+import java.util.UUID;
+
+/**
+ * Published when a notification rule is created, updated or deleted, so that
+ * in-memory rule indexes can refresh that single rule after the change commits.
+ */
+public class NotificationRuleChangedEvent {
+
+    private final UUID ruleId;
+    private final boolean deleted;
+
+    public NotificationRuleChangedEvent(UUID ruleId, boolean deleted) {
+        this.ruleId = ruleId;
+        this.deleted = deleted;
+    }
+
+    public UUID getRuleId() {
+        return ruleId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,20 @@
+package com.tradeintel.common.event;
+
+import java.util.UUID;
+
+/**
+ * Published when a user's role or active flag changes, so that cached authentication
+ * principals for that user are dropped once the change commits.
+ */
+public class UserAccessChangedEvent {
+
+    private final UUID userId;
+
+    public UserAccessChangedEvent(UUID userId) {
+        this.userId = userId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+}
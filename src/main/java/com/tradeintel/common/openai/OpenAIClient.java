@@ -11,6 +11,7 @@ import org.springframework.http.*;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -63,10 +64,24 @@ public class OpenAIClient {
     }
 
     public float[] embed(String text, String model) {
+        return embedBatch(List.of(text), model).get(0);
+    }
+
+    /**
+     * Embeds several texts in one request using the array form of the embeddings
+     * endpoint's {@code input} field. The API accepts up to 2048 inputs per call;
+     * callers are responsible for chunking larger batches.
+     *
+     * @param texts non-empty list of non-blank texts
+     * @param model the embedding model name
+     * @return one vector per input, in input order
+     */
+    public List<float[]> embedBatch(List<String> texts, String model) {
         try {
             ObjectNode requestBody = objectMapper.createObjectNode();
             requestBody.put("model", model);
-            requestBody.put("input", text);
+            ArrayNode inputArray = requestBody.putArray("input");
+            texts.forEach(inputArray::add);
 
             HttpHeaders headers = createHeaders();
             HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
@@ -75,16 +90,26 @@ public class OpenAIClient {
             JsonNode responseNode = objectMapper.readTree(response.getBody());
 
             int totalTokens = responseNode.path("usage").path("total_tokens").asInt();
-            log.debug("Embedding generated: model={}, tokens={}, estimatedCost=${}",
-                    model, totalTokens, String.format("%.6f", totalTokens * 0.02 / 1_000_000));
-
-            JsonNode embeddingArray = responseNode.path("data").path(0).path("embedding");
-            float[] embedding = new float[embeddingArray.size()];
-            for (int i = 0; i < embeddingArray.size(); i++) {
-                embedding[i] = (float) embeddingArray.path(i).asDouble();
+            log.debug("Embeddings generated: model={}, inputs={}, tokens={}, estimatedCost=${}",
+                    model, texts.size(), totalTokens, String.format("%.6f", totalTokens * 0.02 / 1_000_000));
+
+            // Each result carries the index of its input; don't rely on response order
+            float[][] embeddings = new float[texts.size()][];
+            for (JsonNode item : responseNode.path("data")) {
+                JsonNode embeddingArray = item.path("embedding");
+                float[] embedding = new float[embeddingArray.size()];
+                for (int i = 0; i < embeddingArray.size(); i++) {
+                    embedding[i] = (float) embeddingArray.path(i).asDouble();
+                }
+                embeddings[item.path("index").asInt()] = embedding;
+            }
+            for (int i = 0; i < embeddings.length; i++) {
+                if (embeddings[i] == null) {
+                    throw new IllegalStateException("No embedding returned for input " + i);
+                }
             }
 
-            return embedding;
+            return Arrays.asList(embeddings);
 
         } catch (Exception e) {
             log.error("OpenAI embedding failed", e);
@@ -0,0 +1,98 @@
+package com.tradeintel.common.paging;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated feed.
+ *
+ * <p>Pass {@link #getNextCursor()} back as the {@code cursor} parameter to fetch the
+ * following page; it is null on the last page. Fetching a page costs the same at any
+ * depth, since no rows before the cursor are scanned and no {@code COUNT(*)} is run.
+ * The total is only filled in when asked for, and then counts at most a configured
+ * number of rows: {@link #isTotalExact()} is false when the real total is larger.</p>
+ *
+ * @param <T> element type
+ */
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final int size;
+    private final String nextCursor;
+    private final Long total;
+    private final Boolean totalExact;
+
+    public CursorPage(List<T> content, int size, String nextCursor, Long total, Boolean totalExact) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.total = total;
+        this.totalExact = totalExact;
+    }
+
+    /**
+     * Builds a page from {@code size + 1} fetched rows: the extra row only signals
+     * that a next page exists and is dropped.
+     *
+     * @param rows     up to {@code size + 1} rows in feed order
+     * @param size     requested page size
+     * @param cursorOf sort key of a row
+     * @param <T>      row type
+     * @return the page, without a total
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, size, null, null, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, size, cursorOf.apply(content.get(size - 1)).encode(), null, null);
+    }
+
+    /**
+     * Converts the content, keeping the cursor and total.
+     *
+     * @param mapper element conversion
+     * @param <R>    new element type
+     * @return the converted page
+     */
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(content.stream().map(mapper).toList(), size, nextCursor, total, totalExact);
+    }
+
+    /**
+     * Attaches a capped row count.
+     *
+     * @param counted rows counted, at most {@code cap + 1}
+     * @param cap     the most rows counted exactly
+     * @return a copy with the total set
+     */
+    public CursorPage<T> withTotal(long counted, int cap) {
+        return new CursorPage<>(content, size, nextCursor, Math.min(counted, cap), counted <= cap);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+
+    /** Matching rows, up to the configured cap; null unless a total was requested. */
+    public Long getTotal() {
+        return total;
+    }
+
+    /** Whether {@link #getTotal()} is the real total rather than the cap; null unless requested. */
+    public Boolean getTotalExact() {
+        return totalExact;
+    }
+}
@@ -0,0 +1,67 @@
+package com.tradeintel.common.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a feed ordered by {@code (timestamp DESC, id DESC)}: the sort key of the
+ * last row of a page. The next page is every row strictly after it, i.e. with an
+ * earlier timestamp, or the same timestamp and a smaller id.
+ *
+ * <p>Clients see it as an opaque, URL-safe token. The timestamp is truncated to
+ * microseconds, the precision both PostgreSQL and H2 store, so a token taken from an
+ * entity that was never reloaded still matches its stored row.</p>
+ *
+ * @param timestamp sort timestamp of the last row returned
+ * @param id        id of the last row returned; breaks timestamp ties
+ */
+public record KeysetCursor(OffsetDateTime timestamp, UUID id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public KeysetCursor {
+        timestamp = timestamp.truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * Renders the cursor as a continuation token.
+     *
+     * @return URL-safe token accepted by {@link #decode(String)}
+     */
+    public String encode() {
+        String raw = timestamp.toInstant() + "|" + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a continuation token.
+     *
+     * @param token token from {@link #encode()}; null or blank for the first page
+     * @return the cursor, or null for the first page
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(DECODER.decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(
+                    Instant.parse(raw.substring(0, separator)).atOffset(ZoneOffset.UTC),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -21,9 +21,15 @@ import java.util.concurrent.Executor;
  * background extraction work from the web request threads.
  *
  * <p>Pool sizing is controlled by {@code app.processing.async-pool-size} in
- * {@code application.yml}. The queue capacity is set to 500 to absorb short
- * bursts; once the queue is full, the caller thread runs the task
- * (CallerRunsPolicy) so that no messages are silently dropped.
+ * {@code application.yml}. Live messages are not queued here: they wait in the
+ * durable {@code processing_jobs} table, and {@code ProcessingQueueService} only
+ * leases as many jobs as the pool has threads, so bursts never overflow the
+ * in-memory queue.
+ *
+ * <p>A second, smaller pool named {@code notificationExecutor} delivers queued
+ * notification emails, so SMTP latency never occupies processing threads, and a
+ * third named {@code mediaExecutor} downloads WhatsApp media after messages are
+ * archived, off the webhook request thread.
  *
  * <p>Note: {@code @EnableAsync} is declared here and also on
  * {@link com.tradeintel.TradeintelApplication} (belt-and-suspenders). Spring
@@ -39,6 +45,12 @@ public class AsyncConfig {
     @Value("${app.processing.async-pool-size:4}")
     private int asyncPoolSize;
 
+    @Value("${app.notifications.pool-size:2}")
+    private int notificationPoolSize;
+
+    @Value("${app.media.download-pool-size:2}")
+    private int mediaPoolSize;
+
     /**
      * Creates the shared executor used by the message processing pipeline.
      *
@@ -71,4 +83,47 @@ public class AsyncConfig {
         log.info("Processing async executor initialised with pool size={}", asyncPoolSize);
         return executor;
     }
+
+    /**
+     * Creates the executor used by {@code NotificationDeliveryService} to send
+     * digest emails. Each task delivers one recipient's digest; the queue holds
+     * one poll's worth of recipients.
+     *
+     * @return the configured executor bean
+     */
+    @Bean(name = "notificationExecutor")
+    public Executor notificationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(notificationPoolSize);
+        executor.setMaxPoolSize(notificationPoolSize);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("notify-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+
+        log.info("Notification executor initialised with pool size={}", notificationPoolSize);
+        return executor;
+    }
+
+    /**
+     * Creates the executor used by {@code MediaDownloadService} to fetch media of
+     * archived messages. Each task downloads the media of one archived batch.
+     *
+     * @return the configured executor bean
+     */
+    @Bean(name = "mediaExecutor")
+    public Executor mediaExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(mediaPoolSize);
+        executor.setMaxPoolSize(mediaPoolSize);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("media-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+
+        log.info("Media download executor initialised with pool size={}", mediaPoolSize);
+        return executor;
+    }
 }
@@ -22,12 +22,24 @@ import java.util.concurrent.TimeUnit;
  *
  * <p>Two caches are defined:
  * <ul>
- *   <li><b>jargon</b>     — caches the verified jargon dictionary used by
+ *   <li><b>jargon</b>     — caches the verified jargon dictionary: the CSV injected
+ *       into LLM extraction prompts and the compiled matcher used by
  *       {@code JargonExpander} during message pre-processing. TTL is configurable
  *       via {@code app.cache.jargon-ttl-minutes} (default 10 minutes).</li>
  *   <li><b>categories</b> — caches the admin-managed category list injected into
  *       LLM extraction prompts. TTL is configurable via
  *       {@code app.cache.categories-ttl-minutes} (default 30 minutes).</li>
+ *   <li><b>normalization</b> — the {@code NormalizationSnapshot} of categories,
+ *       manufacturers, units and conditions used to resolve extracted values.
+ *       Evicted whenever the normalize services change reference data; TTL via
+ *       {@code app.cache.normalization-ttl-minutes} (default 30 minutes).</li>
+ *   <li><b>embeddings</b> — first tier of the {@code EmbeddingService} cache, in front
+ *       of the {@code embedding_cache} table. Size-bounded via
+ *       {@code app.cache.embeddings-max-entries} (default 2000), no TTL.</li>
+ *   <li><b>principals</b> — authenticated {@code UserPrincipal}s keyed by user and token
+ *       id, read by {@code PrincipalCache}. Evicted per user on role or active-flag
+ *       changes; TTL via {@code app.cache.principals-ttl-seconds} (default 60 seconds),
+ *       size via {@code app.cache.principals-max-entries} (default 10000).</li>
  * </ul>
  *
  * <p>Additional caches can be declared by adding their names to the list in
@@ -55,8 +67,14 @@ public class CacheConfig {
     /** Cache name for the admin-managed conditions list. */
     public static final String CACHE_CONDITIONS     = "conditions";
 
-    /** Cache name for exchange rates (Frankfurter API). */
-    public static final String CACHE_EXCHANGE_RATES = "exchangeRates";
+    /** Cache name for the in-memory normalization snapshot used by {@code ConfidenceRouter}. */
+    public static final String CACHE_NORMALIZATION  = "normalization";
+
+    /** Cache name for OpenAI embeddings, keyed by model + normalized text hash. */
+    public static final String CACHE_EMBEDDINGS     = "embeddings";
+
+    /** Cache name for authenticated principals, keyed by user id and token id. */
+    public static final String CACHE_PRINCIPALS     = "principals";
 
     @Value("${app.cache.jargon-ttl-minutes:10}")
     private long jargonTtlMinutes;
@@ -73,6 +91,18 @@ public class CacheConfig {
     @Value("${app.cache.conditions-ttl-minutes:60}")
     private long conditionsTtlMinutes;
 
+    @Value("${app.cache.normalization-ttl-minutes:30}")
+    private long normalizationTtlMinutes;
+
+    @Value("${app.cache.embeddings-max-entries:2000}")
+    private long embeddingsMaxEntries;
+
+    @Value("${app.cache.principals-ttl-seconds:60}")
+    private long principalsTtlSeconds;
+
+    @Value("${app.cache.principals-max-entries:10000}")
+    private long principalsMaxEntries;
+
     /**
      * Creates the primary {@link CacheManager}.
      *
@@ -126,10 +156,31 @@ public class CacheConfig {
                         .build()
         );
 
-        manager.registerCustomCache(CACHE_EXCHANGE_RATES,
+        // A single entry: the whole snapshot. Evicted by the normalize services on
+        // every change; the TTL only catches edits made directly in the database.
+        manager.registerCustomCache(CACHE_NORMALIZATION,
+                Caffeine.newBuilder()
+                        .expireAfterWrite(normalizationTtlMinutes, TimeUnit.MINUTES)
+                        .maximumSize(1)
+                        .recordStats()
+                        .build()
+        );
+
+        // Embeddings never go stale for a given model; bound by size only.
+        // Each 1536-dim vector is ~6 KB, so 2000 entries is ~12 MB of heap.
+        manager.registerCustomCache(CACHE_EMBEDDINGS,
+                Caffeine.newBuilder()
+                        .maximumSize(embeddingsMaxEntries)
+                        .recordStats()
+                        .build()
+        );
+
+        // Short TTL: role and active-flag changes evict explicitly, so the TTL only
+        // bounds how long a direct database edit goes unnoticed.
+        manager.registerCustomCache(CACHE_PRINCIPALS,
                 Caffeine.newBuilder()
-                        .expireAfterWrite(24, TimeUnit.HOURS)
-                        .maximumSize(5_000)
+                        .expireAfterWrite(principalsTtlSeconds, TimeUnit.SECONDS)
+                        .maximumSize(principalsMaxEntries)
                         .recordStats()
                         .build()
         );
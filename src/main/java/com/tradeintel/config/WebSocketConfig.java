@@ -1,9 +1,8 @@
 package com.tradeintel.config;
 
 import com.tradeintel.auth.JwtTokenProvider;
+import com.tradeintel.auth.PrincipalCache;
 import com.tradeintel.auth.UserPrincipal;
-import com.tradeintel.auth.UserRepository;
-import com.tradeintel.common.entity.User;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.context.annotation.Configuration;
@@ -20,7 +19,6 @@ import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBr
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
-import java.util.UUID;
 
 /**
  * STOMP over WebSocket configuration for real-time updates.
@@ -34,7 +32,8 @@ import java.util.UUID;
  *
  * <p>JWT authentication is performed on STOMP CONNECT via a channel interceptor
  * that extracts the token from the {@code Authorization} header or from the
- * {@code token} query parameter on the SockJS handshake URL.</p>
+ * {@code token} query parameter on the SockJS handshake URL. Principals are resolved
+ * through the same {@link PrincipalCache} as HTTP requests.</p>
  */
 @Configuration
 @EnableWebSocketMessageBroker
@@ -43,11 +42,11 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     private static final Logger log = LogManager.getLogger(WebSocketConfig.class);
 
     private final JwtTokenProvider tokenProvider;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public WebSocketConfig(JwtTokenProvider tokenProvider, UserRepository userRepository) {
+    public WebSocketConfig(JwtTokenProvider tokenProvider, PrincipalCache principalCache) {
         this.tokenProvider = tokenProvider;
-        this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -78,15 +77,14 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                     String token = extractToken(accessor);
                     if (token != null && tokenProvider.validateToken(token)) {
                         try {
-                            UUID userId = tokenProvider.getUserIdFromToken(token);
-                            User user = userRepository.findById(userId).orElse(null);
-                            if (user != null) {
-                                UserPrincipal principal = UserPrincipal.from(user);
+                            JwtTokenProvider.TokenIdentity identity = tokenProvider.getIdentityFromToken(token);
+                            UserPrincipal principal = principalCache.get(identity);
+                            if (principal != null) {
                                 UsernamePasswordAuthenticationToken auth =
                                         new UsernamePasswordAuthenticationToken(
                                                 principal, null, principal.getAuthorities());
                                 accessor.setUser(auth);
-                                log.debug("WebSocket CONNECT authenticated for userId={}", userId);
+                                log.debug("WebSocket CONNECT authenticated for userId={}", identity.userId());
                             }
                         } catch (Exception e) {
                             log.warn("WebSocket JWT authentication failed: {}", e.getMessage());
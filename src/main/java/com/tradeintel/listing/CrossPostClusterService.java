@@ -0,0 +1,194 @@
+package com.tradeintel.listing;
+
+import jakarta.persistence.EntityManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maintains the precomputed cross-post clusters read by
+ * {@link ListingService#enrichWithCrossPostCounts} and {@link ListingService#getCrossPosts}.
+ *
+ * <p>Listings are assigned to clusters as they are written by {@link CrossPostTracker}.
+ * Bulk deletes bypass Hibernate events, so the code running them passes the affected
+ * clusters to {@link #recordBulkDelete} in the same transaction. {@link #rebuild()}
+ * recomputes every cluster from {@code listings} with an in-memory union-find; it runs
+ * on startup whenever listings with a part number and a sender are unclustered, e.g.
+ * right after the migration that introduced clusters.</p>
+ */
+@Service
+public class CrossPostClusterService {
+
+    private static final Logger log = LogManager.getLogger(CrossPostClusterService.class);
+
+    private static final String CANDIDATES_SQL =
+            "SELECT CAST(id AS VARCHAR(36)), part_number, sender_name, sender_phone, " +
+            "CASE WHEN deleted_at IS NULL THEN 1 ELSE 0 END FROM listings WHERE part_number IS NOT NULL";
+
+    private final ListingRepository listingRepository;
+    private final CrossPostTracker tracker;
+    private final EntityManager entityManager;
+
+    @Lazy
+    @Autowired
+    private CrossPostClusterService self;
+
+    public CrossPostClusterService(ListingRepository listingRepository,
+                                   CrossPostTracker tracker,
+                                   EntityManager entityManager) {
+        this.listingRepository = listingRepository;
+        this.tracker = tracker;
+        this.entityManager = entityManager;
+    }
+
+    // -------------------------------------------------------------------------
+    // Bulk statements
+    // -------------------------------------------------------------------------
+
+    /**
+     * Recounts clusters when the transaction commits, after a bulk {@code DELETE}
+     * removed some of their listings.
+     *
+     * @param clusterIds the clusters of the deleted listings
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBulkDelete(List<UUID> clusterIds) {
+        tracker.recordClusters(entityManager.unwrap(SessionImplementor.class), clusterIds);
+    }
+
+    // -------------------------------------------------------------------------
+    // Rebuild
+    // -------------------------------------------------------------------------
+
+    /** Clusters pre-existing listings on the first start after the clusters were introduced. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        try {
+            if (listingRepository.existsUnclusteredPartNumber()) {
+                self.rebuild();
+            }
+        } catch (Exception e) {
+            log.warn("Cross-post cluster rebuild on startup failed (non-fatal): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes all cross-post clusters from {@code listings}.
+     *
+     * @return number of clusters written
+     */
+    @Transactional
+    public int rebuild() {
+        List<Object[]> rows = entityManager.createNativeQuery(CANDIDATES_SQL, Object[].class).getResultList();
+
+        // Union-find over listing indexes: union by size, path halving
+        int[] parent = new int[rows.size()];
+        int[] size = new int[rows.size()];
+        Map<String, Integer> firstByIdentity = new HashMap<>();
+        String[] partNumbers = new String[rows.size()];
+        List<List<String>> identities = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            parent[i] = i;
+            size[i] = 1;
+            Object[] row = rows.get(i);
+            partNumbers[i] = PriceHistoryKey.normalizePartNumber((String) row[1]);
+            identities.add(CrossPostTracker.identities((String) row[2], (String) row[3]));
+            if (partNumbers[i] == null) {
+                continue;
+            }
+            for (String identity : identities.get(i)) {
+                Integer first = firstByIdentity.putIfAbsent(partNumbers[i] + '\n' + identity, i);
+                if (first != null) {
+                    union(parent, size, first, i);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> members = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (partNumbers[i] != null && !identities.get(i).isEmpty()) {
+                members.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        entityManager.createNativeQuery("DELETE FROM cross_post_identities").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM cross_post_clusters").executeUpdate();
+        entityManager.createNativeQuery(
+                "UPDATE listings SET cross_post_cluster_id = NULL WHERE cross_post_cluster_id IS NOT NULL")
+                .executeUpdate();
+
+        for (List<Integer> cluster : members.values()) {
+            UUID clusterId = UUID.randomUUID();
+            List<UUID> listingIds = new ArrayList<>(cluster.size());
+            int live = 0;
+            for (int i : cluster) {
+                listingIds.add(UUID.fromString((String) rows.get(i)[0]));
+                live += ((Number) rows.get(i)[4]).intValue();
+            }
+            String partNumber = partNumbers[cluster.get(0)];
+            entityManager.createNativeQuery(
+                    "INSERT INTO cross_post_clusters (id, part_number, member_count) VALUES (:id, :partNumber, :count)")
+                    .setParameter("id", clusterId)
+                    .setParameter("partNumber", partNumber)
+                    .setParameter("count", live)
+                    .executeUpdate();
+            for (int i : cluster) {
+                for (String identity : identities.get(i)) {
+                    entityManager.createNativeQuery(
+                            "INSERT INTO cross_post_identities (part_number, identity, cluster_id) " +
+                            "VALUES (:partNumber, :identity, :clusterId) ON CONFLICT DO NOTHING")
+                            .setParameter("partNumber", partNumber)
+                            .setParameter("identity", identity)
+                            .setParameter("clusterId", clusterId)
+                            .executeUpdate();
+                }
+            }
+            entityManager.createNativeQuery(
+                    "UPDATE listings SET cross_post_cluster_id = :clusterId WHERE id IN (:ids)")
+                    .setParameter("clusterId", clusterId)
+                    .setParameter("ids", listingIds)
+                    .executeUpdate();
+        }
+        log.info("Rebuilt cross-post clusters: {} clusters over {} listings", members.size(), rows.size());
+        return members.size();
+    }
+
+    /** Union-find root with path halving; shared with {@link CrossPostTracker}. */
+    static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /** Union by size; shared with {@link CrossPostTracker}. */
+    static void union(int[] parent, int[] size, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (size[rootA] < size[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+    }
+}
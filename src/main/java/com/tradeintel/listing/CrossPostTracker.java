@@ -0,0 +1,466 @@
+package com.tradeintel.listing;
+
+import com.tradeintel.common.entity.Listing;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.MutationQuery;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Assigns listings to cross-post clusters as they are written.
+ *
+ * <p>Two listings are cross-posts when they share a normalized part number and the
+ * same sender name or phone; the relation is closed transitively, so each listing
+ * with a part number belongs to exactly one cluster. {@code cross_post_identities}
+ * is the union-find index: every (part number, identity) pair seen points at the
+ * cluster that owns it. A new listing looks up the clusters owning its identities
+ * ("find"); none starts a cluster, one is joined, several are merged into the largest
+ * by relabeling the smaller ones' listings and identities ("union by size"), so reads
+ * never have to chase parent pointers.</p>
+ *
+ * <p>Like the other listing trackers this is a Hibernate post-insert/update/delete
+ * listener: listings with a part number written in a transaction are assigned just
+ * before it commits, and the member counts of every touched cluster are recounted.
+ * The work is grouped per flush rather than per listing: the pending listings are read
+ * together, grouped in memory, and their clusters, identities and assignments are
+ * written with one multi-row statement each.
+ * Soft-deleted listings keep their cluster (their identities still link the others)
+ * but are not counted. Moving a listing to another part number does not split its
+ * old cluster; {@link CrossPostClusterService#rebuild()} recomputes all clusters.</p>
+ */
+@Component
+public class CrossPostTracker extends ListingEventTracker<CrossPostTracker.Pending> {
+
+    private static final Logger log = LogManager.getLogger(CrossPostTracker.class);
+
+    /** Listing properties that decide cluster membership or counting. */
+    private static final Set<String> TRACKED_PROPERTIES = Set.of(
+            "partNumber", "senderName", "senderPhone", "deletedAt");
+
+    /** Listings assigned per round of statements; keeps bind-parameter counts well under driver limits. */
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String LISTINGS_SQL =
+            "SELECT CAST(id AS VARCHAR(36)), part_number, sender_name, sender_phone, " +
+            "CAST(cross_post_cluster_id AS VARCHAR(36)) FROM listings WHERE id IN (:ids)";
+
+    private static final String FIND_OWNERS_SQL =
+            "SELECT part_number, identity, CAST(cluster_id AS VARCHAR(36)) FROM cross_post_identities " +
+            "WHERE (part_number, identity) IN (%s) ORDER BY part_number, identity FOR UPDATE";
+
+    private static final String CLUSTER_SIZES_SQL =
+            "SELECT CAST(id AS VARCHAR(36)), member_count FROM cross_post_clusters " +
+            "WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    private static final String INSERT_CLUSTERS_SQL =
+            "INSERT INTO cross_post_clusters (id, part_number) VALUES %s";
+
+    private static final String INSERT_IDENTITIES_SQL =
+            "INSERT INTO cross_post_identities (part_number, identity, cluster_id) " +
+            "VALUES %s ON CONFLICT DO NOTHING";
+
+    private static final String RELABEL_LISTINGS_SQL =
+            "UPDATE listings SET cross_post_cluster_id = :root WHERE cross_post_cluster_id IN (:merged)";
+
+    private static final String RELABEL_IDENTITIES_SQL =
+            "UPDATE cross_post_identities SET cluster_id = :root WHERE cluster_id IN (:merged)";
+
+    private static final String DELETE_CLUSTERS_SQL =
+            "DELETE FROM cross_post_clusters WHERE id IN (:ids)";
+
+    private static final String ASSIGN_SQL =
+            "UPDATE listings SET cross_post_cluster_id = CASE id %s END WHERE id IN (:ids)";
+
+    private static final String CLEAR_SQL =
+            "UPDATE listings SET cross_post_cluster_id = NULL WHERE id IN (:ids)";
+
+    private static final String LOCK_CLUSTERS_SQL =
+            "SELECT CAST(id AS VARCHAR(36)) FROM cross_post_clusters WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    private static final String RECOUNT_SQL =
+            "UPDATE cross_post_clusters c SET member_count = (SELECT COUNT(*) FROM listings " +
+            "WHERE cross_post_cluster_id = c.id AND deleted_at IS NULL), updated_at = CURRENT_TIMESTAMP " +
+            "WHERE c.id IN (:ids)";
+
+    public CrossPostTracker(EntityManagerFactory entityManagerFactory) {
+        super(entityManagerFactory);
+    }
+
+    // -------------------------------------------------------------------------
+    // Hibernate events
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Listing listing
+                && PriceHistoryKey.normalizePartNumber(listing.getPartNumber()) != null) {
+            pendingFor(event.getSession()).listings.add(listing.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Listing listing && touchesAny(event, TRACKED_PROPERTIES)
+                && (listing.getCrossPostClusterId() != null
+                    || PriceHistoryKey.normalizePartNumber(listing.getPartNumber()) != null)) {
+            pendingFor(event.getSession()).listings.add(listing.getId());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Listing listing && listing.getCrossPostClusterId() != null) {
+            pendingFor(event.getSession()).clusters.add(listing.getCrossPostClusterId());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Clustering
+    // -------------------------------------------------------------------------
+
+    /**
+     * Marks clusters for recounting when the session's transaction commits, for bulk
+     * statements that bypass entity events.
+     *
+     * @param session    the session whose transaction changed the clusters' listings
+     * @param clusterIds the clusters
+     */
+    void recordClusters(SessionImplementor session, List<UUID> clusterIds) {
+        if (!clusterIds.isEmpty()) {
+            pendingFor(session).clusters.addAll(clusterIds);
+        }
+    }
+
+    @Override
+    protected Pending newPending() {
+        return new Pending();
+    }
+
+    @Override
+    protected void flush(SessionImplementor session, Pending work) {
+        Set<UUID> touched = new TreeSet<>(work.clusters);
+        List<UUID> listings = work.listings.stream().sorted().toList();
+        for (int from = 0; from < listings.size(); from += CHUNK_SIZE) {
+            assign(session, listings.subList(from, Math.min(from + CHUNK_SIZE, listings.size())), touched);
+        }
+        List<UUID> recount = new ArrayList<>(touched);
+        for (int from = 0; from < recount.size(); from += CHUNK_SIZE) {
+            List<UUID> chunk = recount.subList(from, Math.min(from + CHUNK_SIZE, recount.size()));
+            session.createNativeQuery(LOCK_CLUSTERS_SQL, String.class).setParameterList("ids", chunk).getResultList();
+            session.createNativeMutationQuery(RECOUNT_SQL).setParameterList("ids", chunk).executeUpdate();
+        }
+        log.debug("Assigned {} listings to cross-post clusters; recounted {} clusters",
+                listings.size(), touched.size());
+    }
+
+    /**
+     * Assigns a chunk of listings in one round: the chunk's listings are grouped with an
+     * in-memory union-find over their (part number, identity) pairs and the clusters
+     * already owning those pairs, then each group gets one cluster.
+     */
+    private void assign(SessionImplementor session, List<UUID> ids, Set<UUID> touched) {
+        List<Object[]> rows = session.createNativeQuery(LISTINGS_SQL, Object[].class)
+                .setParameterList("ids", ids)
+                .getResultList();
+        int count = rows.size();
+        UUID[] listingIds = new UUID[count];
+        UUID[] previous = new UUID[count];
+        List<List<Pair>> pairsOf = new ArrayList<>(count);
+        Set<Pair> allPairs = new TreeSet<>();
+        for (int i = 0; i < count; i++) {
+            Object[] row = rows.get(i);
+            listingIds[i] = UUID.fromString((String) row[0]);
+            previous[i] = row[4] != null ? UUID.fromString((String) row[4]) : null;
+            if (previous[i] != null) {
+                touched.add(previous[i]);
+            }
+            String partNumber = PriceHistoryKey.normalizePartNumber((String) row[1]);
+            List<Pair> pairs = partNumber == null ? List.of()
+                    : identities((String) row[2], (String) row[3]).stream()
+                            .map(identity -> new Pair(partNumber, identity)).toList();
+            pairsOf.add(pairs);
+            allPairs.addAll(pairs);
+        }
+        Map<Pair, UUID> owners = findOwners(session, allPairs);
+
+        // Listings sharing a pair, or a cluster owning their pairs, end up together
+        int[] parent = new int[count];
+        int[] size = new int[count];
+        Map<Object, Integer> firstByKey = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            parent[i] = i;
+            size[i] = 1;
+            for (Pair pair : pairsOf.get(i)) {
+                link(parent, size, firstByKey, pair, i);
+                UUID owner = owners.get(pair);
+                if (owner != null) {
+                    link(parent, size, firstByKey, owner, i);
+                }
+            }
+        }
+        Map<Integer, Group> groups = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (!pairsOf.get(i).isEmpty()) {
+                Group group = groups.computeIfAbsent(CrossPostClusterService.find(parent, i), k -> new Group());
+                group.members.add(i);
+                for (Pair pair : pairsOf.get(i)) {
+                    group.pairs.add(pair);
+                    if (owners.containsKey(pair)) {
+                        group.owners.add(owners.get(pair));
+                    }
+                }
+            }
+        }
+
+        // Join, merge into the largest owner, or start a cluster
+        Map<UUID, Integer> sizes = clusterSizes(session, groups.values().stream()
+                .filter(group -> group.owners.size() > 1)
+                .flatMap(group -> group.owners.stream()).toList());
+        List<Group> created = new ArrayList<>();
+        Map<Pair, UUID> claims = new TreeMap<>();
+        for (Group group : groups.values()) {
+            if (group.owners.isEmpty()) {
+                group.root = UUID.randomUUID();
+                created.add(group);
+            } else {
+                group.root = largest(group.owners, sizes);
+                mergeInto(session, group.root, group.owners, touched);
+            }
+            group.pairs.stream().filter(pair -> !owners.containsKey(pair))
+                    .forEach(pair -> claims.put(pair, group.root));
+        }
+        insertClusters(session, created);
+        insertIdentities(session, claims);
+
+        if (!claims.isEmpty()) {
+            // A concurrent transaction may have claimed some pairs first; join its clusters
+            Map<Pair, UUID> claimed = findOwners(session, claims.keySet());
+            List<UUID> emptied = new ArrayList<>();
+            for (Group group : groups.values()) {
+                Set<UUID> rivals = new TreeSet<>();
+                boolean rootOwnsPairs = !group.owners.isEmpty();
+                for (Pair pair : group.pairs) {
+                    UUID owner = claimed.get(pair);
+                    if (owner == null) {
+                        continue;
+                    }
+                    if (owner.equals(group.root)) {
+                        rootOwnsPairs = true;
+                    } else {
+                        rivals.add(owner);
+                    }
+                }
+                if (rivals.isEmpty()) {
+                    continue;
+                }
+                if (rootOwnsPairs) {
+                    rivals.add(group.root);
+                } else {
+                    emptied.add(group.root);
+                }
+                UUID root = largest(rivals, clusterSizes(session, rivals));
+                mergeInto(session, root, rivals, touched);
+                group.root = root;
+            }
+            if (!emptied.isEmpty()) {
+                session.createNativeMutationQuery(DELETE_CLUSTERS_SQL).setParameterList("ids", emptied).executeUpdate();
+            }
+        }
+
+        Map<UUID, UUID> moves = new LinkedHashMap<>();
+        List<UUID> cleared = new ArrayList<>();
+        for (Group group : groups.values()) {
+            touched.add(group.root);
+            for (int i : group.members) {
+                if (!group.root.equals(previous[i])) {
+                    moves.put(listingIds[i], group.root);
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (pairsOf.get(i).isEmpty() && previous[i] != null) {
+                cleared.add(listingIds[i]);
+            }
+        }
+        assignClusters(session, moves);
+        if (!cleared.isEmpty()) {
+            session.createNativeMutationQuery(CLEAR_SQL).setParameterList("ids", cleared).executeUpdate();
+        }
+    }
+
+    /** Returns the clusters owning the given pairs, locking their index rows. */
+    private Map<Pair, UUID> findOwners(SessionImplementor session, Collection<Pair> pairs) {
+        Map<Pair, UUID> owners = new HashMap<>();
+        if (pairs.isEmpty()) {
+            return owners;
+        }
+        NativeQuery<Object[]> query = session.createNativeQuery(
+                FIND_OWNERS_SQL.formatted(placeholders(pairs.size(), 2)), Object[].class);
+        int i = 0;
+        for (Pair pair : pairs) {
+            query.setParameter("p" + i + "_0", pair.partNumber()).setParameter("p" + i + "_1", pair.identity());
+            i++;
+        }
+        for (Object[] row : query.getResultList()) {
+            owners.put(new Pair((String) row[0], (String) row[1]), UUID.fromString((String) row[2]));
+        }
+        return owners;
+    }
+
+    /** Member counts of the given clusters, locked for a merge. */
+    private Map<UUID, Integer> clusterSizes(SessionImplementor session, Collection<UUID> clusters) {
+        Map<UUID, Integer> sizes = new HashMap<>();
+        if (clusters.isEmpty()) {
+            return sizes;
+        }
+        for (Object[] row : session.createNativeQuery(CLUSTER_SIZES_SQL, Object[].class)
+                .setParameterList("ids", Set.copyOf(clusters))
+                .getResultList()) {
+            sizes.put(UUID.fromString((String) row[0]), ((Number) row[1]).intValue());
+        }
+        return sizes;
+    }
+
+    /** The cluster with the most members, ties broken by id. */
+    private static UUID largest(Set<UUID> clusters, Map<UUID, Integer> sizes) {
+        return clusters.stream()
+                .min(Comparator.<UUID, Integer>comparing(id -> sizes.getOrDefault(id, 0)).reversed()
+                        .thenComparing(UUID::toString))
+                .orElseThrow();
+    }
+
+    /** Relabels the listings and identities of {@code clusters} other than {@code root}, and drops them. */
+    private static void mergeInto(SessionImplementor session, UUID root, Set<UUID> clusters, Set<UUID> touched) {
+        List<UUID> merged = clusters.stream().filter(id -> !id.equals(root)).toList();
+        if (merged.isEmpty()) {
+            return;
+        }
+        session.createNativeMutationQuery(RELABEL_LISTINGS_SQL)
+                .setParameter("root", root).setParameterList("merged", merged).executeUpdate();
+        session.createNativeMutationQuery(RELABEL_IDENTITIES_SQL)
+                .setParameter("root", root).setParameterList("merged", merged).executeUpdate();
+        session.createNativeMutationQuery(DELETE_CLUSTERS_SQL).setParameterList("ids", merged).executeUpdate();
+        merged.forEach(touched::remove);
+    }
+
+    private static void insertClusters(SessionImplementor session, List<Group> created) {
+        if (created.isEmpty()) {
+            return;
+        }
+        MutationQuery insert = session.createNativeMutationQuery(
+                INSERT_CLUSTERS_SQL.formatted(placeholders(created.size(), 2)));
+        for (int i = 0; i < created.size(); i++) {
+            Group group = created.get(i);
+            insert.setParameter("p" + i + "_0", group.root)
+                    .setParameter("p" + i + "_1", group.pairs.iterator().next().partNumber());
+        }
+        insert.executeUpdate();
+    }
+
+    private static void insertIdentities(SessionImplementor session, Map<Pair, UUID> claims) {
+        if (claims.isEmpty()) {
+            return;
+        }
+        MutationQuery insert = session.createNativeMutationQuery(
+                INSERT_IDENTITIES_SQL.formatted(placeholders(claims.size(), 3)));
+        int i = 0;
+        for (Map.Entry<Pair, UUID> claim : claims.entrySet()) {
+            insert.setParameter("p" + i + "_0", claim.getKey().partNumber())
+                    .setParameter("p" + i + "_1", claim.getKey().identity())
+                    .setParameter("p" + i + "_2", claim.getValue());
+            i++;
+        }
+        insert.executeUpdate();
+    }
+
+    private static void assignClusters(SessionImplementor session, Map<UUID, UUID> moves) {
+        if (moves.isEmpty()) {
+            return;
+        }
+        StringBuilder cases = new StringBuilder();
+        for (int i = 0; i < moves.size(); i++) {
+            cases.append("WHEN :l").append(i).append(" THEN :c").append(i).append(' ');
+        }
+        MutationQuery update = session.createNativeMutationQuery(ASSIGN_SQL.formatted(cases));
+        int i = 0;
+        for (Map.Entry<UUID, UUID> move : moves.entrySet()) {
+            update.setParameter("l" + i, move.getKey()).setParameter("c" + i, move.getValue());
+            i++;
+        }
+        update.setParameterList("ids", moves.keySet()).executeUpdate();
+    }
+
+    private static void link(int[] parent, int[] size, Map<Object, Integer> firstByKey, Object key, int i) {
+        Integer first = firstByKey.putIfAbsent(key, i);
+        if (first != null) {
+            CrossPostClusterService.union(parent, size, first, i);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the sender identities that link cross-posts, in a stable order.
+     *
+     * @param senderName  sender display name, matched case-insensitively
+     * @param senderPhone sender phone / WhatsApp id
+     * @return {@code name:<lower name>} and/or {@code phone:<phone>}; empty if neither is known
+     */
+    static List<String> identities(String senderName, String senderPhone) {
+        List<String> identities = new ArrayList<>(2);
+        if (senderName != null && !senderName.isBlank()) {
+            identities.add("name:" + senderName.trim().toLowerCase(Locale.ROOT));
+        }
+        if (senderPhone != null && !senderPhone.isBlank()) {
+            identities.add("phone:" + senderPhone.trim());
+        }
+        return identities;
+    }
+
+    /** Listings to assign and clusters to recount for one session. */
+    static final class Pending {
+        final Set<UUID> listings = new HashSet<>();
+        final Set<UUID> clusters = new HashSet<>();
+    }
+
+    /** One (normalized part number, sender identity) entry of the union-find index. */
+    private record Pair(String partNumber, String identity) implements Comparable<Pair> {
+
+        @Override
+        public int compareTo(Pair other) {
+            int byPart = partNumber.compareTo(other.partNumber);
+            return byPart != 0 ? byPart : identity.compareTo(other.identity);
+        }
+    }
+
+    /** Listings of one flush chunk that must share a cluster. */
+    private static final class Group {
+        final List<Integer> members = new ArrayList<>();
+        final Set<Pair> pairs = new TreeSet<>();
+        final Set<UUID> owners = new TreeSet<>();
+        UUID root;
+    }
+}
@@ -1,6 +1,7 @@
 package com.tradeintel.listing;
 
 import com.tradeintel.auth.UserPrincipal;
+import com.tradeintel.common.paging.CursorPage;
 import com.tradeintel.common.security.AdminOnly;
 import com.tradeintel.common.security.UberAdminOnly;
 import com.tradeintel.listing.dto.CrossPostDTO;
@@ -8,10 +9,14 @@ import com.tradeintel.listing.dto.ListingDTO;
 import com.tradeintel.listing.dto.ListingSearchRequest;
 import com.tradeintel.listing.dto.ListingStatsDTO;
 import com.tradeintel.listing.dto.ListingUpdateRequest;
+import com.tradeintel.listing.dto.PriceHistoryDTO;
+import com.tradeintel.processing.ExchangeRateBackfillJob;
+import com.tradeintel.processing.ExchangeRateBackfillProgress;
 import jakarta.validation.Valid;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -25,8 +30,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -34,11 +42,14 @@ import java.util.UUID;
  *
  * <p>Access control per endpoint:
  * <ul>
- *   <li>{@code GET /}    — authenticated (any role)</li>
+ *   <li>{@code GET /}    — authenticated (any role); offset or, with {@code cursor}, keyset pagination</li>
  *   <li>{@code GET /{id}} — authenticated (any role)</li>
  *   <li>{@code GET /stats} — authenticated (any role)</li>
+ *   <li>{@code GET /price-history} — authenticated (any role)</li>
  *   <li>{@code PUT /{id}} — admin or uber_admin ({@link AdminOnly})</li>
  *   <li>{@code DELETE /{id}} — uber_admin only ({@link UberAdminOnly})</li>
+ *   <li>{@code POST /backfill-exchange-rates}, {@code GET /backfill-exchange-rates/status}
+ *       — admin or uber_admin ({@link AdminOnly})</li>
  * </ul>
  *
  * <p>Listings with {@code deleted_at != null} are excluded from search results
@@ -52,11 +63,17 @@ public class ListingController {
 
     private final ListingService listingService;
     private final ListingSearchService listingSearchService;
+    private final ExchangeRateBackfillJob exchangeRateBackfillJob;
+    private final PriceHistoryService priceHistoryService;
 
     public ListingController(ListingService listingService,
-                             ListingSearchService listingSearchService) {
+                             ListingSearchService listingSearchService,
+                             ExchangeRateBackfillJob exchangeRateBackfillJob,
+                             PriceHistoryService priceHistoryService) {
         this.listingService = listingService;
         this.listingSearchService = listingSearchService;
+        this.exchangeRateBackfillJob = exchangeRateBackfillJob;
+        this.priceHistoryService = priceHistoryService;
     }
 
     // -------------------------------------------------------------------------
@@ -131,6 +148,56 @@ public class ListingController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Cursor-paginated variant of {@link #list}, selected by the presence of the
+     * {@code cursor} parameter (empty for the first page). Listings are ordered by
+     * {@code createdAt} then {@code id}, newest first; pass the returned
+     * {@code nextCursor} to continue. Semantic queries are ranked by similarity and are
+     * only available through the offset-paginated variant.
+     *
+     * @param cursor      continuation token from the previous page; empty for the first page
+     * @param approxTotal include a total counted up to a fixed cap
+     * @param size        page size (default 50, max 200)
+     * @return page of {@link ListingDTO} with the next cursor, or 400 if the cursor is malformed
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<ListingDTO>> feed(
+            @RequestParam(required = false) com.tradeintel.common.entity.IntentType intent,
+            @RequestParam(required = false) UUID categoryId,
+            @RequestParam(required = false) UUID manufacturerId,
+            @RequestParam(required = false) UUID conditionId,
+            @RequestParam(required = false) BigDecimal priceMin,
+            @RequestParam(required = false) BigDecimal priceMax,
+            @RequestParam(required = false) OffsetDateTime createdAfter,
+            @RequestParam(required = false) OffsetDateTime createdBefore,
+            @RequestParam(required = false) com.tradeintel.common.entity.ListingStatus status,
+            @RequestParam(name = "q", required = false) String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean approxTotal,
+            @RequestParam(defaultValue = "50") int size) {
+
+        log.debug("GET /api/listings cursor='{}' size={} intent={} q='{}'", cursor, size, intent, query);
+
+        ListingSearchRequest request = new ListingSearchRequest();
+        request.setIntent(intent);
+        request.setCategoryId(categoryId);
+        request.setManufacturerId(manufacturerId);
+        request.setConditionId(conditionId);
+        request.setPriceMin(priceMin);
+        request.setPriceMax(priceMax);
+        request.setCreatedAfter(createdAfter);
+        request.setCreatedBefore(createdBefore);
+        request.setStatus(status);
+        request.setQuery(query);
+        request.setCursor(cursor);
+        request.setApproximateTotal(approxTotal);
+        request.setSize(size);
+
+        CursorPage<ListingDTO> result = listingService.listByCursor(request);
+        listingService.enrichWithCrossPostCounts(result.getContent());
+        return ResponseEntity.ok(result);
+    }
+
     // -------------------------------------------------------------------------
     // GET /api/listings/stats  — aggregated counts
     // -------------------------------------------------------------------------
@@ -148,6 +215,39 @@ public class ListingController {
         return ResponseEntity.ok(listingService.getStats());
     }
 
+    // -------------------------------------------------------------------------
+    // GET /api/listings/price-history  — price trend for a part or model
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the daily, weekly or monthly price range of sell listings for a part
+     * number or model, read from the precomputed daily aggregates.
+     *
+     * @param partNumber     exact part number (case-insensitive)
+     * @param modelName      model name substring (case-insensitive)
+     * @param manufacturerId optional manufacturer filter
+     * @param currency       optional currency filter; prices are never converted
+     * @param from           first day (default 180 days before {@code to})
+     * @param to             last day (default today)
+     * @param granularity    {@code day} (default), {@code week} or {@code month}
+     * @return the series, or 400 if neither part number nor model is given
+     */
+    @GetMapping("/price-history")
+    public ResponseEntity<PriceHistoryDTO> getPriceHistory(
+            @RequestParam(required = false) String partNumber,
+            @RequestParam(required = false) String modelName,
+            @RequestParam(required = false) UUID manufacturerId,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String granularity) {
+
+        log.debug("GET /api/listings/price-history partNumber={} modelName={} granularity={}",
+                partNumber, modelName, granularity);
+        return ResponseEntity.ok(priceHistoryService.getHistory(
+                partNumber, modelName, manufacturerId, currency, from, to, granularity));
+    }
+
     // -------------------------------------------------------------------------
     // GET /api/listings/{id}/cross-posts  — related cross-posts
     // -------------------------------------------------------------------------
@@ -237,17 +337,40 @@ public class ListingController {
     // -------------------------------------------------------------------------
 
     /**
-     * Backfills exchange rates for listings that have a price but no stored rate.
-     * Useful after adding the exchange rate feature to populate historical listings.
+     * Starts a background backfill of exchange rates for listings that have a price but
+     * no stored rate. Useful after adding the exchange rate feature to populate
+     * historical listings. Progress is reported by {@code GET /backfill-exchange-rates/status}.
      *
-     * @return count of updated listings
+     * @return 202 Accepted with the backlog size, or 409 if a backfill is already running
      */
     @AdminOnly
     @PostMapping("/backfill-exchange-rates")
-    public ResponseEntity<java.util.Map<String, Integer>> backfillExchangeRates() {
+    public ResponseEntity<Map<String, Object>> backfillExchangeRates() {
         log.info("POST /api/listings/backfill-exchange-rates");
-        int updated = listingService.backfillExchangeRates();
-        return ResponseEntity.ok(java.util.Map.of("updated", updated));
+        if (exchangeRateBackfillJob.isRunning()) {
+            return ResponseEntity.status(409)
+                    .body(Map.of("error", "Exchange rate backfill already running"));
+        }
+        exchangeRateBackfillJob.start();
+        return ResponseEntity.accepted().body(Map.of("started", true));
+    }
+
+    /**
+     * Returns whether an exchange rate backfill is running and, once one has started,
+     * its chunk, update and skip counters and keyset cursor.
+     *
+     * @return 200 with running flag and run progress
+     */
+    @AdminOnly
+    @GetMapping("/backfill-exchange-rates/status")
+    public ResponseEntity<Map<String, Object>> getExchangeRateBackfillStatus() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("running", exchangeRateBackfillJob.isRunning());
+        ExchangeRateBackfillProgress progress = exchangeRateBackfillJob.getProgress();
+        if (progress != null) {
+            body.putAll(progress.toMap());
+        }
+        return ResponseEntity.ok(body);
     }
 
     // -------------------------------------------------------------------------
@@ -0,0 +1,121 @@
+package com.tradeintel.listing;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base of the Hibernate listeners that keep precomputed listing aggregates in step
+ * with {@code listings} ({@link ListingStatsTracker}, {@link PriceHistoryTracker},
+ * {@link CrossPostTracker}).
+ *
+ * <p>Subclasses collect the changes of each session in a pending object obtained from
+ * {@link #pendingFor}. The first change in a session registers a before-completion
+ * process, so {@link #flush} runs once, after the final flush and just before the
+ * transaction commits; rolled-back transactions discard their changes.</p>
+ *
+ * @param <P> the per-session pending changes
+ */
+abstract class ListingEventTracker<P> implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /** Pending changes per open session; removed when its transaction completes. */
+    private final Map<SharedSessionContractImplementor, P> pending = new ConcurrentHashMap<>();
+
+    protected ListingEventTracker(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /** Creates the empty pending changes for a session. */
+    protected abstract P newPending();
+
+    /**
+     * Writes a session's pending changes; runs just before its transaction commits.
+     *
+     * @param session the session, still inside its transaction
+     * @param changes the changes collected for it
+     */
+    protected abstract void flush(SessionImplementor session, P changes);
+
+    /**
+     * Returns the session's pending changes, registering the flush on first use.
+     *
+     * @param session the session whose transaction the changes belong to
+     */
+    protected final P pendingFor(SessionImplementor session) {
+        return pending.computeIfAbsent(session, ignored -> {
+            session.getActionQueue().registerProcess(this::flushPending);
+            session.getActionQueue().registerProcess((success, completed) -> pending.remove(completed));
+            return newPending();
+        });
+    }
+
+    private void flushPending(SessionImplementor session) {
+        P changes = pending.remove(session);
+        if (changes != null) {
+            flush(session, changes);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /** Whether an update changed any of the given properties; true if Hibernate could not tell. */
+    static boolean touchesAny(PostUpdateEvent event, Set<String> properties) {
+        int[] dirty = event.getDirtyProperties();
+        if (dirty == null) {
+            return true;
+        }
+        String[] names = event.getPersister().getPropertyNames();
+        for (int index : dirty) {
+            if (properties.contains(names[index])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** {@code (:p0_0, ..., :p0_n), (:p1_0, ...)} for a multi-row {@code VALUES} list. */
+    static String placeholders(int rows, int columns) {
+        StringJoiner values = new StringJoiner(", ");
+        for (int row = 0; row < rows; row++) {
+            StringJoiner tuple = new StringJoiner(", ", "(", ")");
+            for (int column = 0; column < columns; column++) {
+                tuple.add(":p" + row + "_" + column);
+            }
+            values.add(tuple.toString());
+        }
+        return values.toString();
+    }
+}
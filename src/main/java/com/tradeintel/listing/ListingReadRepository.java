@@ -0,0 +1,238 @@
+package com.tradeintel.listing;
+
+import com.tradeintel.common.entity.Category;
+import com.tradeintel.common.entity.Condition;
+import com.tradeintel.common.entity.IntentType;
+import com.tradeintel.common.entity.Listing;
+import com.tradeintel.common.entity.ListingStatus;
+import com.tradeintel.common.entity.Manufacturer;
+import com.tradeintel.common.entity.RawMessage;
+import com.tradeintel.common.entity.Unit;
+import com.tradeintel.common.entity.User;
+import com.tradeintel.common.entity.WhatsappGroup;
+import com.tradeintel.listing.dto.ListingDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read model for listing lists: loads {@link ListingDTO}s straight from one SQL
+ * statement instead of mapping entities.
+ *
+ * <p>Mapping entities with {@link ListingDTO#fromEntity} initialises the group,
+ * category, manufacturer, unit, condition, reviewer and raw-message proxies one row
+ * at a time, and loads the listing and message embeddings the DTO never shows. Here
+ * every DTO column is selected by a single Criteria tuple query that left-joins the
+ * associations, so a page costs one {@code SELECT} (plus the count, when the caller
+ * needs a total) whatever its size. Filters are the same {@link ListingSpecification}s
+ * the entity queries use.</p>
+ */
+@Repository
+public class ListingReadRepository {
+
+    /** Root and joined associations a column can be read from. */
+    private record Paths(Root<Listing> listing,
+                         Join<Listing, RawMessage> rawMessage,
+                         Join<Listing, WhatsappGroup> group,
+                         Join<Listing, Category> category,
+                         Join<Listing, Manufacturer> manufacturer,
+                         Join<Listing, Unit> unit,
+                         Join<Listing, Condition> condition,
+                         Join<Listing, User> reviewedBy) {
+    }
+
+    /** One selected column and where it goes in the DTO. */
+    private record Column(String alias, Function<Paths, Selection<?>> path, BiConsumer<ListingDTO, Object> setter) {
+    }
+
+    private static final List<Column> COLUMNS = List.of(
+            new Column("id", p -> p.listing().get("id"), (d, v) -> d.setId((UUID) v)),
+            new Column("rawMessageId", p -> p.rawMessage().get("id"), (d, v) -> d.setRawMessageId((UUID) v)),
+            new Column("groupId", p -> p.group().get("id"), (d, v) -> d.setGroupId((UUID) v)),
+            new Column("groupName", p -> p.group().get("groupName"), (d, v) -> d.setGroupName((String) v)),
+            new Column("intent", p -> p.listing().get("intent"), (d, v) -> d.setIntent((IntentType) v)),
+            new Column("confidenceScore", p -> p.listing().get("confidenceScore"),
+                    (d, v) -> d.setConfidenceScore((Double) v)),
+            new Column("itemDescription", p -> p.listing().get("itemDescription"),
+                    (d, v) -> d.setItemDescription((String) v)),
+            new Column("itemCategoryId", p -> p.category().get("id"), (d, v) -> d.setItemCategoryId((UUID) v)),
+            new Column("itemCategoryName", p -> p.category().get("name"),
+                    (d, v) -> d.setItemCategoryName((String) v)),
+            new Column("manufacturerId", p -> p.manufacturer().get("id"), (d, v) -> d.setManufacturerId((UUID) v)),
+            new Column("manufacturerName", p -> p.manufacturer().get("name"),
+                    (d, v) -> d.setManufacturerName((String) v)),
+            new Column("partNumber", p -> p.listing().get("partNumber"), (d, v) -> d.setPartNumber((String) v)),
+            new Column("modelName", p -> p.listing().get("modelName"), (d, v) -> d.setModelName((String) v)),
+            new Column("dialColor", p -> p.listing().get("dialColor"), (d, v) -> d.setDialColor((String) v)),
+            new Column("caseMaterial", p -> p.listing().get("caseMaterial"), (d, v) -> d.setCaseMaterial((String) v)),
+            new Column("year", p -> p.listing().get("year"), (d, v) -> d.setYear((Integer) v)),
+            new Column("caseSizeMm", p -> p.listing().get("caseSizeMm"), (d, v) -> d.setCaseSizeMm((Integer) v)),
+            new Column("setComposition", p -> p.listing().get("setComposition"),
+                    (d, v) -> d.setSetComposition((String) v)),
+            new Column("braceletStrap", p -> p.listing().get("braceletStrap"),
+                    (d, v) -> d.setBraceletStrap((String) v)),
+            new Column("quantity", p -> p.listing().get("quantity"), (d, v) -> d.setQuantity((BigDecimal) v)),
+            new Column("unitId", p -> p.unit().get("id"), (d, v) -> d.setUnitId((UUID) v)),
+            new Column("unitName", p -> p.unit().get("name"), (d, v) -> d.setUnitName((String) v)),
+            new Column("unitAbbreviation", p -> p.unit().get("abbreviation"),
+                    (d, v) -> d.setUnitAbbreviation((String) v)),
+            new Column("price", p -> p.listing().get("price"), (d, v) -> d.setPrice((BigDecimal) v)),
+            new Column("priceCurrency", p -> p.listing().get("priceCurrency"),
+                    (d, v) -> d.setPriceCurrency((String) v)),
+            new Column("exchangeRateToUsd", p -> p.listing().get("exchangeRateToUsd"),
+                    (d, v) -> d.setExchangeRateToUsd((BigDecimal) v)),
+            new Column("priceUsd", p -> p.listing().get("priceUsd"), (d, v) -> d.setPriceUsd((BigDecimal) v)),
+            new Column("conditionId", p -> p.condition().get("id"), (d, v) -> d.setConditionId((UUID) v)),
+            new Column("conditionName", p -> p.condition().get("name"), (d, v) -> d.setConditionName((String) v)),
+            new Column("originalText", p -> p.listing().get("originalText"), (d, v) -> d.setOriginalText((String) v)),
+            new Column("senderName", p -> p.listing().get("senderName"), (d, v) -> d.setSenderName((String) v)),
+            new Column("senderPhone", p -> p.listing().get("senderPhone"), (d, v) -> d.setSenderPhone((String) v)),
+            new Column("status", p -> p.listing().get("status"), (d, v) -> d.setStatus((ListingStatus) v)),
+            new Column("needsHumanReview", p -> p.listing().get("needsHumanReview"),
+                    (d, v) -> d.setNeedsHumanReview((Boolean) v)),
+            new Column("reviewedById", p -> p.reviewedBy().get("id"), (d, v) -> d.setReviewedById((UUID) v)),
+            new Column("reviewedByName", p -> p.reviewedBy().get("displayName"),
+                    (d, v) -> d.setReviewedByName((String) v)),
+            new Column("reviewedAt", p -> p.listing().get("reviewedAt"),
+                    (d, v) -> d.setReviewedAt((OffsetDateTime) v)),
+            new Column("soldAt", p -> p.listing().get("soldAt"), (d, v) -> d.setSoldAt((OffsetDateTime) v)),
+            new Column("soldMessageId", p -> p.listing().get("soldMessageId"),
+                    (d, v) -> d.setSoldMessageId((String) v)),
+            new Column("buyerName", p -> p.listing().get("buyerName"), (d, v) -> d.setBuyerName((String) v)),
+            new Column("messageTimestamp", p -> p.rawMessage().get("timestampWa"),
+                    (d, v) -> d.setMessageTimestamp((OffsetDateTime) v)),
+            new Column("createdAt", p -> p.listing().get("createdAt"), (d, v) -> d.setCreatedAt((OffsetDateTime) v)),
+            new Column("updatedAt", p -> p.listing().get("updatedAt"), (d, v) -> d.setUpdatedAt((OffsetDateTime) v)),
+            new Column("expiresAt", p -> p.listing().get("expiresAt"), (d, v) -> d.setExpiresAt((OffsetDateTime) v)),
+            new Column("deletedAt", p -> p.listing().get("deletedAt"), (d, v) -> d.setDeletedAt((OffsetDateTime) v)),
+            // Foreign key only; never joins the users table
+            new Column("deletedById", p -> p.listing().get("deletedBy").get("id"),
+                    (d, v) -> d.setDeletedById((UUID) v)));
+
+    private final EntityManager entityManager;
+
+    public ListingReadRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Loads a page of listing DTOs, counting the matches only when the page does not
+     * reveal the total by itself (as {@code SimpleJpaRepository} does).
+     *
+     * @param spec     filters
+     * @param pageable page and sort
+     * @return the page
+     */
+    public Page<ListingDTO> findPage(Specification<Listing> spec, Pageable pageable) {
+        List<ListingDTO> content = find(spec, pageable.getSort(),
+                (int) pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    /**
+     * Loads listing DTOs in the given order.
+     *
+     * @param spec   filters
+     * @param sort   order; should end with a unique property for stable pages
+     * @param offset rows to skip
+     * @param limit  most rows to return
+     * @return the DTOs, without cross-post counts
+     */
+    public List<ListingDTO> find(Specification<Listing> spec, Sort sort, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Listing> root = cq.from(Listing.class);
+        select(cq, root);
+        cq.where(spec.toPredicate(root, cq, cb));
+        cq.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(cq)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList().stream()
+                .map(ListingReadRepository::toDto)
+                .toList();
+    }
+
+    /**
+     * Loads listing DTOs by id, in the order of {@code ids}; missing ids are skipped.
+     *
+     * @param ids listing ids, e.g. ranked by a separate similarity query
+     * @return the DTOs, without cross-post counts
+     */
+    public List<ListingDTO> findByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Listing> root = cq.from(Listing.class);
+        select(cq, root);
+        cq.where(root.get("id").in(ids));
+        Map<UUID, ListingDTO> byId = entityManager.createQuery(cq).getResultList().stream()
+                .map(ListingReadRepository::toDto)
+                .collect(Collectors.toMap(ListingDTO::getId, dto -> dto));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Counts the listings matching {@code spec}.
+     *
+     * @param spec filters
+     * @return number of matches
+     */
+    public long count(Specification<Listing> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Listing> root = cq.from(Listing.class);
+        cq.select(cb.count(root)).where(spec.toPredicate(root, cq, cb));
+        return entityManager.createQuery(cq).getSingleResult();
+    }
+
+    private static void select(CriteriaQuery<Tuple> cq, Root<Listing> root) {
+        Paths paths = new Paths(root,
+                root.join("rawMessage", JoinType.LEFT),
+                root.join("group", JoinType.LEFT),
+                root.join("itemCategory", JoinType.LEFT),
+                root.join("manufacturer", JoinType.LEFT),
+                root.join("unit", JoinType.LEFT),
+                root.join("condition", JoinType.LEFT),
+                root.join("reviewedBy", JoinType.LEFT));
+        List<Selection<?>> selections = new ArrayList<>(COLUMNS.size());
+        for (Column column : COLUMNS) {
+            selections.add(column.path().apply(paths).alias(column.alias()));
+        }
+        cq.multiselect(selections);
+    }
+
+    private static ListingDTO toDto(Tuple row) {
+        ListingDTO dto = new ListingDTO();
+        for (Column column : COLUMNS) {
+            column.setter().accept(dto, row.get(column.alias()));
+        }
+        return dto;
+    }
+}
@@ -14,7 +14,9 @@ import org.springframework.stereotype.Repository;
 
 import org.springframework.data.jpa.repository.EntityGraph;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,8 +25,8 @@ import java.util.UUID;
  * Spring Data JPA repository for {@link Listing} entities.
  *
  * <p>Extends {@link JpaSpecificationExecutor} to support dynamic criteria queries
- * used by the filtered search endpoint. Semantic (pgvector) search is supported
- * via native queries for cosine similarity ordering.</p>
+ * used by the filtered search endpoint. Semantic (pgvector) search builds on the
+ * same specifications in {@link ListingSearchService}, adding cosine-distance ordering.</p>
  */
 @Repository
 public interface ListingRepository extends JpaRepository<Listing, UUID>, JpaSpecificationExecutor<Listing> {
@@ -67,17 +69,14 @@ public interface ListingRepository extends JpaRepository<Listing, UUID>, JpaSpec
     long countByStatusAndNotDeleted(@Param("status") ListingStatus status);
 
     /**
-     * Returns non-deleted active listings that have embeddings, ordered by
-     * keyword match on description or part number. Used as a fallback when
-     * pgvector is not available (e.g., H2 in tests).
+     * Counts, per stats dimension combination, the listings {@link #expireListingsBefore}
+     * is about to move to {@code expired}; run first so the counters can be adjusted.
      */
-    @Query(value = "SELECT l FROM Listing l WHERE l.deletedAt IS NULL " +
-           "AND l.status = 'active' " +
-           "AND LOWER(l.itemDescription) LIKE LOWER(CONCAT('%', :query, '%'))",
-           countQuery = "SELECT COUNT(l) FROM Listing l WHERE l.deletedAt IS NULL " +
-           "AND l.status = 'active' " +
-           "AND LOWER(l.itemDescription) LIKE LOWER(CONCAT('%', :query, '%'))")
-    Page<Listing> findByDescriptionContaining(@Param("query") String query, Pageable pageable);
+    @Query(value = "SELECT " + STATS_DIMENSIONS + ", COUNT(*) AS listingCount FROM listings " +
+                   "WHERE status = 'active' AND expires_at IS NOT NULL AND expires_at < :now " +
+                   "GROUP BY " + STATS_GROUP_BY,
+           nativeQuery = true)
+    List<StatsDimensionRow> countExpiringBeforeByStatsDimensions(@Param("now") OffsetDateTime now);
 
     /**
      * Bulk-updates active listings whose expiry date has passed to expired status.
@@ -105,48 +104,171 @@ public interface ListingRepository extends JpaRepository<Listing, UUID>, JpaSpec
     @Query("SELECT l.id FROM Listing l WHERE l.status IN :statuses AND l.deletedAt IS NULL")
     List<UUID> findIdsByStatusIn(@Param("statuses") List<ListingStatus> statuses);
 
+    /**
+     * Counts, per stats dimension combination, the listings {@link #deleteByStatusIn}
+     * is about to remove; run first so the counters can be adjusted.
+     */
+    @Query(value = "SELECT " + STATS_DIMENSIONS + ", COUNT(*) AS listingCount FROM listings " +
+                   "WHERE status IN (:statuses) AND deleted_at IS NULL " +
+                   "GROUP BY " + STATS_GROUP_BY,
+           nativeQuery = true)
+    List<StatsDimensionRow> countByStatusInByStatsDimensions(@Param("statuses") List<String> statuses);
+
+    /**
+     * Returns the price-history bucket columns of the priced sell listings
+     * {@link #deleteByStatusIn} is about to remove; run first so their buckets are
+     * recomputed.
+     */
+    @Query("SELECT m.id AS manufacturerId, l.partNumber AS partNumber, " +
+           "l.priceCurrency AS priceCurrency, l.createdAt AS createdAt " +
+           "FROM Listing l LEFT JOIN l.manufacturer m " +
+           "WHERE l.status IN :statuses AND l.deletedAt IS NULL " +
+           "AND l.partNumber IS NOT NULL AND l.price IS NOT NULL AND l.intent = 'sell'")
+    List<PriceBucketRow> findPriceBucketsByStatusIn(@Param("statuses") List<ListingStatus> statuses);
+
+    /**
+     * Returns the cross-post clusters of the listings {@link #deleteByStatusIn} is about
+     * to remove; run first so their member counts are recounted.
+     */
+    @Query("SELECT DISTINCT l.crossPostClusterId FROM Listing l " +
+           "WHERE l.status IN :statuses AND l.deletedAt IS NULL AND l.crossPostClusterId IS NOT NULL")
+    List<UUID> findCrossPostClustersByStatusIn(@Param("statuses") List<ListingStatus> statuses);
+
     @Modifying
     @Query("DELETE FROM Listing l WHERE l.status IN :statuses AND l.deletedAt IS NULL")
     int deleteByStatusIn(@Param("statuses") List<ListingStatus> statuses);
 
+    // -------------------------------------------------------------------------
+    // Stats dimensions for bulk statements
+    // -------------------------------------------------------------------------
+
+    String STATS_DIMENSIONS =
+            "CAST(status AS VARCHAR(32)) AS status, CAST(intent AS VARCHAR(32)) AS intent, " +
+            "CASE WHEN deleted_at IS NULL THEN FALSE ELSE TRUE END AS deleted, " +
+            "CAST(group_id AS VARCHAR(36)) AS groupId, CAST(manufacturer_id AS VARCHAR(36)) AS manufacturerId, " +
+            "CAST(item_category_id AS VARCHAR(36)) AS categoryId";
+
+    String STATS_GROUP_BY =
+            "status, intent, CASE WHEN deleted_at IS NULL THEN FALSE ELSE TRUE END, " +
+            "group_id, manufacturer_id, item_category_id";
+
+    /**
+     * Listings grouped by the dimensions of {@link ListingStatsKey}. Ids are selected as
+     * text because H2 reports grouped UUID columns as binary.
+     */
+    interface StatsDimensionRow {
+        String getStatus();
+        String getIntent();
+        Boolean getDeleted();
+        String getGroupId();
+        String getManufacturerId();
+        String getCategoryId();
+        long getListingCount();
+    }
+
+    /** Columns that place a listing in a {@code price_history_daily} bucket. */
+    interface PriceBucketRow {
+        UUID getManufacturerId();
+        String getPartNumber();
+        String getPriceCurrency();
+        OffsetDateTime getCreatedAt();
+    }
+
+    // -------------------------------------------------------------------------
+    // Exchange rate backfill
+    // -------------------------------------------------------------------------
+
+    interface RateBackfillRow {
+        UUID getId();
+        String getPriceCurrency();
+        OffsetDateTime getCreatedAt();
+    }
+
+    @Query("SELECT COUNT(l) FROM Listing l " +
+           "WHERE l.price IS NOT NULL AND l.priceCurrency IS NOT NULL AND l.exchangeRateToUsd IS NULL")
+    long countMissingExchangeRate();
+
+    /**
+     * Returns the next keyset page of priced listings without an exchange rate, in id
+     * order, starting after {@code afterId}.
+     *
+     * @param afterId  id of the last row of the previous page (the zero UUID for the first page)
+     * @param pageable page limiting the chunk size; only the page size is used
+     * @return id, currency and creation time of each listing
+     */
+    @Query("SELECT l.id AS id, l.priceCurrency AS priceCurrency, l.createdAt AS createdAt FROM Listing l " +
+           "WHERE l.price IS NOT NULL AND l.priceCurrency IS NOT NULL AND l.exchangeRateToUsd IS NULL " +
+           "AND l.id > :afterId ORDER BY l.id")
+    List<RateBackfillRow> findMissingExchangeRateAfter(@Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Sets one exchange rate, and the USD price derived from it, on a group of listings
+     * that share a currency and rate date. Rows that gained a rate meanwhile are skipped.
+     *
+     * @return number of listings updated
+     */
+    @Modifying
+    @Query(value = "UPDATE listings SET exchange_rate_to_usd = CAST(:rate AS NUMERIC(19,10)), " +
+                   "price_usd = ROUND(price * CAST(:rate AS NUMERIC(19,10)), 4) " +
+                   "WHERE id IN (:ids) AND exchange_rate_to_usd IS NULL",
+           nativeQuery = true)
+    int applyExchangeRate(@Param("ids") Collection<UUID> ids, @Param("rate") BigDecimal rate);
+
     // -------------------------------------------------------------------------
     // Cross-post detection
     // -------------------------------------------------------------------------
 
     interface CrossPostCountProjection {
-        UUID getListingId();
+        /** Listing id as text; native UUID columns do not project portably. */
+        String getListingId();
         int getCrossPostCount();
     }
 
+    /**
+     * Returns the number of other live listings in each listing's cross-post cluster,
+     * leaving out listings from the same message or the same group. Singleton clusters
+     * are skipped through their precomputed member count, and the rest are read through
+     * the cluster index. Listings without cross-posts are omitted.
+     */
     @Query(value = """
-        SELECT l.id AS listingId, COUNT(other.id) AS crossPostCount
+        SELECT CAST(l.id AS VARCHAR(36)) AS listingId, COUNT(other.id) AS crossPostCount
         FROM   listings l
+        JOIN   cross_post_clusters c ON c.id = l.cross_post_cluster_id AND c.member_count > 1
         JOIN   listings other
-          ON   other.id != l.id
+          ON   other.cross_post_cluster_id = l.cross_post_cluster_id
+          AND  other.id != l.id
           AND  other.raw_message_id != l.raw_message_id
           AND  other.group_id != l.group_id
           AND  other.deleted_at IS NULL
-          AND  other.part_number = l.part_number
-          AND  (
-               (other.sender_name IS NOT NULL AND l.sender_name IS NOT NULL AND other.sender_name = l.sender_name)
-               OR (other.sender_phone IS NOT NULL AND l.sender_phone IS NOT NULL AND other.sender_phone = l.sender_phone)
-              )
         WHERE  l.id IN :listingIds AND l.deleted_at IS NULL
-          AND  l.part_number IS NOT NULL
         GROUP BY l.id
         """, nativeQuery = true)
     List<CrossPostCountProjection> countCrossPostsForListings(@Param("listingIds") List<UUID> listingIds);
 
+    /**
+     * Returns the other live listings in the listing's cross-post cluster that came from
+     * another message in another group, newest first.
+     */
     @Query(value = """
         SELECT other.* FROM listings other
         JOIN listings l ON l.id = :listingId
-        WHERE other.id != l.id AND other.raw_message_id != l.raw_message_id
+        WHERE other.cross_post_cluster_id = l.cross_post_cluster_id
+          AND other.id != l.id
+          AND other.raw_message_id != l.raw_message_id
           AND other.group_id != l.group_id
           AND other.deleted_at IS NULL
-          AND other.part_number = l.part_number
-          AND ((other.sender_name IS NOT NULL AND l.sender_name IS NOT NULL AND other.sender_name = l.sender_name)
-               OR (other.sender_phone IS NOT NULL AND l.sender_phone IS NOT NULL AND other.sender_phone = l.sender_phone))
         ORDER BY other.created_at DESC
         """, nativeQuery = true)
     List<Listing> findCrossPostsOf(@Param("listingId") UUID listingId);
+
+    /**
+     * Returns whether any listing that {@link CrossPostTracker} would cluster (a part
+     * number and a sender name or phone) has not been assigned a cross-post cluster,
+     * e.g. listings created before clusters existed.
+     */
+    @Query(value = "SELECT COUNT(*) > 0 FROM listings WHERE part_number IS NOT NULL " +
+                   "AND TRIM(part_number) <> '' AND cross_post_cluster_id IS NULL " +
+                   "AND (TRIM(sender_name) <> '' OR TRIM(sender_phone) <> '')",
+           nativeQuery = true)
+    boolean existsUnclusteredPartNumber();
 }
@@ -1,12 +1,21 @@
 package com.tradeintel.listing;
 
 import com.tradeintel.archive.EmbeddingService;
+import com.tradeintel.archive.VectorSearchSupport;
 import com.tradeintel.common.entity.Listing;
 import com.tradeintel.listing.dto.ListingDTO;
 import com.tradeintel.listing.dto.ListingSearchRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.ParameterExpression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -14,15 +23,20 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.UUID;
+
 /**
  * Dedicated search service for listings that supports both direct filters
  * (via JPA Criteria / {@link ListingSpecification}) and semantic search
  * (via pgvector cosine similarity through {@link EmbeddingService}).
  *
  * <p>When a {@code semanticQuery} is provided, an embedding is generated and
- * used to find semantically similar listings. The results are filtered to exclude
- * soft-deleted records. Otherwise, results are sorted by {@code createdAt DESC}
- * and filtered using the standard criteria.</p>
+ * listings are ordered by cosine distance on {@code listings.embedding}, which is
+ * served by the {@code idx_listing_embedding} ivfflat index. The same
+ * {@link ListingSpecification} filters (intent, category, price range, status, ...)
+ * are applied alongside the distance ordering. Otherwise, results are sorted by
+ * {@code createdAt DESC} and filtered using the standard criteria.</p>
  */
 @Service
 @Transactional(readOnly = true)
@@ -30,22 +44,29 @@ public class ListingSearchService {
 
     private static final Logger log = LogManager.getLogger(ListingSearchService.class);
 
-    private final ListingRepository listingRepository;
+    private final ListingReadRepository listingReadRepository;
     private final EmbeddingService embeddingService;
+    private final VectorSearchSupport vectorSearchSupport;
+    private final EntityManager entityManager;
 
-    public ListingSearchService(ListingRepository listingRepository,
-                                EmbeddingService embeddingService) {
-        this.listingRepository = listingRepository;
+    public ListingSearchService(ListingReadRepository listingReadRepository,
+                                EmbeddingService embeddingService,
+                                VectorSearchSupport vectorSearchSupport,
+                                EntityManager entityManager) {
+        this.listingReadRepository = listingReadRepository;
         this.embeddingService = embeddingService;
+        this.vectorSearchSupport = vectorSearchSupport;
+        this.entityManager = entityManager;
     }
 
     /**
      * Searches listings using direct filters and optional semantic similarity.
      *
-     * <p>When {@code semanticQuery} is provided and an embedding can be generated,
-     * the search falls back to keyword-based description matching (pgvector cosine
-     * similarity requires a PostgreSQL native query which is used in production).
-     * Otherwise, standard JPA Criteria filters apply.</p>
+     * <p>When {@code semanticQuery} is provided, the filtered listings are ranked by
+     * cosine similarity to the query embedding. If pgvector is unavailable (H2) or the
+     * embedding cannot be generated, the search falls back to keyword matching on the
+     * description, still honouring the filters. Otherwise, standard JPA Criteria
+     * filters apply.</p>
      *
      * @param request the search/filter parameters
      * @return page of matching listings as DTOs
@@ -54,38 +75,90 @@ public class ListingSearchService {
         int page = Math.max(0, request.getPage());
         int size = Math.min(Math.max(1, request.getSize()), 200);
 
-        // When semantic query is provided, use keyword-based similarity search
         if (request.getSemanticQuery() != null && !request.getSemanticQuery().isBlank()) {
-            return searchSemantic(request.getSemanticQuery().trim(), page, size);
+            return searchSemantic(request, request.getSemanticQuery().trim(), page, size);
         }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
         Specification<Listing> spec = ListingSpecification.from(request);
-        Page<Listing> listings = listingRepository.findAll(spec, pageable);
+        Page<ListingDTO> listings = listingReadRepository.findPage(spec, pageable);
 
         log.debug("Listing search: total={}, page={}, size={}, hasSemanticQuery=false",
                 listings.getTotalElements(), page, size);
 
-        return listings.map(ListingDTO::fromEntity);
+        return listings;
+    }
+
+    // -------------------------------------------------------------------------
+    // Semantic search
+    // -------------------------------------------------------------------------
+
+    private Page<ListingDTO> searchSemantic(ListingSearchRequest request, String semanticQuery,
+                                            int page, int size) {
+        Specification<Listing> spec = ListingSpecification.from(request);
+
+        if (vectorSearchSupport.isAvailable()) {
+            float[] embedding = null;
+            try {
+                embedding = embedQuery(semanticQuery);
+            } catch (Exception e) {
+                log.warn("Query embedding failed; using keyword fallback (non-fatal): {}", e.getMessage());
+            }
+            if (embedding != null) {
+                return searchNearest(spec, embedding, semanticQuery, page, size);
+            }
+        }
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        Page<ListingDTO> results = listingReadRepository.findPage(
+                spec.and(ListingSpecification.descriptionContains(semanticQuery)), pageable);
+
+        log.debug("Semantic listing search (keyword fallback): query='{}', results={}",
+                semanticQuery, results.getTotalElements());
+        return results;
     }
 
     /**
-     * Performs semantic search. Generates an embedding and uses keyword matching
-     * as a portable fallback. In production with PostgreSQL + pgvector, this would
-     * use a native query with cosine similarity ordering on the embedding column.
+     * Nearest-neighbour query: filters from {@code spec}, {@code embedding IS NOT NULL},
+     * cosine distance within the configured cut-off, ordered by distance ascending.
+     *
+     * <p>The ranking query selects ids only; the DTOs of the page are then read by id
+     * through {@link ListingReadRepository}. No count query is issued, since counting
+     * every row within the cut-off would defeat the index. One extra row is fetched to detect whether a next page exists,
+     * and the page total is reported as a lower bound.</p>
      */
-    private Page<ListingDTO> searchSemantic(String semanticQuery, int page, int size) {
-        // Generate embedding (used for pgvector similarity in production)
-        float[] embedding = embedQuery(semanticQuery);
+    private Page<ListingDTO> searchNearest(Specification<Listing> spec, float[] embedding,
+                                           String semanticQuery, int page, int size) {
+        vectorSearchSupport.applyProbes();
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> cq = cb.createQuery(UUID.class);
+        Root<Listing> root = cq.from(Listing.class);
+
+        ParameterExpression<float[]> queryVector = cb.parameter(float[].class, "queryVector");
+        Expression<Double> distance = cb.function(
+                "cosine_distance", Double.class, root.get("embedding"), queryVector);
+
+        Predicate filters = spec.toPredicate(root, cq, cb);
+        cq.select(root.get("id"))
+                .where(filters,
+                        cb.isNotNull(root.get("embedding")),
+                        cb.le(distance, vectorSearchSupport.maxCosineDistance()))
+                .orderBy(cb.asc(distance));
 
-        // Use keyword-based search as portable fallback
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Listing> results = listingRepository.findByDescriptionContaining(semanticQuery, pageable);
+        List<UUID> ids = entityManager.createQuery(cq)
+                .setParameter("queryVector", embedding)
+                .setFirstResult(page * size)
+                .setMaxResults(size + 1)
+                .getResultList();
 
-        log.debug("Semantic listing search: query='{}', embeddingGenerated={}, results={}",
-                semanticQuery, embedding != null, results.getTotalElements());
+        boolean hasNext = ids.size() > size;
+        List<ListingDTO> content = listingReadRepository.findByIds(ids.subList(0, Math.min(size, ids.size())));
+        long total = (long) page * size + content.size() + (hasNext ? 1 : 0);
 
-        return results.map(ListingDTO::fromEntity);
+        log.debug("Semantic listing search: query='{}', page={}, results={}, hasNext={}, probes={}",
+                semanticQuery, page, content.size(), hasNext, vectorSearchSupport.getProbes());
+        return new PageImpl<>(content, PageRequest.of(page, size), total);
     }
 
     /**
@@ -10,6 +10,8 @@ import com.tradeintel.common.entity.Manufacturer;
 import com.tradeintel.common.entity.Unit;
 import com.tradeintel.common.entity.User;
 import com.tradeintel.common.exception.ResourceNotFoundException;
+import com.tradeintel.common.paging.CursorPage;
+import com.tradeintel.common.paging.KeysetCursor;
 import com.tradeintel.listing.dto.ListingDTO;
 import com.tradeintel.listing.dto.ListingSearchRequest;
 import com.tradeintel.listing.dto.ListingStatsDTO;
@@ -23,8 +25,12 @@ import com.tradeintel.processing.ExtractionResult;
 import com.tradeintel.processing.LLMExtractionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -58,6 +64,9 @@ public class ListingService {
 
     private static final Logger log = LogManager.getLogger(ListingService.class);
 
+    /** Order of the listing feed; {@code id} breaks ties so the keyset is unique. */
+    private static final Sort FEED_ORDER = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
     private final ListingRepository listingRepository;
     private final CategoryRepository categoryRepository;
     private final ManufacturerRepository manufacturerRepository;
@@ -67,7 +76,10 @@ public class ListingService {
     private final AuditService auditService;
     private final LLMExtractionService llmExtractionService;
     private final ExchangeRateService exchangeRateService;
+    private final ListingStatsService listingStatsService;
+    private final ListingReadRepository listingReadRepository;
     private final ObjectMapper objectMapper;
+    private final int countCap;
 
     public ListingService(ListingRepository listingRepository,
                           CategoryRepository categoryRepository,
@@ -77,7 +89,10 @@ public class ListingService {
                           EntityManager entityManager,
                           AuditService auditService,
                           LLMExtractionService llmExtractionService,
-                          ExchangeRateService exchangeRateService) {
+                          ExchangeRateService exchangeRateService,
+                          ListingStatsService listingStatsService,
+                          ListingReadRepository listingReadRepository,
+                          @Value("${app.pagination.count-cap:1000}") int countCap) {
         this.listingRepository = listingRepository;
         this.categoryRepository = categoryRepository;
         this.manufacturerRepository = manufacturerRepository;
@@ -87,7 +102,10 @@ public class ListingService {
         this.auditService = auditService;
         this.llmExtractionService = llmExtractionService;
         this.exchangeRateService = exchangeRateService;
+        this.listingStatsService = listingStatsService;
+        this.listingReadRepository = listingReadRepository;
         this.objectMapper = new ObjectMapper();
+        this.countCap = Math.max(1, countCap);
     }
 
     // -------------------------------------------------------------------------
@@ -98,7 +116,8 @@ public class ListingService {
      * Returns a paginated, filtered page of non-deleted listings.
      *
      * <p>Defaults to {@code status = active} when the caller does not specify
-     * a status. Results are sorted by {@code createdAt} descending.</p>
+     * a status. Results are sorted by {@code createdAt} descending and read through
+     * {@link ListingReadRepository}, one statement per page plus the count.</p>
      *
      * @param request filter and pagination parameters
      * @return page of {@link ListingDTO}
@@ -110,10 +129,48 @@ public class ListingService {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
 
         Specification<Listing> spec = ListingSpecification.from(request);
-        Page<Listing> listings = listingRepository.findAll(spec, pageable);
+        Page<ListingDTO> listings = listingReadRepository.findPage(spec, pageable);
 
         log.debug("Listing search: total={}, page={}, size={}", listings.getTotalElements(), page, size);
-        return listings.map(ListingDTO::fromEntity);
+        return listings;
+    }
+
+    /**
+     * Returns one page of the same feed as {@link #list}, positioned by a keyset cursor
+     * on {@code (createdAt, id)} instead of an offset, so every page costs the same
+     * regardless of depth. No {@code COUNT(*)} is run unless
+     * {@link ListingSearchRequest#isApproximateTotal()} asks for a total, and then at
+     * most {@code app.pagination.count-cap} rows are counted.
+     *
+     * @param request filters, page size, cursor and total mode; {@code page} is ignored
+     * @return the page with the continuation token for the next one
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ListingDTO> listByCursor(ListingSearchRequest request) {
+        int size = Math.min(Math.max(1, request.getSize()), 200);
+        KeysetCursor cursor = KeysetCursor.decode(request.getCursor());
+
+        Specification<Listing> filters = ListingSpecification.from(request);
+        Specification<Listing> spec = cursor != null ? filters.and(ListingSpecification.after(cursor)) : filters;
+        List<ListingDTO> rows = listingReadRepository.find(spec, FEED_ORDER, 0, size + 1);
+
+        CursorPage<ListingDTO> page = CursorPage.of(rows, size,
+                dto -> new KeysetCursor(dto.getCreatedAt(), dto.getId()));
+        if (request.isApproximateTotal()) {
+            page = page.withTotal(countUpTo(filters, countCap), countCap);
+        }
+        log.debug("Listing feed: size={}, returned={}, hasNext={}", size, page.getContent().size(), page.isHasNext());
+        return page;
+    }
+
+    /** Counts matching listings, stopping after {@code cap + 1}. */
+    private long countUpTo(Specification<Listing> spec, int cap) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> cq = cb.createQuery(UUID.class);
+        Root<Listing> root = cq.from(Listing.class);
+        cq.select(root.get("id")).where(spec.toPredicate(root, cq, cb));
+        return entityManager.createQuery(cq).setMaxResults(cap + 1).getResultList().size();
     }
 
     // -------------------------------------------------------------------------
@@ -257,33 +314,22 @@ public class ListingService {
     // -------------------------------------------------------------------------
 
     /**
-     * Returns aggregated counts by intent and by status.
+     * Returns aggregated counts by intent and by status, plus active listings per
+     * manufacturer, category and group, all read from the materialized counters.
      *
      * @return {@link ListingStatsDTO} with totals and breakdowns
      */
     @Transactional(readOnly = true)
     public ListingStatsDTO getStats() {
-        long total = listingRepository.countByStatusAndNotDeleted(ListingStatus.active)
-                + listingRepository.countByStatusAndNotDeleted(ListingStatus.sold)
-                + listingRepository.countByStatusAndNotDeleted(ListingStatus.pending_review)
-                + listingRepository.countByStatusAndNotDeleted(ListingStatus.expired);
-
-        Map<String, Long> byIntent = Map.of(
-                IntentType.sell.name(), listingRepository.countByIntent(IntentType.sell),
-                IntentType.want.name(), listingRepository.countByIntent(IntentType.want),
-                IntentType.unknown.name(), listingRepository.countByIntent(IntentType.unknown)
-        );
-
-        Map<String, Long> byStatus = Map.of(
-                ListingStatus.active.name(), listingRepository.countByStatus(ListingStatus.active),
-                ListingStatus.sold.name(), listingRepository.countByStatus(ListingStatus.sold),
-                ListingStatus.expired.name(), listingRepository.countByStatus(ListingStatus.expired),
-                ListingStatus.deleted.name(), listingRepository.countByStatus(ListingStatus.deleted),
-                ListingStatus.pending_review.name(), listingRepository.countByStatus(ListingStatus.pending_review)
-        );
+        ListingStatsSnapshot stats = listingStatsService.snapshot();
+        long total = stats.countByStatusNotDeleted(ListingStatus.active)
+                + stats.countByStatusNotDeleted(ListingStatus.sold)
+                + stats.countByStatusNotDeleted(ListingStatus.pending_review)
+                + stats.countByStatusNotDeleted(ListingStatus.expired);
 
         log.debug("Stats: total={}", total);
-        return new ListingStatsDTO(total, byIntent, byStatus);
+        return new ListingStatsDTO(total, stats.byIntent(), stats.byStatus(),
+                stats.activeByManufacturer(), stats.activeByCategory(), stats.activeByGroup());
     }
 
     // -------------------------------------------------------------------------
@@ -404,7 +450,8 @@ public class ListingService {
     // -------------------------------------------------------------------------
 
     /**
-     * Enriches a list of DTOs with cross-post counts in a single batch query.
+     * Enriches a list of DTOs with cross-post counts in a single batch query over the
+     * precomputed cluster sizes (see {@link CrossPostTracker}).
      * Non-fatal: if the query fails the DTOs are returned unchanged.
      */
     public void enrichWithCrossPostCounts(List<ListingDTO> dtos) {
@@ -415,7 +462,7 @@ public class ListingService {
             Map<UUID, Integer> counts = listingRepository.countCrossPostsForListings(ids)
                     .stream()
                     .collect(Collectors.toMap(
-                            ListingRepository.CrossPostCountProjection::getListingId,
+                            row -> UUID.fromString(row.getListingId()),
                             ListingRepository.CrossPostCountProjection::getCrossPostCount
                     ));
 
@@ -428,8 +475,9 @@ public class ListingService {
     }
 
     /**
-     * Returns the cross-posts of a given listing (same sender + part# + price,
-     * different raw message).
+     * Returns the cross-posts of a given listing: the other live listings in its
+     * cross-post cluster (same part number and a shared sender name or phone,
+     * transitively).
      */
     @Transactional(readOnly = true)
     public List<CrossPostDTO> getCrossPosts(UUID id) {
@@ -465,46 +513,6 @@ public class ListingService {
         }
     }
 
-    // -------------------------------------------------------------------------
-    // Backfill exchange rates (admin)
-    // -------------------------------------------------------------------------
-
-    /**
-     * Backfills exchange rates for listings that have a price but no exchange rate.
-     *
-     * @return the number of listings updated
-     */
-    public int backfillExchangeRates() {
-        List<Listing> listings = listingRepository.findAll(
-                (root, query, cb) -> cb.and(
-                        cb.isNotNull(root.get("price")),
-                        cb.isNull(root.get("exchangeRateToUsd"))
-                )
-        );
-
-        int updated = 0;
-        for (Listing listing : listings) {
-            try {
-                LocalDate rateDate = listing.getCreatedAt() != null
-                        ? listing.getCreatedAt().toLocalDate()
-                        : LocalDate.now();
-                BigDecimal rate = exchangeRateService.getRateToUsd(listing.getPriceCurrency(), rateDate);
-                if (rate != null) {
-                    listing.setExchangeRateToUsd(rate);
-                    listing.setPriceUsd(exchangeRateService.computeUsdPrice(
-                            listing.getPrice(), listing.getPriceCurrency(), rateDate));
-                    listingRepository.save(listing);
-                    updated++;
-                }
-            } catch (Exception e) {
-                log.warn("Backfill failed for listing {}: {}", listing.getId(), e.getMessage());
-            }
-        }
-
-        log.info("Backfilled exchange rates for {} listings", updated);
-        return updated;
-    }
-
     // -------------------------------------------------------------------------
     // Scheduled: listing expiry
     // -------------------------------------------------------------------------
@@ -515,7 +523,10 @@ public class ListingService {
      */
     @Scheduled(fixedRate = 1, timeUnit = TimeUnit.HOURS)
     public void expireListings() {
-        int expired = listingRepository.expireListingsBefore(OffsetDateTime.now());
+        OffsetDateTime now = OffsetDateTime.now();
+        listingStatsService.recordBulkStatusChange(
+                listingRepository.countExpiringBeforeByStatsDimensions(now), ListingStatus.expired);
+        int expired = listingRepository.expireListingsBefore(now);
         if (expired > 0) {
             log.info("Expired {} listings that passed their expiry date", expired);
         }
@@ -1,6 +1,7 @@
 package com.tradeintel.listing;
 
 import com.tradeintel.common.entity.Listing;
+import com.tradeintel.common.paging.KeysetCursor;
 import com.tradeintel.listing.dto.ListingSearchRequest;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
@@ -121,4 +122,33 @@ public final class ListingSpecification {
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * Case-insensitive substring match on {@code itemDescription}. Used as the
+     * keyword fallback for semantic search when pgvector is unavailable.
+     *
+     * @param text the text to look for; must not be null
+     * @return a specification matching listings whose description contains {@code text}
+     */
+    public static Specification<Listing> descriptionContains(String text) {
+        String pattern = "%" + text.toLowerCase() + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("itemDescription")), pattern);
+    }
+
+    /**
+     * Keyset predicate for the {@code createdAt DESC, id DESC} feed: listings strictly
+     * after the cursor, i.e. created earlier, or at the same instant with a smaller id.
+     * The redundant {@code createdAt <= cursor} bound gives the planner an index range
+     * to start from, which the disjunction alone does not.
+     *
+     * @param cursor sort key of the last listing of the previous page
+     * @return a specification matching the listings of the following pages
+     */
+    public static Specification<Listing> after(KeysetCursor cursor) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("createdAt"), cursor.timestamp()),
+                cb.or(cb.lessThan(root.get("createdAt"), cursor.timestamp()),
+                        cb.and(cb.equal(root.get("createdAt"), cursor.timestamp()),
+                                cb.lessThan(root.get("id"), cursor.id()))));
+    }
 }
@@ -0,0 +1,80 @@
+package com.tradeintel.listing;
+
+import com.tradeintel.common.entity.ListingStatCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Spring Data JPA repository for the incrementally maintained listing counters.
+ *
+ * <p>Increments are written by {@link ListingStatsTracker}; this repository reads the
+ * table for {@link ListingStatsService} and rebuilds it from {@code listings}.</p>
+ */
+@Repository
+public interface ListingStatCounterRepository extends JpaRepository<ListingStatCounter, String> {
+
+    interface CounterRow {
+        String getStatus();
+        String getIntent();
+        Boolean getDeleted();
+        UUID getGroupId();
+        String getGroupName();
+        UUID getManufacturerId();
+        String getManufacturerName();
+        UUID getCategoryId();
+        String getCategoryName();
+        long getListingCount();
+    }
+
+    /**
+     * Returns every non-empty counter row with the group, manufacturer and category
+     * names resolved. The table has one row per distinct dimension combination, so
+     * this is independent of the number of listings.
+     */
+    @Query(value = """
+        SELECT c.status AS status, c.intent AS intent, c.deleted AS deleted,
+               c.group_id AS groupId, g.group_name AS groupName,
+               c.manufacturer_id AS manufacturerId, m.name AS manufacturerName,
+               c.category_id AS categoryId, cat.name AS categoryName,
+               c.listing_count AS listingCount
+        FROM   listing_stat_counters c
+        LEFT JOIN whatsapp_groups g ON g.id = c.group_id
+        LEFT JOIN manufacturers m   ON m.id = c.manufacturer_id
+        LEFT JOIN categories cat    ON cat.id = c.category_id
+        WHERE  c.listing_count <> 0
+        """, nativeQuery = true)
+    List<CounterRow> findAllWithNames();
+
+    @Modifying
+    @Query(value = "DELETE FROM listing_stat_counters", nativeQuery = true)
+    int deleteAllCounters();
+
+    /**
+     * Recounts {@code listings} into the (emptied) counter table. The key expression
+     * must match {@link ListingStatsKey#dimsKey()}.
+     *
+     * @return number of counter rows written
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO listing_stat_counters
+            (dims_key, status, intent, deleted, group_id, manufacturer_id, category_id, listing_count)
+        SELECT CONCAT(COALESCE(status, 'active'), '|', intent, '|',
+                      CASE WHEN deleted_at IS NULL THEN '0' ELSE '1' END, '|',
+                      COALESCE(CAST(group_id AS VARCHAR(36)), ''), '|',
+                      COALESCE(CAST(manufacturer_id AS VARCHAR(36)), ''), '|',
+                      COALESCE(CAST(item_category_id AS VARCHAR(36)), '')),
+               COALESCE(status, 'active'), intent, deleted_at IS NOT NULL,
+               group_id, manufacturer_id, item_category_id, COUNT(*)
+        FROM   listings
+        GROUP BY COALESCE(status, 'active'), intent, deleted_at IS NOT NULL,
+                 group_id, manufacturer_id, item_category_id,
+                 CASE WHEN deleted_at IS NULL THEN '0' ELSE '1' END
+        """, nativeQuery = true)
+    int rebuildFromListings();
+}
@@ -0,0 +1,65 @@
+package com.tradeintel.listing;
+
+import com.tradeintel.common.entity.Listing;
+import com.tradeintel.common.entity.ListingStatus;
+
+import java.util.UUID;
+
+/**
+ * The dimensions one {@code listing_stat_counters} row counts listings by.
+ *
+ * @param status         lifecycle status name ({@code active} when unset)
+ * @param intent         intent name
+ * @param deleted        whether the listing is soft-deleted
+ * @param groupId        source WhatsApp group
+ * @param manufacturerId normalized manufacturer, or null
+ * @param categoryId     normalized category, or null
+ */
+public record ListingStatsKey(String status, String intent, boolean deleted,
+                              UUID groupId, UUID manufacturerId, UUID categoryId) {
+
+    /**
+     * Builds the key for a listing's current state.
+     *
+     * @param listing the listing; associations may be uninitialized proxies
+     * @return the key
+     */
+    public static ListingStatsKey of(Listing listing) {
+        return new ListingStatsKey(
+                statusName(listing.getStatus()),
+                listing.getIntent() != null ? listing.getIntent().name() : "unknown",
+                listing.getDeletedAt() != null,
+                listing.getGroup() != null ? listing.getGroup().getId() : null,
+                listing.getManufacturer() != null ? listing.getManufacturer().getId() : null,
+                listing.getItemCategory() != null ? listing.getItemCategory().getId() : null);
+    }
+
+    static String statusName(ListingStatus status) {
+        return status != null ? status.name() : ListingStatus.active.name();
+    }
+
+    /**
+     * Returns the same dimensions with a different status.
+     *
+     * @param newStatus the status name
+     * @return the moved key
+     */
+    public ListingStatsKey withStatus(String newStatus) {
+        return new ListingStatsKey(newStatus, intent, deleted, groupId, manufacturerId, categoryId);
+    }
+
+    /**
+     * Returns the primary key of the counter row. Must match the {@code CONCAT}
+     * expression used to rebuild the table in SQL.
+     *
+     * @return {@code status|intent|0or1|groupId|manufacturerId|categoryId}
+     */
+    public String dimsKey() {
+        return status + '|' + intent + '|' + (deleted ? '1' : '0') + '|'
+                + idText(groupId) + '|' + idText(manufacturerId) + '|' + idText(categoryId);
+    }
+
+    private static String idText(UUID id) {
+        return id != null ? id.toString() : "";
+    }
+}
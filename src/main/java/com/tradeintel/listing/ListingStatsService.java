@@ -0,0 +1,137 @@
+package com.tradeintel.listing;
+
+import com.tradeintel.common.entity.ListingStatus;
+import com.tradeintel.listing.ListingRepository.StatsDimensionRow;
+import jakarta.persistence.EntityManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads and maintains the materialized listing statistics in {@code listing_stat_counters}.
+ *
+ * <p>Entity changes are counted automatically by {@link ListingStatsTracker}. Bulk
+ * JPQL statements bypass Hibernate events, so the code running them first groups the
+ * affected rows with a {@code COUNT(*) ... GROUP BY} and passes the result to
+ * {@link #recordBulkStatusChange} or {@link #recordBulkDelete} in the same transaction.
+ * A nightly {@link #rebuild()} recounts the table from {@code listings} to absorb any
+ * drift, e.g. from manual SQL.</p>
+ */
+@Service
+public class ListingStatsService {
+
+    private static final Logger log = LogManager.getLogger(ListingStatsService.class);
+
+    private final ListingStatCounterRepository counterRepository;
+    private final ListingStatsTracker tracker;
+    private final EntityManager entityManager;
+
+    @Lazy
+    @Autowired
+    private ListingStatsService self;
+
+    public ListingStatsService(ListingStatCounterRepository counterRepository,
+                               ListingStatsTracker tracker,
+                               EntityManager entityManager) {
+        this.counterRepository = counterRepository;
+        this.tracker = tracker;
+        this.entityManager = entityManager;
+    }
+
+    // -------------------------------------------------------------------------
+    // Reads
+    // -------------------------------------------------------------------------
+
+    /**
+     * Reads all counters in a single query.
+     *
+     * @return the current statistics
+     */
+    @Transactional(readOnly = true)
+    public ListingStatsSnapshot snapshot() {
+        return new ListingStatsSnapshot(counterRepository.findAllWithNames());
+    }
+
+    // -------------------------------------------------------------------------
+    // Bulk statements
+    // -------------------------------------------------------------------------
+
+    /**
+     * Moves counted listings to a new status ahead of a bulk {@code UPDATE}.
+     *
+     * @param rows      the affected listings, grouped by stats dimensions
+     * @param newStatus the status the statement sets
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBulkStatusChange(List<StatsDimensionRow> rows, ListingStatus newStatus) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        for (StatsDimensionRow row : rows) {
+            ListingStatsKey key = toKey(row);
+            tracker.record(session, key, -row.getListingCount());
+            tracker.record(session, key.withStatus(newStatus.name()), row.getListingCount());
+        }
+    }
+
+    /**
+     * Removes counted listings ahead of a bulk {@code DELETE}.
+     *
+     * @param rows the affected listings, grouped by stats dimensions
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBulkDelete(List<StatsDimensionRow> rows) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        for (StatsDimensionRow row : rows) {
+            tracker.record(session, toKey(row), -row.getListingCount());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Reconcile
+    // -------------------------------------------------------------------------
+
+    /**
+     * Recounts the counter table from {@code listings}.
+     *
+     * @return number of counter rows written
+     */
+    @Transactional
+    public int rebuild() {
+        counterRepository.deleteAllCounters();
+        int rows = counterRepository.rebuildFromListings();
+        log.info("Rebuilt listing stats: {} counter rows", rows);
+        return rows;
+    }
+
+    /** Nightly recount, so counters never drift for longer than a day. */
+    @Scheduled(cron = "${app.listings.stats.reconcile-cron:0 15 3 * * *}")
+    public void scheduledReconcile() {
+        try {
+            self.rebuild();
+        } catch (Exception e) {
+            log.warn("Listing stats reconcile failed (non-fatal): {}", e.getMessage());
+        }
+    }
+
+    private static ListingStatsKey toKey(StatsDimensionRow row) {
+        return new ListingStatsKey(
+                row.getStatus() != null ? row.getStatus() : ListingStatus.active.name(),
+                row.getIntent(),
+                Boolean.TRUE.equals(row.getDeleted()),
+                toUuid(row.getGroupId()),
+                toUuid(row.getManufacturerId()),
+                toUuid(row.getCategoryId()));
+    }
+
+    private static UUID toUuid(String id) {
+        return id != null ? UUID.fromString(id) : null;
+    }
+}
@@ -0,0 +1,121 @@
+package com.tradeintel.listing;
+
+import com.tradeintel.common.entity.IntentType;
+import com.tradeintel.common.entity.ListingStatus;
+import com.tradeintel.listing.ListingStatCounterRepository.CounterRow;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An immutable read of {@code listing_stat_counters}, aggregated in memory.
+ *
+ * <p>Every figure is a sum over the counter rows, so building one costs a single query
+ * whose size depends on the number of distinct (status, intent, group, manufacturer,
+ * category) combinations, not on the number of listings. The manufacturer, category
+ * and group breakdowns count active, non-deleted listings.</p>
+ */
+public final class ListingStatsSnapshot {
+
+    /** Label for listings without a manufacturer or category. */
+    public static final String UNSPECIFIED = "Unspecified";
+
+    private final List<CounterRow> rows;
+
+    ListingStatsSnapshot(List<CounterRow> rows) {
+        this.rows = List.copyOf(rows);
+    }
+
+    /** Total number of listings, including soft-deleted ones. */
+    public long total() {
+        return rows.stream().mapToLong(CounterRow::getListingCount).sum();
+    }
+
+    /** Number of listings with the given status, including soft-deleted ones. */
+    public long countByStatus(ListingStatus status) {
+        return rows.stream()
+                .filter(r -> status.name().equals(r.getStatus()))
+                .mapToLong(CounterRow::getListingCount).sum();
+    }
+
+    /** Number of non-deleted listings with the given status. */
+    public long countByStatusNotDeleted(ListingStatus status) {
+        return rows.stream()
+                .filter(r -> status.name().equals(r.getStatus()) && !Boolean.TRUE.equals(r.getDeleted()))
+                .mapToLong(CounterRow::getListingCount).sum();
+    }
+
+    /** Number of listings with the given intent, including soft-deleted ones. */
+    public long countByIntent(IntentType intent) {
+        return rows.stream()
+                .filter(r -> intent.name().equals(r.getIntent()))
+                .mapToLong(CounterRow::getListingCount).sum();
+    }
+
+    /** Count per status name for every {@link ListingStatus}, zero-filled. */
+    public Map<String, Long> byStatus() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (ListingStatus status : ListingStatus.values()) {
+            counts.put(status.name(), countByStatus(status));
+        }
+        return counts;
+    }
+
+    /** Count per intent name for every {@link IntentType}, zero-filled. */
+    public Map<String, Long> byIntent() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (IntentType intent : IntentType.values()) {
+            counts.put(intent.name(), countByIntent(intent));
+        }
+        return counts;
+    }
+
+    /** Active listings per manufacturer name, largest first. */
+    public Map<String, Long> activeByManufacturer() {
+        return activeBy(CounterRow::getManufacturerName);
+    }
+
+    /** Active listings per category name, largest first. */
+    public Map<String, Long> activeByCategory() {
+        return activeBy(CounterRow::getCategoryName);
+    }
+
+    /** Active listings per WhatsApp group name, largest first. */
+    public Map<String, Long> activeByGroup() {
+        return activeBy(CounterRow::getGroupName);
+    }
+
+    /**
+     * Returns the first {@code limit} entries of a breakdown.
+     *
+     * @param breakdown a map from one of the {@code activeBy*} methods
+     * @param limit     maximum number of entries
+     * @return the largest entries, in order
+     */
+    public static Map<String, Long> top(Map<String, Long> breakdown, int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        breakdown.entrySet().stream().limit(limit).forEach(e -> top.put(e.getKey(), e.getValue()));
+        return top;
+    }
+
+    private Map<String, Long> activeBy(Function<CounterRow, String> label) {
+        Map<String, Long> counts = new HashMap<>();
+        for (CounterRow row : rows) {
+            if (ListingStatus.active.name().equals(row.getStatus()) && !Boolean.TRUE.equals(row.getDeleted())) {
+                String name = label.apply(row);
+                counts.merge(name != null ? name : UNSPECIFIED, row.getListingCount(), Long::sum);
+            }
+        }
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
+    }
+}
@@ -0,0 +1,176 @@
+package com.tradeintel.listing;
+
+import com.tradeintel.common.entity.Category;
+import com.tradeintel.common.entity.IntentType;
+import com.tradeintel.common.entity.Listing;
+import com.tradeintel.common.entity.ListingStatus;
+import com.tradeintel.common.entity.Manufacturer;
+import com.tradeintel.common.entity.WhatsappGroup;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps {@code listing_stat_counters} in step with the {@code listings} table.
+ *
+ * <p>Registered as a Hibernate post-insert/update/delete listener. Every change to a
+ * {@link Listing} that moves it between counter rows (new listing, status change,
+ * sold, soft delete, recategorised, hard delete) adds a -1/+1 delta to a map held for
+ * the current session. Just before the transaction commits, after the final flush, the
+ * summed deltas are written with one {@code INSERT ... ON CONFLICT DO NOTHING} and one
+ * {@code UPDATE} per touched counter row, in key order so concurrent transactions lock
+ * rows in the same order. Rolled-back transactions discard their deltas.</p>
+ *
+ * <p>Bulk JPQL/native statements bypass Hibernate events; callers that run them record
+ * the affected counts through {@link ListingStatsService} instead.</p>
+ */
+@Component
+public class ListingStatsTracker extends ListingEventTracker<Map<ListingStatsKey, Long>> {
+
+    private static final Logger log = LogManager.getLogger(ListingStatsTracker.class);
+
+    private static final String ENSURE_ROW_SQL =
+            "INSERT INTO listing_stat_counters " +
+            "(dims_key, status, intent, deleted, group_id, manufacturer_id, category_id, listing_count) " +
+            "VALUES (:dimsKey, :status, :intent, :deleted, :groupId, :manufacturerId, :categoryId, 0) " +
+            "ON CONFLICT DO NOTHING";
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE listing_stat_counters SET listing_count = listing_count + :delta, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE dims_key = :dimsKey";
+
+    public ListingStatsTracker(EntityManagerFactory entityManagerFactory) {
+        super(entityManagerFactory);
+    }
+
+    // -------------------------------------------------------------------------
+    // Hibernate events
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Listing listing) {
+            record(event.getSession(), ListingStatsKey.of(listing), 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Listing listing)) {
+            return;
+        }
+        if (event.getOldState() == null) {
+            // Only happens for updates without a loaded snapshot; the nightly reconcile covers it
+            log.debug("No previous state for listing {}; stats delta skipped", listing.getId());
+            return;
+        }
+        ListingStatsKey before = keyFromState(event.getPersister(), event.getOldState());
+        ListingStatsKey after = ListingStatsKey.of(listing);
+        if (!before.equals(after)) {
+            record(event.getSession(), before, -1);
+            record(event.getSession(), after, 1);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Listing) {
+            record(event.getSession(), keyFromState(event.getPersister(), event.getDeletedState()), -1);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Delta accumulation
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds a delta for one counter row to the session's pending changes, to be written
+     * when its transaction commits.
+     *
+     * @param session the session whose transaction the change belongs to
+     * @param key     the counter row
+     * @param delta   the change in listing count
+     */
+    void record(SessionImplementor session, ListingStatsKey key, long delta) {
+        pendingFor(session).merge(key, delta, Long::sum);
+    }
+
+    @Override
+    protected Map<ListingStatsKey, Long> newPending() {
+        return new HashMap<>();
+    }
+
+    @Override
+    protected void flush(SessionImplementor session, Map<ListingStatsKey, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<String, Map.Entry<ListingStatsKey, Long>> ordered = new TreeMap<>();
+        for (Map.Entry<ListingStatsKey, Long> entry : deltas.entrySet()) {
+            if (entry.getValue() != 0) {
+                ordered.put(entry.getKey().dimsKey(), entry);
+            }
+        }
+        for (Map.Entry<String, Map.Entry<ListingStatsKey, Long>> row : ordered.entrySet()) {
+            ListingStatsKey key = row.getValue().getKey();
+            session.createNativeMutationQuery(ENSURE_ROW_SQL)
+                    .setParameter("dimsKey", row.getKey())
+                    .setParameter("status", key.status())
+                    .setParameter("intent", key.intent())
+                    .setParameter("deleted", key.deleted())
+                    .setParameter("groupId", key.groupId(), StandardBasicTypes.UUID)
+                    .setParameter("manufacturerId", key.manufacturerId(), StandardBasicTypes.UUID)
+                    .setParameter("categoryId", key.categoryId(), StandardBasicTypes.UUID)
+                    .executeUpdate();
+            session.createNativeMutationQuery(APPLY_DELTA_SQL)
+                    .setParameter("delta", row.getValue().getValue())
+                    .setParameter("dimsKey", row.getKey())
+                    .executeUpdate();
+        }
+        log.debug("Applied listing stats deltas to {} counter rows", ordered.size());
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private static ListingStatsKey keyFromState(EntityPersister persister, Object[] state) {
+        String[] names = persister.getPropertyNames();
+        ListingStatus status = null;
+        IntentType intent = null;
+        OffsetDateTime deletedAt = null;
+        WhatsappGroup group = null;
+        Manufacturer manufacturer = null;
+        Category category = null;
+        for (int i = 0; i < names.length; i++) {
+            switch (names[i]) {
+                case "status" -> status = (ListingStatus) state[i];
+                case "intent" -> intent = (IntentType) state[i];
+                case "deletedAt" -> deletedAt = (OffsetDateTime) state[i];
+                case "group" -> group = (WhatsappGroup) state[i];
+                case "manufacturer" -> manufacturer = (Manufacturer) state[i];
+                case "itemCategory" -> category = (Category) state[i];
+                default -> { }
+            }
+        }
+        return new ListingStatsKey(
+                ListingStatsKey.statusName(status),
+                intent != null ? intent.name() : "unknown",
+                deletedAt != null,
+                group != null ? group.getId() : null,
+                manufacturer != null ? manufacturer.getId() : null,
+                category != null ? category.getId() : null);
+    }
+}
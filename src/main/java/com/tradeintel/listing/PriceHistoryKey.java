@@ -0,0 +1,70 @@
+package com.tradeintel.listing;
+
+import com.tradeintel.common.entity.Listing;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Identifies one {@code price_history_daily} bucket.
+ *
+ * @param manufacturerId normalized manufacturer, or null
+ * @param partNumber     trimmed, upper-cased part number
+ * @param currency       price currency code
+ * @param date           UTC day the listings were created
+ */
+public record PriceHistoryKey(UUID manufacturerId, String partNumber, String currency, LocalDate date) {
+
+    /**
+     * Returns the bucket a listing's price falls into.
+     *
+     * @param listing the listing; the manufacturer may be an uninitialized proxy
+     * @return the key, or null if the listing has no part number, currency or creation time
+     */
+    public static PriceHistoryKey of(Listing listing) {
+        return of(listing.getManufacturer() != null ? listing.getManufacturer().getId() : null,
+                listing.getPartNumber(), listing.getPriceCurrency(), listing.getCreatedAt());
+    }
+
+    /**
+     * Builds a key from raw listing columns.
+     *
+     * @return the key, or null if the part number, currency or creation time is missing
+     */
+    public static PriceHistoryKey of(UUID manufacturerId, String partNumber, String currency,
+                                     OffsetDateTime createdAt) {
+        String normalized = normalizePartNumber(partNumber);
+        if (normalized == null || currency == null || createdAt == null) {
+            return null;
+        }
+        return new PriceHistoryKey(manufacturerId, normalized, currency,
+                createdAt.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate());
+    }
+
+    /**
+     * Normalizes a part number the way buckets store it.
+     *
+     * @param partNumber raw part number
+     * @return trimmed and upper-cased, or null if blank
+     */
+    public static String normalizePartNumber(String partNumber) {
+        if (partNumber == null || partNumber.isBlank()) {
+            return null;
+        }
+        return partNumber.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the primary key of the bucket row. Must match the {@code CONCAT}
+     * expression used to seed the table in V021.
+     *
+     * @return {@code manufacturerId|PART_NUMBER|currency|yyyy-mm-dd}
+     */
+    public String bucketKey() {
+        return (manufacturerId != null ? manufacturerId.toString() : "") + '|'
+                + partNumber + '|' + currency + '|' + date;
+    }
+}
@@ -0,0 +1,45 @@
+package com.tradeintel.listing;
+
+import com.tradeintel.common.entity.PriceHistoryDay;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Spring Data JPA repository for the daily price aggregates.
+ *
+ * <p>Rows are written by {@link PriceHistoryTracker}; this repository only reads them.</p>
+ */
+@Repository
+public interface PriceHistoryRepository extends JpaRepository<PriceHistoryDay, String> {
+
+    /**
+     * Returns the non-empty daily buckets in a date range, oldest first per currency.
+     * Null filters are ignored.
+     *
+     * @param partNumber     trimmed, upper-cased part number
+     * @param modelPattern   lower-case {@code LIKE} pattern on the model name
+     * @param manufacturerId manufacturer UUID
+     * @param currency       currency code
+     * @param from           first day (inclusive)
+     * @param to             last day (inclusive)
+     */
+    @Query("SELECT p FROM PriceHistoryDay p " +
+           "WHERE p.listingCount > 0 AND p.priceDate >= :from AND p.priceDate <= :to " +
+           "AND (:partNumber IS NULL OR p.partNumber = :partNumber) " +
+           "AND (:modelPattern IS NULL OR LOWER(p.modelName) LIKE :modelPattern) " +
+           "AND (:manufacturerId IS NULL OR p.manufacturerId = :manufacturerId) " +
+           "AND (:currency IS NULL OR p.currency = :currency) " +
+           "ORDER BY p.currency, p.priceDate")
+    List<PriceHistoryDay> findSeries(@Param("partNumber") String partNumber,
+                                     @Param("modelPattern") String modelPattern,
+                                     @Param("manufacturerId") UUID manufacturerId,
+                                     @Param("currency") String currency,
+                                     @Param("from") LocalDate from,
+                                     @Param("to") LocalDate to);
+}
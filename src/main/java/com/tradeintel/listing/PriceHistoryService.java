@@ -0,0 +1,189 @@
+package com.tradeintel.listing;
+
+import com.tradeintel.common.entity.PriceHistoryDay;
+import com.tradeintel.listing.ListingRepository.PriceBucketRow;
+import com.tradeintel.listing.dto.PriceHistoryDTO;
+import com.tradeintel.listing.dto.PriceHistoryPointDTO;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Serves price-trend queries from {@code price_history_daily}.
+ *
+ * <p>A query reads one row per day and currency for the matching part number or model,
+ * never the {@code listings} table, so months of history come back in a few
+ * milliseconds. Daily rows are rolled up into weeks or months in memory.</p>
+ */
+@Service
+public class PriceHistoryService {
+
+    /** Supported roll-up periods. */
+    public static final List<String> GRANULARITIES = List.of("day", "week", "month");
+
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final PriceHistoryTracker tracker;
+    private final EntityManager entityManager;
+    private final int defaultDays;
+    private final int maxDays;
+
+    public PriceHistoryService(PriceHistoryRepository priceHistoryRepository,
+                               PriceHistoryTracker tracker,
+                               EntityManager entityManager,
+                               @Value("${app.listings.price-history.default-days:180}") int defaultDays,
+                               @Value("${app.listings.price-history.max-days:1095}") int maxDays) {
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.tracker = tracker;
+        this.entityManager = entityManager;
+        this.defaultDays = defaultDays;
+        this.maxDays = maxDays;
+    }
+
+    // -------------------------------------------------------------------------
+    // Queries
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the price history of a part number or model.
+     *
+     * @param partNumber     exact part number (case and surrounding spaces ignored)
+     * @param modelName      model name substring (case-insensitive)
+     * @param manufacturerId optional manufacturer filter
+     * @param currency       optional currency filter
+     * @param from           first day, default {@code app.listings.price-history.default-days} before {@code to}
+     * @param to             last day, default today
+     * @param granularity    {@code day}, {@code week} or {@code month}; default {@code day}
+     * @return the series
+     * @throws IllegalArgumentException if neither part number nor model is given, the
+     *         granularity is unknown, or the range is inverted or too long
+     */
+    @Transactional(readOnly = true)
+    public PriceHistoryDTO getHistory(String partNumber, String modelName, UUID manufacturerId,
+                                      String currency, LocalDate from, LocalDate to, String granularity) {
+        String normalizedPart = PriceHistoryKey.normalizePartNumber(partNumber);
+        String model = modelName != null && !modelName.isBlank() ? modelName.trim() : null;
+        if (normalizedPart == null && model == null) {
+            throw new IllegalArgumentException("partNumber or modelName is required");
+        }
+        String period = granularity != null ? granularity.trim().toLowerCase(Locale.ROOT) : "day";
+        if (!GRANULARITIES.contains(period)) {
+            throw new IllegalArgumentException("granularity must be one of " + GRANULARITIES);
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(defaultDays);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(start, end) > maxDays) {
+            throw new IllegalArgumentException("Range must not exceed " + maxDays + " days");
+        }
+        String currencyCode = currency != null && !currency.isBlank()
+                ? currency.trim().toUpperCase(Locale.ROOT) : null;
+
+        List<PriceHistoryDay> days = priceHistoryRepository.findSeries(normalizedPart,
+                model != null ? "%" + model.toLowerCase(Locale.ROOT) + "%" : null,
+                manufacturerId, currencyCode, start, end);
+
+        PriceHistoryDTO dto = new PriceHistoryDTO();
+        dto.setPartNumber(normalizedPart);
+        dto.setModelName(model);
+        dto.setManufacturerId(manufacturerId);
+        dto.setCurrency(currencyCode);
+        dto.setGranularity(period);
+        dto.setFrom(start);
+        dto.setTo(end);
+        dto.setPoints(rollUp(days, period));
+        return dto;
+    }
+
+    // -------------------------------------------------------------------------
+    // Bulk statements
+    // -------------------------------------------------------------------------
+
+    /**
+     * Marks the buckets of listings about to be removed by a bulk {@code DELETE} for
+     * recomputation when the current transaction commits.
+     *
+     * @param rows bucket columns of the affected listings
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBulkDelete(List<PriceBucketRow> rows) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        for (PriceBucketRow row : rows) {
+            tracker.record(session, PriceHistoryKey.of(
+                    row.getManufacturerId(), row.getPartNumber(), row.getPriceCurrency(), row.getCreatedAt()));
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Roll-up
+    // -------------------------------------------------------------------------
+
+    private static List<PriceHistoryPointDTO> rollUp(List<PriceHistoryDay> days, String period) {
+        Map<String, List<PriceHistoryDay>> groups = new LinkedHashMap<>();
+        for (PriceHistoryDay day : days) {
+            groups.computeIfAbsent(day.getCurrency() + '|' + periodStart(day.getPriceDate(), period),
+                    k -> new ArrayList<>()).add(day);
+        }
+
+        List<PriceHistoryPointDTO> points = new ArrayList<>(groups.size());
+        for (List<PriceHistoryDay> group : groups.values()) {
+            PriceHistoryDay first = group.get(0);
+            BigDecimal min = null;
+            BigDecimal max = null;
+            int listings = 0;
+            int sold = 0;
+            for (PriceHistoryDay day : group) {
+                min = min == null || day.getMinPrice().compareTo(min) < 0 ? day.getMinPrice() : min;
+                max = max == null || day.getMaxPrice().compareTo(max) > 0 ? day.getMaxPrice() : max;
+                listings += day.getListingCount();
+                sold += day.getSoldCount();
+            }
+            points.add(new PriceHistoryPointDTO(first.getCurrency(),
+                    periodStart(first.getPriceDate(), period), min, max, weightedMedian(group, listings),
+                    listings, sold));
+        }
+        return points;
+    }
+
+    private static LocalDate periodStart(LocalDate date, String period) {
+        return switch (period) {
+            case "week" -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case "month" -> date.withDayOfMonth(1);
+            default -> date;
+        };
+    }
+
+    /** Median of daily medians weighted by listing count; exact when there is one day. */
+    private static BigDecimal weightedMedian(List<PriceHistoryDay> group, int total) {
+        if (group.size() == 1) {
+            return group.get(0).getMedianPrice();
+        }
+        List<PriceHistoryDay> sorted = new ArrayList<>(group);
+        sorted.sort(Comparator.comparing(PriceHistoryDay::getMedianPrice));
+        int seen = 0;
+        for (PriceHistoryDay day : sorted) {
+            seen += day.getListingCount();
+            if (seen * 2 >= total) {
+                return day.getMedianPrice();
+            }
+        }
+        return sorted.get(sorted.size() - 1).getMedianPrice();
+    }
+}
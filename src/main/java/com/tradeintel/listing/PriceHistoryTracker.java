@@ -0,0 +1,338 @@
+package com.tradeintel.listing;
+
+import com.tradeintel.common.entity.IntentType;
+import com.tradeintel.common.entity.Listing;
+import com.tradeintel.common.entity.ListingStatus;
+import com.tradeintel.common.entity.Manufacturer;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.MutationQuery;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Keeps {@code price_history_daily} in step with the priced listings it aggregates.
+ *
+ * <p>Registered as a Hibernate post-insert/update/delete listener. Every listing
+ * written in a transaction (routed by {@code ConfidenceRouter}, marked sold by a
+ * "Sold" reply, edited, reviewed or deleted) adds its old and new
+ * {@link PriceHistoryKey} to a set held for the session; only priced, live sell
+ * listings are counted, so want and unpriced listings never touch the table. Just
+ * before the transaction commits, the touched buckets are locked and recomputed from
+ * their listings together, so min/max/median stay exact: one statement makes sure
+ * each bucket has a row, one locks them, one query per day reads their listings, and
+ * one statement updates the locked rows in place. Buckets left without listings are
+ * removed.</p>
+ *
+ * <p>Buckets are recomputed in key order so concurrent transactions lock rows in the
+ * same order, and the row lock is taken before the listings are read, so the last
+ * transaction to commit always sees every earlier one. Rows are never deleted and
+ * re-inserted while locked: a transaction waiting on a deleted row would skip it
+ * under READ COMMITTED and recompute in parallel with the next writer.</p>
+ */
+@Component
+public class PriceHistoryTracker extends ListingEventTracker<Set<PriceHistoryKey>> {
+
+    private static final Logger log = LogManager.getLogger(PriceHistoryTracker.class);
+
+    /** Listing properties whose change can move or alter a bucket. */
+    private static final Set<String> TRACKED_PROPERTIES = Set.of(
+            "manufacturer", "partNumber", "priceCurrency", "price", "status", "intent",
+            "deletedAt", "modelName");
+
+    /** Buckets refreshed per statement; keeps bind-parameter counts well under driver limits. */
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String ENSURE_ROWS_SQL =
+            "INSERT INTO price_history_daily (bucket_key, manufacturer_id, part_number, currency, price_date) " +
+            "VALUES %s ON CONFLICT DO NOTHING";
+
+    private static final String LOCK_ROWS_SQL =
+            "SELECT bucket_key FROM price_history_daily WHERE bucket_key IN (:bucketKeys) " +
+            "ORDER BY bucket_key FOR UPDATE";
+
+    private static final String DELETE_ROWS_SQL =
+            "DELETE FROM price_history_daily WHERE bucket_key IN (:bucketKeys)";
+
+    /** Aggregate columns rewritten in place, in the order their values are bound. */
+    private static final List<String> AGGREGATE_COLUMNS = List.of(
+            "model_name", "listing_count", "sold_count", "min_price", "max_price", "median_price");
+
+    private static final String UPDATE_ROWS_SQL =
+            "UPDATE price_history_daily SET %s WHERE bucket_key IN (:bucketKeys)";
+
+    private static final String BUCKET_LISTINGS_HQL =
+            "SELECT m.id, l.partNumber, l.priceCurrency, l.createdAt, l.price, l.status, l.modelName " +
+            "FROM Listing l LEFT JOIN l.manufacturer m " +
+            "WHERE l.partNumber IS NOT NULL AND UPPER(TRIM(l.partNumber)) IN :partNumbers " +
+            "AND l.priceCurrency IN :currencies AND l.createdAt >= :from AND l.createdAt < :to " +
+            "AND l.price IS NOT NULL AND l.intent = :intent AND l.deletedAt IS NULL " +
+            "ORDER BY l.createdAt DESC";
+
+    public PriceHistoryTracker(EntityManagerFactory entityManagerFactory) {
+        super(entityManagerFactory);
+    }
+
+    // -------------------------------------------------------------------------
+    // Hibernate events
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Listing listing && isCounted(listing)) {
+            record(event.getSession(), PriceHistoryKey.of(listing));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Listing listing) || !touchesAny(event, TRACKED_PROPERTIES)) {
+            return;
+        }
+        if (event.getOldState() != null) {
+            record(event.getSession(), keyFromState(event.getPersister(), event.getOldState()));
+        }
+        if (isCounted(listing)) {
+            record(event.getSession(), PriceHistoryKey.of(listing));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Listing) {
+            record(event.getSession(), keyFromState(event.getPersister(), event.getDeletedState()));
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Bucket refresh
+    // -------------------------------------------------------------------------
+
+    /**
+     * Marks a bucket for recomputation when the session's transaction commits.
+     *
+     * @param session the session whose transaction changed the bucket's listings
+     * @param key     the bucket, or null for listings that are not tracked
+     */
+    void record(SessionImplementor session, PriceHistoryKey key) {
+        if (key == null) {
+            return;
+        }
+        pendingFor(session).add(key);
+    }
+
+    @Override
+    protected Set<PriceHistoryKey> newPending() {
+        return new HashSet<>();
+    }
+
+    @Override
+    protected void flush(SessionImplementor session, Set<PriceHistoryKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Map<String, PriceHistoryKey> ordered = new TreeMap<>();
+        keys.forEach(key -> ordered.put(key.bucketKey(), key));
+        List<PriceHistoryKey> sorted = new ArrayList<>(ordered.values());
+        for (int from = 0; from < sorted.size(); from += CHUNK_SIZE) {
+            refreshBuckets(session, sorted.subList(from, Math.min(from + CHUNK_SIZE, sorted.size())));
+        }
+        log.debug("Recomputed {} price history buckets", sorted.size());
+    }
+
+    /**
+     * Recomputes a chunk of buckets in key order: makes sure each has a row to lock,
+     * locks them, reads their listings, then updates the locked rows in place. Buckets
+     * left without listings are removed rather than kept as empty rows.
+     */
+    private void refreshBuckets(SessionImplementor session, List<PriceHistoryKey> keys) {
+        List<String> bucketKeys = keys.stream().map(PriceHistoryKey::bucketKey).toList();
+
+        MutationQuery ensure = session.createNativeMutationQuery(
+                ENSURE_ROWS_SQL.formatted(placeholders(keys.size(), 5)));
+        for (int i = 0; i < keys.size(); i++) {
+            PriceHistoryKey key = keys.get(i);
+            ensure.setParameter("p" + i + "_0", bucketKeys.get(i))
+                    .setParameter("p" + i + "_1", key.manufacturerId(), StandardBasicTypes.UUID)
+                    .setParameter("p" + i + "_2", key.partNumber())
+                    .setParameter("p" + i + "_3", key.currency())
+                    .setParameter("p" + i + "_4", key.date());
+        }
+        ensure.executeUpdate();
+        session.createNativeQuery(LOCK_ROWS_SQL, String.class)
+                .setParameterList("bucketKeys", bucketKeys)
+                .getResultList();
+
+        Map<PriceHistoryKey, Bucket> buckets = readBuckets(session, keys);
+
+        List<String> emptyKeys = new ArrayList<>();
+        List<String> filledKeys = new ArrayList<>();
+        for (PriceHistoryKey key : keys) {
+            (buckets.containsKey(key) ? filledKeys : emptyKeys).add(key.bucketKey());
+        }
+        if (!emptyKeys.isEmpty()) {
+            session.createNativeMutationQuery(DELETE_ROWS_SQL)
+                    .setParameterList("bucketKeys", emptyKeys)
+                    .executeUpdate();
+        }
+        if (filledKeys.isEmpty()) {
+            return;
+        }
+        MutationQuery update = session.createNativeMutationQuery(
+                UPDATE_ROWS_SQL.formatted(caseAssignments(filledKeys.size())));
+        update.setParameterList("bucketKeys", filledKeys);
+        int i = 0;
+        for (PriceHistoryKey key : keys) {
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                continue;
+            }
+            List<BigDecimal> prices = bucket.prices;
+            prices.sort(Comparator.naturalOrder());
+            update.setParameter("k" + i, key.bucketKey())
+                    .setParameter("p" + i + "_0", bucket.modelName, StandardBasicTypes.STRING)
+                    .setParameter("p" + i + "_1", prices.size())
+                    .setParameter("p" + i + "_2", bucket.sold)
+                    .setParameter("p" + i + "_3", prices.get(0))
+                    .setParameter("p" + i + "_4", prices.get(prices.size() - 1))
+                    .setParameter("p" + i + "_5", median(prices));
+            i++;
+        }
+        update.executeUpdate();
+    }
+
+    /**
+     * Builds {@code column = CASE bucket_key WHEN :k0 THEN :p0_c ... END} for every
+     * aggregate column, so one statement writes each row its own values.
+     */
+    private static String caseAssignments(int rows) {
+        StringJoiner assignments = new StringJoiner(", ");
+        for (int column = 0; column < AGGREGATE_COLUMNS.size(); column++) {
+            StringBuilder assignment = new StringBuilder(AGGREGATE_COLUMNS.get(column))
+                    .append(" = CASE bucket_key");
+            for (int row = 0; row < rows; row++) {
+                assignment.append(" WHEN :k").append(row).append(" THEN :p").append(row).append('_').append(column);
+            }
+            assignments.add(assignment.append(" END").toString());
+        }
+        return assignments.toString();
+    }
+
+    /** Reads the counted listings of the given buckets, one query per UTC day. */
+    private Map<PriceHistoryKey, Bucket> readBuckets(SessionImplementor session, List<PriceHistoryKey> keys) {
+        Map<LocalDate, List<PriceHistoryKey>> byDate = new TreeMap<>();
+        keys.forEach(key -> byDate.computeIfAbsent(key.date(), ignored -> new ArrayList<>()).add(key));
+
+        Set<PriceHistoryKey> wanted = Set.copyOf(keys);
+        Map<PriceHistoryKey, Bucket> buckets = new HashMap<>();
+        for (Map.Entry<LocalDate, List<PriceHistoryKey>> day : byDate.entrySet()) {
+            OffsetDateTime from = day.getKey().atStartOfDay().atOffset(ZoneOffset.UTC);
+            List<Object[]> rows = session.createSelectionQuery(BUCKET_LISTINGS_HQL, Object[].class)
+                    .setParameterList("partNumbers", day.getValue().stream()
+                            .map(PriceHistoryKey::partNumber).distinct().toList())
+                    .setParameterList("currencies", day.getValue().stream()
+                            .map(PriceHistoryKey::currency).distinct().toList())
+                    .setParameter("from", from)
+                    .setParameter("to", from.plusDays(1))
+                    .setParameter("intent", IntentType.sell)
+                    .getResultList();
+            for (Object[] row : rows) {
+                PriceHistoryKey key = PriceHistoryKey.of((UUID) row[0], (String) row[1], (String) row[2],
+                        (OffsetDateTime) row[3]);
+                if (key == null || !wanted.contains(key)) {
+                    continue;
+                }
+                Bucket bucket = buckets.computeIfAbsent(key, ignored -> new Bucket());
+                bucket.prices.add((BigDecimal) row[4]);
+                if (row[5] == ListingStatus.sold) {
+                    bucket.sold++;
+                }
+                // Rows come newest first, so the first model name seen is the latest
+                if (bucket.modelName == null && row[6] != null) {
+                    bucket.modelName = (String) row[6];
+                }
+            }
+        }
+        return buckets;
+    }
+
+    /** Running totals for one bucket while its listings are read. */
+    private static final class Bucket {
+        final List<BigDecimal> prices = new ArrayList<>();
+        int sold;
+        String modelName;
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /** Median of sorted prices; the mean of the two middle values for an even count. */
+    static BigDecimal median(List<BigDecimal> sorted) {
+        if (sorted.isEmpty()) {
+            return null;
+        }
+        int mid = sorted.size() / 2;
+        if (sorted.size() % 2 == 1) {
+            return sorted.get(mid).setScale(4, RoundingMode.HALF_UP);
+        }
+        return sorted.get(mid - 1).add(sorted.get(mid)).divide(BigDecimal.valueOf(2), 4, RoundingMode.HALF_UP);
+    }
+
+    /** Whether a listing's price belongs in a bucket: a priced, live sell listing. */
+    private static boolean isCounted(Listing listing) {
+        return listing.getIntent() == IntentType.sell && listing.getPrice() != null
+                && listing.getDeletedAt() == null;
+    }
+
+    /** Returns the bucket a listing was counted in, or null if it was not counted. */
+    private static PriceHistoryKey keyFromState(EntityPersister persister, Object[] state) {
+        String[] names = persister.getPropertyNames();
+        Manufacturer manufacturer = null;
+        String partNumber = null;
+        String currency = null;
+        OffsetDateTime createdAt = null;
+        IntentType intent = null;
+        BigDecimal price = null;
+        OffsetDateTime deletedAt = null;
+        for (int i = 0; i < names.length; i++) {
+            switch (names[i]) {
+                case "manufacturer" -> manufacturer = (Manufacturer) state[i];
+                case "partNumber" -> partNumber = (String) state[i];
+                case "priceCurrency" -> currency = (String) state[i];
+                case "createdAt" -> createdAt = (OffsetDateTime) state[i];
+                case "intent" -> intent = (IntentType) state[i];
+                case "price" -> price = (BigDecimal) state[i];
+                case "deletedAt" -> deletedAt = (OffsetDateTime) state[i];
+                default -> { }
+            }
+        }
+        if (intent != IntentType.sell || price == null || deletedAt != null) {
+            return null;
+        }
+        return PriceHistoryKey.of(manufacturer != null ? manufacturer.getId() : null,
+                partNumber, currency, createdAt);
+    }
+}
@@ -57,6 +57,12 @@ public class ListingSearchRequest {
     /** Page size. */
     private int size = 50;
 
+    /** Keyset continuation token; when set (empty for the first page) {@code page} is ignored. */
+    private String cursor;
+
+    /** Whether a cursor page should carry a capped total count. */
+    private boolean approximateTotal;
+
     public ListingSearchRequest() {
     }
 
@@ -175,4 +181,20 @@ public class ListingSearchRequest {
     public void setSize(int size) {
         this.size = size;
     }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isApproximateTotal() {
+        return approximateTotal;
+    }
+
+    public void setApproximateTotal(boolean approximateTotal) {
+        this.approximateTotal = approximateTotal;
+    }
 }
@@ -5,8 +5,9 @@ import java.util.Map;
 /**
  * Aggregated listing statistics returned by {@code GET /api/listings/stats}.
  *
- * <p>Provides counts broken down by intent type and lifecycle status, plus the
- * total number of non-deleted listings. Used by the admin dashboard to give a
+ * <p>Provides counts broken down by intent type and lifecycle status, active
+ * listings by manufacturer, category and group, plus the total number of
+ * non-deleted listings. Used by the admin dashboard to give a
  * quick overview of the extraction pipeline's output.</p>
  */
 public class ListingStatsDTO {
@@ -24,17 +25,31 @@ public class ListingStatsDTO {
     /**
      * Count per status value.
      * Keys match {@link com.tradeintel.common.entity.ListingStatus} names:
-     * {@code active}, {@code expired}, {@code deleted}, {@code pending_review}.
+     * {@code active}, {@code expired}, {@code deleted}, {@code pending_review}, {@code sold}.
      */
     private Map<String, Long> byStatus;
 
+    /** Active, non-deleted listings per manufacturer name, largest first. */
+    private Map<String, Long> byManufacturer;
+
+    /** Active, non-deleted listings per category name, largest first. */
+    private Map<String, Long> byCategory;
+
+    /** Active, non-deleted listings per WhatsApp group name, largest first. */
+    private Map<String, Long> byGroup;
+
     public ListingStatsDTO() {
     }
 
-    public ListingStatsDTO(long total, Map<String, Long> byIntent, Map<String, Long> byStatus) {
+    public ListingStatsDTO(long total, Map<String, Long> byIntent, Map<String, Long> byStatus,
+                           Map<String, Long> byManufacturer, Map<String, Long> byCategory,
+                           Map<String, Long> byGroup) {
         this.total = total;
         this.byIntent = byIntent;
         this.byStatus = byStatus;
+        this.byManufacturer = byManufacturer;
+        this.byCategory = byCategory;
+        this.byGroup = byGroup;
     }
 
     // -------------------------------------------------------------------------
@@ -64,4 +79,28 @@ public class ListingStatsDTO {
     public void setByStatus(Map<String, Long> byStatus) {
         this.byStatus = byStatus;
     }
+
+    public Map<String, Long> getByManufacturer() {
+        return byManufacturer;
+    }
+
+    public void setByManufacturer(Map<String, Long> byManufacturer) {
+        this.byManufacturer = byManufacturer;
+    }
+
+    public Map<String, Long> getByCategory() {
+        return byCategory;
+    }
+
+    public void setByCategory(Map<String, Long> byCategory) {
+        this.byCategory = byCategory;
+    }
+
+    public Map<String, Long> getByGroup() {
+        return byGroup;
+    }
+
+    public void setByGroup(Map<String, Long> byGroup) {
+        this.byGroup = byGroup;
+    }
 }
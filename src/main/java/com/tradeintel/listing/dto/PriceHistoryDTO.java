@@ -0,0 +1,98 @@
+package com.tradeintel.listing.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Price-history series returned by {@code GET /api/listings/price-history} and the
+ * {@code price_history} chat tool.
+ *
+ * <p>Points are ordered by currency, then period; prices are never converted, so a
+ * part traded in several currencies has one run of points per currency.</p>
+ */
+public class PriceHistoryDTO {
+
+    private String partNumber;
+    private String modelName;
+    private UUID manufacturerId;
+    private String currency;
+
+    /** {@code day}, {@code week} or {@code month}. */
+    private String granularity;
+
+    private LocalDate from;
+    private LocalDate to;
+    private List<PriceHistoryPointDTO> points;
+
+    public PriceHistoryDTO() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    public String getPartNumber() {
+        return partNumber;
+    }
+
+    public void setPartNumber(String partNumber) {
+        this.partNumber = partNumber;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public void setModelName(String modelName) {
+        this.modelName = modelName;
+    }
+
+    public UUID getManufacturerId() {
+        return manufacturerId;
+    }
+
+    public void setManufacturerId(UUID manufacturerId) {
+        this.manufacturerId = manufacturerId;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public List<PriceHistoryPointDTO> getPoints() {
+        return points;
+    }
+
+    public void setPoints(List<PriceHistoryPointDTO> points) {
+        this.points = points;
+    }
+}
@@ -0,0 +1,105 @@
+package com.tradeintel.listing.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One period of a price-history series: the price range of the sell listings
+ * created in that period, in one currency.
+ */
+public class PriceHistoryPointDTO {
+
+    private String currency;
+
+    /** First day of the period (the day itself, the Monday, or the 1st of the month). */
+    private LocalDate periodStart;
+
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+    /**
+     * Median price. Exact for daily points; for weeks and months, the median of the
+     * daily medians weighted by listing count.
+     */
+    private BigDecimal medianPrice;
+
+    private int listingCount;
+
+    /** How many of the period's listings have since been marked sold. */
+    private int soldCount;
+
+    public PriceHistoryPointDTO() {
+    }
+
+    public PriceHistoryPointDTO(String currency, LocalDate periodStart, BigDecimal minPrice,
+                                BigDecimal maxPrice, BigDecimal medianPrice,
+                                int listingCount, int soldCount) {
+        this.currency = currency;
+        this.periodStart = periodStart;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.medianPrice = medianPrice;
+        this.listingCount = listingCount;
+        this.soldCount = soldCount;
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public BigDecimal getMedianPrice() {
+        return medianPrice;
+    }
+
+    public void setMedianPrice(BigDecimal medianPrice) {
+        this.medianPrice = medianPrice;
+    }
+
+    public int getListingCount() {
+        return listingCount;
+    }
+
+    public void setListingCount(int listingCount) {
+        this.listingCount = listingCount;
+    }
+
+    public int getSoldCount() {
+        return soldCount;
+    }
+
+    public void setSoldCount(int soldCount) {
+        this.soldCount = soldCount;
+    }
+}
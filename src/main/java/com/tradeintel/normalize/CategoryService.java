@@ -94,7 +94,7 @@ public class CategoryService {
      * @throws IllegalArgumentException if a category with the same name already exists
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_CATEGORIES, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_CATEGORIES, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public CategoryResponse create(CategoryRequest request) {
         assertNameUnique(null, request.getName());
 
@@ -125,7 +125,7 @@ public class CategoryService {
      * @throws IllegalArgumentException  if the new name conflicts with another category
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_CATEGORIES, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_CATEGORIES, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public CategoryResponse update(UUID id, CategoryRequest request) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", id));
@@ -164,7 +164,7 @@ public class CategoryService {
      * @throws ResourceNotFoundException if no category with the given ID exists
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_CATEGORIES, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_CATEGORIES, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public void deactivate(UUID id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", id));
@@ -99,7 +99,7 @@ public class ConditionService {
      * @throws IllegalArgumentException if a condition with the same name already exists
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_CONDITIONS, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_CONDITIONS, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public ConditionResponse create(ConditionRequest request) {
         assertNameUnique(null, request.getName());
 
@@ -125,7 +125,7 @@ public class ConditionService {
      * @throws IllegalArgumentException  if the new name conflicts with another condition
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_CONDITIONS, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_CONDITIONS, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public ConditionResponse update(UUID id, ConditionRequest request) {
         Condition condition = conditionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Condition", id));
@@ -152,7 +152,7 @@ public class ConditionService {
      * @throws ResourceNotFoundException if no condition with the given ID exists
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_CONDITIONS, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_CONDITIONS, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public void deactivate(UUID id) {
         Condition condition = conditionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Condition", id));
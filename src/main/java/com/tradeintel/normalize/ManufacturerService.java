@@ -105,7 +105,7 @@ public class ManufacturerService {
      * @throws IllegalArgumentException if a manufacturer with the same name already exists
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_MANUFACTURERS, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_MANUFACTURERS, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public ManufacturerResponse create(ManufacturerRequest request) {
         assertNameUnique(null, request.getName());
 
@@ -131,7 +131,7 @@ public class ManufacturerService {
      * @throws IllegalArgumentException  if the new name conflicts with another manufacturer
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_MANUFACTURERS, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_MANUFACTURERS, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public ManufacturerResponse update(UUID id, ManufacturerRequest request) {
         Manufacturer manufacturer = manufacturerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Manufacturer", id));
@@ -155,7 +155,7 @@ public class ManufacturerService {
      * @throws ResourceNotFoundException if no manufacturer with the given ID exists
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_MANUFACTURERS, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_MANUFACTURERS, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public void deactivate(UUID id) {
         Manufacturer manufacturer = manufacturerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Manufacturer", id));
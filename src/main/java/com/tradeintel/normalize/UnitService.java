@@ -93,7 +93,7 @@ public class UnitService {
      * @throws IllegalArgumentException if a unit with the same name or abbreviation already exists
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_UNITS, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_UNITS, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public UnitResponse create(UnitRequest request) {
         assertNameUnique(null, request.getName());
         assertAbbreviationUnique(null, request.getAbbreviation());
@@ -120,7 +120,7 @@ public class UnitService {
      * @throws IllegalArgumentException  if the new name or abbreviation conflicts with another unit
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_UNITS, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_UNITS, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public UnitResponse update(UUID id, UnitRequest request) {
         Unit unit = unitRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Unit", id));
@@ -145,7 +145,7 @@ public class UnitService {
      * @throws ResourceNotFoundException if no unit with the given ID exists
      */
     @Transactional
-    @CacheEvict(value = CacheConfig.CACHE_UNITS, allEntries = true)
+    @CacheEvict(value = {CacheConfig.CACHE_UNITS, CacheConfig.CACHE_NORMALIZATION}, allEntries = true)
     public void deactivate(UUID id) {
         Unit unit = unitRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Unit", id));
@@ -0,0 +1,302 @@
+package com.tradeintel.notification;
+
+import com.tradeintel.common.entity.Listing;
+import com.tradeintel.common.entity.NotificationOutboxItem;
+import com.tradeintel.common.entity.NotificationRule;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Drains the {@code notification_outbox} queue filled by {@link NotificationDispatcher}.
+ *
+ * <p>A scheduled poll (every {@code app.notifications.poll-interval-ms}) finds recipients
+ * whose oldest pending match has waited at least {@code app.notifications.digest-window-seconds},
+ * then hands each recipient to the {@code notificationExecutor} pool. One task sends a
+ * single email covering all of that recipient's due matches (up to
+ * {@code app.notifications.max-digest-size}): a lone match keeps the original alert
+ * format, several become a digest.</p>
+ *
+ * <p>After a successful send, the rows are marked {@code sent} and {@code last_triggered}
+ * is set on all involved rules with one bulk update each. A failed send (a
+ * {@link MailException} or any other error while rendering or sending) returns the rows
+ * to {@code pending} with an exponential backoff of
+ * {@code retry-base-seconds * 2^(attempts-1)}, capped at one hour, until
+ * {@code app.notifications.max-attempts} is reached and they are marked {@code failed}.</p>
+ *
+ * <p>Claimed rows carry a {@code claimed_at} stamp. Each poll returns rows claimed more
+ * than {@code app.notifications.claim-timeout-seconds} ago to {@code pending}, counting
+ * the lost attempt, so a worker that died or hung mid-send does not strand its rows and
+ * a restarting instance never steals rows another instance is still sending.</p>
+ */
+@Service
+public class NotificationDeliveryService {
+
+    private static final Logger log = LogManager.getLogger(NotificationDeliveryService.class);
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationRuleRepository ruleRepository;
+    private final JavaMailSender mailSender;
+    private final Executor notificationExecutor;
+    private final String fromAddress;
+    private final Duration digestWindow;
+    private final int maxDigestSize;
+    private final int maxAttempts;
+    private final Duration retryBase;
+    private final Duration claimTimeout;
+
+    /** Recipients with a delivery task queued or running, so a slow send is not doubled up. */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public NotificationDeliveryService(NotificationOutboxRepository outboxRepository,
+                                       NotificationRuleRepository ruleRepository,
+                                       JavaMailSender mailSender,
+                                       @Qualifier("notificationExecutor") Executor notificationExecutor,
+                                       @Value("${app.mail.from-address:noreply@dialintel.ai}") String fromAddress,
+                                       @Value("${app.notifications.digest-window-seconds:60}") long digestWindowSeconds,
+                                       @Value("${app.notifications.max-digest-size:50}") int maxDigestSize,
+                                       @Value("${app.notifications.max-attempts:5}") int maxAttempts,
+                                       @Value("${app.notifications.retry-base-seconds:30}") long retryBaseSeconds,
+                                       @Value("${app.notifications.claim-timeout-seconds:300}") long claimTimeoutSeconds) {
+        this.outboxRepository = outboxRepository;
+        this.ruleRepository = ruleRepository;
+        this.mailSender = mailSender;
+        this.notificationExecutor = notificationExecutor;
+        this.fromAddress = fromAddress;
+        this.digestWindow = Duration.ofSeconds(digestWindowSeconds);
+        this.maxDigestSize = maxDigestSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBase = Duration.ofSeconds(retryBaseSeconds);
+        this.claimTimeout = Duration.ofSeconds(claimTimeoutSeconds);
+    }
+
+    /**
+     * Returns rows whose claim has timed out to {@code pending}. Runs on startup and
+     * before every poll.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reclaimExpiredClaims() {
+        try {
+            int reclaimed = outboxRepository.reclaimExpired(OffsetDateTime.now().minus(claimTimeout), maxAttempts);
+            if (reclaimed > 0) {
+                log.warn("Reclaimed {} notification outbox rows whose send claim expired", reclaimed);
+            }
+        } catch (Exception e) {
+            log.warn("Could not reclaim expired notification outbox claims (non-fatal): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Finds recipients with due notifications and queues one delivery task per
+     * recipient on the notification executor.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.poll-interval-ms:5000}")
+    public void pollOutbox() {
+        reclaimExpiredClaims();
+        List<String> recipients;
+        try {
+            recipients = dueRecipients();
+        } catch (Exception e) {
+            log.warn("Notification outbox poll failed (non-fatal): {}", e.getMessage());
+            return;
+        }
+        for (String recipient : recipients) {
+            if (!inFlight.add(recipient)) {
+                continue;
+            }
+            try {
+                notificationExecutor.execute(() -> {
+                    try {
+                        deliverToRecipient(recipient);
+                    } finally {
+                        inFlight.remove(recipient);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(recipient);
+                log.warn("Notification executor saturated; recipient {} deferred to next poll", recipient);
+            }
+        }
+    }
+
+    /**
+     * Delivers every due digest on the calling thread. Used by tests and admin tooling
+     * that need delivery to have happened before they continue.
+     *
+     * @return number of outbox rows delivered
+     */
+    public int deliverDueNow() {
+        int delivered = 0;
+        for (String recipient : dueRecipients()) {
+            delivered += deliverToRecipient(recipient);
+        }
+        return delivered;
+    }
+
+    /**
+     * Returns outbox row counts per status for the admin processing stats.
+     *
+     * @return map with {@code pending}, {@code sending}, {@code sent} and {@code failed}
+     */
+    public Map<String, Long> getQueueStats() {
+        Map<String, Long> stats = new HashMap<>();
+        for (String status : List.of("pending", "sending", "sent", "failed")) {
+            stats.put(status, outboxRepository.countByStatus(status));
+        }
+        return stats;
+    }
+
+    // -------------------------------------------------------------------------
+    // Delivery
+    // -------------------------------------------------------------------------
+
+    private List<String> dueRecipients() {
+        OffsetDateTime now = OffsetDateTime.now();
+        return outboxRepository.findDueRecipients(now, now.minus(digestWindow));
+    }
+
+    /**
+     * Claims the recipient's due rows, sends one email for them and records the
+     * outcome.
+     *
+     * @return number of rows delivered (0 if nothing was claimed or the send failed)
+     */
+    int deliverToRecipient(String recipient) {
+        List<NotificationOutboxItem> items = outboxRepository.findDueForRecipient(
+                recipient, OffsetDateTime.now(), PageRequest.of(0, maxDigestSize));
+        if (items.isEmpty()) {
+            return 0;
+        }
+        List<UUID> ids = items.stream().map(NotificationOutboxItem::getId).toList();
+        if (outboxRepository.claim(ids, OffsetDateTime.now()) != ids.size()) {
+            // Another worker got there first; leave the rest for the next poll
+            log.debug("Notification outbox rows for {} already claimed elsewhere", recipient);
+            return 0;
+        }
+
+        try {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(fromAddress);
+            message.setTo(recipient);
+            if (items.size() == 1) {
+                NotificationOutboxItem item = items.get(0);
+                message.setSubject(buildSubject(item.getListing()));
+                message.setText(buildBody(item.getRule(), item.getListing()));
+            } else {
+                message.setSubject(buildDigestSubject(items.size()));
+                message.setText(buildDigestBody(items));
+            }
+
+            mailSender.send(message);
+        } catch (RuntimeException e) {
+            // Not only MailException: a rendering bug or an unexpected client error must
+            // not leave the rows in 'sending' until their claim times out
+            int attempts = items.stream().mapToInt(NotificationOutboxItem::getAttempts).max().orElse(0) + 1;
+            OffsetDateTime retryAt = OffsetDateTime.now().plus(backoff(attempts));
+            outboxRepository.markFailed(ids, e.getMessage(), retryAt, maxAttempts);
+            log.error("Failed to send notification email to {} ({} matches, attempt {}/{}): {}",
+                    recipient, items.size(), attempts, maxAttempts, e.getMessage());
+            return 0;
+        }
+
+        OffsetDateTime sentAt = OffsetDateTime.now();
+        outboxRepository.markSent(ids, sentAt);
+        List<UUID> ruleIds = items.stream().map(i -> i.getRule().getId()).distinct().toList();
+        ruleRepository.updateLastTriggered(ruleIds, sentAt);
+
+        log.info("Notification email sent to {}: {} matches across {} rules",
+                recipient, items.size(), ruleIds.size());
+        return items.size();
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = retryBase.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    // -------------------------------------------------------------------------
+    // Email rendering
+    // -------------------------------------------------------------------------
+
+    private String buildSubject(Listing listing) {
+        String intent = listing.getIntent() != null ? listing.getIntent().name().toUpperCase() : "LISTING";
+        String desc = listing.getItemDescription();
+        if (desc.length() > 60) {
+            desc = desc.substring(0, 57) + "...";
+        }
+        return String.format("[DialIntel.ai] %s Alert: %s", intent, desc);
+    }
+
+    private String buildBody(NotificationRule rule, Listing listing) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("A new listing matched your notification rule.\n\n");
+
+        sb.append("YOUR RULE: ").append(rule.getNlRule()).append("\n\n");
+
+        appendListingDetails(sb, listing);
+
+        sb.append("\n--\nDialIntel.ai\n");
+        return sb.toString();
+    }
+
+    private String buildDigestSubject(int matchCount) {
+        return String.format("[DialIntel.ai] %d new listing alerts", matchCount);
+    }
+
+    private String buildDigestBody(List<NotificationOutboxItem> items) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(items.size()).append(" new listings matched your notification rules.\n");
+
+        int n = 1;
+        for (NotificationOutboxItem item : items) {
+            sb.append("\n").append(n++).append(". YOUR RULE: ").append(item.getRule().getNlRule()).append("\n");
+            appendListingDetails(sb, item.getListing());
+        }
+
+        sb.append("\n--\nDialIntel.ai\n");
+        return sb.toString();
+    }
+
+    private void appendListingDetails(StringBuilder sb, Listing listing) {
+        sb.append("LISTING DETAILS:\n");
+        sb.append("  Description: ").append(listing.getItemDescription()).append("\n");
+        sb.append("  Intent: ").append(listing.getIntent() != null ? listing.getIntent().name() : "unknown").append("\n");
+
+        if (listing.getPrice() != null) {
+            sb.append("  Price: ").append(listing.getPrice())
+                    .append(" ").append(listing.getPriceCurrency() != null ? listing.getPriceCurrency() : "USD")
+                    .append("\n");
+        }
+        if (listing.getPartNumber() != null && !listing.getPartNumber().isBlank()) {
+            sb.append("  Part Number: ").append(listing.getPartNumber()).append("\n");
+        }
+        if (listing.getSenderName() != null && !listing.getSenderName().isBlank()) {
+            sb.append("  Seller: ").append(listing.getSenderName()).append("\n");
+        }
+        if (listing.getConfidenceScore() != null) {
+            sb.append("  Confidence: ").append(String.format("%.0f%%", listing.getConfidenceScore() * 100)).append("\n");
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.tradeintel.notification;
+
+import com.tradeintel.common.entity.NotificationOutboxItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Spring Data JPA repository for the outbound notification queue.
+ *
+ * <p>State transitions are bulk {@code UPDATE}s guarded by the current status so
+ * that a row is only ever claimed by one delivery worker.</p>
+ */
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutboxItem, UUID> {
+
+    /**
+     * Returns recipients with pending rows that are due, whose oldest pending row is
+     * at least as old as {@code windowCutoff} (i.e. the digest window has elapsed).
+     *
+     * @param now          current time; rows backing off until later are ignored
+     * @param windowCutoff {@code now} minus the digest window
+     * @return distinct recipient addresses ready for delivery
+     */
+    @Query("SELECT o.recipient FROM NotificationOutboxItem o " +
+           "WHERE o.status = 'pending' AND o.nextAttemptAt <= :now " +
+           "GROUP BY o.recipient HAVING MIN(o.createdAt) <= :windowCutoff")
+    List<String> findDueRecipients(@Param("now") OffsetDateTime now,
+                                   @Param("windowCutoff") OffsetDateTime windowCutoff);
+
+    /**
+     * Returns due pending rows for one recipient, oldest first, with the rule and
+     * listing fetched so the digest can be rendered outside a transaction.
+     *
+     * @param recipient the recipient address
+     * @param now       current time
+     * @param pageable  page limiting the digest size
+     * @return due rows for the recipient
+     */
+    @Query("SELECT o FROM NotificationOutboxItem o JOIN FETCH o.rule JOIN FETCH o.listing " +
+           "WHERE o.recipient = :recipient AND o.status = 'pending' AND o.nextAttemptAt <= :now " +
+           "ORDER BY o.createdAt ASC")
+    List<NotificationOutboxItem> findDueForRecipient(@Param("recipient") String recipient,
+                                                     @Param("now") OffsetDateTime now,
+                                                     Pageable pageable);
+
+    /**
+     * Moves the given pending rows to {@code sending}, stamping the claim time.
+     *
+     * @return number of rows claimed; rows already claimed elsewhere are skipped
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutboxItem o SET o.status = 'sending', o.claimedAt = :claimedAt " +
+           "WHERE o.id IN :ids AND o.status = 'pending'")
+    int claim(@Param("ids") Collection<UUID> ids, @Param("claimedAt") OffsetDateTime claimedAt);
+
+    /** Marks the given rows as delivered. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutboxItem o SET o.status = 'sent', o.sentAt = :sentAt, o.claimedAt = NULL, " +
+           "o.attempts = o.attempts + 1, o.lastError = NULL WHERE o.id IN :ids")
+    int markSent(@Param("ids") Collection<UUID> ids, @Param("sentAt") OffsetDateTime sentAt);
+
+    /**
+     * Records a failed attempt. Rows that reach {@code maxAttempts} become {@code failed};
+     * the rest return to {@code pending} and become due again at {@code nextAttemptAt}.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutboxItem o SET o.attempts = o.attempts + 1, " +
+           "o.lastError = :error, o.nextAttemptAt = :nextAttemptAt, o.claimedAt = NULL, " +
+           "o.status = CASE WHEN o.attempts + 1 >= :maxAttempts THEN 'failed' ELSE 'pending' END " +
+           "WHERE o.id IN :ids")
+    int markFailed(@Param("ids") Collection<UUID> ids,
+                   @Param("error") String error,
+                   @Param("nextAttemptAt") OffsetDateTime nextAttemptAt,
+                   @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Returns rows whose claim is older than {@code cutoff} (worker died or hung
+     * mid-send) to {@code pending}, or to {@code failed} once the lost attempt uses up
+     * their attempts. Rows claimed more recently are left to the worker holding them.
+     *
+     * @return number of rows reclaimed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutboxItem o SET o.attempts = o.attempts + 1, o.claimedAt = NULL, " +
+           "o.lastError = 'Claim expired', " +
+           "o.status = CASE WHEN o.attempts + 1 >= :maxAttempts THEN 'failed' ELSE 'pending' END " +
+           "WHERE o.status = 'sending' AND o.claimedAt < :cutoff")
+    int reclaimExpired(@Param("cutoff") OffsetDateTime cutoff, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Counts queue rows in the given state.
+     *
+     * @param status one of {@code pending}, {@code sending}, {@code sent}, {@code failed}
+     * @return number of rows
+     */
+    long countByStatus(String status);
+}
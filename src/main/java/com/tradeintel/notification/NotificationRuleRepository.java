@@ -2,9 +2,14 @@ package com.tradeintel.notification;
 
 import com.tradeintel.common.entity.NotificationRule;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -35,6 +40,14 @@ public interface NotificationRuleRepository extends JpaRepository<NotificationRu
      */
     List<NotificationRule> findByUserIdAndIsActiveTrue(UUID userId);
 
+    /**
+     * Returns all active notification rules regardless of the owner's account status.
+     * Used to load the in-memory rule index.
+     *
+     * @return list of active rules
+     */
+    List<NotificationRule> findByIsActiveTrue();
+
     /**
      * Returns all active notification rules for active users.
      * Used by the processing pipeline to match new listings against all rules.
@@ -43,4 +56,18 @@ public interface NotificationRuleRepository extends JpaRepository<NotificationRu
      */
     @Query("SELECT nr FROM NotificationRule nr WHERE nr.isActive = true AND nr.user.isActive = true")
     List<NotificationRule> findByIsActiveTrueAndUserIsActiveTrue();
+
+    /**
+     * Sets {@code last_triggered} on all given rules in one statement.
+     * Used by the notification delivery worker after a digest email is sent.
+     *
+     * @param ids         rule UUIDs
+     * @param triggeredAt the send time
+     * @return number of rules updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationRule nr SET nr.lastTriggered = :triggeredAt WHERE nr.id IN :ids")
+    int updateLastTriggered(@Param("ids") Collection<UUID> ids,
+                            @Param("triggeredAt") OffsetDateTime triggeredAt);
 }
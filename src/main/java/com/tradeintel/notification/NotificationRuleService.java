@@ -4,6 +4,7 @@ import com.tradeintel.common.entity.Category;
 import com.tradeintel.common.entity.IntentType;
 import com.tradeintel.common.entity.NotificationRule;
 import com.tradeintel.common.entity.User;
+import com.tradeintel.common.event.NotificationRuleChangedEvent;
 import com.tradeintel.common.exception.ResourceNotFoundException;
 import com.tradeintel.normalize.CategoryRepository;
 import com.tradeintel.notification.dto.NotificationRuleDTO;
@@ -11,6 +12,7 @@ import com.tradeintel.notification.dto.ParsedRule;
 import com.tradeintel.notification.dto.UpdateRuleRequest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +27,10 @@ import java.util.UUID;
  *
  * <p>Delegates rule parsing to {@link NLRuleParser} and resolves category
  * names to their database UUIDs via {@link CategoryRepository}.</p>
+ *
+ * <p>Every create, update and delete publishes a {@link NotificationRuleChangedEvent}
+ * so the processing pipeline's in-memory rule index picks up the change once the
+ * transaction commits.</p>
  */
 @Service
 public class NotificationRuleService {
@@ -34,13 +40,16 @@ public class NotificationRuleService {
     private final NotificationRuleRepository ruleRepository;
     private final NLRuleParser nlRuleParser;
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public NotificationRuleService(NotificationRuleRepository ruleRepository,
                                    NLRuleParser nlRuleParser,
-                                   CategoryRepository categoryRepository) {
+                                   CategoryRepository categoryRepository,
+                                   ApplicationEventPublisher eventPublisher) {
         this.ruleRepository = ruleRepository;
         this.nlRuleParser = nlRuleParser;
         this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -82,6 +91,7 @@ public class NotificationRuleService {
 
         NotificationRule saved = ruleRepository.save(rule);
         log.info("Created notification rule id={} for user={}", saved.getId(), user.getId());
+        eventPublisher.publishEvent(new NotificationRuleChangedEvent(saved.getId(), false));
 
         return NotificationRuleDTO.fromEntity(saved);
     }
@@ -128,6 +138,7 @@ public class NotificationRuleService {
 
         NotificationRule saved = ruleRepository.save(rule);
         log.info("Updated notification rule id={}", saved.getId());
+        eventPublisher.publishEvent(new NotificationRuleChangedEvent(saved.getId(), false));
 
         return NotificationRuleDTO.fromEntity(saved);
     }
@@ -149,6 +160,7 @@ public class NotificationRuleService {
 
         ruleRepository.delete(rule);
         log.info("Deleted notification rule id={} for user={}", ruleId, userId);
+        eventPublisher.publishEvent(new NotificationRuleChangedEvent(ruleId, true));
     }
 
     // -------------------------------------------------------------------------
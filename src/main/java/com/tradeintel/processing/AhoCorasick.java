@@ -0,0 +1,135 @@
+package com.tradeintel.processing;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable Aho-Corasick automaton over a fixed list of patterns, shared by
+ * {@link JargonMatcher} and {@link NotificationRuleIndex}.
+ *
+ * <p>{@link #scan(CharSequence, MatchSink)} walks the text once and reports every
+ * occurrence of every pattern, including overlapping ones, by end offset and pattern
+ * index; callers layer their own semantics (word boundaries, longest match,
+ * de-duplication) on top. Characters are compared after ASCII-only case folding,
+ * matching {@code Pattern.CASE_INSENSITIVE} without {@code UNICODE_CASE}; callers that
+ * need full case-insensitivity lower-case patterns and text beforehand.</p>
+ *
+ * <p>Instances are safe to share between threads.</p>
+ */
+final class AhoCorasick {
+
+    /** Receives each pattern occurrence found by {@link #scan(CharSequence, MatchSink)}. */
+    @FunctionalInterface
+    interface MatchSink {
+
+        /**
+         * @param start   offset of the first matched character
+         * @param end     offset one past the last matched character
+         * @param pattern index of the pattern in the list the automaton was built from
+         */
+        void onMatch(int start, int end, int pattern);
+    }
+
+    private final Node root = new Node(0);
+    private final int patternCount;
+
+    /**
+     * Builds the automaton. Empty patterns are ignored; if a pattern occurs more than
+     * once, the last index wins.
+     *
+     * @param patterns the patterns, indexed by list position
+     */
+    AhoCorasick(List<String> patterns) {
+        this.patternCount = patterns.size();
+        for (int i = 0; i < patterns.size(); i++) {
+            insert(patterns.get(i), i);
+        }
+        linkFailures();
+    }
+
+    /** Returns the number of patterns the automaton was built from. */
+    int size() {
+        return patternCount;
+    }
+
+    /** Reports every pattern occurrence in {@code text}, in order of end offset. */
+    void scan(CharSequence text, MatchSink sink) {
+        if (root.children.isEmpty()) {
+            return;
+        }
+        Node node = root;
+        for (int i = 0; i < text.length(); i++) {
+            char c = fold(text.charAt(i));
+            while (node != root && !node.children.containsKey(c)) {
+                node = node.failure;
+            }
+            node = node.children.getOrDefault(c, root);
+            for (Node out = node.terminal >= 0 ? node : node.output; out != null; out = out.output) {
+                sink.onMatch(i + 1 - out.depth, i + 1, out.terminal);
+            }
+        }
+    }
+
+    /** ASCII-only case folding. */
+    private static char fold(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    // -------------------------------------------------------------------------
+    // Construction
+    // -------------------------------------------------------------------------
+
+    private void insert(String pattern, int index) {
+        if (pattern.isEmpty()) {
+            return;
+        }
+        Node node = root;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = fold(pattern.charAt(i));
+            Node parent = node;
+            node = node.children.computeIfAbsent(c, k -> new Node(parent.depth + 1));
+        }
+        node.terminal = index;
+    }
+
+    /** Breadth-first pass computing failure links and dictionary-suffix (output) links. */
+    private void linkFailures() {
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        root.failure = root;
+        for (Node child : root.children.values()) {
+            child.failure = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Map.Entry<Character, Node> e : node.children.entrySet()) {
+                char c = e.getKey();
+                Node child = e.getValue();
+                Node f = node.failure;
+                while (f != root && !f.children.containsKey(c)) {
+                    f = f.failure;
+                }
+                Node target = f.children.get(c);
+                child.failure = (target != null && target != child) ? target : root;
+                child.output = child.failure.terminal >= 0 ? child.failure : child.failure.output;
+                queue.add(child);
+            }
+        }
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>();
+        final int depth;
+        Node failure;
+        /** Nearest proper suffix node that terminates a pattern. */
+        Node output;
+        /** Pattern index ending at this node, or -1. */
+        int terminal = -1;
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+    }
+}
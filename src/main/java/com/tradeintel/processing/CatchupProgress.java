@@ -0,0 +1,123 @@
+package com.tradeintel.processing;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters for one catch-up run, read by
+ * {@code GET /api/admin/processing/catchup/status}.
+ *
+ * <p>Throughput is measured over a sliding one-minute window of completions, so the
+ * reported rate and ETA react to rate limiting or slow LLM responses within a minute
+ * rather than being averaged over the whole run.</p>
+ */
+public final class CatchupProgress {
+
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int workers;
+    private final long initialBacklog;
+    private final OffsetDateTime startedAt = OffsetDateTime.now();
+    private final long startedNanos = System.nanoTime();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private volatile OffsetDateTime finishedAt;
+
+    /** Completion timestamps (nanoTime) within the last minute; guarded by itself. */
+    private final ArrayDeque<Long> recent = new ArrayDeque<>();
+
+    CatchupProgress(int workers, long initialBacklog) {
+        this.workers = workers;
+        this.initialBacklog = initialBacklog;
+    }
+
+    void recordProcessed() {
+        processed.increment();
+        recordCompletion();
+    }
+
+    void recordError() {
+        errors.increment();
+        recordCompletion();
+    }
+
+    void finish() {
+        if (finished.compareAndSet(false, true)) {
+            finishedAt = OffsetDateTime.now();
+        }
+    }
+
+    public boolean isFinished() {
+        return finished.get();
+    }
+
+    public long getInitialBacklog() {
+        return initialBacklog;
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Messages completed (processed or failed) per minute over the last minute, or
+     * since the start of the run if it is younger than a minute.
+     */
+    public double throughputPerMinute() {
+        long now = System.nanoTime();
+        int count;
+        synchronized (recent) {
+            trim(now);
+            count = recent.size();
+        }
+        long window = Math.min(WINDOW_NANOS, Math.max(now - startedNanos, 1));
+        return count * (double) WINDOW_NANOS / window;
+    }
+
+    /**
+     * Renders the progress as a JSON-friendly map.
+     *
+     * @param remaining current number of unprocessed messages
+     * @return status map including throughput and ETA ({@code null} when unknown)
+     */
+    public Map<String, Object> toMap(long remaining) {
+        double perMinute = throughputPerMinute();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("workers", workers);
+        map.put("startedAt", startedAt.toString());
+        map.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+        map.put("elapsedSeconds", Duration.ofNanos(System.nanoTime() - startedNanos).toSeconds());
+        map.put("initialBacklog", initialBacklog);
+        map.put("processed", getProcessed());
+        map.put("errors", getErrors());
+        map.put("throughputPerMinute", Math.round(perMinute * 10) / 10.0);
+        map.put("etaSeconds", !isFinished() && perMinute > 0
+                ? Math.round(remaining / perMinute * 60) : null);
+        return map;
+    }
+
+    private void recordCompletion() {
+        long now = System.nanoTime();
+        synchronized (recent) {
+            recent.addLast(now);
+            trim(now);
+        }
+    }
+
+    private void trim(long now) {
+        while (!recent.isEmpty() && now - recent.peekFirst() > WINDOW_NANOS) {
+            recent.pollFirst();
+        }
+    }
+}
@@ -1,24 +1,15 @@
 package com.tradeintel.processing;
 
 import com.tradeintel.archive.EmbeddingService;
-import com.tradeintel.common.entity.Category;
-import com.tradeintel.common.entity.Condition;
 import com.tradeintel.common.entity.IntentType;
 import com.tradeintel.common.entity.Listing;
 import com.tradeintel.common.entity.ListingStatus;
-import com.tradeintel.common.entity.Manufacturer;
 import com.tradeintel.common.entity.RawMessage;
-import com.tradeintel.common.entity.Unit;
 import com.tradeintel.listing.ListingRepository;
-import com.tradeintel.normalize.CategoryRepository;
-import com.tradeintel.normalize.ConditionRepository;
-import com.tradeintel.normalize.ManufacturerRepository;
-import com.tradeintel.normalize.UnitRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -40,7 +31,8 @@ import java.util.List;
  *
  * <p>For each created listing, category, manufacturer, unit, and condition are
  * resolved by case-insensitive name lookup against the admin-managed reference
- * tables. If no match is found the FK is left null on the listing.</p>
+ * tables, via the in-memory {@link NormalizationSnapshot} so that no lookup goes to
+ * the database. If no match is found the FK is left null on the listing.</p>
  */
 @Service
 public class ConfidenceRouter {
@@ -48,10 +40,7 @@ public class ConfidenceRouter {
     private static final Logger log = LogManager.getLogger(ConfidenceRouter.class);
 
     private final ListingRepository listingRepository;
-    private final CategoryRepository categoryRepository;
-    private final ManufacturerRepository manufacturerRepository;
-    private final UnitRepository unitRepository;
-    private final ConditionRepository conditionRepository;
+    private final NormalizationResolver normalizationResolver;
     private final EmbeddingService embeddingService;
     private final ExchangeRateService exchangeRateService;
 
@@ -60,20 +49,14 @@ public class ConfidenceRouter {
     private final int expiryDays;
 
     public ConfidenceRouter(ListingRepository listingRepository,
-                            CategoryRepository categoryRepository,
-                            ManufacturerRepository manufacturerRepository,
-                            UnitRepository unitRepository,
-                            ConditionRepository conditionRepository,
+                            NormalizationResolver normalizationResolver,
                             EmbeddingService embeddingService,
                             ExchangeRateService exchangeRateService,
                             @Value("${app.processing.confidence-auto-threshold}") double autoThreshold,
                             @Value("${app.processing.confidence-review-threshold}") double reviewThreshold,
                             @Value("${app.processing.listing-expiry-days}") int expiryDays) {
         this.listingRepository = listingRepository;
-        this.categoryRepository = categoryRepository;
-        this.manufacturerRepository = manufacturerRepository;
-        this.unitRepository = unitRepository;
-        this.conditionRepository = conditionRepository;
+        this.normalizationResolver = normalizationResolver;
         this.embeddingService = embeddingService;
         this.exchangeRateService = exchangeRateService;
         this.autoThreshold = autoThreshold;
@@ -84,23 +67,30 @@ public class ConfidenceRouter {
     /**
      * Creates listings from the extraction result and routes them based on confidence.
      *
+     * <p>All listings of a message are built in memory first, their descriptions are
+     * embedded with a single batch request, and they are then inserted with one
+     * {@code saveAll} call. Listing IDs are generated client-side (UUID), so Hibernate
+     * groups the inserts into JDBC batches of {@code hibernate.jdbc.batch_size}; the
+     * network calls happen before the write transaction starts unless the caller
+     * already holds one.</p>
+     *
      * @param result the LLM extraction result
      * @param msg    the raw WhatsApp message being processed
      * @return list of created (and persisted) listings; may be empty if all items
      *         were below the review threshold
      */
-    @Transactional
     public List<Listing> route(ExtractionResult result, RawMessage msg) {
-        List<Listing> created = new ArrayList<>();
+        List<Listing> built = new ArrayList<>();
         double confidence = result.getConfidence();
 
         if (confidence < reviewThreshold) {
             log.debug("Confidence {} below review threshold {}; discarding all items from message {}",
                     confidence, reviewThreshold, msg.getId());
-            return created;
+            return built;
         }
 
         IntentType intentType = resolveIntent(result.getIntent());
+        NormalizationSnapshot normalization = normalizationResolver.snapshot();
 
         for (ExtractionResult.ExtractedItem item : result.getItems()) {
             Listing listing = new Listing();
@@ -127,11 +117,11 @@ public class ConfidenceRouter {
             listing.setSenderName(msg.getSenderName());
             listing.setSenderPhone(msg.getSenderPhone());
 
-            // Normalized field lookups (case-insensitive, null-safe)
-            listing.setItemCategory(resolveCategory(item.getCategory()));
-            listing.setManufacturer(resolveManufacturer(item.getManufacturer()));
-            listing.setUnit(resolveUnit(item.getUnit()));
-            listing.setCondition(resolveCondition(item.getCondition()));
+            // Normalized field lookups (case-insensitive, null-safe, in-memory)
+            listing.setItemCategory(normalization.category(item.getCategory()));
+            listing.setManufacturer(normalization.manufacturer(item.getManufacturer()));
+            listing.setUnit(normalization.unit(item.getUnit()));
+            listing.setCondition(normalization.condition(item.getCondition()));
 
             // Part number and model name
             listing.setPartNumber(item.getPartNumber());
@@ -187,23 +177,29 @@ public class ConfidenceRouter {
             // Expiry
             listing.setExpiresAt(OffsetDateTime.now().plusDays(expiryDays));
 
-            Listing saved = listingRepository.save(listing);
+            built.add(listing);
+        }
 
-            // Generate embedding for semantic search
-            try {
-                float[] embedding = embeddingService.embed(description);
-                if (embedding != null) {
-                    saved.setEmbedding(embedding);
-                    listingRepository.save(saved);
-                }
-            } catch (Exception e) {
-                log.warn("Embedding generation failed for listing {} (non-fatal): {}",
-                        saved.getId(), e.getMessage());
-            }
+        if (built.isEmpty()) {
+            return built;
+        }
 
-            created.add(saved);
+        // Generate embeddings for semantic search in one request for all listings,
+        // so they are written with the insert instead of a second update
+        try {
+            List<float[]> embeddings = embeddingService.embedBatch(
+                    built.stream().map(Listing::getItemDescription).toList());
+            for (int i = 0; i < built.size(); i++) {
+                built.get(i).setEmbedding(embeddings.get(i));
+            }
+        } catch (Exception e) {
+            log.warn("Embedding generation failed for {} listings from message {} (non-fatal): {}",
+                    built.size(), msg.getId(), e.getMessage());
         }
 
+        // One transaction, batched inserts
+        List<Listing> created = listingRepository.saveAll(built);
+
         log.info("Routed {} listings from message {} (confidence={})",
                 created.size(), msg.getId(), confidence);
         return created;
@@ -224,66 +220,4 @@ public class ConfidenceRouter {
             return IntentType.unknown;
         }
     }
-
-    private Category resolveCategory(String name) {
-        if (name == null || name.isBlank()) {
-            return null;
-        }
-        return categoryRepository.findByNameIgnoreCase(name.trim()).orElse(null);
-    }
-
-    private Manufacturer resolveManufacturer(String name) {
-        if (name == null || name.isBlank()) {
-            return null;
-        }
-        String trimmed = name.trim();
-        // Try canonical name first
-        java.util.Optional<Manufacturer> byName = manufacturerRepository.findByNameIgnoreCase(trimmed);
-        if (byName.isPresent()) {
-            return byName.get();
-        }
-        // Fallback: search aliases in-memory (avoids PostgreSQL-specific native query
-        // that would fail in H2 test environments and poison the transaction)
-        List<Manufacturer> active = manufacturerRepository.findByIsActiveTrueOrderByNameAsc();
-        return active.stream()
-                .filter(m -> {
-                    String[] aliases = m.getAliases();
-                    if (aliases == null) return false;
-                    for (String alias : aliases) {
-                        if (alias.equalsIgnoreCase(trimmed)) return true;
-                    }
-                    return false;
-                })
-                .findFirst()
-                .orElse(null);
-    }
-
-    private Unit resolveUnit(String name) {
-        if (name == null || name.isBlank()) {
-            return null;
-        }
-        // Try matching by name first, then by abbreviation
-        return unitRepository.findByNameIgnoreCase(name.trim())
-                .or(() -> unitRepository.findByAbbreviationIgnoreCase(name.trim()))
-                .orElse(null);
-    }
-
-    private Condition resolveCondition(String name) {
-        if (name == null || name.isBlank()) {
-            return null;
-        }
-        String trimmed = name.trim();
-        // Tier 1: exact name match
-        return conditionRepository.findByNameIgnoreCase(trimmed)
-                // Tier 2: abbreviation match (handles "new", "BNIB", "pre-owned", etc.)
-                .or(() -> conditionRepository.findByAbbreviationIgnoreCase(trimmed))
-                // Tier 3: partial name match (handles "unworn" matching "New / Unworn")
-                .or(() -> {
-                    List<Condition> all = conditionRepository.findByIsActiveTrueOrderBySortOrderAsc();
-                    return all.stream()
-                            .filter(c -> c.getName().toLowerCase().contains(trimmed.toLowerCase()))
-                            .findFirst();
-                })
-                .orElse(null);
-    }
 }
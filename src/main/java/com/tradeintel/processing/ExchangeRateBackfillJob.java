@@ -0,0 +1,165 @@
+package com.tradeintel.processing;
+
+import com.tradeintel.common.event.ExchangeRatesPrefetchedEvent;
+import com.tradeintel.listing.ListingRepository;
+import com.tradeintel.listing.ListingRepository.RateBackfillRow;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills in the exchange rate and USD price of priced listings that have none, e.g.
+ * listings created before their day's rate was prefetched.
+ *
+ * <p>Listing ids are walked in keyset-paginated chunks of
+ * {@code app.exchange-rates.backfill.chunk-size}, so only one chunk is ever in memory.
+ * Each chunk is grouped by (currency, rate date), every group is resolved once against
+ * {@link ExchangeRateService} and written with a single {@code UPDATE ... WHERE id IN},
+ * and the chunk commits on its own, so locks are held for one chunk at a time.</p>
+ *
+ * <p>Only rows still missing a rate are selected, so a run that is interrupted resumes
+ * where it left off the next time it is started. Listings with no rate available are
+ * stepped over by the keyset cursor and counted as skipped. Only one run can be active;
+ * it is started by the admin endpoint or after a prefetch stored new rates.</p>
+ */
+@Service
+public class ExchangeRateBackfillJob {
+
+    private static final Logger log = LogManager.getLogger(ExchangeRateBackfillJob.class);
+
+    /** Sorts before every other UUID in both Postgres and H2. */
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    private final ListingRepository listingRepository;
+    private final ExchangeRateService exchangeRateService;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile ExchangeRateBackfillProgress progress;
+
+    @Lazy
+    @Autowired
+    private ExchangeRateBackfillJob self;
+
+    public ExchangeRateBackfillJob(ListingRepository listingRepository,
+                                   ExchangeRateService exchangeRateService,
+                                   @Value("${app.exchange-rates.backfill.chunk-size:500}") int chunkSize) {
+        this.listingRepository = listingRepository;
+        this.exchangeRateService = exchangeRateService;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /** Starts a run in the background; a no-op if one is already running. */
+    @Async("processingExecutor")
+    public void start() {
+        run();
+    }
+
+    /**
+     * Starts a background run once a prefetch stored new rates. Handed to
+     * {@link #start()} so the prefetching thread, which holds the prefetch lock, does not
+     * wait for the backfill.
+     */
+    @EventListener
+    public void onRatesPrefetched(ExchangeRatesPrefetchedEvent event) {
+        self.start();
+    }
+
+    /**
+     * Runs the backfill on the calling thread.
+     *
+     * @return false if another run was already active and nothing was done
+     */
+    public boolean run() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Exchange rate backfill already running; ignoring duplicate request");
+            return false;
+        }
+        ExchangeRateBackfillProgress current =
+                new ExchangeRateBackfillProgress(listingRepository.countMissingExchangeRate(), chunkSize);
+        progress = current;
+        try {
+            log.info("Exchange rate backfill started: backlog={}, chunkSize={}",
+                    current.getInitialBacklog(), chunkSize);
+            UUID cursor = FIRST_ID;
+            while (true) {
+                List<RateBackfillRow> chunk = listingRepository.findMissingExchangeRateAfter(
+                        cursor, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                int updated = self.applyChunk(chunk);
+                cursor = chunk.get(chunk.size() - 1).getId();
+                current.recordChunk(chunk.size(), updated, cursor);
+            }
+            log.info("Exchange rate backfill completed: updated={}, skipped={}, chunks={}",
+                    current.getUpdated(), current.getSkipped(), current.getChunks());
+        } catch (Exception e) {
+            current.fail(e.getMessage());
+            log.warn("Exchange rate backfill stopped after {} chunks (non-fatal): {}",
+                    current.getChunks(), e.getMessage());
+        } finally {
+            current.finish();
+            running.set(false);
+        }
+        return true;
+    }
+
+    /**
+     * Updates one chunk in its own transaction: one statement per (currency, rate date)
+     * group that has a rate. Called through the proxy by {@link #run()}.
+     *
+     * @param chunk the rows to update
+     * @return number of listings updated
+     */
+    @Transactional
+    public int applyChunk(List<RateBackfillRow> chunk) {
+        Map<RateKey, List<UUID>> groups = new LinkedHashMap<>();
+        for (RateBackfillRow row : chunk) {
+            LocalDate rateDate = row.getCreatedAt() != null ? row.getCreatedAt().toLocalDate() : LocalDate.now();
+            groups.computeIfAbsent(new RateKey(row.getPriceCurrency().trim().toUpperCase(), rateDate),
+                    k -> new ArrayList<>()).add(row.getId());
+        }
+
+        int updated = 0;
+        for (Map.Entry<RateKey, List<UUID>> group : groups.entrySet()) {
+            BigDecimal rate = exchangeRateService.getRateToUsd(group.getKey().currency(), group.getKey().date());
+            if (rate != null) {
+                updated += listingRepository.applyExchangeRate(group.getValue(), rate);
+            }
+        }
+        return updated;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Returns the progress of the current or most recent run.
+     *
+     * @return progress, or null if no run has started since the application started
+     */
+    public ExchangeRateBackfillProgress getProgress() {
+        return progress;
+    }
+
+    private record RateKey(String currency, LocalDate date) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.tradeintel.processing;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Live counters for one exchange-rate backfill run, read by
+ * {@code GET /api/listings/backfill-exchange-rates/status}.
+ *
+ * <p>Counters are only written by the single thread running the job, between chunk
+ * commits; volatile fields are enough for the status endpoint to read them.</p>
+ */
+public final class ExchangeRateBackfillProgress {
+
+    private final long initialBacklog;
+    private final int chunkSize;
+    private final OffsetDateTime startedAt = OffsetDateTime.now();
+    private final long startedNanos = System.nanoTime();
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private volatile OffsetDateTime finishedAt;
+    private volatile long chunks;
+    private volatile long scanned;
+    private volatile long updated;
+    private volatile UUID cursor;
+    private volatile String error;
+
+    ExchangeRateBackfillProgress(long initialBacklog, int chunkSize) {
+        this.initialBacklog = initialBacklog;
+        this.chunkSize = chunkSize;
+    }
+
+    void recordChunk(int rows, int rowsUpdated, UUID lastId) {
+        chunks++;
+        scanned += rows;
+        updated += rowsUpdated;
+        cursor = lastId;
+    }
+
+    void fail(String message) {
+        error = message;
+    }
+
+    void finish() {
+        if (finished.compareAndSet(false, true)) {
+            finishedAt = OffsetDateTime.now();
+        }
+    }
+
+    public boolean isFinished() {
+        return finished.get();
+    }
+
+    public long getInitialBacklog() {
+        return initialBacklog;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public long getScanned() {
+        return scanned;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    /** Listings scanned for which no rate was available; left for a later run. */
+    public long getSkipped() {
+        return scanned - updated;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Renders the progress as a JSON-friendly map.
+     *
+     * @return status map including the keyset cursor and percentage of the initial backlog scanned
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("startedAt", startedAt.toString());
+        map.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+        map.put("elapsedSeconds", Duration.ofNanos(System.nanoTime() - startedNanos).toSeconds());
+        map.put("chunkSize", chunkSize);
+        map.put("initialBacklog", initialBacklog);
+        map.put("chunks", chunks);
+        map.put("scanned", scanned);
+        map.put("updated", updated);
+        map.put("skipped", getSkipped());
+        map.put("percentComplete", initialBacklog == 0 ? 100.0
+                : Math.min(100.0, Math.round(scanned * 1000.0 / initialBacklog) / 10.0));
+        map.put("cursor", cursor != null ? cursor.toString() : null);
+        map.put("error", error);
+        return map;
+    }
+}
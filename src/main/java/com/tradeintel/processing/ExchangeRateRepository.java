@@ -0,0 +1,34 @@
+package com.tradeintel.processing;
+
+import com.tradeintel.common.entity.ExchangeRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the prefetched daily exchange rates.
+ */
+@Repository
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, ExchangeRate.Key> {
+
+    /**
+     * Returns the stored rates for a range of days, used to skip rows that are already
+     * present before a prefetch inserts the rest in one batch.
+     *
+     * @param from first day, inclusive
+     * @param to   last day, inclusive
+     * @return the stored rates in the range
+     */
+    List<ExchangeRate> findByRateDateBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Returns the most recent day with stored rates.
+     *
+     * @return the latest {@code rate_date}, or null if the table is empty
+     */
+    @Query("SELECT MAX(r.rateDate) FROM ExchangeRate r")
+    LocalDate findLatestRateDate();
+}
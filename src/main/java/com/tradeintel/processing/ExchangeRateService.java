@@ -1,24 +1,50 @@
 package com.tradeintel.processing;
 
-import com.tradeintel.config.CacheConfig;
+import com.tradeintel.common.entity.ExchangeRate;
+import com.tradeintel.common.event.ExchangeRatesPrefetchedEvent;
 import org.apache.logging.log4j.LogManager;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.apache.logging.log4j.Logger;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
- * Converts prices to USD using Frankfurter.app (ECB-backed, free, no API key).
+ * Converts prices to USD from the locally stored {@code exchange_rates} table.
  *
- * <p>AED is hardcoded at the long-standing peg of 3.6725 AED per USD.
- * All other supported currencies are fetched via the Frankfurter API.
- * Results are cached for 24 hours keyed on currency+date.</p>
+ * <p>AED is hardcoded at the long-standing peg of 3.6725 AED per USD. All other
+ * currencies are looked up in an in-memory copy of the table, using the rate of the
+ * requested day or, for weekends and holidays, the nearest prior business day up to
+ * {@code app.exchange-rates.max-fallback-days} back. Lookups never touch the network
+ * or the database, so pricing a listing never blocks.</p>
+ *
+ * <p>The table is filled by a bulk prefetch from the configured {@link ExchangeRateSource}:
+ * once at startup and then daily on {@code app.exchange-rates.prefetch-cron}. Each run
+ * fetches every day since the latest stored one (or the last
+ * {@code app.exchange-rates.initial-days} on an empty table) in a single request, stores
+ * the new rows in one transaction as batched inserts, reloads the in-memory copy (also
+ * when another instance stored the rows first) and, if anything was stored, publishes an {@link ExchangeRatesPrefetchedEvent}, on which
+ * {@link ExchangeRateBackfillJob} fills in listings priced before their rate existed.</p>
  */
 @Service
 public class ExchangeRateService {
@@ -28,20 +54,47 @@ public class ExchangeRateService {
     private static final BigDecimal AED_PER_USD = new BigDecimal("3.6725");
     private static final BigDecimal AED_TO_USD = BigDecimal.ONE.divide(AED_PER_USD, 10, RoundingMode.HALF_UP);
 
-    private final RestTemplate restTemplate;
+    @Lazy
+    @Autowired
+    private ExchangeRateService self;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final ExchangeRateSource source;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int initialDays;
+    private final int maxFallbackDays;
+
+    /** Currency code to rates by day; replaced wholesale after every prefetch. */
+    private volatile Map<String, NavigableMap<LocalDate, BigDecimal>> ratesByCurrency = Map.of();
+    private volatile OffsetDateTime lastPrefetchAt;
 
-    public ExchangeRateService() {
-        this.restTemplate = new RestTemplate();
+    public ExchangeRateService(ExchangeRateRepository exchangeRateRepository,
+                               ExchangeRateSource source,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${app.exchange-rates.initial-days:90}") int initialDays,
+                               @Value("${app.exchange-rates.max-fallback-days:7}") int maxFallbackDays) {
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.source = source;
+        this.eventPublisher = eventPublisher;
+        this.initialDays = initialDays;
+        this.maxFallbackDays = maxFallbackDays;
     }
 
+    // -------------------------------------------------------------------------
+    // Lookups
+    // -------------------------------------------------------------------------
+
     /**
      * Returns the exchange rate to convert 1 unit of the given currency to USD.
      *
      * @param currency ISO 4217 currency code (e.g. "EUR", "GBP")
      * @param date     the date for the historical rate
-     * @return the rate such that {@code 1 currency * rate = X USD}
+     * @return the rate such that {@code 1 currency * rate = X USD}, or null if no rate
+     *         is stored for that day or the preceding {@code max-fallback-days}
      */
-    @Cacheable(value = CacheConfig.CACHE_EXCHANGE_RATES, key = "#currency + '_' + #date")
     public BigDecimal getRateToUsd(String currency, LocalDate date) {
         if (currency == null || currency.isBlank()) {
             return null;
@@ -57,26 +110,17 @@ public class ExchangeRateService {
             return AED_TO_USD;
         }
 
-        try {
-            String url = String.format("https://api.frankfurter.dev/v1/%s?from=%s&to=USD", date, code);
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-
-            if (response != null && response.containsKey("rates")) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> rates = (Map<String, Object>) response.get("rates");
-                Object usdRate = rates.get("USD");
-                if (usdRate != null) {
-                    return new BigDecimal(usdRate.toString());
-                }
-            }
-
-            log.warn("No USD rate in Frankfurter response for {} on {}", code, date);
+        NavigableMap<LocalDate, BigDecimal> rates = ratesByCurrency.get(code);
+        if (rates == null) {
+            log.debug("No stored exchange rates for {}", code);
             return null;
-        } catch (Exception e) {
-            log.warn("Failed to fetch exchange rate for {} on {}: {}", code, date, e.getMessage());
+        }
+        Map.Entry<LocalDate, BigDecimal> nearest = rates.floorEntry(date);
+        if (nearest == null || nearest.getKey().isBefore(date.minusDays(maxFallbackDays - 1L))) {
+            log.debug("No exchange rate for {} within {} days before {}", code, maxFallbackDays, date);
             return null;
         }
+        return nearest.getValue();
     }
 
     /**
@@ -99,4 +143,127 @@ public class ExchangeRateService {
 
         return price.multiply(rate, new MathContext(10)).setScale(4, RoundingMode.HALF_UP);
     }
+
+    // -------------------------------------------------------------------------
+    // Prefetch
+    // -------------------------------------------------------------------------
+
+    /** Loads the stored rates and catches up on days missed while the application was down. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefetchOnStartup() {
+        try {
+            reload();
+            prefetch();
+        } catch (Exception e) {
+            log.warn("Exchange rate prefetch on startup failed (non-fatal): {}", e.getMessage());
+        }
+    }
+
+    /** Daily prefetch, scheduled after the ECB publishes the day's reference rates. */
+    @Scheduled(cron = "${app.exchange-rates.prefetch-cron:0 30 16 * * MON-FRI}",
+               zone = "${app.exchange-rates.prefetch-zone:UTC}")
+    public void scheduledPrefetch() {
+        try {
+            prefetch();
+        } catch (Exception e) {
+            log.warn("Scheduled exchange rate prefetch failed (non-fatal): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Fetches all rates from the day after the latest stored one through today in one
+     * request, stores them, reloads the in-memory copy and announces the new rates so
+     * listings waiting for a rate are backfilled. The in-memory copy is reloaded even
+     * when nothing new was stored, since another instance may have stored the rows.
+     *
+     * @return number of new rate rows stored
+     */
+    public synchronized int prefetch() {
+        LocalDate today = LocalDate.now();
+        LocalDate latest = exchangeRateRepository.findLatestRateDate();
+        LocalDate from = latest != null ? latest.plusDays(1) : today.minusDays(initialDays);
+        int inserted = 0;
+        Map<LocalDate, Map<String, BigDecimal>> fetched = Map.of();
+        try {
+            if (!from.isAfter(today)) {
+                fetched = source.fetchRatesToUsd(from, today);
+                inserted = self.store(fetched);
+                lastPrefetchAt = OffsetDateTime.now();
+            }
+        } finally {
+            reload();
+        }
+
+        if (inserted > 0) {
+            log.info("Prefetched {} exchange rates for {} days ({}..{}) from {}",
+                    inserted, fetched.size(), from, today, source.name());
+            eventPublisher.publishEvent(new ExchangeRatesPrefetchedEvent(from, today));
+        }
+        return inserted;
+    }
+
+    /**
+     * Inserts the fetched rates that are not stored yet in one transaction; Hibernate
+     * sends them as JDBC batches of {@code hibernate.jdbc.batch_size}. Called through
+     * the proxy from {@link #prefetch()}.
+     *
+     * @return number of rows inserted
+     */
+    @Transactional
+    public int store(Map<LocalDate, Map<String, BigDecimal>> fetched) {
+        if (fetched.isEmpty()) {
+            return 0;
+        }
+        LocalDate from = fetched.keySet().stream().min(LocalDate::compareTo).orElseThrow();
+        LocalDate to = fetched.keySet().stream().max(LocalDate::compareTo).orElseThrow();
+        Set<ExchangeRate.Key> existing = new HashSet<>();
+        for (ExchangeRate rate : exchangeRateRepository.findByRateDateBetween(from, to)) {
+            existing.add(new ExchangeRate.Key(rate.getRateDate(), rate.getCurrency()));
+        }
+        int inserted = 0;
+        for (Map.Entry<LocalDate, Map<String, BigDecimal>> day : fetched.entrySet()) {
+            for (Map.Entry<String, BigDecimal> rate : day.getValue().entrySet()) {
+                if (!existing.add(new ExchangeRate.Key(day.getKey(), rate.getKey()))) {
+                    continue;
+                }
+                ExchangeRate row = new ExchangeRate();
+                row.setRateDate(day.getKey());
+                row.setCurrency(rate.getKey());
+                row.setRateToUsd(rate.getValue());
+                row.setSource(source.name());
+                entityManager.persist(row);
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+
+    /** Replaces the in-memory rates with the current contents of {@code exchange_rates}. */
+    public void reload() {
+        Map<String, NavigableMap<LocalDate, BigDecimal>> loaded = new HashMap<>();
+        for (ExchangeRate rate : exchangeRateRepository.findAll()) {
+            loaded.computeIfAbsent(rate.getCurrency(), c -> new TreeMap<>())
+                    .put(rate.getRateDate(), rate.getRateToUsd());
+        }
+        ratesByCurrency = loaded;
+    }
+
+    /**
+     * Returns figures on the in-memory rates for the admin processing stats.
+     *
+     * @return map with the source, currency count, latest rate date and last prefetch time
+     */
+    public Map<String, Object> getStats() {
+        Map<String, NavigableMap<LocalDate, BigDecimal>> rates = ratesByCurrency;
+        LocalDate latest = rates.values().stream()
+                .map(NavigableMap::lastKey)
+                .max(LocalDate::compareTo)
+                .orElse(null);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("source", source.name());
+        stats.put("currencies", rates.size());
+        stats.put("latestRateDate", latest);
+        stats.put("lastPrefetchAt", lastPrefetchAt);
+        return stats;
+    }
 }
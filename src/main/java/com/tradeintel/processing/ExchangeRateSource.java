@@ -0,0 +1,33 @@
+package com.tradeintel.processing;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Supplies bulk daily exchange rates for the {@link ExchangeRateService} prefetch.
+ *
+ * <p>The implementation is chosen with {@code app.exchange-rates.source}:
+ * {@code frankfurter} (default, ECB rates over HTTP) or {@code static} (fixed rates from
+ * configuration, for local development and tests without network access).</p>
+ */
+public interface ExchangeRateSource {
+
+    /**
+     * Short name stored in {@code exchange_rates.source}.
+     *
+     * @return source name
+     */
+    String name();
+
+    /**
+     * Fetches every available rate between two dates, inclusive, in as few requests as
+     * the source allows. Days without published rates (weekends, holidays) are simply
+     * absent; the result may also include the business day just before {@code from}.
+     *
+     * @param from first day wanted
+     * @param to   last day wanted
+     * @return per day, the USD value of one unit of each currency (upper-case ISO codes)
+     */
+    Map<LocalDate, Map<String, BigDecimal>> fetchRatesToUsd(LocalDate from, LocalDate to);
+}
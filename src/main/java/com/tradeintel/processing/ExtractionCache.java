@@ -0,0 +1,180 @@
+package com.tradeintel.processing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes {@link LLMExtractionService#extract} results so that forwarded and
+ * cross-posted messages with identical (jargon-expanded) text are extracted once.
+ *
+ * <p>Entries are keyed by the SHA-256 of {@link LLMExtractionService#promptInputsVersion()}
+ * and the expanded text. Because the version folds in the categories, manufacturers,
+ * verified jargon and conditions CSVs, any admin edit to those dictionaries yields new
+ * keys, so stale results are never served. The first lookup under a new version also
+ * purges rows written under older versions to keep the table small.</p>
+ *
+ * <p>Only results from a successful LLM call are stored; the empty fallback returned
+ * on API or parse failures is never cached. All persistence failures are non-fatal —
+ * the caller simply falls through to the LLM.</p>
+ */
+@Component
+public class ExtractionCache {
+
+    private static final Logger log = LogManager.getLogger(ExtractionCache.class);
+
+    private final ExtractionCacheRepository repository;
+    private final LLMExtractionService llmExtractionService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /** Prompt version seen most recently; older versions are purged when it changes. */
+    private volatile String currentVersion;
+
+    public ExtractionCache(ExtractionCacheRepository repository,
+                           LLMExtractionService llmExtractionService) {
+        this.repository = repository;
+        this.llmExtractionService = llmExtractionService;
+    }
+
+    /**
+     * Returns the memoized extraction for the given expanded text under the current
+     * prompt inputs, if any. The returned result carries no token or cost figures.
+     *
+     * @param expandedText the jargon-expanded message text
+     * @return the cached result, or empty on a miss
+     */
+    public Optional<ExtractionResult> get(String expandedText) {
+        if (expandedText == null || expandedText.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            String version = refreshVersion();
+            Optional<ExtractionResult> cached = repository.findById(cacheKey(version, expandedText))
+                    .map(entry -> readResult(entry.getResultJson()));
+            if (cached.isPresent()) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            return cached;
+        } catch (Exception e) {
+            log.warn("Extraction cache lookup failed (non-fatal): {}", e.getMessage());
+            misses.increment();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a freshly extracted result. Fallback results (no model, or unknown
+     * intent with no items) are ignored.
+     *
+     * @param expandedText the jargon-expanded message text the result was extracted from
+     * @param result       the LLM extraction result
+     */
+    public void put(String expandedText, ExtractionResult result) {
+        if (expandedText == null || expandedText.isBlank() || !isCacheable(result)) {
+            return;
+        }
+        try {
+            String version = refreshVersion();
+            repository.insertIfAbsent(cacheKey(version, expandedText), version,
+                    objectMapper.writeValueAsString(result));
+        } catch (Exception e) {
+            log.warn("Extraction cache write failed (non-fatal): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Removes every memoized result, e.g. before a full re-extraction run.
+     *
+     * @return number of rows deleted
+     */
+    public int clear() {
+        currentVersion = null;
+        return repository.deleteAllEntries();
+    }
+
+    /**
+     * Returns hit/miss counters since startup for the admin processing stats.
+     *
+     * @return map with {@code hits}, {@code misses}, {@code hitRate} and {@code entries}
+     */
+    public Map<String, Object> getStats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("entries", repository.count());
+        return stats;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * Reads the current prompt version and, when it differs from the last one seen,
+     * purges entries from superseded versions.
+     */
+    private String refreshVersion() {
+        String version = llmExtractionService.promptInputsVersion();
+        if (!version.equals(currentVersion)) {
+            synchronized (this) {
+                if (!version.equals(currentVersion)) {
+                    try {
+                        int purged = repository.deleteByPromptVersionNot(version);
+                        if (purged > 0) {
+                            log.info("Prompt inputs changed; purged {} stale extraction cache entries", purged);
+                        }
+                    } catch (Exception e) {
+                        log.warn("Extraction cache purge failed (non-fatal): {}", e.getMessage());
+                    }
+                    currentVersion = version;
+                }
+            }
+        }
+        return version;
+    }
+
+    private static boolean isCacheable(ExtractionResult result) {
+        if (result == null || result.getModelUsed() == null) {
+            return false;
+        }
+        return !("unknown".equals(result.getIntent()) && result.getItems().isEmpty());
+    }
+
+    private ExtractionResult readResult(String json) {
+        try {
+            return objectMapper.readValue(json, ExtractionResult.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable extraction cache entry", e);
+        }
+    }
+
+    private static String cacheKey(String version, String expandedText) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(version.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(expandedText.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.tradeintel.processing;
+
+import com.tradeintel.common.entity.ExtractionCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Spring Data JPA repository for memoized extraction results.
+ *
+ * <p>Writes run in their own transaction, like those of the embedding cache, so a
+ * cache failure never rolls back or aborts a caller's transaction. Extraction runs on
+ * a pipeline stage thread outside any transaction, so this takes no second pooled
+ * connection.</p>
+ */
+@Repository
+public interface ExtractionCacheRepository extends JpaRepository<ExtractionCacheEntry, String> {
+
+    /**
+     * Stores a result unless another worker already stored the same key.
+     *
+     * @return 1 if inserted, 0 if the key already existed
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO extraction_cache (cache_key, prompt_version, result_json) " +
+                   "VALUES (:cacheKey, :promptVersion, :resultJson) " +
+                   "ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("cacheKey") String cacheKey,
+                       @Param("promptVersion") String promptVersion,
+                       @Param("resultJson") String resultJson);
+
+    /**
+     * Deletes results produced under any prompt version other than the given one.
+     *
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("DELETE FROM ExtractionCacheEntry e WHERE e.promptVersion <> :promptVersion")
+    int deleteByPromptVersionNot(@Param("promptVersion") String promptVersion);
+
+    /** Deletes every memoized result. */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("DELETE FROM ExtractionCacheEntry e")
+    int deleteAllEntries();
+}
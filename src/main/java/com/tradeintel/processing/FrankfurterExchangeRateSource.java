@@ -0,0 +1,70 @@
+package com.tradeintel.processing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link ExchangeRateSource} backed by Frankfurter (ECB reference rates, free, no API key).
+ *
+ * <p>Uses the time-series endpoint with {@code base=USD}, so one request returns every
+ * currency for every business day in the range. Frankfurter quotes units of currency
+ * per USD; the rates are inverted to USD per unit before being returned.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "app.exchange-rates.source", havingValue = "frankfurter", matchIfMissing = true)
+public class FrankfurterExchangeRateSource implements ExchangeRateSource {
+
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+
+    public FrankfurterExchangeRateSource(
+            @Value("${app.exchange-rates.frankfurter.base-url:https://api.frankfurter.dev/v1}") String baseUrl) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(5_000);
+        requestFactory.setReadTimeout(30_000);
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public String name() {
+        return "frankfurter";
+    }
+
+    @Override
+    public Map<LocalDate, Map<String, BigDecimal>> fetchRatesToUsd(LocalDate from, LocalDate to) {
+        String url = String.format("%s/%s..%s?base=USD", baseUrl, from, to);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+
+        Map<LocalDate, Map<String, BigDecimal>> result = new TreeMap<>();
+        if (response == null || !(response.get("rates") instanceof Map<?, ?> days)) {
+            return result;
+        }
+        for (Map.Entry<?, ?> day : days.entrySet()) {
+            if (!(day.getValue() instanceof Map<?, ?> quotes)) {
+                continue;
+            }
+            Map<String, BigDecimal> rates = new HashMap<>();
+            for (Map.Entry<?, ?> quote : quotes.entrySet()) {
+                BigDecimal perUsd = new BigDecimal(quote.getValue().toString());
+                if (perUsd.signum() > 0) {
+                    rates.put(quote.getKey().toString().toUpperCase(),
+                            BigDecimal.ONE.divide(perUsd, 10, RoundingMode.HALF_UP));
+                }
+            }
+            result.put(LocalDate.parse(day.getKey().toString()), rates);
+        }
+        return result;
+    }
+}
@@ -1,17 +1,16 @@
 package com.tradeintel.processing;
 
 import com.tradeintel.common.entity.JargonEntry;
+import com.tradeintel.config.CacheConfig;
 import com.tradeintel.normalize.JargonRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Expands known jargon acronyms in raw message text before LLM extraction.
@@ -21,6 +20,12 @@ import java.util.regex.Pattern;
  * This pre-processing step improves LLM extraction accuracy by disambiguating
  * industry-specific abbreviations.</p>
  *
+ * <p>All verified entries are compiled once into an immutable {@link JargonMatcher}
+ * (an Aho-Corasick automaton) that expands a message in a single pass. The matcher
+ * lives in the {@link CacheConfig#CACHE_JARGON} cache, so it is rebuilt only after
+ * {@link com.tradeintel.normalize.JargonService} evicts that cache on
+ * create/update/verify/delete, or when the cache TTL elapses.</p>
+ *
  * <p>Injects {@link JargonRepository} directly instead of {@link com.tradeintel.normalize.JargonService}
  * to avoid potential circular dependency issues when both services are involved
  * in the processing pipeline.</p>
@@ -30,19 +35,24 @@ public class JargonExpander {
 
     private static final Logger log = LogManager.getLogger(JargonExpander.class);
 
+    /** Key of the compiled matcher inside the {@code jargon} cache. */
+    static final String MATCHER_CACHE_KEY = "jargonMatcher";
+
     private final JargonRepository jargonRepository;
+    private final CacheManager cacheManager;
 
-    public JargonExpander(JargonRepository jargonRepository) {
+    public JargonExpander(JargonRepository jargonRepository, CacheManager cacheManager) {
         this.jargonRepository = jargonRepository;
+        this.cacheManager = cacheManager;
     }
 
     /**
      * Replaces known jargon acronyms in the given text with their expansions.
      *
-     * <p>Each verified jargon entry's acronym is matched using word boundaries
-     * ({@code \b}) so that partial matches within longer words are not replaced.
-     * Replacement is case-insensitive. The original acronym is appended in
-     * parentheses to preserve context, e.g. {@code "NOS"} becomes
+     * <p>Each verified jargon entry's acronym is matched on word boundaries
+     * (the same rule as regex {@code \b}) so that partial matches within longer
+     * words are not replaced. Matching is case-insensitive. The original acronym
+     * is appended in parentheses to preserve context, e.g. {@code "NOS"} becomes
      * {@code "New Old Stock (NOS)"}.</p>
      *
      * @param text the raw message text to expand
@@ -55,46 +65,42 @@ public class JargonExpander {
             return text;
         }
 
-        List<JargonEntry> verified = jargonRepository.findByVerifiedTrueOrderByAcronymAsc();
-        if (verified.isEmpty()) {
+        JargonMatcher matcher = getMatcher();
+        if (matcher.size() == 0) {
             log.debug("No verified jargon entries found; returning original text");
             return text;
         }
 
-        // Build a map of acronym -> expansion
-        Map<String, String> jargonMap = new HashMap<>();
-        for (JargonEntry entry : verified) {
-            jargonMap.put(entry.getAcronym().toLowerCase(), entry.getExpansion());
+        String result = matcher.expand(text);
+        // The matcher hands back the same instance when nothing was replaced
+        if (result != text) {
+            log.debug("Expanded jargon terms in message text ({} chars -> {} chars)",
+                    text.length(), result.length());
         }
+        return result;
+    }
 
-        String result = text;
-        int replacementCount = 0;
-
-        for (Map.Entry<String, String> entry : jargonMap.entrySet()) {
-            String acronym = entry.getKey();
-            String expansion = entry.getValue();
-
-            // Use word boundary regex for case-insensitive matching.
-            // Pattern.quote ensures special regex characters in acronyms are escaped.
-            Pattern pattern = Pattern.compile(
-                    "\\b" + Pattern.quote(acronym) + "\\b",
-                    Pattern.CASE_INSENSITIVE
-            );
-
-            Matcher matcher = pattern.matcher(result);
-            if (matcher.find()) {
-                // Replace all occurrences, preserving the original acronym in parentheses
-                // so the LLM sees both the expanded form and the original abbreviation.
-                String replacement = expansion + " (" + matcher.group() + ")";
-                result = matcher.replaceAll(Matcher.quoteReplacement(replacement));
-                replacementCount++;
-            }
-        }
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
 
-        if (replacementCount > 0) {
-            log.debug("Expanded {} jargon terms in message text", replacementCount);
+    /**
+     * Returns the compiled matcher, building it from the repository on a cache miss.
+     * Falls back to building without caching if the {@code jargon} cache is absent.
+     */
+    private JargonMatcher getMatcher() {
+        Cache cache = cacheManager.getCache(CacheConfig.CACHE_JARGON);
+        if (cache == null) {
+            return buildMatcher();
         }
+        return cache.get(MATCHER_CACHE_KEY, this::buildMatcher);
+    }
 
-        return result;
+    private JargonMatcher buildMatcher() {
+        List<JargonEntry> verified = jargonRepository.findByVerifiedTrueOrderByAcronymAsc();
+        JargonMatcher matcher = JargonMatcher.build(verified);
+        log.info("Compiled jargon matcher from {} verified entries ({} distinct acronyms)",
+                verified.size(), matcher.size());
+        return matcher;
     }
 }
@@ -0,0 +1,156 @@
+package com.tradeintel.processing;
+
+import com.tradeintel.common.entity.JargonEntry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable multi-pattern matcher over the verified jargon dictionary.
+ *
+ * <p>Built once from all verified {@link JargonEntry} rows as an {@link AhoCorasick}
+ * automaton, so that expanding a message is a single left-to-right scan of the
+ * text regardless of how many acronyms the dictionary contains. Matching mirrors
+ * the previous per-acronym regex ({@code \b<acronym>\b}, ASCII case-insensitive):
+ * a hit only counts when both ends fall on a word boundary, where a word character
+ * is an ASCII letter, an ASCII digit or {@code _}, as for {@code \w}. Accented and
+ * other non-ASCII letters therefore count as boundaries.</p>
+ *
+ * <p>When two acronyms match at the same position the longest one wins, and matches
+ * never overlap. Every occurrence of an acronym is rewritten using the surface form
+ * of its first occurrence, i.e. {@code "pvc ... PVC"} becomes
+ * {@code "Polyvinyl Chloride (pvc) ... Polyvinyl Chloride (pvc)"}, exactly as
+ * {@code Matcher.replaceAll} did before.</p>
+ *
+ * <p>Instances are safe to share between threads.</p>
+ */
+final class JargonMatcher {
+
+    /** Matcher with no patterns; {@link #expand(String)} returns its input unchanged. */
+    static final JargonMatcher EMPTY = new JargonMatcher(List.of(), List.of());
+
+    private final AhoCorasick automaton;
+    private final List<String> acronyms;
+    private final List<String> expansions;
+
+    private JargonMatcher(List<String> acronyms, List<String> expansions) {
+        this.acronyms = acronyms;
+        this.expansions = expansions;
+        this.automaton = new AhoCorasick(acronyms);
+    }
+
+    /**
+     * Builds a matcher from the given entries. Acronyms are compared lower-cased;
+     * if several entries share an acronym the last one in iteration order wins.
+     *
+     * @param entries verified jargon entries (may be empty)
+     * @return a new immutable matcher
+     */
+    static JargonMatcher build(List<JargonEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, String> byAcronym = new LinkedHashMap<>();
+        for (JargonEntry entry : entries) {
+            if (entry.getAcronym() == null || entry.getAcronym().isEmpty()
+                    || entry.getExpansion() == null) {
+                continue;
+            }
+            byAcronym.put(entry.getAcronym().toLowerCase(), entry.getExpansion());
+        }
+        if (byAcronym.isEmpty()) {
+            return EMPTY;
+        }
+        return new JargonMatcher(List.copyOf(byAcronym.keySet()), List.copyOf(byAcronym.values()));
+    }
+
+    /** Returns the number of distinct acronyms in the automaton. */
+    int size() {
+        return acronyms.size();
+    }
+
+    /**
+     * Replaces every word-bounded acronym occurrence with
+     * {@code "<expansion> (<original>)"}.
+     *
+     * @param text the text to expand; must not be null
+     * @return the expanded text, or {@code text} itself if nothing matched
+     */
+    String expand(String text) {
+        if (acronyms.isEmpty() || text.isEmpty()) {
+            return text;
+        }
+
+        List<int[]> matches = findMatches(text);
+        if (matches.isEmpty()) {
+            return text;
+        }
+
+        // Surface form of the first occurrence of each acronym, used for all its replacements
+        Map<Integer, String> firstSeen = new HashMap<>();
+        for (int[] m : matches) {
+            firstSeen.putIfAbsent(m[2], text.substring(m[0], m[1]));
+        }
+
+        StringBuilder sb = new StringBuilder(text.length() + matches.size() * 24);
+        int cursor = 0;
+        for (int[] m : matches) {
+            sb.append(text, cursor, m[0]);
+            sb.append(expansions.get(m[2])).append(" (").append(firstSeen.get(m[2])).append(')');
+            cursor = m[1];
+        }
+        sb.append(text, cursor, text.length());
+        return sb.toString();
+    }
+
+    // -------------------------------------------------------------------------
+    // Matching
+    // -------------------------------------------------------------------------
+
+    /**
+     * Scans the text once and returns non-overlapping, word-bounded matches as
+     * {@code [start, end, patternIndex]}, ordered by start offset.
+     */
+    private List<int[]> findMatches(String text) {
+        // bestEnd[start] = end of the longest valid match beginning at start, its pattern in bestPattern
+        int n = text.length();
+        int[] bestEnd = new int[n];
+        int[] bestPattern = new int[n];
+        automaton.scan(text, (start, end, pattern) -> {
+            if (end > bestEnd[start] && isBoundary(text, start) && isBoundary(text, end)) {
+                bestEnd[start] = end;
+                bestPattern[start] = pattern;
+            }
+        });
+
+        List<int[]> result = new ArrayList<>();
+        int i = 0;
+        while (i < n) {
+            if (bestEnd[i] > i) {
+                result.add(new int[]{i, bestEnd[i], bestPattern[i]});
+                i = bestEnd[i];
+            } else {
+                i++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Mirrors {@code java.util.regex} {@code \b} without {@code UNICODE_CHARACTER_CLASS}:
+     * word-ness differs on either side of the offset.
+     */
+    private static boolean isBoundary(String text, int offset) {
+        boolean left = offset > 0 && isWordChar(text.charAt(offset - 1));
+        boolean right = offset < text.length() && isWordChar(text.charAt(offset));
+        return left != right;
+    }
+
+    /** ASCII {@code [a-zA-Z0-9_]}, which is what {@code \b} uses by default since Java 19. */
+    private static boolean isWordChar(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+}
@@ -16,7 +16,10 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 
 /**
@@ -119,6 +122,33 @@ public class LLMExtractionService {
         }
     }
 
+    /**
+     * Returns a fingerprint of everything besides the message text that shapes an
+     * extraction: the model, the prompt template, and the categories, manufacturers,
+     * verified jargon and conditions CSVs injected into it. Any admin edit to those
+     * dictionaries changes the fingerprint, which is what keys {@link ExtractionCache}.
+     *
+     * @return hex SHA-256 of the prompt inputs
+     */
+    public String promptInputsVersion() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : List.of(
+                    extractionModel,
+                    promptTemplate,
+                    categoryService.getAllNamesAsCSV(),
+                    manufacturerService.getAllNamesWithAliasesAsCSV(),
+                    jargonService.getVerifiedAsCSV(),
+                    conditionService.getAllNamesAsCSV())) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     /**
      * Re-extracts structured listing data using the original text plus a human hint
      * and the previous extraction result. Used for iterative agent-assisted review.
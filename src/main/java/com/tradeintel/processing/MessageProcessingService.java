@@ -9,53 +9,71 @@ import com.tradeintel.common.entity.ListingStatus;
 import com.tradeintel.common.entity.RawMessage;
 import com.tradeintel.common.entity.ReviewQueueItem;
 import com.tradeintel.common.entity.User;
-import com.tradeintel.common.event.NewMessageEvent;
+import com.tradeintel.listing.CrossPostClusterService;
 import com.tradeintel.listing.ListingRepository;
+import com.tradeintel.listing.ListingStatsService;
+import com.tradeintel.listing.PriceHistoryService;
 import com.tradeintel.normalize.JargonService;
+import jakarta.annotation.PreDestroy;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 /**
  * Orchestrates the full asynchronous message processing pipeline.
  *
- * <p>Listens for {@link NewMessageEvent}s published by the webhook controller
- * after a raw message is archived. Each event is processed asynchronously on
- * the dedicated {@code processingExecutor} thread pool.</p>
+ * <p>Live messages are fed in by {@link ProcessingQueueService}, which leases jobs
+ * from the durable {@code processing_jobs} queue and starts {@link #processMessageAsync}
+ * on the dedicated {@code processingExecutor} thread pool. Bulk backlogs are
+ * worked through by {@link #runCatchup()}.</p>
+ *
+ * <p>The pipeline runs as three {@link PipelineStage}s, each with its own thread
+ * count and bounded queue under {@code app.processing.stages}: {@code embedding}
+ * (step 2) and {@code extraction} (steps 3-4) run concurrently for the same message,
+ * and {@code persist} (steps 5-9) starts once both have finished. A full stage queue
+ * blocks the stage feeding it, so backpressure reaches the processing queue.</p>
  *
  * <p>Pipeline steps:
  * <ol>
  *   <li>Load the {@link RawMessage} by ID</li>
  *   <li>Generate an embedding vector via {@link EmbeddingService}</li>
  *   <li>Expand jargon acronyms via {@link JargonExpander}</li>
- *   <li>Extract structured listing data via {@link LLMExtractionService}</li>
+ *   <li>Extract structured listing data via {@link LLMExtractionService}, reusing a
+ *       memoized result from {@link ExtractionCache} for duplicate text</li>
  *   <li>Route extracted items by confidence via {@link ConfidenceRouter}</li>
  *   <li>Create {@link ReviewQueueItem} entries for pending-review listings</li>
+ *   <li>Mark the message as processed</li>
  *   <li>Match active listings against notification rules</li>
  *   <li>Queue unknown terms for jargon auto-learning</li>
- *   <li>Mark the message as processed</li>
  * </ol>
+ * Steps 5-7 commit together in one transaction; steps 8-9 run after it commits.</p>
  *
  * <p>If any step fails, the exception is caught and recorded in the message's
  * {@code processingError} field so that failed messages can be identified
@@ -69,7 +87,11 @@ public class MessageProcessingService {
     /** Matches messages that are just "Sold" with optional trailing punctuation. */
     private static final Pattern SOLD_PATTERN = Pattern.compile("(?i)^\\s*sold[!.]*\\s*$");
 
+    /** OpenAI calls a message may cost: one embedding and one extraction. */
+    private static final int REQUESTS_PER_MESSAGE = 2;
+
     private final AtomicBoolean catchupRunning = new AtomicBoolean(false);
+    private volatile CatchupProgress catchupProgress;
 
     @Lazy
     @Autowired
@@ -80,50 +102,93 @@ public class MessageProcessingService {
     private final EmbeddingService embeddingService;
     private final JargonExpander jargonExpander;
     private final LLMExtractionService llmExtractionService;
+    private final ExtractionCache extractionCache;
     private final ConfidenceRouter confidenceRouter;
     private final ReviewQueueItemRepository reviewQueueItemRepository;
     private final NotificationMatcher notificationMatcher;
     private final JargonService jargonService;
     private final SimpMessagingTemplate messagingTemplate;
     private final CostTrackingService costTrackingService;
+    private final ListingStatsService listingStatsService;
+    private final PriceHistoryService priceHistoryService;
+    private final CrossPostClusterService crossPostClusterService;
+    private final ProcessingJobRepository jobRepository;
+    private final int catchupWorkers;
+    private final Duration catchupLease;
+    private final String catchupOwner = "catchup/" + UUID.randomUUID().toString().substring(0, 8);
+    private final RequestBudget catchupBudget;
+    private final PipelineStage embeddingStage;
+    private final PipelineStage extractionStage;
+    private final PipelineStage persistStage;
 
     public MessageProcessingService(RawMessageRepository rawMessageRepository,
                                     ListingRepository listingRepository,
                                     EmbeddingService embeddingService,
                                     JargonExpander jargonExpander,
                                     LLMExtractionService llmExtractionService,
+                                    ExtractionCache extractionCache,
                                     ConfidenceRouter confidenceRouter,
                                     ReviewQueueItemRepository reviewQueueItemRepository,
                                     NotificationMatcher notificationMatcher,
                                     JargonService jargonService,
                                     SimpMessagingTemplate messagingTemplate,
-                                    CostTrackingService costTrackingService) {
+                                    CostTrackingService costTrackingService,
+                                    ListingStatsService listingStatsService,
+                                    PriceHistoryService priceHistoryService,
+                                    CrossPostClusterService crossPostClusterService,
+                                    ProcessingJobRepository jobRepository,
+                                    @Value("${app.processing.catchup.workers:4}") int catchupWorkers,
+                                    @Value("${app.processing.queue.lease-seconds:120}") long leaseSeconds,
+                                    @Value("${app.processing.catchup.openai-requests-per-minute:300}") int catchupRequestsPerMinute,
+                                    @Value("${app.processing.stages.embedding.concurrency:4}") int embeddingConcurrency,
+                                    @Value("${app.processing.stages.embedding.queue-capacity:100}") int embeddingQueueCapacity,
+                                    @Value("${app.processing.stages.extraction.concurrency:4}") int extractionConcurrency,
+                                    @Value("${app.processing.stages.extraction.queue-capacity:100}") int extractionQueueCapacity,
+                                    @Value("${app.processing.stages.persist.concurrency:2}") int persistConcurrency,
+                                    @Value("${app.processing.stages.persist.queue-capacity:100}") int persistQueueCapacity) {
         this.rawMessageRepository = rawMessageRepository;
         this.listingRepository = listingRepository;
         this.embeddingService = embeddingService;
         this.jargonExpander = jargonExpander;
         this.llmExtractionService = llmExtractionService;
+        this.extractionCache = extractionCache;
         this.confidenceRouter = confidenceRouter;
         this.reviewQueueItemRepository = reviewQueueItemRepository;
         this.notificationMatcher = notificationMatcher;
         this.jargonService = jargonService;
         this.messagingTemplate = messagingTemplate;
         this.costTrackingService = costTrackingService;
+        this.listingStatsService = listingStatsService;
+        this.priceHistoryService = priceHistoryService;
+        this.crossPostClusterService = crossPostClusterService;
+        this.jobRepository = jobRepository;
+        this.catchupWorkers = Math.max(1, catchupWorkers);
+        this.catchupLease = Duration.ofSeconds(leaseSeconds);
+        this.catchupBudget = new RequestBudget(catchupRequestsPerMinute);
+        this.embeddingStage = new PipelineStage("embedding", embeddingConcurrency, embeddingQueueCapacity);
+        this.extractionStage = new PipelineStage("extraction", extractionConcurrency, extractionQueueCapacity);
+        this.persistStage = new PipelineStage("persist", persistConcurrency, persistQueueCapacity);
     }
 
     /**
-     * Handles a {@link NewMessageEvent} by executing the full processing pipeline.
+     * Runs the full processing pipeline for one message through the pipeline stages.
+     * Called by {@link ProcessingQueueService} workers for each leased job.
+     *
+     * <p>The calling thread loads the message and handles the short-circuit cases
+     * (missing, already processed, no text, "Sold" reply). Otherwise the embedding and
+     * the jargon expansion plus LLM extraction are submitted to their own stages and
+     * run concurrently; once both finish, the persist stage routes the result, creates
+     * review items and marks the message processed in one transaction, then broadcasts,
+     * matches notifications and learns jargon. The calling thread is free as soon as the network stages are
+     * queued.</p>
      *
-     * <p>Runs asynchronously on the {@code processingExecutor} pool and is triggered
-     * after the transaction that published the event has committed
-     * ({@code @TransactionalEventListener} default phase is {@code AFTER_COMMIT}).</p>
+     * <p>If a step fails, the error is recorded on the message and the returned future
+     * completes exceptionally so the queue can retry it.</p>
      *
-     * @param event the new message event containing the message UUID
+     * @param messageId the UUID of the message to process
+     * @return a future that completes when the message has been fully processed
      */
-    @Async("processingExecutor")
-    @TransactionalEventListener
-    public void onNewMessage(NewMessageEvent event) {
-        UUID messageId = event.getMessageId();
+    public CompletableFuture<Void> processMessageAsync(UUID messageId) {
         log.info("Processing pipeline started for message {}", messageId);
 
         RawMessage msg = null;
@@ -132,130 +197,57 @@ public class MessageProcessingService {
             Optional<RawMessage> optMsg = rawMessageRepository.findById(messageId);
             if (optMsg.isEmpty()) {
                 log.warn("Message {} not found; skipping processing", messageId);
-                return;
+                return CompletableFuture.completedFuture(null);
             }
             msg = optMsg.get();
 
             // Skip if already processed
             if (Boolean.TRUE.equals(msg.getProcessed())) {
                 log.info("Message {} already processed; skipping", messageId);
-                return;
+                return CompletableFuture.completedFuture(null);
             }
 
             String originalText = msg.getMessageBody();
             if (originalText == null || originalText.isBlank()) {
                 log.info("Message {} has no text body; marking as processed", messageId);
                 markProcessed(msg);
-                return;
+                return CompletableFuture.completedFuture(null);
             }
 
             // Short-circuit: handle "Sold" replies before full pipeline
             if (isSoldNotification(msg)) {
                 handleSoldNotification(msg);
-                return;
+                return CompletableFuture.completedFuture(null);
             }
-
-            // Step 2: Generate embedding
-            try {
-                float[] embedding = embeddingService.embed(originalText);
-                msg.setEmbedding(embedding);
-                rawMessageRepository.save(msg);
-                log.debug("Embedding generated for message {}", messageId);
-            } catch (Exception e) {
-                log.warn("Embedding generation failed for message {} (non-fatal): {}",
-                        messageId, e.getMessage());
-                // Continue processing even if embedding fails
-            }
-
-            // Step 3: Expand jargon
-            String expandedText = jargonExpander.expand(originalText);
-            log.debug("Jargon expansion complete for message {}", messageId);
-
-            // Step 4: LLM extraction
-            ExtractionResult result = llmExtractionService.extract(expandedText, originalText);
-            log.debug("LLM extraction complete for message {}: intent={}, items={}, confidence={}",
-                    messageId, result.getIntent(), result.getItems().size(), result.getConfidence());
-
-            // Step 5: Confidence routing (creates listings)
-            List<Listing> listings = confidenceRouter.route(result, msg);
-
-            // Step 6: Create review queue items for pending-review listings
-            for (Listing listing : listings) {
-                if (listing.getStatus() == ListingStatus.pending_review) {
-                    createReviewQueueItem(listing, msg, result);
-                }
-            }
-
-            // Step 7: Match notifications for active listings and broadcast via WebSocket
-            for (Listing listing : listings) {
-                if (listing.getStatus() == ListingStatus.active) {
-                    // Broadcast new listing event via STOMP
-                    try {
-                        Map<String, Object> wsPayload = new HashMap<>();
-                        wsPayload.put("type", "new_listing");
-                        wsPayload.put("listingId", listing.getId().toString());
-                        wsPayload.put("description", listing.getItemDescription());
-                        wsPayload.put("intent", listing.getIntent().name());
-                        if (listing.getGroup() != null) {
-                            wsPayload.put("groupId", listing.getGroup().getId().toString());
-                        }
-                        messagingTemplate.convertAndSend("/topic/listings", wsPayload);
-                    } catch (Exception e) {
-                        log.warn("WebSocket broadcast failed for listing {} (non-fatal): {}",
-                                listing.getId(), e.getMessage());
-                    }
-
-                    try {
-                        notificationMatcher.matchAndDispatch(listing);
-                    } catch (Exception e) {
-                        log.warn("Notification matching failed for listing {} (non-fatal): {}",
-                                listing.getId(), e.getMessage());
-                    }
-                } else if (listing.getStatus() == ListingStatus.pending_review) {
-                    // Broadcast review queue update via STOMP
-                    try {
-                        Map<String, Object> wsPayload = new HashMap<>();
-                        wsPayload.put("type", "new_review_item");
-                        wsPayload.put("listingId", listing.getId().toString());
-                        wsPayload.put("description", listing.getItemDescription());
-                        messagingTemplate.convertAndSend("/topic/review-queue", wsPayload);
-                    } catch (Exception e) {
-                        log.warn("WebSocket broadcast failed for review item {} (non-fatal): {}",
-                                listing.getId(), e.getMessage());
-                    }
-                }
-            }
-
-            // Step 8: Learn new jargon terms
-            if (result.getUnknownTerms() != null && !result.getUnknownTerms().isEmpty()) {
-                try {
-                    jargonService.learnNewTerms(result.getUnknownTerms());
-                    log.debug("Queued {} unknown terms for jargon review from message {}",
-                            result.getUnknownTerms().size(), messageId);
-                } catch (Exception e) {
-                    log.warn("Jargon learning failed for message {} (non-fatal): {}",
-                            messageId, e.getMessage());
-                }
-            }
-
-            // Step 9: Mark message as processed
-            markProcessed(msg);
-            log.info("Processing pipeline completed for message {}: {} listings created",
-                    messageId, listings.size());
-
         } catch (Exception e) {
-            log.error("Processing pipeline failed for message {}", messageId, e);
-            // Step 10: Record error on the message
-            if (msg != null) {
-                markProcessingError(msg, e);
-            }
+            return failed(messageId, msg, e);
         }
+
+        // Steps 2-4: embedding and expansion + extraction are independent network calls
+        RawMessage message = msg;
+        String originalText = msg.getMessageBody();
+        CompletableFuture<float[]> embedding = embeddingStage.submit(() -> embedOrNull(messageId, originalText));
+        CompletableFuture<ExtractionResult> extraction = extractionStage.submit(
+                () -> extract(messageId, jargonExpander.expand(originalText), originalText));
+
+        // Steps 5-9: persist once both are in, in one transaction, then publish
+        return embedding.thenCombine(extraction, StageResults::new)
+                .thenCompose(results -> persistStage.submit(() -> {
+                    List<Listing> listings = self.persistResults(message, results.embedding(), results.extraction());
+                    publishResults(messageId, listings, results.extraction());
+                    return (Void) null;
+                }))
+                .exceptionallyCompose(e -> failed(messageId, message, e instanceof CompletionException && e.getCause() != null
+                        ? e.getCause() : e));
     }
 
     /**
      * Synchronous version of the processing pipeline for on-demand extraction.
      * Runs all pipeline steps and returns the created listings.
      *
+     * <p>The embedding and extraction calls still overlap on their pipeline stages, but
+     * every database write happens on the calling thread inside its transaction.</p>
+     *
      * @param messageId the UUID of the message to process
      * @return list of created listings (may be empty)
      * @throws IllegalArgumentException if the message is not found
@@ -276,27 +268,23 @@ public class MessageProcessingService {
             return handleSoldNotification(msg);
         }
 
-        // Generate embedding
-        try {
-            float[] embedding = embeddingService.embed(originalText);
-            msg.setEmbedding(embedding);
-            rawMessageRepository.save(msg);
-        } catch (Exception e) {
-            log.warn("Embedding generation failed for message {} (non-fatal): {}", messageId, e.getMessage());
+        // Generate embedding and run expansion + extraction concurrently
+        CompletableFuture<float[]> embeddingFuture = embeddingStage.submit(() -> embedOrNull(messageId, originalText));
+        CompletableFuture<ExtractionResult> extractionFuture = extractionStage.submit(
+                () -> extract(messageId, jargonExpander.expand(originalText), originalText));
+        ExtractionResult result = await(extractionFuture);
+        float[] embedding = await(embeddingFuture);
+        if (embedding != null) {
+            rawMessageRepository.storeEmbedding(messageId, embedding);
         }
-
-        // Expand jargon
-        String expandedText = jargonExpander.expand(originalText);
-
-        // LLM extraction
-        ExtractionResult result = llmExtractionService.extract(expandedText, originalText);
         log.info("Sync extraction for message {}: intent={}, items={}, confidence={}",
                 messageId, result.getIntent(), result.getItems().size(), result.getConfidence());
 
         // Track extraction cost
         trackExtractionCost(result);
 
-        // Confidence routing
+        // Confidence routing, replacing listings from an earlier failed attempt
+        discardEarlierAttempt(messageId);
         List<Listing> listings = confidenceRouter.route(result, msg);
 
         // Create review queue items
@@ -307,19 +295,203 @@ public class MessageProcessingService {
         }
 
         // Learn unknown terms
+        learnUnknownTerms(messageId, result);
+
+        // Mark processed
+        markProcessed(msg);
+        log.info("Sync processing completed for message {}: {} listings created", messageId, listings.size());
+
+        return listings;
+    }
+
+    /**
+     * Returns queue depth, utilisation and latency for each pipeline stage.
+     *
+     * @return map keyed by stage name
+     */
+    public Map<String, Object> getPipelineStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (PipelineStage stage : List.of(embeddingStage, extractionStage, persistStage)) {
+            stats.put(stage.getName(), stage.getStats());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdownStages() {
+        embeddingStage.shutdown();
+        extractionStage.shutdown();
+        persistStage.shutdown();
+    }
+
+    // -------------------------------------------------------------------------
+    // Pipeline stages
+    // -------------------------------------------------------------------------
+
+    /** Output of the two concurrent network stages, handed to the persist stage. */
+    private record StageResults(float[] embedding, ExtractionResult extraction) {
+    }
+
+    /** Embedding stage body: failures are non-fatal and yield {@code null}. */
+    private float[] embedOrNull(UUID messageId, String text) {
+        try {
+            float[] embedding = embeddingService.embed(text);
+            log.debug("Embedding generated for message {}", messageId);
+            return embedding;
+        } catch (Exception e) {
+            log.warn("Embedding generation failed for message {} (non-fatal): {}",
+                    messageId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Persist stage body: stores the embedding, routes the extraction result into
+     * listings, creates their review items and marks the message processed, all in one
+     * transaction so a failure leaves nothing behind for the retry to trip over.
+     * Called through the proxy from the persist stage thread.
+     *
+     * <p>Routes against a copy of the message read inside the transaction and writes the
+     * embedding and processed flag with targeted updates, never by merging {@code msg}:
+     * that copy was read before the network calls, and merging it would write back media
+     * columns a download linked in the meantime.</p>
+     *
+     * @return the routed listings
+     */
+    @Transactional
+    public List<Listing> persistResults(RawMessage msg, float[] embedding, ExtractionResult result) {
+        UUID messageId = msg.getId();
+        RawMessage managed = rawMessageRepository.findById(messageId)
+                .orElseThrow(() -> new IllegalArgumentException("Message not found: " + messageId));
+        if (embedding != null) {
+            rawMessageRepository.storeEmbedding(messageId, embedding);
+        }
+        log.debug("LLM extraction complete for message {}: intent={}, items={}, confidence={}",
+                messageId, result.getIntent(), result.getItems().size(), result.getConfidence());
+
+        // Step 5: Confidence routing (creates listings), replacing any from a failed attempt
+        discardEarlierAttempt(messageId);
+        List<Listing> listings = confidenceRouter.route(result, managed);
+
+        // Step 6: Create review queue items for pending-review listings
+        for (Listing listing : listings) {
+            if (listing.getStatus() == ListingStatus.pending_review) {
+                createReviewQueueItem(listing, managed, result);
+            }
+        }
+
+        // Step 7: Mark message as processed
+        markProcessed(managed);
+        log.info("Processing pipeline completed for message {}: {} listings created",
+                messageId, listings.size());
+        return listings;
+    }
+
+    /**
+     * Runs the non-fatal follow-up steps once the persist transaction has committed, so
+     * WebSocket clients never see a listing that is not yet readable and a failure here
+     * cannot roll back the routed listings. Notification matching and jargon learning
+     * run in their own transactions.
+     */
+    private void publishResults(UUID messageId, List<Listing> listings, ExtractionResult result) {
+        // Step 8: Match notifications for active listings and broadcast via WebSocket
+        for (Listing listing : listings) {
+            if (listing.getStatus() == ListingStatus.active) {
+                // Broadcast new listing event via STOMP
+                try {
+                    Map<String, Object> wsPayload = new HashMap<>();
+                    wsPayload.put("type", "new_listing");
+                    wsPayload.put("listingId", listing.getId().toString());
+                    wsPayload.put("description", listing.getItemDescription());
+                    wsPayload.put("intent", listing.getIntent().name());
+                    if (listing.getGroup() != null) {
+                        wsPayload.put("groupId", listing.getGroup().getId().toString());
+                    }
+                    messagingTemplate.convertAndSend("/topic/listings", wsPayload);
+                } catch (Exception e) {
+                    log.warn("WebSocket broadcast failed for listing {} (non-fatal): {}",
+                            listing.getId(), e.getMessage());
+                }
+
+                try {
+                    notificationMatcher.matchAndDispatch(listing);
+                } catch (Exception e) {
+                    log.warn("Notification matching failed for listing {} (non-fatal): {}",
+                            listing.getId(), e.getMessage());
+                }
+            } else if (listing.getStatus() == ListingStatus.pending_review) {
+                // Broadcast review queue update via STOMP
+                try {
+                    Map<String, Object> wsPayload = new HashMap<>();
+                    wsPayload.put("type", "new_review_item");
+                    wsPayload.put("listingId", listing.getId().toString());
+                    wsPayload.put("description", listing.getItemDescription());
+                    messagingTemplate.convertAndSend("/topic/review-queue", wsPayload);
+                } catch (Exception e) {
+                    log.warn("WebSocket broadcast failed for review item {} (non-fatal): {}",
+                            listing.getId(), e.getMessage());
+                }
+            }
+        }
+
+        // Step 9: Learn new jargon terms
+        learnUnknownTerms(messageId, result);
+    }
+
+    /**
+     * Removes the listings, and their review items, that an earlier attempt at this
+     * message routed before failing part-way (e.g. the review item or the processed flag
+     * could not be saved), so a retry routes the result afresh instead of adding
+     * duplicates. Sold and deleted listings are user actions and are kept. Runs entity
+     * deletes so the statistics, price history and cross-post trackers see them.
+     *
+     * @param messageId the message about to be routed
+     */
+    @Transactional
+    public void discardEarlierAttempt(UUID messageId) {
+        List<Listing> earlier = listingRepository.findByRawMessageIdInAndDeletedAtIsNull(List.of(messageId)).stream()
+                .filter(l -> l.getStatus() == ListingStatus.active || l.getStatus() == ListingStatus.pending_review)
+                .toList();
+        if (earlier.isEmpty()) {
+            return;
+        }
+        reviewQueueItemRepository.deleteByListingIdIn(earlier.stream().map(Listing::getId).toList());
+        listingRepository.deleteAll(earlier);
+        log.info("Discarded {} listings from an earlier failed attempt at message {}", earlier.size(), messageId);
+    }
+
+    private void learnUnknownTerms(UUID messageId, ExtractionResult result) {
         if (result.getUnknownTerms() != null && !result.getUnknownTerms().isEmpty()) {
             try {
                 jargonService.learnNewTerms(result.getUnknownTerms());
+                log.debug("Queued {} unknown terms for jargon review from message {}",
+                        result.getUnknownTerms().size(), messageId);
             } catch (Exception e) {
-                log.warn("Jargon learning failed for message {} (non-fatal): {}", messageId, e.getMessage());
+                log.warn("Jargon learning failed for message {} (non-fatal): {}",
+                        messageId, e.getMessage());
             }
         }
+    }
 
-        // Mark processed
-        markProcessed(msg);
-        log.info("Sync processing completed for message {}: {} listings created", messageId, listings.size());
+    /** Step 10: records the error on the message and fails the pipeline future. */
+    private CompletableFuture<Void> failed(UUID messageId, RawMessage msg, Throwable e) {
+        log.error("Processing pipeline failed for message {}", messageId, e);
+        if (msg != null) {
+            markProcessingError(msg, e);
+        }
+        return CompletableFuture.failedFuture(e);
+    }
 
-        return listings;
+    /** Waits for a stage result on the calling thread, rethrowing the stage's exception. */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -329,8 +501,19 @@ public class MessageProcessingService {
     /**
      * Processes the entire backlog of unprocessed messages asynchronously.
      * Only one catchup can run at a time — concurrent calls are rejected.
-     * Messages are loaded in batches of 50, always from page 0 (since
-     * processed messages drop out of the query).
+     *
+     * <p>Fans out across {@code app.processing.catchup.workers} virtual-thread workers.
+     * Each worker repeatedly claims the oldest unprocessed message with
+     * {@code SELECT ... FOR UPDATE SKIP LOCKED} and records a leased {@code catchup} job
+     * for it in a short transaction, then runs the pipeline stages with no transaction
+     * or row lock held across the OpenAI calls. A due job the periodic sweep queued in
+     * the {@code catchup} lane is leased to the worker instead, so the run is not left
+     * to the queue's single catch-up slot. Workers and the processing queue skip
+     * messages with a leased job, and a crashed run's leases expire like any other.
+     * Before each claim a worker takes {@link #REQUESTS_PER_MESSAGE} permits from a
+     * shared {@code app.processing.catchup.openai-requests-per-minute} budget, leaving
+     * headroom on the API key for live traffic. A message that fails is recorded with
+     * its error and skipped for the rest of the run.</p>
      */
     @Async("processingExecutor")
     public void runCatchup() {
@@ -338,47 +521,115 @@ public class MessageProcessingService {
             log.warn("Catchup already running; ignoring duplicate request");
             return;
         }
+        CatchupProgress progress = new CatchupProgress(catchupWorkers, rawMessageRepository.countUnprocessed());
+        catchupProgress = progress;
         try {
-            log.info("Catchup started");
-            int totalProcessed = 0;
-            int totalErrors = 0;
-
-            while (true) {
-                Page<RawMessage> batch = rawMessageRepository.findUnprocessed(
-                        PageRequest.of(0, 50, Sort.by("receivedAt").ascending()));
-                if (batch.isEmpty()) {
-                    break;
-                }
+            log.info("Catchup started: backlog={}, workers={}", progress.getInitialBacklog(), catchupWorkers);
+            Set<UUID> failed = ConcurrentHashMap.newKeySet();
 
-                for (RawMessage msg : batch.getContent()) {
-                    try {
-                        processMessageSync(msg.getId());
-                        totalProcessed++;
-                    } catch (Exception e) {
-                        totalErrors++;
-                        log.warn("Catchup: failed to process message {}: {}",
-                                msg.getId(), e.getMessage());
-                    }
-
-                    if ((totalProcessed + totalErrors) % 10 == 0) {
-                        log.info("Catchup progress: processed={}, errors={}",
-                                totalProcessed, totalErrors);
-                    }
+            try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < catchupWorkers; i++) {
+                    workers.submit(() -> runCatchupWorker(progress, failed));
                 }
             }
 
-            log.info("Catchup completed: processed={}, errors={}", totalProcessed, totalErrors);
+            log.info("Catchup completed: processed={}, errors={}", progress.getProcessed(), progress.getErrors());
         } finally {
+            progress.finish();
             catchupRunning.set(false);
         }
     }
 
+    /**
+     * Claims the next unprocessed message for a catch-up worker: locks it, leases its
+     * queued {@code catchup} job or records a leased one, and commits. A message whose
+     * job a queue poller leased in the meantime is skipped. Called through the proxy so
+     * the lock is released before the message is processed.
+     *
+     * @param exclude message IDs to skip; must not be empty
+     * @return the claimed message ID, or empty when the backlog is drained
+     */
+    @Transactional
+    public Optional<UUID> claimNextUnprocessed(Collection<UUID> exclude) {
+        Set<UUID> skipped = new HashSet<>(exclude);
+        while (true) {
+            OffsetDateTime now = OffsetDateTime.now();
+            List<RawMessage> claimed = rawMessageRepository.claimNextUnprocessed(skipped, now);
+            if (claimed.isEmpty()) {
+                return Optional.empty();
+            }
+            UUID messageId = claimed.get(0).getId();
+            OffsetDateTime expiresAt = now.plus(catchupLease);
+            jobRepository.deleteFailed(messageId);
+            if (jobRepository.leaseQueuedCatchup(messageId, catchupOwner, now, expiresAt) > 0
+                    || jobRepository.insertLeased(messageId, catchupOwner, now, expiresAt) > 0) {
+                return Optional.of(messageId);
+            }
+            skipped.add(messageId);
+        }
+    }
+
+    /**
+     * Worker loop for {@link #runCatchup()}: claims and processes messages until none
+     * remain.
+     */
+    private void runCatchupWorker(CatchupProgress progress, Set<UUID> failed) {
+        while (true) {
+            try {
+                catchupBudget.acquire(REQUESTS_PER_MESSAGE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            // NOT IN () is invalid SQL, so always pass at least one (random) ID
+            Set<UUID> exclude = failed.isEmpty() ? Set.of(UUID.randomUUID()) : Set.copyOf(failed);
+            UUID messageId;
+            try {
+                Optional<UUID> claimed = self.claimNextUnprocessed(exclude);
+                if (claimed.isEmpty()) {
+                    return;
+                }
+                messageId = claimed.get();
+            } catch (Exception e) {
+                log.error("Catchup worker stopping after claim failure: {}", e.getMessage(), e);
+                return;
+            }
+
+            try {
+                // Records the error on the message itself if a step fails
+                processMessageAsync(messageId).join();
+                progress.recordProcessed();
+            } catch (CompletionException e) {
+                failed.add(messageId);
+                progress.recordError();
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("Catchup: failed to process message {}: {}", messageId, cause.getMessage());
+            } finally {
+                try {
+                    jobRepository.complete(messageId, catchupOwner);
+                } catch (Exception e) {
+                    log.warn("Catchup: could not release job for message {} (non-fatal): {}",
+                            messageId, e.getMessage());
+                }
+            }
+
+            long done = progress.getProcessed() + progress.getErrors();
+            if (done % 100 == 0) {
+                log.info("Catchup progress: processed={}, errors={}, rate={}/min",
+                        progress.getProcessed(), progress.getErrors(),
+                        String.format("%.1f", progress.throughputPerMinute()));
+            }
+        }
+    }
+
     /**
      * Resets all processed messages and deletes re-extractable listings so the
      * catchup job can re-process them with the current extraction prompt.
      * Skips sold and soft-deleted listings (those represent real user actions).
      *
-     * @return map with counts: listingsDeleted, reviewItemsDeleted, messagesReset
+     * @return map with counts: listingsDeleted, reviewItemsDeleted, messagesReset,
+     *         failedJobsDeleted
      */
     @Transactional
     public Map<String, Integer> resetForReprocessing() {
@@ -398,19 +649,30 @@ public class MessageProcessingService {
         // 3. Hard-delete the listings (they'll be re-created by re-extraction)
         int listingsDeleted = 0;
         if (!listingIds.isEmpty()) {
+            listingStatsService.recordBulkDelete(listingRepository.countByStatusInByStatsDimensions(
+                    reprocessStatuses.stream().map(ListingStatus::name).toList()));
+            priceHistoryService.recordBulkDelete(listingRepository.findPriceBucketsByStatusIn(reprocessStatuses));
+            crossPostClusterService.recordBulkDelete(listingRepository.findCrossPostClustersByStatusIn(reprocessStatuses));
             listingsDeleted = listingRepository.deleteByStatusIn(reprocessStatuses);
         }
 
-        // 4. Reset all processed messages so catchup re-processes them
+        // 4. Reset all processed messages so catchup re-processes them, and drop jobs that
+        //    gave up so the queue sweep can pick those messages up again
         int messagesReset = rawMessageRepository.resetAllProcessed();
+        int failedJobsDeleted = jobRepository.deleteAllFailed();
+
+        // 5. Drop memoized extractions so every message really goes back to the LLM
+        extractionCache.clear();
 
-        log.info("Reset for reprocessing: {} listings deleted, {} review items deleted, {} messages reset",
-                listingsDeleted, reviewItemsDeleted, messagesReset);
+        log.info("Reset for reprocessing: {} listings deleted, {} review items deleted, {} messages reset, "
+                        + "{} failed jobs deleted",
+                listingsDeleted, reviewItemsDeleted, messagesReset, failedJobsDeleted);
 
         return Map.of(
                 "listingsDeleted", listingsDeleted,
                 "reviewItemsDeleted", reviewItemsDeleted,
-                "messagesReset", messagesReset);
+                "messagesReset", messagesReset,
+                "failedJobsDeleted", failedJobsDeleted);
     }
 
     /** Returns whether a catchup job is currently running. */
@@ -419,21 +681,12 @@ public class MessageProcessingService {
     }
 
     /**
-     * Periodically checks for unprocessed messages and runs the catchup pipeline.
-     * Default interval is 5 minutes (300000ms), configurable via
-     * {@code app.processing.auto-catchup-interval-ms}.
+     * Returns the progress of the current or most recent catchup run.
+     *
+     * @return the progress, or {@code null} if no catchup has run since startup
      */
-    @Scheduled(fixedRateString = "${app.processing.auto-catchup-interval-ms:300000}")
-    public void scheduledCatchup() {
-        if (catchupRunning.get()) {
-            return;
-        }
-        long unprocessed = rawMessageRepository.countUnprocessed();
-        if (unprocessed == 0) {
-            return;
-        }
-        log.info("Scheduled auto-catchup triggered: {} unprocessed messages", unprocessed);
-        self.runCatchup();
+    public CatchupProgress getCatchupProgress() {
+        return catchupProgress;
     }
 
     /** Returns the number of unprocessed messages remaining. */
@@ -523,6 +776,22 @@ public class MessageProcessingService {
                 listing.getId(), msg.getId());
     }
 
+    /**
+     * Runs LLM extraction, short-circuiting through {@link ExtractionCache} when the
+     * same expanded text was already extracted under the current prompt inputs.
+     * A cached result carries zero tokens, so no cost is tracked for it.
+     */
+    private ExtractionResult extract(UUID messageId, String expandedText, String originalText) {
+        Optional<ExtractionResult> cached = extractionCache.get(expandedText);
+        if (cached.isPresent()) {
+            log.debug("Extraction cache hit for message {}; skipping LLM call", messageId);
+            return cached.get();
+        }
+        ExtractionResult result = llmExtractionService.extract(expandedText, originalText);
+        extractionCache.put(expandedText, result);
+        return result;
+    }
+
     private void trackExtractionCost(ExtractionResult result) {
         if (result.getInputTokens() == 0 && result.getOutputTokens() == 0) {
             return;
@@ -544,20 +813,18 @@ public class MessageProcessingService {
         }
     }
 
+    /** Targeted update; {@code msg} may be stale, so it is never saved as a whole. */
     private void markProcessed(RawMessage msg) {
-        msg.setProcessed(true);
-        msg.setProcessingError(null);
-        rawMessageRepository.save(msg);
+        rawMessageRepository.markProcessed(msg.getId());
     }
 
-    private void markProcessingError(RawMessage msg, Exception e) {
+    private void markProcessingError(RawMessage msg, Throwable e) {
         try {
             String errorMsg = e.getMessage();
             if (errorMsg != null && errorMsg.length() > 2000) {
                 errorMsg = errorMsg.substring(0, 2000);
             }
-            msg.setProcessingError(errorMsg);
-            rawMessageRepository.save(msg);
+            rawMessageRepository.recordProcessingError(msg.getId(), errorMsg);
         } catch (Exception saveErr) {
             log.error("Failed to record processing error on message {}", msg.getId(), saveErr);
         }
@@ -0,0 +1,67 @@
+package com.tradeintel.processing;
+
+import com.tradeintel.config.CacheConfig;
+import com.tradeintel.normalize.CategoryRepository;
+import com.tradeintel.normalize.ConditionRepository;
+import com.tradeintel.normalize.ManufacturerRepository;
+import com.tradeintel.normalize.UnitRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds and caches the {@link NormalizationSnapshot} used by {@link ConfidenceRouter}.
+ *
+ * <p>The snapshot lives in the {@link CacheConfig#CACHE_NORMALIZATION} cache. The
+ * category, manufacturer, unit and condition services evict it whenever they change
+ * reference data, so the next lookup rebuilds it with a new version. The cache TTL
+ * ({@code app.cache.normalization-ttl-minutes}) only matters for edits made directly
+ * in the database.</p>
+ */
+@Component
+public class NormalizationResolver {
+
+    private static final Logger log = LogManager.getLogger(NormalizationResolver.class);
+
+    private final CategoryRepository categoryRepository;
+    private final ManufacturerRepository manufacturerRepository;
+    private final UnitRepository unitRepository;
+    private final ConditionRepository conditionRepository;
+
+    private final AtomicLong versions = new AtomicLong();
+
+    public NormalizationResolver(CategoryRepository categoryRepository,
+                                 ManufacturerRepository manufacturerRepository,
+                                 UnitRepository unitRepository,
+                                 ConditionRepository conditionRepository) {
+        this.categoryRepository = categoryRepository;
+        this.manufacturerRepository = manufacturerRepository;
+        this.unitRepository = unitRepository;
+        this.conditionRepository = conditionRepository;
+    }
+
+    /**
+     * Returns the current snapshot, loading all four reference tables on a cache miss.
+     * Concurrent misses wait for a single build.
+     *
+     * @return the current normalization snapshot
+     */
+    @Cacheable(value = CacheConfig.CACHE_NORMALIZATION, key = "'snapshot'", sync = true)
+    @Transactional(readOnly = true)
+    public NormalizationSnapshot snapshot() {
+        NormalizationSnapshot snapshot = new NormalizationSnapshot(
+                versions.incrementAndGet(),
+                categoryRepository.findAll(),
+                manufacturerRepository.findAll(Sort.by("name")),
+                unitRepository.findAll(),
+                conditionRepository.findAll(),
+                conditionRepository.findByIsActiveTrueOrderBySortOrderAsc());
+        log.info("Normalization snapshot v{} built: {}", snapshot.getVersion(), snapshot.getStats());
+        return snapshot;
+    }
+}
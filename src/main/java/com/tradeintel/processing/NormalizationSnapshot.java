@@ -0,0 +1,178 @@
+package com.tradeintel.processing;
+
+import com.tradeintel.common.entity.Category;
+import com.tradeintel.common.entity.Condition;
+import com.tradeintel.common.entity.Manufacturer;
+import com.tradeintel.common.entity.Unit;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of the normalization reference tables (categories,
+ * manufacturers, units, conditions) used to resolve extracted values without
+ * touching the database.
+ *
+ * <p>Each lookup is a hash-map probe on the trimmed, lower-cased value and follows the
+ * same precedence as the repository lookups it replaces:
+ * <ul>
+ *   <li>category — name</li>
+ *   <li>manufacturer — name, then an alias of an active manufacturer</li>
+ *   <li>unit — name, then abbreviation</li>
+ *   <li>condition — name, then abbreviation, then the first active condition (by sort
+ *       order) whose name contains the value</li>
+ * </ul>
+ *
+ * <p>The mapped values are detached entities loaded when the snapshot was built. They
+ * are shared across threads and must be treated as read-only; they are only assigned
+ * to new listings as foreign-key references.</p>
+ */
+public final class NormalizationSnapshot {
+
+    private final long version;
+    private final OffsetDateTime builtAt;
+
+    private final Map<String, Category> categoriesByName;
+    private final Map<String, Manufacturer> manufacturersByName;
+    private final Map<String, Manufacturer> manufacturersByAlias;
+    private final Map<String, Unit> unitsByName;
+    private final Map<String, Unit> unitsByAbbreviation;
+    private final Map<String, Condition> conditionsByName;
+    private final Map<String, Condition> conditionsByAbbreviation;
+    private final List<Condition> activeConditions;
+
+    NormalizationSnapshot(long version,
+                          List<Category> categories,
+                          List<Manufacturer> manufacturers,
+                          List<Unit> units,
+                          List<Condition> conditions,
+                          List<Condition> activeConditionsBySortOrder) {
+        this.version = version;
+        this.builtAt = OffsetDateTime.now();
+
+        this.categoriesByName = new HashMap<>();
+        for (Category c : categories) {
+            putKey(categoriesByName, c.getName(), c);
+        }
+
+        this.manufacturersByName = new HashMap<>();
+        this.manufacturersByAlias = new HashMap<>();
+        for (Manufacturer m : manufacturers) {
+            putKey(manufacturersByName, m.getName(), m);
+            if (Boolean.TRUE.equals(m.getIsActive()) && m.getAliases() != null) {
+                for (String alias : m.getAliases()) {
+                    putKey(manufacturersByAlias, alias, m);
+                }
+            }
+        }
+
+        this.unitsByName = new HashMap<>();
+        this.unitsByAbbreviation = new HashMap<>();
+        for (Unit u : units) {
+            putKey(unitsByName, u.getName(), u);
+            putKey(unitsByAbbreviation, u.getAbbreviation(), u);
+        }
+
+        this.conditionsByName = new HashMap<>();
+        this.conditionsByAbbreviation = new HashMap<>();
+        for (Condition c : conditions) {
+            putKey(conditionsByName, c.getName(), c);
+            putKey(conditionsByAbbreviation, c.getAbbreviation(), c);
+        }
+        this.activeConditions = List.copyOf(activeConditionsBySortOrder);
+    }
+
+    /** Resolves a category by name, or {@code null}. */
+    public Category category(String value) {
+        String key = key(value);
+        return key == null ? null : categoriesByName.get(key);
+    }
+
+    /** Resolves a manufacturer by name or alias, or {@code null}. */
+    public Manufacturer manufacturer(String value) {
+        String key = key(value);
+        if (key == null) {
+            return null;
+        }
+        Manufacturer byName = manufacturersByName.get(key);
+        return byName != null ? byName : manufacturersByAlias.get(key);
+    }
+
+    /** Resolves a unit by name or abbreviation, or {@code null}. */
+    public Unit unit(String value) {
+        String key = key(value);
+        if (key == null) {
+            return null;
+        }
+        Unit byName = unitsByName.get(key);
+        return byName != null ? byName : unitsByAbbreviation.get(key);
+    }
+
+    /** Resolves a condition by name, abbreviation or partial name, or {@code null}. */
+    public Condition condition(String value) {
+        String key = key(value);
+        if (key == null) {
+            return null;
+        }
+        Condition match = conditionsByName.get(key);
+        if (match == null) {
+            match = conditionsByAbbreviation.get(key);
+        }
+        if (match == null) {
+            for (Condition c : activeConditions) {
+                if (c.getName().toLowerCase(Locale.ROOT).contains(key)) {
+                    return c;
+                }
+            }
+        }
+        return match;
+    }
+
+    /** Monotonic build number; increases every time the snapshot is rebuilt. */
+    public long getVersion() {
+        return version;
+    }
+
+    public OffsetDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * Returns entry counts for the admin processing stats.
+     *
+     * @return map with the snapshot version and the number of keys per lookup
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("version", version);
+        stats.put("builtAt", builtAt.toString());
+        stats.put("categories", categoriesByName.size());
+        stats.put("manufacturers", manufacturersByName.size());
+        stats.put("manufacturerAliases", manufacturersByAlias.size());
+        stats.put("units", unitsByName.size());
+        stats.put("conditions", conditionsByName.size());
+        return stats;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private static String key(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** First row wins, matching the order the reference rows were loaded in. */
+    private static <T> void putKey(Map<String, T> map, String value, T target) {
+        String key = key(value);
+        if (key != null) {
+            map.putIfAbsent(key, target);
+        }
+    }
+}
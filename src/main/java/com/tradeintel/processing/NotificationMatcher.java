@@ -9,8 +9,6 @@ import org.apache.logging.log4j.Logger;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
@@ -30,10 +28,12 @@ import java.util.UUID;
  * </ul>
  *
  * <p>All specified criteria must match (AND logic). Criteria that are null/empty
- * on the rule are considered to match any listing.</p>
+ * on the rule are considered to match any listing. Evaluation is delegated to the
+ * in-memory {@link NotificationRuleIndex}; only the rules it reports as matching are
+ * loaded from the database.</p>
  *
- * <p>When a match is found, the {@link NotificationDispatcher} is invoked to send
- * an email notification to the rule's owner.</p>
+ * <p>When a match is found, the {@link NotificationDispatcher} is invoked to queue
+ * an email notification to the rule's owner; delivery happens off the pipeline.</p>
  */
 @Service
 public class NotificationMatcher {
@@ -41,11 +41,14 @@ public class NotificationMatcher {
     private static final Logger log = LogManager.getLogger(NotificationMatcher.class);
 
     private final NotificationRuleRepository notificationRuleRepository;
+    private final NotificationRuleIndex notificationRuleIndex;
     private final NotificationDispatcher notificationDispatcher;
 
     public NotificationMatcher(NotificationRuleRepository notificationRuleRepository,
+                               NotificationRuleIndex notificationRuleIndex,
                                NotificationDispatcher notificationDispatcher) {
         this.notificationRuleRepository = notificationRuleRepository;
+        this.notificationRuleIndex = notificationRuleIndex;
         this.notificationDispatcher = notificationDispatcher;
     }
 
@@ -55,90 +58,40 @@ public class NotificationMatcher {
      *
      * @param listing the newly created active listing to match against rules
      */
-    @Transactional(readOnly = true)
+    @Transactional
     public void matchAndDispatch(Listing listing) {
         if (listing == null) {
             return;
         }
 
-        List<NotificationRule> activeRules = notificationRuleRepository
-                .findByIsActiveTrueAndUserIsActiveTrue();
-
-        if (activeRules.isEmpty()) {
-            log.debug("No active notification rules to match against listing {}", listing.getId());
+        List<UUID> matchedIds = notificationRuleIndex.match(listing);
+        if (matchedIds.isEmpty()) {
+            log.debug("No notification rules matched listing {}", listing.getId());
             return;
         }
 
         int matchCount = 0;
 
-        for (NotificationRule rule : activeRules) {
-            if (matches(rule, listing)) {
-                matchCount++;
-                log.info("Notification rule {} (user={}) matched listing {} - '{}'",
-                        rule.getId(),
-                        rule.getUser().getId(),
-                        listing.getId(),
-                        listing.getItemDescription().length() > 80
-                                ? listing.getItemDescription().substring(0, 80) + "..."
-                                : listing.getItemDescription());
-
-                notificationDispatcher.dispatch(rule, listing);
+        for (NotificationRule rule : notificationRuleRepository.findAllById(matchedIds)) {
+            // The index may briefly lag a concurrent edit, and it keeps rules of
+            // deactivated users; re-check both flags on the loaded entity.
+            if (!Boolean.TRUE.equals(rule.getIsActive())
+                    || !Boolean.TRUE.equals(rule.getUser().getIsActive())) {
+                continue;
             }
-        }
-
-        log.debug("Matched {} notification rules for listing {}", matchCount, listing.getId());
-    }
 
-    // -------------------------------------------------------------------------
-    // Private matching logic
-    // -------------------------------------------------------------------------
+            matchCount++;
+            log.info("Notification rule {} (user={}) matched listing {} - '{}'",
+                    rule.getId(),
+                    rule.getUser().getId(),
+                    listing.getId(),
+                    listing.getItemDescription().length() > 80
+                            ? listing.getItemDescription().substring(0, 80) + "..."
+                            : listing.getItemDescription());
 
-    /**
-     * Returns {@code true} if the listing satisfies all non-null criteria on the rule.
-     */
-    private boolean matches(NotificationRule rule, Listing listing) {
-        // Intent match
-        if (rule.getParsedIntent() != null && listing.getIntent() != rule.getParsedIntent()) {
-            return false;
-        }
-
-        // Keyword match: at least one keyword must appear in the description
-        if (rule.getParsedKeywords() != null && rule.getParsedKeywords().length > 0) {
-            String descLower = listing.getItemDescription().toLowerCase();
-            boolean anyKeywordMatch = Arrays.stream(rule.getParsedKeywords())
-                    .anyMatch(keyword -> keyword != null
-                            && descLower.contains(keyword.toLowerCase()));
-            if (!anyKeywordMatch) {
-                return false;
-            }
+            notificationDispatcher.dispatch(rule, listing);
         }
 
-        // Category match: listing category must be in the rule's category list
-        if (rule.getParsedCategoryIds() != null && rule.getParsedCategoryIds().length > 0) {
-            if (listing.getItemCategory() == null) {
-                return false;
-            }
-            UUID listingCategoryId = listing.getItemCategory().getId();
-            boolean categoryMatch = Arrays.asList(rule.getParsedCategoryIds())
-                    .contains(listingCategoryId);
-            if (!categoryMatch) {
-                return false;
-            }
-        }
-
-        // Price range match
-        BigDecimal listingPrice = listing.getPrice();
-        if (rule.getParsedPriceMin() != null) {
-            if (listingPrice == null || listingPrice.compareTo(rule.getParsedPriceMin()) < 0) {
-                return false;
-            }
-        }
-        if (rule.getParsedPriceMax() != null) {
-            if (listingPrice == null || listingPrice.compareTo(rule.getParsedPriceMax()) > 0) {
-                return false;
-            }
-        }
-
-        return true;
+        log.debug("Matched {} notification rules for listing {}", matchCount, listing.getId());
     }
 }
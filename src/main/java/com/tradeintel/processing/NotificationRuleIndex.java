@@ -0,0 +1,415 @@
+package com.tradeintel.processing;
+
+import com.tradeintel.common.entity.IntentType;
+import com.tradeintel.common.entity.Listing;
+import com.tradeintel.common.entity.NotificationRule;
+import com.tradeintel.common.event.NotificationRuleChangedEvent;
+import com.tradeintel.notification.NotificationRuleRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * In-memory index over active notification rules, used by {@link NotificationMatcher}
+ * so that matching a listing no longer loads and scans every rule.
+ *
+ * <p>Each rule occupies a slot in an immutable {@link Snapshot}. Per criterion the
+ * snapshot keeps a bit set of the slots that accept a given listing value plus a
+ * wildcard bit set for rules that leave the criterion open:
+ * <ul>
+ *   <li><b>Keywords</b> — an {@link AhoCorasick} automaton over all lower-cased keywords;
+ *       one pass over the description yields every rule with a keyword hit.</li>
+ *   <li><b>Intent</b> and <b>category</b> — buckets keyed by {@link IntentType} and
+ *       category UUID.</li>
+ *   <li><b>Price</b> — bounded rules sorted once by lower and once by upper bound, with
+ *       the slot set of every few-hundredth prefix precomputed. A binary search in each
+ *       order finds the rules whose bound admits the price, and intersecting the two
+ *       sets leaves the rules whose interval contains it, without comparing each rule.</li>
+ * </ul>
+ * A listing matches the intersection of the four sets, which reproduces the previous
+ * AND-of-criteria semantics exactly (case-insensitive substring keywords, null
+ * criteria match anything, missing listing price or category fails bounded rules).</p>
+ *
+ * <p>The index is loaded lazily on first use and then maintained one rule at a time
+ * from {@link NotificationRuleChangedEvent}s published by {@code NotificationRuleService}
+ * after each create, update or delete commits. Rules owned by deactivated users stay
+ * indexed; {@link NotificationMatcher} filters them when it loads the matched rules,
+ * so reactivating a user needs no refresh.</p>
+ */
+@Component
+public class NotificationRuleIndex {
+
+    private static final Logger log = LogManager.getLogger(NotificationRuleIndex.class);
+
+    private final NotificationRuleRepository notificationRuleRepository;
+
+    /** Source of truth for snapshot rebuilds; guarded by {@code this}. */
+    private final Map<UUID, IndexedRule> rules = new LinkedHashMap<>();
+
+    /** Current compiled index, or {@code null} until first loaded. */
+    private volatile Snapshot snapshot;
+
+    public NotificationRuleIndex(NotificationRuleRepository notificationRuleRepository) {
+        this.notificationRuleRepository = notificationRuleRepository;
+    }
+
+    /**
+     * Returns the IDs of all indexed rules whose criteria the listing satisfies.
+     *
+     * @param listing the listing to match; must not be null
+     * @return matching rule IDs (possibly empty)
+     */
+    public List<UUID> match(Listing listing) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = load();
+        }
+        return current.match(listing);
+    }
+
+    /** Discards the in-memory state and reloads every active rule from the database. */
+    public void reload() {
+        load();
+    }
+
+    /** Returns the number of rules currently indexed (0 before the first load). */
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.slots.length;
+    }
+
+    private synchronized Snapshot load() {
+        rules.clear();
+        for (NotificationRule rule : notificationRuleRepository.findByIsActiveTrue()) {
+            rules.put(rule.getId(), IndexedRule.of(rule));
+        }
+        snapshot = Snapshot.compile(rules.values());
+        log.info("Notification rule index loaded with {} active rules", rules.size());
+        return snapshot;
+    }
+
+    /**
+     * Applies a single committed rule change to the index. Runs after the publishing
+     * transaction commits, so rolled-back edits never reach the index.
+     *
+     * @param event the rule change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onRuleChanged(NotificationRuleChangedEvent event) {
+        NotificationRule rule = event.isDeleted()
+                ? null
+                : notificationRuleRepository.findById(event.getRuleId()).orElse(null);
+        synchronized (this) {
+            if (snapshot == null) {
+                return; // not loaded yet; the first match will read the change from the database
+            }
+            if (rule != null && Boolean.TRUE.equals(rule.getIsActive())) {
+                rules.put(rule.getId(), IndexedRule.of(rule));
+            } else {
+                rules.remove(event.getRuleId());
+            }
+            snapshot = Snapshot.compile(rules.values());
+            log.debug("Notification rule index refreshed for rule {} ({} rules)", event.getRuleId(), rules.size());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Indexed rule
+    // -------------------------------------------------------------------------
+
+    /**
+     * The matching criteria of one rule, detached from the JPA entity.
+     *
+     * @param keywords lower-cased non-null keywords, or {@code null} when the rule has none
+     */
+    record IndexedRule(UUID id,
+                       IntentType intent,
+                       List<String> keywords,
+                       Set<UUID> categoryIds,
+                       BigDecimal priceMin,
+                       BigDecimal priceMax) {
+
+        static IndexedRule of(NotificationRule rule) {
+            List<String> keywords = null;
+            if (rule.getParsedKeywords() != null && rule.getParsedKeywords().length > 0) {
+                keywords = Arrays.stream(rule.getParsedKeywords())
+                        .filter(k -> k != null)
+                        .map(String::toLowerCase)
+                        .distinct()
+                        .toList();
+            }
+            Set<UUID> categoryIds = rule.getParsedCategoryIds() != null && rule.getParsedCategoryIds().length > 0
+                    ? Set.copyOf(Arrays.asList(rule.getParsedCategoryIds()))
+                    : null;
+            return new IndexedRule(rule.getId(), rule.getParsedIntent(), keywords, categoryIds,
+                    rule.getParsedPriceMin(), rule.getParsedPriceMax());
+        }
+
+        boolean hasPriceBounds() {
+            return priceMin != null || priceMax != null;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Compiled snapshot
+    // -------------------------------------------------------------------------
+
+    /** Immutable compiled index; safe to share between matching threads. */
+    static final class Snapshot {
+
+        private final IndexedRule[] slots;
+
+        private final KeywordAutomaton keywords;
+        private final BitSet anyKeyword;
+
+        private final Map<IntentType, BitSet> byIntent;
+        private final BitSet anyIntent;
+
+        private final Map<UUID, BitSet> byCategory;
+        private final BitSet anyCategory;
+
+        private final PriceEndpoints lowerBounds;
+        private final PriceEndpoints upperBounds;
+        private final BitSet anyPrice;
+
+        private Snapshot(IndexedRule[] slots) {
+            this.slots = slots;
+            this.anyKeyword = new BitSet(slots.length);
+            this.byIntent = new EnumMap<>(IntentType.class);
+            this.anyIntent = new BitSet(slots.length);
+            this.byCategory = new HashMap<>();
+            this.anyCategory = new BitSet(slots.length);
+            this.anyPrice = new BitSet(slots.length);
+
+            Map<String, BitSet> keywordSlots = new LinkedHashMap<>();
+            List<Integer> bounded = new ArrayList<>();
+            for (int slot = 0; slot < slots.length; slot++) {
+                IndexedRule rule = slots[slot];
+
+                if (rule.keywords() == null) {
+                    anyKeyword.set(slot);
+                } else {
+                    for (String keyword : rule.keywords()) {
+                        if (keyword.isEmpty()) {
+                            anyKeyword.set(slot); // "".contains-semantics: matches every description
+                        } else {
+                            keywordSlots.computeIfAbsent(keyword, k -> new BitSet(slots.length)).set(slot);
+                        }
+                    }
+                }
+
+                if (rule.intent() == null) {
+                    anyIntent.set(slot);
+                } else {
+                    byIntent.computeIfAbsent(rule.intent(), k -> new BitSet(slots.length)).set(slot);
+                }
+
+                if (rule.categoryIds() == null) {
+                    anyCategory.set(slot);
+                } else {
+                    for (UUID categoryId : rule.categoryIds()) {
+                        byCategory.computeIfAbsent(categoryId, k -> new BitSet(slots.length)).set(slot);
+                    }
+                }
+
+                if (rule.hasPriceBounds()) {
+                    bounded.add(slot);
+                } else {
+                    anyPrice.set(slot);
+                }
+            }
+
+            this.keywords = new KeywordAutomaton(keywordSlots);
+            this.lowerBounds = new PriceEndpoints(slots, bounded, false);
+            this.upperBounds = new PriceEndpoints(slots, bounded, true);
+        }
+
+        static Snapshot compile(Collection<IndexedRule> rules) {
+            return new Snapshot(rules.toArray(new IndexedRule[0]));
+        }
+
+        List<UUID> match(Listing listing) {
+            if (slots.length == 0) {
+                return List.of();
+            }
+
+            BitSet result = priceCandidates(listing.getPrice());
+            if (result.isEmpty()) {
+                return List.of();
+            }
+
+            result.and(union(anyIntent, listing.getIntent() != null ? byIntent.get(listing.getIntent()) : null));
+            UUID categoryId = listing.getItemCategory() != null ? listing.getItemCategory().getId() : null;
+            result.and(union(anyCategory, categoryId != null ? byCategory.get(categoryId) : null));
+            if (result.isEmpty()) {
+                return List.of();
+            }
+
+            BitSet keywordHits = (BitSet) anyKeyword.clone();
+            String description = listing.getItemDescription();
+            if (description != null) {
+                keywords.collect(description.toLowerCase(), keywordHits);
+            }
+            result.and(keywordHits);
+
+            List<UUID> ids = new ArrayList<>(result.cardinality());
+            for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+                ids.add(slots[slot].id());
+            }
+            return ids;
+        }
+
+        /**
+         * Returns the unbounded rules plus every bounded rule whose interval contains
+         * {@code price}. A listing without a price only passes unbounded rules.
+         */
+        private BitSet priceCandidates(BigDecimal price) {
+            BitSet result = (BitSet) anyPrice.clone();
+            if (price == null || lowerBounds.isEmpty()) {
+                return result;
+            }
+            BitSet bounded = lowerBounds.admitting(price);
+            bounded.and(upperBounds.admitting(price));
+            result.or(bounded);
+            return result;
+        }
+
+        private static BitSet union(BitSet wildcard, BitSet bucket) {
+            BitSet result = (BitSet) wildcard.clone();
+            if (bucket != null) {
+                result.or(bucket);
+            }
+            return result;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Price endpoints
+    // -------------------------------------------------------------------------
+
+    /**
+     * One endpoint of every price-bounded rule, ordered so the rules admitting a price
+     * form a prefix: lower bounds ascending, upper bounds descending, open bounds first.
+     * The slot set of every {@code spacing}-th prefix is precomputed, so a lookup is a
+     * binary search, one bit set copy and at most {@code spacing} single-bit sets. The
+     * spacing grows with the square root of the rule count to keep the checkpoints
+     * within {@code O(n^1.5)} bits.
+     */
+    private static final class PriceEndpoints {
+
+        private static final int MIN_SPACING = 64;
+
+        private final int[] order;
+        private final BigDecimal[] bounds;
+        private final boolean upper;
+        private final int spacing;
+        private final BitSet[] checkpoints;
+
+        PriceEndpoints(IndexedRule[] slots, List<Integer> bounded, boolean upper) {
+            Function<IndexedRule, BigDecimal> bound = upper ? IndexedRule::priceMax : IndexedRule::priceMin;
+            Comparator<BigDecimal> byBound = Comparator.nullsFirst(
+                    upper ? Comparator.<BigDecimal>reverseOrder() : Comparator.<BigDecimal>naturalOrder());
+            this.upper = upper;
+            this.order = bounded.stream()
+                    .sorted(Comparator.comparing((Integer s) -> bound.apply(slots[s]), byBound))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            this.bounds = Arrays.stream(order).mapToObj(s -> bound.apply(slots[s])).toArray(BigDecimal[]::new);
+            this.spacing = Math.max(MIN_SPACING, (int) Math.ceil(Math.sqrt(order.length)));
+            this.checkpoints = new BitSet[order.length / spacing + 1];
+            BitSet prefix = new BitSet(slots.length);
+            for (int i = 0; i <= order.length; i++) {
+                if (i % spacing == 0) {
+                    checkpoints[i / spacing] = (BitSet) prefix.clone();
+                }
+                if (i < order.length) {
+                    prefix.set(order[i]);
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return order.length == 0;
+        }
+
+        /** Returns the slots of the bounded rules whose endpoint admits {@code price}. */
+        BitSet admitting(BigDecimal price) {
+            int lo = 0;
+            int hi = order.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (admits(bounds[mid], price)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            int checkpoint = lo / spacing;
+            BitSet result = (BitSet) checkpoints[checkpoint].clone();
+            for (int i = checkpoint * spacing; i < lo; i++) {
+                result.set(order[i]);
+            }
+            return result;
+        }
+
+        private boolean admits(BigDecimal bound, BigDecimal price) {
+            if (bound == null) {
+                return true;
+            }
+            int cmp = price.compareTo(bound);
+            return upper ? cmp <= 0 : cmp >= 0;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Keyword automaton
+    // -------------------------------------------------------------------------
+
+    /**
+     * Maps keyword hits to rule slots with plain substring semantics (no word
+     * boundaries), matching the previous {@code description.contains(keyword)}.
+     */
+    private static final class KeywordAutomaton {
+
+        private final AhoCorasick automaton;
+        private final BitSet[] patternSlots;
+
+        KeywordAutomaton(Map<String, BitSet> keywordSlots) {
+            this.automaton = new AhoCorasick(List.copyOf(keywordSlots.keySet()));
+            this.patternSlots = keywordSlots.values().toArray(new BitSet[0]);
+        }
+
+        /** ORs the rule slots of every keyword occurring in {@code text} into {@code into}. */
+        void collect(String text, BitSet into) {
+            if (patternSlots.length == 0) {
+                return;
+            }
+            boolean[] seen = new boolean[patternSlots.length];
+            automaton.scan(text, (start, end, pattern) -> {
+                if (!seen[pattern]) {
+                    seen[pattern] = true;
+                    into.or(patternSlots[pattern]);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.tradeintel.processing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * One stage of the message processing pipeline: a fixed number of worker threads fed
+ * by a bounded queue.
+ *
+ * <p>When the queue is full, {@link #submit} blocks the caller until a slot frees up,
+ * so a slow stage pushes back on the stage before it instead of buffering without
+ * limit. Each task records how long it waited in the queue and how long it ran, which
+ * {@link #getStats()} reports alongside the current queue depth.</p>
+ */
+final class PipelineStage {
+
+    private final String name;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    PipelineStage(String name, int concurrency, int queueCapacity) {
+        this.name = name;
+        this.concurrency = Math.max(1, concurrency);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.concurrency, this.concurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(this.queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "stage-" + name + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("Pipeline stage '" + name + "' is shut down");
+                    }
+                    try {
+                        pool.getQueue().put(runnable);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted waiting for pipeline stage '" + name + "'", e);
+                    }
+                });
+    }
+
+    /**
+     * Runs the task on this stage, blocking while the stage queue is full.
+     *
+     * @param task the work to run
+     * @param <T>  result type
+     * @return a future completed with the task's result or exception
+     */
+    <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            long startedAt = System.nanoTime();
+            totalWaitNanos.add(startedAt - enqueuedAt);
+            try {
+                future.complete(task.get());
+                completed.increment();
+            } catch (Throwable t) {
+                failed.increment();
+                future.completeExceptionally(t);
+            } finally {
+                long runNanos = System.nanoTime() - startedAt;
+                totalRunNanos.add(runNanos);
+                maxRunNanos.accumulateAndGet(runNanos, Math::max);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Returns queue depth, utilisation and latency figures for the admin processing stats.
+     *
+     * @return map of stage metrics
+     */
+    Map<String, Object> getStats() {
+        long done = completed.sum() + failed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("concurrency", concurrency);
+        stats.put("active", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("avgWaitMs", done == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / done);
+        stats.put("avgRunMs", done == 0 ? 0.0 : totalRunNanos.sum() / 1_000_000.0 / done);
+        stats.put("maxRunMs", maxRunNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /** Stops accepting tasks and waits briefly for in-flight ones to finish. */
+    void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
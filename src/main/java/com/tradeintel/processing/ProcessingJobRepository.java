@@ -0,0 +1,205 @@
+package com.tradeintel.processing;
+
+import com.tradeintel.common.entity.ProcessingJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Spring Data JPA repository for the durable processing queue.
+ *
+ * <p>Leasing uses {@code SELECT ... FOR UPDATE SKIP LOCKED} so that concurrent pollers
+ * (threads or application instances) never lease the same job. Every other state
+ * transition is a bulk {@code UPDATE} guarded by the lease owner, so a worker whose
+ * lease was reclaimed cannot complete or fail a job another worker now holds.</p>
+ */
+@Repository
+public interface ProcessingJobRepository extends JpaRepository<ProcessingJob, UUID> {
+
+    /**
+     * Queues a message unless it is already queued. Joins the caller's transaction so
+     * the job commits atomically with the archived message.
+     *
+     * @return 1 if queued, 0 if the message already had a job
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO processing_jobs (message_id, lane, status, attempts, available_at, enqueued_at) " +
+                   "SELECT :messageId, :lane, 'queued', 0, :now, :now " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM processing_jobs WHERE message_id = :messageId)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("messageId") UUID messageId,
+                       @Param("lane") String lane,
+                       @Param("now") OffsetDateTime now);
+
+    /**
+     * Queues every unprocessed message that has no job yet, e.g. messages archived
+     * before the queue existed or whose job row was lost.
+     *
+     * @return number of messages queued
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO processing_jobs (message_id, lane, status, attempts, available_at, enqueued_at) " +
+                   "SELECT m.id, :lane, 'queued', 0, :now, :now FROM raw_messages m " +
+                   "WHERE m.processed = false " +
+                   "AND NOT EXISTS (SELECT 1 FROM processing_jobs j WHERE j.message_id = m.id)",
+           nativeQuery = true)
+    int insertUnqueued(@Param("lane") String lane, @Param("now") OffsetDateTime now);
+
+    /**
+     * Records a {@code catchup} job already leased to {@code owner}, for a message a
+     * catch-up worker has just claimed, so the queue and other workers skip the message
+     * while it is processed outside the claiming transaction. A left-over
+     * {@code failed} job for the message is replaced.
+     *
+     * @return 1 if the lease was recorded, 0 if the message has a live job
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO processing_jobs (message_id, lane, status, attempts, available_at, enqueued_at, " +
+                   "lease_owner, lease_expires_at) " +
+                   "SELECT :messageId, 'catchup', 'leased', 1, :now, :now, :owner, :expiresAt " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM processing_jobs WHERE message_id = :messageId)",
+           nativeQuery = true)
+    int insertLeased(@Param("messageId") UUID messageId,
+                     @Param("owner") String owner,
+                     @Param("now") OffsetDateTime now,
+                     @Param("expiresAt") OffsetDateTime expiresAt);
+
+    /**
+     * Leases a message's due {@code catchup} job to a catch-up worker, so a backlog the
+     * periodic sweep queued is still worked off by all catch-up workers rather than the
+     * queue's catch-up slots alone. Guarded by status, so it fails if a poller leased
+     * the job first.
+     *
+     * @return 1 if leased, 0 if the message has no due queued {@code catchup} job
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessingJob j SET j.status = 'leased', j.leaseOwner = :owner, " +
+           "j.leaseExpiresAt = :expiresAt, j.attempts = j.attempts + 1 " +
+           "WHERE j.messageId = :id AND j.lane = 'catchup' AND j.status = 'queued' AND j.availableAt <= :now")
+    int leaseQueuedCatchup(@Param("id") UUID id,
+                           @Param("owner") String owner,
+                           @Param("now") OffsetDateTime now,
+                           @Param("expiresAt") OffsetDateTime expiresAt);
+
+    /** Removes a job that has given up, so the message can be queued or claimed afresh. */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProcessingJob j WHERE j.messageId = :id AND j.status = 'failed'")
+    int deleteFailed(@Param("id") UUID id);
+
+    /**
+     * Removes every job that has given up, e.g. when all messages are reset for
+     * reprocessing; {@link #insertUnqueued} skips messages that still have one.
+     *
+     * @return number of jobs removed
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProcessingJob j WHERE j.status = 'failed'")
+    int deleteAllFailed();
+
+    /**
+     * Locks up to {@code limit} due jobs in one lane, oldest first, skipping rows
+     * another poller has locked. Must run inside the transaction that marks them leased.
+     *
+     * @return the locked jobs
+     */
+    @Query(value = "SELECT j.* FROM processing_jobs j " +
+                   "WHERE j.status = 'queued' AND j.lane = :lane AND j.available_at <= :now " +
+                   "ORDER BY j.available_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<ProcessingJob> lockDue(@Param("lane") String lane,
+                                @Param("now") OffsetDateTime now,
+                                @Param("limit") int limit);
+
+    /** Moves locked jobs to {@code leased} under the given owner and counts the attempt. */
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.status = 'leased', j.leaseOwner = :owner, " +
+           "j.leaseExpiresAt = :expiresAt, j.attempts = j.attempts + 1 WHERE j.messageId IN :ids")
+    int markLeased(@Param("ids") Collection<UUID> ids,
+                   @Param("owner") String owner,
+                   @Param("expiresAt") OffsetDateTime expiresAt);
+
+    /**
+     * Heartbeat: pushes back the lease deadline of jobs the owner is still working on.
+     *
+     * @return number of leases extended
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessingJob j SET j.leaseExpiresAt = :expiresAt " +
+           "WHERE j.messageId IN :ids AND j.leaseOwner = :owner AND j.status = 'leased'")
+    int extendLeases(@Param("ids") Collection<UUID> ids,
+                     @Param("owner") String owner,
+                     @Param("expiresAt") OffsetDateTime expiresAt);
+
+    /** Removes a job whose message has been processed. */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProcessingJob j WHERE j.messageId = :id AND j.leaseOwner = :owner")
+    int complete(@Param("id") UUID id, @Param("owner") String owner);
+
+    /**
+     * Records a failed attempt. Jobs that reach {@code maxAttempts} become {@code failed};
+     * the rest return to {@code queued} and become due again at {@code availableAt}.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessingJob j SET j.lastError = :error, j.availableAt = :availableAt, " +
+           "j.leaseOwner = NULL, j.leaseExpiresAt = NULL, " +
+           "j.status = CASE WHEN j.attempts >= :maxAttempts THEN 'failed' ELSE 'queued' END " +
+           "WHERE j.messageId = :id AND j.leaseOwner = :owner")
+    int fail(@Param("id") UUID id,
+             @Param("owner") String owner,
+             @Param("error") String error,
+             @Param("availableAt") OffsetDateTime availableAt,
+             @Param("maxAttempts") int maxAttempts);
+
+    /** Hands a leased job back untouched, e.g. when the worker pool rejected it. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessingJob j SET j.status = 'queued', j.attempts = j.attempts - 1, " +
+           "j.leaseOwner = NULL, j.leaseExpiresAt = NULL WHERE j.messageId = :id AND j.leaseOwner = :owner")
+    int release(@Param("id") UUID id, @Param("owner") String owner);
+
+    /**
+     * Returns jobs whose lease expired (owner crashed or stalled past its heartbeat) to
+     * {@code queued}, or to {@code failed} once they have used up their attempts.
+     *
+     * @return number of leases reclaimed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProcessingJob j SET j.leaseOwner = NULL, j.leaseExpiresAt = NULL, " +
+           "j.lastError = 'Lease expired', " +
+           "j.status = CASE WHEN j.attempts >= :maxAttempts THEN 'failed' ELSE 'queued' END " +
+           "WHERE j.status = 'leased' AND j.leaseExpiresAt < :now")
+    int reclaimExpired(@Param("now") OffsetDateTime now, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Counts jobs in one lane and state.
+     *
+     * @return number of jobs
+     */
+    long countByLaneAndStatus(String lane, String status);
+
+    /**
+     * Returns the enqueue time of the oldest waiting job in a lane.
+     *
+     * @return the oldest enqueue time, or {@code null} if the lane is empty
+     */
+    @Query("SELECT MIN(j.enqueuedAt) FROM ProcessingJob j WHERE j.lane = :lane AND j.status = 'queued'")
+    OffsetDateTime findOldestQueuedAt(@Param("lane") String lane);
+}
@@ -0,0 +1,372 @@
+package com.tradeintel.processing;
+
+import com.tradeintel.common.entity.ProcessingJob;
+import com.tradeintel.common.event.NewMessageEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Feeds the message processing pipeline from the durable {@code processing_jobs} queue.
+ *
+ * <p>Every archived message gets a job in the {@code live} lane in the same transaction
+ * that archives it, so a webhook burst is absorbed by the table rather than the
+ * {@code processingExecutor} queue, and a restart loses nothing. A periodic sweep
+ * (every {@code app.processing.auto-catchup-interval-ms}) queues any other unprocessed
+ * message in the lower-priority {@code catchup} lane.</p>
+ *
+ * <p>A scheduled poll leases due jobs in batches of {@code app.processing.queue.batch-size},
+ * but never more than {@code app.processing.queue.max-in-flight} jobs at once across the
+ * pipeline stages: the {@code live} lane is served first, and {@code catchup} jobs only
+ * get what is left, capped at {@code app.processing.queue.catchup-max-in-flight}. Leases last
+ * {@code app.processing.queue.lease-seconds} and are extended by a heartbeat while the
+ * pipeline runs. Jobs whose owner died are reclaimed once their lease expires.</p>
+ *
+ * <p>Failed jobs are retried with an exponential backoff of
+ * {@code retry-base-seconds * 2^(attempts-1)} until {@code app.processing.queue.max-attempts}
+ * is reached and they are left in {@code failed}.</p>
+ */
+@Service
+public class ProcessingQueueService {
+
+    private static final Logger log = LogManager.getLogger(ProcessingQueueService.class);
+
+    public static final String LANE_LIVE = "live";
+    public static final String LANE_CATCHUP = "catchup";
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    @Lazy
+    @Autowired
+    private ProcessingQueueService self;
+
+    private final ProcessingJobRepository jobRepository;
+    private final MessageProcessingService messageProcessingService;
+    private final Executor processingExecutor;
+    private final int capacity;
+    private final int batchSize;
+    private final int catchupMaxInFlight;
+    private final Duration leaseDuration;
+    private final int maxAttempts;
+    private final Duration retryBase;
+
+    /** Identifies this process as lease owner. */
+    private final String owner;
+
+    /** Jobs leased by this process and not yet finished, mapped to their lane. */
+    private final Map<UUID, String> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder reclaimed = new LongAdder();
+    private final LongAdder saturatedPolls = new LongAdder();
+
+    public ProcessingQueueService(ProcessingJobRepository jobRepository,
+                                  MessageProcessingService messageProcessingService,
+                                  @Qualifier("processingExecutor") Executor processingExecutor,
+                                  @Value("${app.processing.queue.max-in-flight:16}") int capacity,
+                                  @Value("${app.processing.queue.batch-size:20}") int batchSize,
+                                  @Value("${app.processing.queue.catchup-max-in-flight:1}") int catchupMaxInFlight,
+                                  @Value("${app.processing.queue.lease-seconds:120}") long leaseSeconds,
+                                  @Value("${app.processing.queue.max-attempts:3}") int maxAttempts,
+                                  @Value("${app.processing.queue.retry-base-seconds:30}") long retryBaseSeconds) {
+        this.jobRepository = jobRepository;
+        this.messageProcessingService = messageProcessingService;
+        this.processingExecutor = processingExecutor;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.catchupMaxInFlight = Math.max(0, catchupMaxInFlight);
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBase = Duration.ofSeconds(retryBaseSeconds);
+        String name = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+        this.owner = name.length() > 100 ? name.substring(name.length() - 100) : name;
+    }
+
+    // -------------------------------------------------------------------------
+    // Enqueueing
+    // -------------------------------------------------------------------------
+
+    /**
+     * Queues a freshly archived message in the {@code live} lane. Runs before the
+     * archiving transaction commits, so the message and its job are stored atomically.
+     *
+     * @param event the new message event containing the message UUID
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onNewMessage(NewMessageEvent event) {
+        enqueue(event.getMessageId(), LANE_LIVE);
+    }
+
+    /**
+     * Queues a message for processing. A message that already has a job keeps it.
+     *
+     * @param messageId the raw message ID
+     * @param lane      {@link #LANE_LIVE} or {@link #LANE_CATCHUP}
+     * @return {@code true} if a new job was created
+     */
+    public boolean enqueue(UUID messageId, String lane) {
+        return jobRepository.insertIfAbsent(messageId, lane, OffsetDateTime.now()) > 0;
+    }
+
+    /**
+     * Queues every unprocessed message without a job in the {@code catchup} lane.
+     * Skipped while a bulk catchup run is working through the backlog itself; a run
+     * started later leases these jobs to its workers rather than leaving them queued.
+     */
+    @Scheduled(fixedRateString = "${app.processing.auto-catchup-interval-ms:300000}")
+    public void sweepUnqueued() {
+        if (messageProcessingService.isCatchupRunning()) {
+            return;
+        }
+        try {
+            int queued = jobRepository.insertUnqueued(LANE_CATCHUP, OffsetDateTime.now());
+            if (queued > 0) {
+                log.info("Queued {} unprocessed messages in the catchup lane", queued);
+            }
+        } catch (Exception e) {
+            log.warn("Processing queue sweep failed (non-fatal): {}", e.getMessage());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Leasing and execution
+    // -------------------------------------------------------------------------
+
+    /**
+     * Leases as many due jobs as there is room for in the pipeline and hands them to
+     * the {@code processingExecutor}, which starts each one on the pipeline stages.
+     */
+    @Scheduled(fixedDelayString = "${app.processing.queue.poll-interval-ms:500}")
+    public void poll() {
+        List<ProcessingJob> leased;
+        try {
+            leased = leaseAvailable();
+        } catch (Exception e) {
+            log.warn("Processing queue poll failed (non-fatal): {}", e.getMessage());
+            return;
+        }
+        for (ProcessingJob job : leased) {
+            UUID messageId = job.getMessageId();
+            try {
+                processingExecutor.execute(() -> runJob(messageId));
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(messageId);
+                jobRepository.release(messageId, owner);
+                log.warn("Processing executor saturated; message {} returned to the queue", messageId);
+            }
+        }
+    }
+
+    /**
+     * Leases and processes due jobs on the calling thread until the queue has nothing
+     * due. Used by tests and admin tooling that need processing to have happened before
+     * they continue.
+     *
+     * @return number of jobs processed successfully
+     */
+    public int drainNow() {
+        int before = (int) completed.sum();
+        List<ProcessingJob> leased;
+        while (!(leased = leaseAvailable()).isEmpty()) {
+            CompletableFuture.allOf(leased.stream()
+                    .map(job -> runJob(job.getMessageId()))
+                    .toArray(CompletableFuture[]::new)).join();
+        }
+        return (int) completed.sum() - before;
+    }
+
+    /**
+     * Locks up to {@code limit} due jobs of one lane and marks them leased by this
+     * process. Called through the proxy so the lock and the update share a transaction.
+     *
+     * @return the leased jobs
+     */
+    @Transactional
+    public List<ProcessingJob> lease(String lane, int limit) {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<ProcessingJob> jobs = jobRepository.lockDue(lane, now, limit);
+        if (!jobs.isEmpty()) {
+            jobRepository.markLeased(jobs.stream().map(ProcessingJob::getMessageId).toList(),
+                    owner, now.plus(leaseDuration));
+        }
+        return jobs;
+    }
+
+    /** Extends the leases of every job this process is still working on. */
+    @Scheduled(fixedDelayString = "${app.processing.queue.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        try {
+            jobRepository.extendLeases(List.copyOf(inFlight.keySet()), owner,
+                    OffsetDateTime.now().plus(leaseDuration));
+        } catch (Exception e) {
+            log.warn("Processing queue heartbeat failed (non-fatal): {}", e.getMessage());
+        }
+    }
+
+    /** Returns jobs whose lease expired without a heartbeat to the queue. */
+    @Scheduled(fixedDelayString = "${app.processing.queue.reap-interval-ms:30000}")
+    public void reclaimExpiredLeases() {
+        try {
+            int count = jobRepository.reclaimExpired(OffsetDateTime.now(), maxAttempts);
+            if (count > 0) {
+                reclaimed.add(count);
+                log.warn("Reclaimed {} processing jobs with expired leases", count);
+            }
+        } catch (Exception e) {
+            log.warn("Processing queue lease reclaim failed (non-fatal): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reclaims leases left behind by a previous run on startup, before the first poll
+     * would otherwise wait for the next reap interval.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reclaimOnStartup() {
+        reclaimExpiredLeases();
+    }
+
+    /**
+     * Returns queue depth, lag and throughput figures for the admin processing stats.
+     *
+     * @return map with one entry per lane plus this instance's in-flight and lifetime counters
+     */
+    public Map<String, Object> getQueueStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        OffsetDateTime now = OffsetDateTime.now();
+        for (String lane : List.of(LANE_LIVE, LANE_CATCHUP)) {
+            Map<String, Object> laneStats = new LinkedHashMap<>();
+            laneStats.put("queued", jobRepository.countByLaneAndStatus(lane, "queued"));
+            laneStats.put("leased", jobRepository.countByLaneAndStatus(lane, "leased"));
+            laneStats.put("failed", jobRepository.countByLaneAndStatus(lane, "failed"));
+            OffsetDateTime oldest = jobRepository.findOldestQueuedAt(lane);
+            laneStats.put("oldestQueuedSeconds", oldest == null ? 0L : Duration.between(oldest, now).toSeconds());
+            stats.put(lane, laneStats);
+        }
+        stats.put("inFlight", inFlight.size());
+        stats.put("capacity", capacity);
+        stats.put("completed", completed.sum());
+        stats.put("retried", retried.sum());
+        stats.put("failed", failed.sum());
+        stats.put("leasesReclaimed", reclaimed.sum());
+        stats.put("saturatedPolls", saturatedPolls.sum());
+        return stats;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * Leases live jobs first, then catchup jobs with whatever capacity remains, and
+     * records them as in flight.
+     */
+    private List<ProcessingJob> leaseAvailable() {
+        int free = capacity - inFlight.size();
+        if (free <= 0) {
+            saturatedPolls.increment();
+            return List.of();
+        }
+        List<ProcessingJob> leased = new ArrayList<>(
+                self.lease(LANE_LIVE, Math.min(free, batchSize)));
+        free -= leased.size();
+
+        long catchupInFlight = inFlight.values().stream().filter(LANE_CATCHUP::equals).count();
+        int catchupSlots = (int) Math.min(free, catchupMaxInFlight - catchupInFlight);
+        if (catchupSlots > 0) {
+            leased.addAll(self.lease(LANE_CATCHUP, Math.min(catchupSlots, batchSize)));
+        }
+        for (ProcessingJob job : leased) {
+            inFlight.put(job.getMessageId(), job.getLane());
+        }
+        return leased;
+    }
+
+    /**
+     * Starts the pipeline for one leased job; the outcome is recorded on the queue when
+     * the pipeline finishes.
+     *
+     * @return a future that completes (never exceptionally) once the outcome is recorded
+     */
+    private CompletableFuture<Void> runJob(UUID messageId) {
+        CompletableFuture<Void> pipeline;
+        try {
+            pipeline = messageProcessingService.processMessageAsync(messageId);
+        } catch (Exception e) {
+            pipeline = CompletableFuture.failedFuture(e);
+        }
+        return pipeline.handle((ignored, error) -> {
+            try {
+                if (error == null) {
+                    jobRepository.complete(messageId, owner);
+                    completed.increment();
+                } else {
+                    recordFailure(messageId, error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+            } catch (Exception e) {
+                log.error("Failed to record processing job outcome for message {}", messageId, e);
+            } finally {
+                inFlight.remove(messageId);
+            }
+            return null;
+        });
+    }
+
+    private void recordFailure(UUID messageId, Throwable e) {
+        try {
+            int attempts = jobRepository.findById(messageId).map(ProcessingJob::getAttempts).orElse(maxAttempts);
+            String error = e.getMessage();
+            if (error != null && error.length() > 2000) {
+                error = error.substring(0, 2000);
+            }
+            jobRepository.fail(messageId, owner, error, OffsetDateTime.now().plus(backoff(attempts)), maxAttempts);
+            if (attempts >= maxAttempts) {
+                failed.increment();
+                log.error("Processing job for message {} failed permanently after {} attempts: {}",
+                        messageId, attempts, e.getMessage());
+            } else {
+                retried.increment();
+                log.warn("Processing job for message {} failed (attempt {}/{}); will retry: {}",
+                        messageId, attempts, maxAttempts, e.getMessage());
+            }
+        } catch (Exception recordErr) {
+            log.error("Failed to record processing job failure for message {}", messageId, recordErr);
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = retryBase.multipliedBy(1L << Math.min(Math.max(attempts - 1, 0), 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
@@ -0,0 +1,62 @@
+package com.tradeintel.processing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket limiter for outbound OpenAI requests.
+ *
+ * <p>Holds at most {@code perMinute} permits and refills continuously at
+ * {@code perMinute / 60} permits per second, so a full bucket allows a short burst
+ * and sustained use settles at the configured rate. {@link #acquire(int)} blocks the
+ * caller until enough permits are available; it is cheap to call from many virtual
+ * threads.</p>
+ */
+final class RequestBudget {
+
+    private final double capacity;
+    private final double permitsPerNano;
+
+    private double available;
+    private long lastRefill;
+
+    /**
+     * @param perMinute sustained request rate; values {@code <= 0} disable limiting
+     */
+    RequestBudget(int perMinute) {
+        this.capacity = perMinute;
+        this.permitsPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.available = perMinute;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Blocks until {@code permits} requests fit in the budget, then consumes them.
+     *
+     * @param permits number of requests about to be made
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void acquire(int permits) throws InterruptedException {
+        if (capacity <= 0) {
+            return;
+        }
+        double wanted = Math.min(permits, capacity);
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (available >= wanted) {
+                    available -= wanted;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((wanted - available) / permitsPerNano);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        available = Math.min(capacity, available + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,50 @@
+package com.tradeintel.processing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link ExchangeRateSource} that returns the fixed rates configured under
+ * {@code app.exchange-rates.static-rates} (currency code to USD value of one unit) for
+ * every weekday in the requested range. Selected with
+ * {@code app.exchange-rates.source=static} for local development and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "app.exchange-rates.source", havingValue = "static")
+public class StaticExchangeRateSource implements ExchangeRateSource {
+
+    private final Map<String, BigDecimal> rates = new HashMap<>();
+
+    public StaticExchangeRateSource(Environment environment) {
+        Binder.get(environment)
+                .bind("app.exchange-rates.static-rates", Bindable.mapOf(String.class, BigDecimal.class))
+                .orElse(Map.of())
+                .forEach((currency, rate) -> rates.put(currency.toUpperCase(), rate));
+    }
+
+    @Override
+    public String name() {
+        return "static";
+    }
+
+    @Override
+    public Map<LocalDate, Map<String, BigDecimal>> fetchRatesToUsd(LocalDate from, LocalDate to) {
+        Map<LocalDate, Map<String, BigDecimal>> result = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                result.put(day, rates);
+            }
+        }
+        return result;
+    }
+}
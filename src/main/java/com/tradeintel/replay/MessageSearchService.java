@@ -2,31 +2,62 @@ package com.tradeintel.replay;
 
 import com.tradeintel.archive.EmbeddingService;
 import com.tradeintel.archive.RawMessageRepository;
+import com.tradeintel.archive.VectorSearchSupport;
 import com.tradeintel.archive.WhatsappGroupRepository;
 import com.tradeintel.common.entity.RawMessage;
 import com.tradeintel.common.entity.WhatsappGroup;
+import com.tradeintel.common.paging.CursorPage;
+import com.tradeintel.common.paging.KeysetCursor;
+import com.tradeintel.replay.dto.MessageSearchRequest;
 import com.tradeintel.replay.dto.ReplayMessageDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.OffsetDateTime;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
  * Dedicated search service for archived WhatsApp messages.
  * Supports text search (keyword ILIKE on message body, sender, date range filters)
- * and semantic search (vector similarity via {@link EmbeddingService}).
+ * and hybrid semantic search (trigram + vector similarity via {@link EmbeddingService}).
  *
- * <p>Text search uses database-level filtering with ILIKE patterns on the message body.
- * Semantic search generates an embedding for the query text and would use pgvector
- * cosine similarity ordering against a real PostgreSQL data source.</p>
+ * <p>Text search uses database-level filtering with ILIKE patterns on the message body,
+ * newest first.</p>
+ *
+ * <p>When a semantic query is given on PostgreSQL, two ranked candidate lists are
+ * retrieved under the same group/sender/date filters:
+ * <ul>
+ *   <li>lexical — pg_trgm {@code word_similarity} of the query against
+ *       {@code message_body}, served by {@code idx_raw_msg_body_trgm}</li>
+ *   <li>vector — pgvector cosine distance against {@code embedding}, served by
+ *       {@code idx_raw_msg_embedding}</li>
+ * </ul>
+ * and merged by reciprocal-rank fusion ({@code score = sum 1 / (k + rank)}). Each leg
+ * is bounded by {@code app.search.hybrid.candidates}, so the total reported for a
+ * hybrid search counts fused candidates rather than every matching row, and pages
+ * past the fused candidates are empty. The vector leg runs behind a savepoint, so if
+ * it fails the search continues on the lexical ranking alone. Without
+ * pgvector (H2 in tests) the semantic query degrades to the text search.</p>
  */
 @Service
 @Transactional(readOnly = true)
@@ -34,82 +65,274 @@ public class MessageSearchService {
 
     private static final Logger log = LogManager.getLogger(MessageSearchService.class);
 
+    /** Reciprocal-rank fusion damping constant; 60 is the value from the original RRF paper. */
+    static final int RRF_K = 60;
+
     private final RawMessageRepository rawMessageRepository;
     private final WhatsappGroupRepository groupRepository;
     private final EmbeddingService embeddingService;
+    private final VectorSearchSupport vectorSearchSupport;
+    private final EntityManager entityManager;
+    private final int candidateLimit;
+    private final int countCap;
 
     public MessageSearchService(RawMessageRepository rawMessageRepository,
                                 WhatsappGroupRepository groupRepository,
-                                EmbeddingService embeddingService) {
+                                EmbeddingService embeddingService,
+                                VectorSearchSupport vectorSearchSupport,
+                                EntityManager entityManager,
+                                @Value("${app.search.hybrid.candidates:200}") int candidateLimit,
+                                @Value("${app.pagination.count-cap:1000}") int countCap) {
         this.rawMessageRepository = rawMessageRepository;
         this.groupRepository = groupRepository;
         this.embeddingService = embeddingService;
+        this.vectorSearchSupport = vectorSearchSupport;
+        this.entityManager = entityManager;
+        this.candidateLimit = candidateLimit;
+        this.countCap = Math.max(1, countCap);
     }
 
     /**
-     * Searches messages within a group using text query and filters (sender, date range).
+     * Searches messages, optionally restricted to one group, by text query, sender and
+     * date range. When {@code semanticQuery} is set, results are ranked by hybrid
+     * lexical + vector relevance; otherwise they are ordered newest first.
      *
-     * @param groupId    the group to search within
-     * @param textQuery  optional text search on message body (ILIKE)
-     * @param senderName optional sender name filter (ILIKE)
-     * @param dateFrom   optional start date filter
-     * @param dateTo     optional end date filter
-     * @param page       zero-based page index
-     * @param size       page size
+     * <p>The lexical leg of a hybrid search uses {@code textQuery} when present, and the
+     * semantic query text otherwise.</p>
+     *
+     * @param request filters and queries; all fields optional
+     * @param page    zero-based page index
+     * @param size    page size
      * @return page of matching messages as DTOs
      */
-    public Page<ReplayMessageDTO> searchByFilters(UUID groupId, String textQuery,
-                                                   String senderName,
-                                                   OffsetDateTime dateFrom,
-                                                   OffsetDateTime dateTo,
-                                                   int page, int size) {
-        WhatsappGroup group = groupRepository.findById(groupId).orElse(null);
-        if (group == null) {
-            return Page.empty();
+    public Page<ReplayMessageDTO> search(MessageSearchRequest request, int page, int size) {
+        String textQuery = trimToNull(request.getTextQuery());
+        String semanticQuery = trimToNull(request.getSemanticQuery());
+
+        Page<RawMessage> messages = null;
+        if (semanticQuery != null && vectorSearchSupport.isAvailable()) {
+            messages = searchHybrid(request, textQuery != null ? textQuery : semanticQuery,
+                    semanticQuery, page, size);
+        }
+        if (messages == null) {
+            String effectiveText = textQuery != null ? textQuery : semanticQuery;
+            Pageable pageable = PageRequest.of(page, size);
+            messages = request.getGroupId() != null
+                    ? rawMessageRepository.findByGroupIdWithTextAndFilters(request.getGroupId(),
+                            effectiveText, trimToNull(request.getSenderName()),
+                            request.getDateFrom(), request.getDateTo(), pageable)
+                    : rawMessageRepository.findWithTextAndFilters(
+                            effectiveText, trimToNull(request.getSenderName()),
+                            request.getDateFrom(), request.getDateTo(), pageable);
         }
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<RawMessage> messages = rawMessageRepository.findByGroupIdWithTextAndFilters(
-                groupId, textQuery, senderName, dateFrom, dateTo, pageable);
+        log.debug("Message search: groupId={}, textQuery='{}', semanticQuery='{}', results={}",
+                request.getGroupId(), textQuery, semanticQuery, messages.getTotalElements());
 
-        String groupName = group.getGroupName();
-        log.debug("Message search: groupId={}, textQuery='{}', results={}",
-                groupId, textQuery, messages.getTotalElements());
-        return messages.map(msg -> ReplayMessageDTO.fromEntity(msg, groupName));
+        Map<UUID, String> groupNames = groupNamesOf(messages.getContent());
+        return messages.map(msg ->
+                ReplayMessageDTO.fromEntity(msg, msg.getGroup() != null
+                        ? groupNames.getOrDefault(msg.getGroup().getId(), "Unknown")
+                        : "Unknown"));
     }
 
+    // -------------------------------------------------------------------------
+    // Keyset feed
+    // -------------------------------------------------------------------------
+
     /**
-     * Searches messages across all groups with optional text search.
+     * Returns one page of the replay feed, newest first, positioned by a keyset cursor
+     * on {@code (timestampWa, id)}. Each page is an index range scan of {@code size + 1}
+     * rows, whatever the depth. With {@code approximateTotal}, at most
+     * {@code app.pagination.count-cap} messages are counted.
      *
-     * @param textQuery     text search keyword (ILIKE on message body)
-     * @param semanticQuery natural language query for semantic similarity (future pgvector)
-     * @param page          zero-based page index
-     * @param size          page size
-     * @return page of matching messages as DTOs
+     * @param groupId          restricts the feed to one group; null for all groups
+     * @param cursor           continuation token from the previous page; null or blank for the first page
+     * @param size             page size, clamped to 1..200
+     * @param approximateTotal whether to include a capped total
+     * @return the page with the continuation token for the next one
+     * @throws IllegalArgumentException if the cursor is malformed
      */
-    public Page<ReplayMessageDTO> search(String textQuery, String semanticQuery,
-                                          int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+    public CursorPage<ReplayMessageDTO> browse(UUID groupId, String cursor, int size, boolean approximateTotal) {
+        int limit = Math.min(Math.max(1, size), 200);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable fetch = PageRequest.of(0, limit + 1);
+
+        List<RawMessage> rows;
+        if (groupId != null) {
+            rows = after != null
+                    ? rawMessageRepository.findGroupFeedAfter(groupId, after.timestamp(), after.id(), fetch)
+                    : rawMessageRepository.findGroupFeed(groupId, fetch);
+        } else {
+            rows = after != null
+                    ? rawMessageRepository.findFeedAfter(after.timestamp(), after.id(), fetch)
+                    : rawMessageRepository.findFeed(fetch);
+        }
 
-        // Build group name lookup
-        Map<UUID, String> groupNames = groupRepository.findAll().stream()
+        Map<UUID, String> groupNames = groupNamesOf(rows);
+        CursorPage<ReplayMessageDTO> page = CursorPage.of(rows, limit,
+                        msg -> new KeysetCursor(msg.getTimestampWa(), msg.getId()))
+                .map(msg -> ReplayMessageDTO.fromEntity(msg, msg.getGroup() != null
+                        ? groupNames.getOrDefault(msg.getGroup().getId(), "Unknown")
+                        : "Unknown"));
+        if (approximateTotal) {
+            long counted = groupId != null
+                    ? rawMessageRepository.countByGroupIdUpTo(groupId, countCap + 1)
+                    : rawMessageRepository.countUpTo(countCap + 1);
+            page = page.withTotal(counted, countCap);
+        }
+        return page;
+    }
+
+    /** Names of the groups on one page only; a page holds at most a few distinct groups. */
+    private Map<UUID, String> groupNamesOf(List<RawMessage> rows) {
+        Set<UUID> pageGroupIds = rows.stream()
+                .filter(msg -> msg.getGroup() != null)
+                .map(msg -> msg.getGroup().getId())
+                .collect(Collectors.toSet());
+        return groupRepository.findAllById(pageGroupIds).stream()
                 .collect(Collectors.toMap(WhatsappGroup::getId, WhatsappGroup::getGroupName));
+    }
 
-        Page<RawMessage> messages;
+    // -------------------------------------------------------------------------
+    // Hybrid search
+    // -------------------------------------------------------------------------
 
-        if (textQuery != null && !textQuery.isBlank()) {
-            messages = rawMessageRepository.findByTextQuery(textQuery.trim(), pageable);
-        } else {
-            messages = rawMessageRepository.findAll(pageable);
+    /**
+     * Runs both ranking legs, fuses them and loads the requested page in fused order.
+     * Returns {@code null} if neither leg could run, so the caller falls back to text search.
+     */
+    private Page<RawMessage> searchHybrid(MessageSearchRequest request, String lexicalQuery,
+                                          String semanticQuery, int page, int size) {
+        // Both legs stay bounded by the candidate window however deep the page; pages
+        // beyond the window are empty rather than widening the scans
+        int limit = candidateLimit;
+
+        List<UUID> lexical = rankLexical(request, lexicalQuery, limit);
+
+        List<UUID> semantic = List.of();
+        try {
+            float[] embedding = embedQuery(semanticQuery);
+            if (embedding != null) {
+                semantic = rankByVectorIsolated(request, embedding, limit);
+            }
+        } catch (Exception e) {
+            log.warn("Vector ranking failed; hybrid search uses lexical ranking only (non-fatal): {}",
+                    e.getMessage());
         }
 
-        log.debug("Message search: textQuery='{}', semanticQuery='{}', results={}",
-                textQuery, semanticQuery, messages.getTotalElements());
+        List<UUID> fused = fuse(List.of(lexical, semantic));
+        int from = Math.min(page * size, fused.size());
+        List<UUID> pageIds = fused.subList(from, Math.min(from + size, fused.size()));
 
-        return messages.map(msg ->
-                ReplayMessageDTO.fromEntity(msg, msg.getGroup() != null
-                        ? groupNames.getOrDefault(msg.getGroup().getId(), "Unknown")
-                        : "Unknown"));
+        Map<UUID, RawMessage> byId = rawMessageRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(RawMessage::getId, m -> m));
+        List<RawMessage> content = pageIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        log.debug("Hybrid message search: lexical={}, vector={}, fused={}",
+                lexical.size(), semantic.size(), fused.size());
+        return new PageImpl<>(content, PageRequest.of(page, size), fused.size());
+    }
+
+    private List<UUID> rankLexical(MessageSearchRequest request, String query, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT m.id FROM raw_messages m WHERE :q <% m.message_body");
+        Map<String, Object> params = new HashMap<>();
+        params.put("q", query);
+        appendFilters(sql, params, request);
+        sql.append(" ORDER BY word_similarity(:q, m.message_body) DESC, m.timestamp_wa DESC LIMIT :limit");
+        params.put("limit", limit);
+        return runIdQuery(sql.toString(), params);
+    }
+
+    /**
+     * Runs the vector leg behind a savepoint. A failed statement aborts the whole
+     * transaction on PostgreSQL, so without one the lexical fallback and the page load
+     * would fail too; rolling back to the savepoint keeps the search transaction usable.
+     */
+    private List<UUID> rankByVectorIsolated(MessageSearchRequest request, float[] embedding, int limit) {
+        Session session = entityManager.unwrap(Session.class);
+        Savepoint savepoint = session.doReturningWork(Connection::setSavepoint);
+        List<UUID> ranked;
+        try {
+            ranked = rankByVector(request, embedding, limit);
+        } catch (RuntimeException e) {
+            session.doWork(connection -> connection.rollback(savepoint));
+            throw e;
+        }
+        session.doWork(connection -> connection.releaseSavepoint(savepoint));
+        return ranked;
+    }
+
+    private List<UUID> rankByVector(MessageSearchRequest request, float[] embedding, int limit) {
+        vectorSearchSupport.applyProbes();
+        StringBuilder sql = new StringBuilder(
+                "SELECT m.id FROM raw_messages m WHERE m.embedding IS NOT NULL"
+                        + " AND (m.embedding <=> CAST(:vec AS vector)) <= :maxDistance");
+        Map<String, Object> params = new HashMap<>();
+        params.put("vec", VectorSearchSupport.toVectorLiteral(embedding));
+        params.put("maxDistance", vectorSearchSupport.maxCosineDistance());
+        appendFilters(sql, params, request);
+        sql.append(" ORDER BY m.embedding <=> CAST(:vec AS vector) LIMIT :limit");
+        params.put("limit", limit);
+        return runIdQuery(sql.toString(), params);
+    }
+
+    /** Appends only the filters that are set, so PostgreSQL never sees untyped null parameters. */
+    private static void appendFilters(StringBuilder sql, Map<String, Object> params,
+                                      MessageSearchRequest request) {
+        if (request.getGroupId() != null) {
+            sql.append(" AND m.group_id = :groupId");
+            params.put("groupId", request.getGroupId());
+        }
+        String sender = trimToNull(request.getSenderName());
+        if (sender != null) {
+            sql.append(" AND m.sender_name ILIKE :sender");
+            params.put("sender", "%" + sender + "%");
+        }
+        if (request.getDateFrom() != null) {
+            sql.append(" AND m.timestamp_wa >= :dateFrom");
+            params.put("dateFrom", request.getDateFrom());
+        }
+        if (request.getDateTo() != null) {
+            sql.append(" AND m.timestamp_wa <= :dateTo");
+            params.put("dateTo", request.getDateTo());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UUID> runIdQuery(String sql, Map<String, Object> params) {
+        Query query = entityManager.createNativeQuery(sql);
+        params.forEach(query::setParameter);
+        List<Object> rows = query.getResultList();
+        List<UUID> ids = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            ids.add(row instanceof UUID uuid ? uuid : UUID.fromString(row.toString()));
+        }
+        return ids;
+    }
+
+    /**
+     * Reciprocal-rank fusion: each id scores {@code sum 1 / (RRF_K + rank)} over the
+     * rankings it appears in (rank is 1-based). Ties keep first-seen order.
+     */
+    static List<UUID> fuse(List<List<UUID>> rankings) {
+        Map<UUID, Double> scores = new LinkedHashMap<>();
+        for (List<UUID> ranking : rankings) {
+            for (int i = 0; i < ranking.size(); i++) {
+                scores.merge(ranking.get(i), 1.0 / (RRF_K + i + 1), Double::sum);
+            }
+        }
+        List<UUID> fused = new ArrayList<>(scores.keySet());
+        fused.sort(Comparator.comparingDouble((UUID id) -> scores.get(id)).reversed());
+        return fused;
+    }
+
+    private static String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
     }
 
     /**
@@ -5,6 +5,7 @@ import com.tradeintel.archive.WhatsappGroupRepository;
 import com.tradeintel.common.entity.Listing;
 import com.tradeintel.common.entity.RawMessage;
 import com.tradeintel.common.entity.WhatsappGroup;
+import com.tradeintel.common.paging.CursorPage;
 import com.tradeintel.common.security.AdminOnly;
 import com.tradeintel.listing.ListingRepository;
 import com.tradeintel.processing.MessageProcessingService;
@@ -18,10 +19,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -80,6 +83,25 @@ public class ReplayController {
         return ResponseEntity.ok(dtos);
     }
 
+    /**
+     * Keyset-paginated variant of {@link #getGroupMessages}, selected by the presence of
+     * the {@code cursor} parameter (empty for the first page).
+     */
+    @GetMapping(value = "/groups/{groupId}/messages", params = "cursor")
+    public ResponseEntity<CursorPage<ReplayMessageDTO>> getGroupMessagesByCursor(
+            @PathVariable UUID groupId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean approxTotal,
+            @RequestParam(defaultValue = "50") int size) {
+
+        if (!groupRepository.existsById(groupId)) {
+            return ResponseEntity.notFound().build();
+        }
+        CursorPage<ReplayMessageDTO> dtos = messageSearchService.browse(groupId, cursor, size, approxTotal);
+        enrichWithListings(dtos.getContent());
+        return ResponseEntity.ok(dtos);
+    }
+
     @GetMapping
     public ResponseEntity<Page<ReplayMessageDTO>> getMessages(
             @RequestParam(defaultValue = "0") int page,
@@ -100,6 +122,21 @@ public class ReplayController {
         return ResponseEntity.ok(dtos);
     }
 
+    /**
+     * Keyset-paginated variant of {@link #getMessages}, selected by the presence of the
+     * {@code cursor} parameter (empty for the first page).
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<ReplayMessageDTO>> getMessagesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean approxTotal,
+            @RequestParam(defaultValue = "50") int size) {
+
+        CursorPage<ReplayMessageDTO> dtos = messageSearchService.browse(null, cursor, size, approxTotal);
+        enrichWithListings(dtos.getContent());
+        return ResponseEntity.ok(dtos);
+    }
+
     @Transactional(readOnly = true)
     @GetMapping("/{messageId}")
     public ResponseEntity<ReplayMessageDTO> getMessage(@PathVariable UUID messageId) {
@@ -119,22 +156,25 @@ public class ReplayController {
             @RequestParam(required = false) String q,
             @RequestParam(required = false) String semantic,
             @RequestParam(required = false) String sender,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime dateFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime dateTo,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "50") int size) {
 
         // When no groupId is specified, perform a cross-group search
-        if (groupId == null) {
-            Page<ReplayMessageDTO> dtos = messageSearchService.search(q, semantic, page, size);
-            enrichWithListings(dtos.getContent());
-            return ResponseEntity.ok(dtos);
-        }
-
-        if (!groupRepository.existsById(groupId)) {
+        if (groupId != null && !groupRepository.existsById(groupId)) {
             return ResponseEntity.notFound().build();
         }
 
-        Page<ReplayMessageDTO> dtos = messageSearchService.searchByFilters(
-                groupId, q, sender, null, null, page, size);
+        MessageSearchRequest request = new MessageSearchRequest();
+        request.setGroupId(groupId);
+        request.setTextQuery(q);
+        request.setSemanticQuery(semantic);
+        request.setSenderName(sender);
+        request.setDateFrom(dateFrom);
+        request.setDateTo(dateTo);
+
+        Page<ReplayMessageDTO> dtos = messageSearchService.search(request, page, size);
         enrichWithListings(dtos.getContent());
         return ResponseEntity.ok(dtos);
     }
@@ -21,6 +21,7 @@ public class ReplayMessageDTO {
     private String messageBody;
     private String messageType;
     private String mediaUrl;
+    private String thumbnailUrl;
     private String mediaMimeType;
     private String mediaLocalPath;
     private String replyToMsgId;
@@ -96,8 +97,14 @@ public class ReplayMessageDTO {
         dto.setSenderAvatar(msg.getSenderAvatar());
         dto.setMessageBody(msg.getMessageBody());
         dto.setMessageType(msg.getMessageType());
-        // Prefer local media path served via /api/media; fall back to original S3 URL
-        if (msg.getMediaLocalPath() != null && !msg.getMediaLocalPath().isBlank()) {
+        // Prefer the content-addressed copy, then a legacy local file served via
+        // /api/media; fall back to original S3 URL
+        if (msg.getMediaSha256() != null) {
+            dto.setMediaUrl("/api/media/blobs/" + msg.getMediaSha256());
+            if (msg.getMediaMimeType() != null && msg.getMediaMimeType().startsWith("image/")) {
+                dto.setThumbnailUrl("/api/media/blobs/" + msg.getMediaSha256() + "/thumbnail");
+            }
+        } else if (msg.getMediaLocalPath() != null && !msg.getMediaLocalPath().isBlank()) {
             // mediaLocalPath is like "./media/<groupId>/<filename>" — strip the "./media/" prefix
             String localPath = msg.getMediaLocalPath()
                     .replaceFirst("^\\./media/", "")
@@ -136,6 +143,8 @@ public class ReplayMessageDTO {
     public void setMessageType(String messageType) { this.messageType = messageType; }
     public String getMediaUrl() { return mediaUrl; }
     public void setMediaUrl(String mediaUrl) { this.mediaUrl = mediaUrl; }
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
     public String getMediaMimeType() { return mediaMimeType; }
     public void setMediaMimeType(String mediaMimeType) { this.mediaMimeType = mediaMimeType; }
     public String getMediaLocalPath() { return mediaLocalPath; }
@@ -0,0 +1,78 @@
+package com.tradeintel.webhook;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the messages of a Whapi webhook payload in one streaming pass.
+ *
+ * <p>The body is tokenized once with the shared {@link ObjectMapper}. Each element of the
+ * top-level {@code messages} array is bound straight to a {@link WhapiMessageDTO.Message}
+ * from the token stream, and its original JSON text is cut out of the body by character
+ * offset, so no tree is built and nothing is re-serialized. Every other top-level field
+ * is skipped without being materialized.</p>
+ */
+@Component
+public class WhapiPayloadReader {
+
+    private final ObjectMapper objectMapper;
+
+    public WhapiPayloadReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Extracts the messages of a payload together with their raw JSON.
+     *
+     * @param body the webhook request body
+     * @return the messages in payload order; empty when there is no {@code messages} array
+     * @throws IOException if the body is not a JSON object or a message cannot be bound
+     */
+    public List<Slice> read(String body) throws IOException {
+        List<Slice> slices = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Webhook payload is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("messages".equals(field) && value == JsonToken.START_ARRAY) {
+                    readMessages(parser, body, slices);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return slices;
+    }
+
+    private void readMessages(JsonParser parser, String body, List<Slice> slices) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            int start = (int) parser.currentTokenLocation().getCharOffset();
+            WhapiMessageDTO.Message message = objectMapper.readValue(parser, WhapiMessageDTO.Message.class);
+            int end = (int) parser.currentLocation().getCharOffset();
+            slices.add(new Slice(message, body.substring(start, end)));
+        }
+    }
+
+    /**
+     * One webhook message and its JSON exactly as received.
+     *
+     * @param message the bound message
+     * @param rawJson the message object's text in the payload
+     */
+    public record Slice(WhapiMessageDTO.Message message, String rawJson) {
+    }
+}
@@ -1,15 +1,23 @@
 package com.tradeintel.webhook;
 
 import com.tradeintel.archive.MessageArchiveService;
-import com.tradeintel.common.entity.RawMessage;
-import com.tradeintel.common.event.NewMessageEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
 @RestController
 @RequestMapping("/api/webhooks")
 public class WhapiWebhookController {
@@ -17,17 +25,24 @@ public class WhapiWebhookController {
     private static final Logger log = LogManager.getLogger(WhapiWebhookController.class);
 
     private final MessageArchiveService archiveService;
-    private final ApplicationEventPublisher eventPublisher;
+    private final WhapiPayloadReader payloadReader;
     private final String webhookSecret;
 
     public WhapiWebhookController(MessageArchiveService archiveService,
-                                  ApplicationEventPublisher eventPublisher,
+                                  WhapiPayloadReader payloadReader,
                                   @Value("${app.whapi.webhook-secret}") String webhookSecret) {
         this.archiveService = archiveService;
-        this.eventPublisher = eventPublisher;
+        this.payloadReader = payloadReader;
         this.webhookSecret = webhookSecret;
     }
 
+    /**
+     * Receives a Whapi webhook delivery. The body is parsed in one streaming pass and
+     * its messages are archived in a single batched insert; media downloads and
+     * extraction happen after the response, so the acknowledgement never waits on them.
+     * Only transient archive failures get a 500, which makes Whapi redeliver; payloads
+     * that can never be archived are logged and acknowledged.
+     */
     @PostMapping("/whapi")
     public ResponseEntity<Void> receiveMessage(
             @RequestBody String rawBody,
@@ -38,33 +53,47 @@ public class WhapiWebhookController {
             return ResponseEntity.status(401).build();
         }
 
+        List<WhapiPayloadReader.Slice> slices;
         try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            WhapiMessageDTO payload = mapper.readValue(rawBody, WhapiMessageDTO.class);
+            slices = payloadReader.read(rawBody);
+        } catch (IOException e) {
+            log.warn("Malformed webhook payload: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
 
-            if (payload.getMessages() == null || payload.getMessages().isEmpty()) {
-                return ResponseEntity.ok().build();
+        try {
+            archiveService.archiveAll(slices);
+        } catch (Exception e) {
+            if (isTransient(e)) {
+                // Archiving is idempotent, so let Whapi redeliver
+                log.error("Transient error archiving webhook payload; asking for redelivery", e);
+                return ResponseEntity.internalServerError().build();
             }
+            // A redelivery would fail the same way and Whapi would keep retrying it
+            log.error("Dropping webhook payload of {} messages that cannot be archived", slices.size(), e);
+        }
 
-            com.fasterxml.jackson.databind.JsonNode root = mapper.readTree(rawBody);
-            com.fasterxml.jackson.databind.JsonNode messagesNode = root.get("messages");
+        return ResponseEntity.ok().build();
+    }
 
-            for (int i = 0; i < payload.getMessages().size(); i++) {
-                WhapiMessageDTO.Message msg = payload.getMessages().get(i);
-                String msgJson = (messagesNode != null && messagesNode.has(i))
-                        ? mapper.writerWithDefaultPrettyPrinter().writeValueAsString(messagesNode.get(i))
-                        : null;
-                RawMessage saved = archiveService.archive(msg, msgJson);
-                if (saved != null) {
-                    log.info("Archived message: {}", saved.getWhapiMsgId());
-                    eventPublisher.publishEvent(new NewMessageEvent(saved.getId()));
-                }
+    /**
+     * Whether a failure might not recur on redelivery: lost or exhausted connections,
+     * lock and query timeouts, serialization failures. Constraint violations, payload
+     * errors and bugs are permanent.
+     */
+    private static boolean isTransient(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TransientDataAccessException
+                    || t instanceof RecoverableDataAccessException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof CannotCreateTransactionException
+                    || t instanceof SQLTransientException
+                    || t instanceof SQLRecoverableException
+                    || t instanceof TimeoutException
+                    || t instanceof SocketTimeoutException) {
+                return true;
             }
-        } catch (Exception e) {
-            log.error("Error processing webhook payload", e);
-            return ResponseEntity.badRequest().build();
         }
-
-        return ResponseEntity.ok().build();
+        return false;
     }
 }
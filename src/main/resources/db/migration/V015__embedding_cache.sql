@@ -0,0 +1,11 @@
+-- Persistent second-tier cache for OpenAI embeddings.
+-- content_hash = SHA-256 hex of (model || '\n' || normalized text), so the same text
+-- embedded with a different model gets its own row. Vectors are stored as packed
+-- little-endian float32; they are only ever read back whole, never searched.
+CREATE TABLE embedding_cache (
+    content_hash  VARCHAR(64)  PRIMARY KEY,
+    model         VARCHAR(100) NOT NULL,
+    dimensions    INTEGER      NOT NULL,
+    vector        BYTEA        NOT NULL,
+    created_at    TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
@@ -0,0 +1,13 @@
+-- Memoized LLM extraction results for duplicate / forwarded / cross-posted messages.
+-- cache_key      = SHA-256 hex of (prompt_version || expanded message text)
+-- prompt_version = SHA-256 hex of the extraction model, prompt template and the
+--                  categories / manufacturers / jargon / conditions CSVs
+-- Rows for superseded prompt versions are purged when a new version is first seen.
+CREATE TABLE extraction_cache (
+    cache_key       VARCHAR(64)  PRIMARY KEY,
+    prompt_version  VARCHAR(64)  NOT NULL,
+    result_json     TEXT         NOT NULL,
+    created_at      TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_extraction_cache_version ON extraction_cache(prompt_version);
@@ -0,0 +1,20 @@
+-- Persistent outbound queue for notification emails.
+-- The processing pipeline only inserts rows here; NotificationDeliveryService
+-- drains them on its own worker pool, grouping pending rows per recipient into
+-- digest emails and retrying failed sends with exponential backoff.
+CREATE TABLE notification_outbox (
+    id              UUID         PRIMARY KEY DEFAULT gen_random_uuid(),
+    rule_id         UUID         NOT NULL REFERENCES notification_rules(id) ON DELETE CASCADE,
+    listing_id      UUID         NOT NULL REFERENCES listings(id) ON DELETE CASCADE,
+    recipient       VARCHAR(255) NOT NULL,
+    status          VARCHAR(20)  NOT NULL DEFAULT 'pending'
+                    CHECK (status IN ('pending', 'sending', 'sent', 'failed')),
+    attempts        INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    last_error      TEXT,
+    created_at      TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    sent_at         TIMESTAMPTZ
+);
+
+CREATE INDEX idx_notification_outbox_due ON notification_outbox(status, next_attempt_at);
+CREATE INDEX idx_notification_outbox_recipient ON notification_outbox(recipient, status);
@@ -0,0 +1,23 @@
+-- Durable work queue for the message processing pipeline.
+-- One row per raw message awaiting extraction. Webhook ingestion inserts rows in
+-- the 'live' lane inside the archiving transaction; the periodic sweep adds
+-- orphaned unprocessed messages in the lower-priority 'catchup' lane.
+-- ProcessingQueueService leases batches with FOR UPDATE SKIP LOCKED, extends
+-- leases with a heartbeat while work is in progress and deletes rows once the
+-- message is processed. Expired leases are returned to 'queued'.
+CREATE TABLE processing_jobs (
+    message_id       UUID         PRIMARY KEY REFERENCES raw_messages(id) ON DELETE CASCADE,
+    lane             VARCHAR(20)  NOT NULL DEFAULT 'live'
+                     CHECK (lane IN ('live', 'catchup')),
+    status           VARCHAR(20)  NOT NULL DEFAULT 'queued'
+                     CHECK (status IN ('queued', 'leased', 'failed')),
+    attempts         INTEGER      NOT NULL DEFAULT 0,
+    available_at     TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    lease_owner      VARCHAR(100),
+    lease_expires_at TIMESTAMPTZ,
+    last_error       TEXT,
+    enqueued_at      TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_processing_jobs_queued ON processing_jobs(lane, available_at) WHERE status = 'queued';
+CREATE INDEX idx_processing_jobs_lease ON processing_jobs(lease_expires_at) WHERE status = 'leased';
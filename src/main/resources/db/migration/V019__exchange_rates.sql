@@ -0,0 +1,14 @@
+-- Daily exchange rates to USD, prefetched in bulk by ExchangeRateService.
+-- rate_to_usd is the USD value of one unit of the currency on rate_date.
+-- Only business days appear (the ECB publishes no weekend/holiday rates);
+-- lookups fall back to the nearest prior rate_date.
+CREATE TABLE exchange_rates (
+    rate_date    DATE           NOT NULL,
+    currency     VARCHAR(3)     NOT NULL,
+    rate_to_usd  NUMERIC(19,10) NOT NULL,
+    source       VARCHAR(32)    NOT NULL,
+    fetched_at   TIMESTAMPTZ    NOT NULL DEFAULT now(),
+    PRIMARY KEY (rate_date, currency)
+);
+
+CREATE INDEX idx_exchange_rates_currency_date ON exchange_rates(currency, rate_date DESC);
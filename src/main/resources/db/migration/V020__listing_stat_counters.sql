@@ -0,0 +1,32 @@
+-- Incrementally maintained listing counts, one row per combination of the
+-- dimensions the stats endpoints break down by.
+-- dims_key = status|intent|deleted(0/1)|group_id|manufacturer_id|category_id
+-- (missing ids as empty strings), so each combination has a single-column key.
+-- ListingStatsTracker applies per-transaction deltas on listing insert, update and
+-- delete; bulk expire/delete paths record their deltas explicitly. A nightly
+-- reconcile rebuilds the table from listings to absorb out-of-band changes.
+CREATE TABLE listing_stat_counters (
+    dims_key         VARCHAR(200) PRIMARY KEY,
+    status           VARCHAR(50)  NOT NULL,
+    intent           VARCHAR(50)  NOT NULL,
+    deleted          BOOLEAN      NOT NULL,
+    group_id         UUID,
+    manufacturer_id  UUID,
+    category_id      UUID,
+    listing_count    BIGINT       NOT NULL DEFAULT 0,
+    updated_at       TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+INSERT INTO listing_stat_counters
+    (dims_key, status, intent, deleted, group_id, manufacturer_id, category_id, listing_count)
+SELECT CONCAT(COALESCE(status, 'active'), '|', intent, '|',
+              CASE WHEN deleted_at IS NULL THEN '0' ELSE '1' END, '|',
+              COALESCE(CAST(group_id AS VARCHAR(36)), ''), '|',
+              COALESCE(CAST(manufacturer_id AS VARCHAR(36)), ''), '|',
+              COALESCE(CAST(item_category_id AS VARCHAR(36)), '')),
+       COALESCE(status, 'active'), intent, deleted_at IS NOT NULL,
+       group_id, manufacturer_id, item_category_id, COUNT(*)
+FROM listings
+GROUP BY COALESCE(status, 'active'), intent, deleted_at IS NOT NULL,
+         group_id, manufacturer_id, item_category_id,
+         CASE WHEN deleted_at IS NULL THEN '0' ELSE '1' END;
@@ -0,0 +1,51 @@
+-- Daily price aggregates per (manufacturer, part number, currency, UTC day) of
+-- listing creation, so price-trend queries never scan listings.
+-- bucket_key = manufacturer_id|PART_NUMBER|currency|yyyy-mm-dd (missing manufacturer
+-- as an empty string); part numbers are trimmed and upper-cased.
+-- Only priced, non-deleted sell listings with a part number are counted;
+-- sold_count is how many of them have since been marked sold.
+-- PriceHistoryTracker recomputes every bucket touched by a transaction just before
+-- it commits, so min/max/median stay exact.
+CREATE TABLE price_history_daily (
+    bucket_key       VARCHAR(320)  PRIMARY KEY,
+    manufacturer_id  UUID,
+    part_number      VARCHAR(255)  NOT NULL,
+    currency         VARCHAR(10)   NOT NULL,
+    price_date       DATE          NOT NULL,
+    model_name       VARCHAR(255),
+    listing_count    INT           NOT NULL DEFAULT 0,
+    sold_count       INT           NOT NULL DEFAULT 0,
+    min_price        NUMERIC(19,4),
+    max_price        NUMERIC(19,4),
+    median_price     NUMERIC(19,4),
+    updated_at       TIMESTAMPTZ   NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_price_history_part_date ON price_history_daily (part_number, price_date);
+CREATE INDEX idx_price_history_model_date ON price_history_daily (LOWER(model_name), price_date);
+
+-- Serves the per-bucket recompute
+CREATE INDEX idx_listings_price_history ON listings (UPPER(TRIM(part_number)), price_currency, created_at)
+    WHERE part_number IS NOT NULL;
+
+INSERT INTO price_history_daily
+    (bucket_key, manufacturer_id, part_number, currency, price_date, model_name,
+     listing_count, sold_count, min_price, max_price, median_price)
+SELECT CONCAT(COALESCE(CAST(manufacturer_id AS VARCHAR(36)), ''), '|', pn, '|', price_currency, '|',
+              TO_CHAR(price_date, 'YYYY-MM-DD')),
+       manufacturer_id, pn, price_currency, price_date,
+       (ARRAY_AGG(model_name ORDER BY created_at DESC) FILTER (WHERE model_name IS NOT NULL))[1],
+       COUNT(*),
+       COUNT(*) FILTER (WHERE status = 'sold'),
+       MIN(price), MAX(price),
+       CAST(PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY price) AS NUMERIC(19,4))
+FROM (
+    SELECT manufacturer_id, UPPER(TRIM(part_number)) AS pn, price_currency,
+           CAST(created_at AT TIME ZONE 'UTC' AS DATE) AS price_date,
+           model_name, created_at, status, price
+    FROM   listings
+    WHERE  part_number IS NOT NULL AND TRIM(part_number) <> ''
+      AND  price IS NOT NULL AND price_currency IS NOT NULL
+      AND  intent = 'sell' AND deleted_at IS NULL
+) l
+GROUP BY manufacturer_id, pn, price_currency, price_date;
@@ -0,0 +1,31 @@
+-- Precomputed cross-post clusters. Listings sharing a normalized part number and a
+-- sender identity (name or phone) belong to the same cluster, transitively.
+-- cross_post_identities is the union-find index: one row per
+-- (part number, 'name:<lower name>' | 'phone:<phone>') pointing at its cluster.
+-- member_count counts the cluster's non-deleted listings.
+-- Existing listings are clustered on the next application start
+-- (CrossPostClusterService.rebuildIfNeeded).
+CREATE TABLE cross_post_clusters (
+    id            UUID          PRIMARY KEY,
+    part_number   VARCHAR(255)  NOT NULL,
+    member_count  INT           NOT NULL DEFAULT 0,
+    created_at    TIMESTAMPTZ   NOT NULL DEFAULT now(),
+    updated_at    TIMESTAMPTZ   NOT NULL DEFAULT now()
+);
+
+CREATE TABLE cross_post_identities (
+    part_number   VARCHAR(255)  NOT NULL,
+    identity      VARCHAR(320)  NOT NULL,
+    cluster_id    UUID          NOT NULL,
+    PRIMARY KEY (part_number, identity)
+);
+
+CREATE INDEX idx_cross_post_identities_cluster ON cross_post_identities (cluster_id);
+
+ALTER TABLE listings ADD COLUMN cross_post_cluster_id UUID;
+
+CREATE INDEX idx_listings_cross_post_cluster ON listings (cross_post_cluster_id)
+    WHERE cross_post_cluster_id IS NOT NULL;
+
+-- Only served the self-join queries the clusters replace
+DROP INDEX IF EXISTS idx_listing_crosspost;
@@ -0,0 +1,9 @@
+-- Indexes for the keyset-paginated feeds: each page is a range scan starting at the
+-- previous page's (timestamp, id) cursor, so the id tie-breaker must be in the index.
+CREATE INDEX idx_listings_feed ON listings (created_at DESC, id DESC) WHERE deleted_at IS NULL;
+
+CREATE INDEX idx_raw_msg_feed ON raw_messages (timestamp_wa DESC, id DESC);
+
+-- Supersedes idx_raw_msg_group_time, which lacked the tie-breaker
+CREATE INDEX idx_raw_msg_group_feed ON raw_messages (group_id, timestamp_wa DESC, id DESC);
+DROP INDEX IF EXISTS idx_raw_msg_group_time;
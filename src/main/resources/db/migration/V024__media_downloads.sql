@@ -0,0 +1,23 @@
+-- Durable download queue for WhatsApp media.
+-- Archiving a message with a media URL inserts a row here in the same transaction;
+-- MediaDownloadService drains due rows on its bounded mediaExecutor pool, streams
+-- each file to a .part file (resuming with a Range request after a failure),
+-- sets raw_messages.media_local_path and deletes the row. Failed attempts back
+-- off exponentially until max-attempts is reached and the row stays 'failed'.
+CREATE TABLE media_downloads (
+    message_id       UUID         PRIMARY KEY REFERENCES raw_messages(id) ON DELETE CASCADE,
+    status           VARCHAR(20)  NOT NULL DEFAULT 'pending'
+                     CHECK (status IN ('pending', 'downloading', 'failed')),
+    attempts         INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at  TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    bytes_downloaded BIGINT       NOT NULL DEFAULT 0,
+    last_error       TEXT,
+    created_at       TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_media_downloads_due ON media_downloads(status, next_attempt_at);
+
+-- Queue media that was never stored, e.g. downloads that failed before the queue existed
+INSERT INTO media_downloads (message_id)
+SELECT id FROM raw_messages
+WHERE media_url IS NOT NULL AND media_url <> '' AND media_local_path IS NULL;
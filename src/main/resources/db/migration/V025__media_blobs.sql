@@ -0,0 +1,24 @@
+-- Content-addressed media store.
+-- Downloaded media is stored once per distinct content under
+-- <storage-dir>/blobs/<first two hex chars>/<sha256><ext>, however many messages
+-- (e.g. an image forwarded into several groups) carry it. ref_count is the number
+-- of raw_messages linked to the blob through media_sha256. Images get a downscaled
+-- JPEG thumbnail under <storage-dir>/thumbs/ at ingest; thumbnail_path stays NULL for
+-- other types and for images already smaller than the thumbnail size.
+-- Paths are relative to the storage directory.
+CREATE TABLE media_blobs (
+    sha256             VARCHAR(64)  PRIMARY KEY,
+    mime_type          VARCHAR(255),
+    size_bytes         BIGINT       NOT NULL,
+    storage_path       TEXT         NOT NULL,
+    thumbnail_path     TEXT,
+    ref_count          INTEGER      NOT NULL DEFAULT 0,
+    created_at         TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    last_referenced_at TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+-- Media downloaded before this migration keeps its per-message file in
+-- media_local_path and no hash
+ALTER TABLE raw_messages ADD COLUMN media_sha256 VARCHAR(64) REFERENCES media_blobs(sha256);
+
+CREATE INDEX idx_raw_msg_media_sha256 ON raw_messages(media_sha256) WHERE media_sha256 IS NOT NULL;
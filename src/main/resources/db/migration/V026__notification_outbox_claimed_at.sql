@@ -0,0 +1,7 @@
+-- Claim time of rows in 'sending'. A row whose claim is older than
+-- app.notifications.claim-timeout-seconds belongs to a worker that died or hung
+-- mid-send and is returned to 'pending' by the delivery poll, so a restart (or
+-- another instance starting) no longer resets rows that are still being sent.
+ALTER TABLE notification_outbox ADD COLUMN claimed_at TIMESTAMPTZ;
+
+CREATE INDEX idx_notification_outbox_claimed ON notification_outbox(claimed_at) WHERE status = 'sending';
@@ -0,0 +1,15 @@
+-- Lease for rows in 'downloading'. The worker renews lease_expires_at while the
+-- transfer makes progress; a row whose lease ran out belongs to a worker that died or
+-- hung and is returned to 'pending' (counting as a failed attempt) by the download
+-- poll, so a restart (or another instance starting) no longer resets downloads that
+-- are still running.
+-- resume_validator is the strong ETag (or Last-Modified date) of the response the
+-- part file came from; a resumed request sends it as If-Range so a changed remote
+-- file is sent whole instead of being appended to stale bytes.
+ALTER TABLE media_downloads ADD COLUMN lease_expires_at TIMESTAMPTZ;
+ALTER TABLE media_downloads ADD COLUMN resume_validator VARCHAR(512);
+
+CREATE INDEX idx_media_downloads_lease ON media_downloads(lease_expires_at) WHERE status = 'downloading';
+
+-- Rows left in 'downloading' by the previous release are reclaimed on the next poll
+UPDATE media_downloads SET lease_expires_at = now() WHERE status = 'downloading';
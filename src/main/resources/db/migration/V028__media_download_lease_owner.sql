@@ -0,0 +1,5 @@
+-- Token of the claim that holds a 'downloading' row. Every later write of the
+-- download (heartbeat, validator, failure, completion) is guarded by it, so a worker
+-- whose lease expired and was reclaimed can no longer fail, complete or renew a
+-- download that has since been claimed again.
+ALTER TABLE media_downloads ADD COLUMN lease_owner VARCHAR(100);
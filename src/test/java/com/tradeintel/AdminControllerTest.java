@@ -151,6 +151,40 @@ class AdminControllerTest {
         log.info("Verified PUT /api/admin/users/{}/role changes role to admin", targetId);
     }
 
+    @Test
+    @DisplayName("Role and active-flag changes take effect on the user's existing token immediately")
+    void changeUserAccess_evictsCachedPrincipal() throws Exception {
+        String auth       = TestHelper.bearerHeader(jwtTokenProvider, uberAdmin);
+        String targetAuth = TestHelper.bearerHeader(jwtTokenProvider, targetUser);
+        String targetId   = targetUser.getId().toString();
+
+        // Caches the target's principal with role=user
+        mockMvc.perform(get("/api/admin/users").header("Authorization", targetAuth))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(put("/api/admin/users/{id}/role", targetId)
+                        .header("Authorization", auth)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"role": "uber_admin"}
+                                """))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/admin/users").header("Authorization", targetAuth))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/admin/users/{id}/active", targetId)
+                        .header("Authorization", auth)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"active": false}
+                                """))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/auth/me").header("Authorization", targetAuth))
+                .andExpect(status().isUnauthorized());
+    }
+
     @Test
     @DisplayName("PUT /api/admin/users/{id}/role returns 403 when called by admin (not uber_admin)")
     void changeUserRole_asAdmin_returns403() throws Exception {
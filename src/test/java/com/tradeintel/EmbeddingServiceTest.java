@@ -0,0 +1,171 @@
+package com.tradeintel;
+
+import com.tradeintel.archive.EmbeddingCacheRepository;
+import com.tradeintel.archive.EmbeddingService;
+import com.tradeintel.common.openai.OpenAIClient;
+import com.tradeintel.config.CacheConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link EmbeddingService} batching and caching.
+ *
+ * <p>{@link OpenAIClient} is mocked; each fake embedding is a one-element vector
+ * holding the length of its input text, so results can be matched back to inputs.</p>
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class EmbeddingServiceTest {
+
+    private static final Logger log = LogManager.getLogger(EmbeddingServiceTest.class);
+
+    @Autowired private EmbeddingService embeddingService;
+    @Autowired private EmbeddingCacheRepository cacheRepository;
+    @Autowired private CacheManager cacheManager;
+    @Autowired private TestDatabaseCleaner dbCleaner;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @MockBean private OpenAIClient openAIClient;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger inputs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        dbCleaner.cleanAll();
+        reset(openAIClient);
+        calls.set(0);
+        inputs.set(0);
+        when(openAIClient.embedBatch(anyList(), anyString())).thenAnswer(this::fakeEmbeddings);
+    }
+
+    @Test
+    @DisplayName("Concurrent embed calls are coalesced into fewer embedBatch requests")
+    void embed_concurrentCalls_areCoalesced() {
+        int callers = 8;
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<CompletableFuture<float[]>> results = new ArrayList<>();
+        for (int i = 1; i <= callers; i++) {
+            String text = "x".repeat(i);
+            results.add(CompletableFuture.supplyAsync(() -> {
+                awaitQuietly(startGate);
+                return embeddingService.embed(text);
+            }));
+        }
+        startGate.countDown();
+
+        for (int i = 0; i < callers; i++) {
+            assertThat(results.get(i).join()).containsExactly((float) (i + 1));
+        }
+        assertThat(inputs.get()).isEqualTo(callers);
+        assertThat(calls.get()).isLessThan(callers);
+        log.info("{} concurrent embed calls served by {} embedBatch requests", callers, calls.get());
+    }
+
+    @Test
+    @DisplayName("embedBatch preserves input order and returns null for blank inputs")
+    void embedBatch_preservesOrder_skipsBlank() {
+        List<float[]> vectors = embeddingService.embedBatch(Arrays.asList("ab", " ", null, "abcd"));
+
+        assertThat(vectors).hasSize(4);
+        assertThat(vectors.get(0)).containsExactly(2f);
+        assertThat(vectors.get(1)).isNull();
+        assertThat(vectors.get(2)).isNull();
+        assertThat(vectors.get(3)).containsExactly(4f);
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(inputs.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Repeated text is served from the in-memory cache, ignoring whitespace differences")
+    void embed_repeatedText_servedFromMemory() {
+        long memoryHitsBefore = (long) embeddingService.getCacheStats().get("memoryHits");
+
+        float[] first = embeddingService.embed("Rolex 126610LN  full set");
+        float[] second = embeddingService.embed("  Rolex 126610LN\nfull set ");
+
+        assertThat(second).containsExactly(first);
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat((long) embeddingService.getCacheStats().get("memoryHits")).isEqualTo(memoryHitsBefore + 1);
+        assertThat(cacheRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Embeddings persisted in embedding_cache are reused after the memory tier is cleared")
+    void embed_afterMemoryEviction_servedFromTable() {
+        embeddingService.embedBatch(List.of("Patek 5711 NOS", "AP 15500 BNIB"));
+        cacheManager.getCache(CacheConfig.CACHE_EMBEDDINGS).clear();
+        long storeHitsBefore = (long) embeddingService.getCacheStats().get("storeHits");
+
+        List<float[]> vectors = embeddingService.embedBatch(List.of("AP 15500 BNIB", "Patek 5711 NOS"));
+
+        assertThat(vectors.get(0)).containsExactly(13f);
+        assertThat(vectors.get(1)).containsExactly(14f);
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat((long) embeddingService.getCacheStats().get("storeHits")).isEqualTo(storeHitsBefore + 2);
+    }
+
+    @Test
+    @DisplayName("A miss inside a read-only transaction is cached in its own transaction and leaves the caller's usable")
+    void embed_insideReadOnlyTransaction_writesCacheSeparately() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        long visibleInside = readOnly.execute(status -> {
+            assertThat(embeddingService.embed("Daytona 116500LN white")).containsExactly(22f);
+            long count = cacheRepository.count();
+            status.setRollbackOnly();
+            return count;
+        });
+
+        // Survives the caller's rollback, so it never was the caller's write
+        assertThat(visibleInside).isEqualTo(1);
+        assertThat(cacheRepository.count()).isEqualTo(1);
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private List<float[]> fakeEmbeddings(InvocationOnMock invocation) throws InterruptedException {
+        List<String> texts = invocation.getArgument(0);
+        if (calls.incrementAndGet() == 1) {
+            // Hold the first request so later callers queue up behind it
+            Thread.sleep(200);
+        }
+        inputs.addAndGet(texts.size());
+        return texts.stream().map(t -> new float[]{t.length()}).toList();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
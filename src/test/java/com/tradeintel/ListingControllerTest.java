@@ -1,5 +1,6 @@
 package com.tradeintel;
 
+import com.jayway.jsonpath.JsonPath;
 import com.tradeintel.admin.AuditLogRepository;
 import com.tradeintel.archive.RawMessageRepository;
 import com.tradeintel.archive.WhatsappGroupRepository;
@@ -26,6 +27,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
@@ -33,9 +35,11 @@ import java.time.ZoneOffset;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -193,6 +197,48 @@ class ListingControllerTest {
                 .andExpect(jsonPath("$.totalElements", equalTo(0)));
     }
 
+    @Test
+    @DisplayName("GET /api/listings?cursor pages through the feed newest first with a capped total")
+    void listListingsByCursor_pagesThroughFeed() throws Exception {
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, regularUser);
+        Listing second = seedListing("Parker pumps");
+        Listing third = seedListing("Parker fittings");
+
+        MvcResult first = mockMvc.perform(get("/api/listings")
+                        .param("cursor", "")
+                        .param("size", "2")
+                        .param("approxTotal", "true")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content",    hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", equalTo(third.getId().toString())))
+                .andExpect(jsonPath("$.content[1].id", equalTo(second.getId().toString())))
+                .andExpect(jsonPath("$.hasNext",    equalTo(true)))
+                .andExpect(jsonPath("$.total",      equalTo(3)))
+                .andExpect(jsonPath("$.totalExact", equalTo(true)))
+                .andReturn();
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(get("/api/listings")
+                        .param("cursor", cursor)
+                        .param("size", "2")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content",    hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", equalTo(seededListing.getId().toString())))
+                .andExpect(jsonPath("$.hasNext",    equalTo(false)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                .andExpect(jsonPath("$.total").doesNotExist());
+
+        mockMvc.perform(get("/api/listings")
+                        .param("cursor", "%%%")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     // =========================================================================
     // GET /api/listings/stats — aggregated counts
     // =========================================================================
@@ -229,6 +275,43 @@ class ListingControllerTest {
                 .andExpect(jsonPath("$.byStatus.active",   equalTo(1)));
     }
 
+    // =========================================================================
+    // GET /api/listings/price-history — price trend
+    // =========================================================================
+
+    @Test
+    @DisplayName("GET /api/listings/price-history returns the daily aggregate for a part number")
+    void getPriceHistory_returnsDailyPoint() throws Exception {
+        seededListing.setPartNumber("PV-100");
+        seededListing.setPrice(new BigDecimal("50.00"));
+        listingRepository.save(seededListing);
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, regularUser);
+
+        mockMvc.perform(get("/api/listings/price-history")
+                        .param("partNumber", "pv-100")
+                        .param("granularity", "week")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.partNumber",              equalTo("PV-100")))
+                .andExpect(jsonPath("$.granularity",             equalTo("week")))
+                .andExpect(jsonPath("$.points.length()",         equalTo(1)))
+                .andExpect(jsonPath("$.points[0].currency",      equalTo("USD")))
+                .andExpect(jsonPath("$.points[0].listingCount",  equalTo(1)))
+                .andExpect(jsonPath("$.points[0].medianPrice",   equalTo(50.0)));
+    }
+
+    @Test
+    @DisplayName("GET /api/listings/price-history returns 400 without a part number or model")
+    void getPriceHistory_withoutFilter_returns400() throws Exception {
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, regularUser);
+
+        mockMvc.perform(get("/api/listings/price-history")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     // =========================================================================
     // PUT /api/listings/{id} — admin update
     // =========================================================================
@@ -356,6 +439,76 @@ class ListingControllerTest {
         log.info("Verified keyword search q=nonexistent returns 0 results");
     }
 
+    // =========================================================================
+    // GET /api/listings?semanticQuery= — semantic search (keyword fallback on H2)
+    // =========================================================================
+
+    @Test
+    @DisplayName("GET /api/listings?semanticQuery=parker falls back to description match without pgvector")
+    void listListings_semanticSearch_fallsBackToKeyword() throws Exception {
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, regularUser);
+
+        mockMvc.perform(get("/api/listings")
+                        .param("semanticQuery", "parker")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", equalTo(1)));
+
+        log.info("Verified semanticQuery=parker returns 1 result via keyword fallback");
+    }
+
+    @Test
+    @DisplayName("GET /api/listings?semanticQuery=parker&intent=want applies the listing filters")
+    void listListings_semanticSearch_appliesFilters() throws Exception {
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, regularUser);
+
+        mockMvc.perform(get("/api/listings")
+                        .param("semanticQuery", "parker")
+                        .param("intent", "want")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", equalTo(0)));
+
+        log.info("Verified semanticQuery honours the intent filter");
+    }
+
+    // =========================================================================
+    // Exchange rate backfill
+    // =========================================================================
+
+    @Test
+    @DisplayName("POST /api/listings/backfill-exchange-rates returns 202 for admin and status reports the run")
+    void backfillExchangeRates_asAdmin_startsJobAndReportsStatus() throws Exception {
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, adminUser);
+
+        mockMvc.perform(post("/api/listings/backfill-exchange-rates")
+                        .header("Authorization", auth))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.started", equalTo(true)));
+
+        mockMvc.perform(get("/api/listings/backfill-exchange-rates/status")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.running", notNullValue()));
+
+        log.info("Verified admin can start the exchange rate backfill and read its status");
+    }
+
+    @Test
+    @DisplayName("POST /api/listings/backfill-exchange-rates returns 403 for regular user")
+    void backfillExchangeRates_asRegularUser_returns403() throws Exception {
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, regularUser);
+
+        mockMvc.perform(post("/api/listings/backfill-exchange-rates")
+                        .header("Authorization", auth))
+                .andExpect(status().isForbidden());
+
+        log.info("Verified regular user cannot start the exchange rate backfill (403)");
+    }
+
     // =========================================================================
     // Listing expiry scheduled task
     // =========================================================================
@@ -391,4 +544,17 @@ class ListingControllerTest {
         assertThat(reloaded.getStatus()).isEqualTo(ListingStatus.active);
         log.info("Verified listing expiry scheduler leaves future-dated listings active");
     }
+
+    private Listing seedListing(String description) {
+        Listing listing = new Listing();
+        listing.setRawMessage(seededListing.getRawMessage());
+        listing.setGroup(seededListing.getGroup());
+        listing.setIntent(IntentType.sell);
+        listing.setConfidenceScore(0.9);
+        listing.setItemDescription(description);
+        listing.setOriginalText(description);
+        listing.setStatus(ListingStatus.active);
+        listing.setNeedsHumanReview(false);
+        return listingRepository.save(listing);
+    }
 }
@@ -0,0 +1,214 @@
+package com.tradeintel;
+
+import com.tradeintel.archive.MediaBlobRepository;
+import com.tradeintel.archive.MediaStore;
+import com.tradeintel.common.entity.MediaBlob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for {@link com.tradeintel.archive.MediaController}.
+ *
+ * <p>Tests verify validators, conditional requests and byte-range responses for
+ * content-addressed blobs and legacy per-message files, with files written to the
+ * test storage directory and blob rows in the H2 in-memory database.</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class MediaControllerTest {
+
+    private static final String SHA = "ab".repeat(32);
+    private static final String ETAG = "\"" + SHA + "\"";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MediaBlobRepository blobRepository;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private TestDatabaseCleaner dbCleaner;
+
+    /** Content of the seeded blob: bytes 0..999 modulo 256. */
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dbCleaner.cleanAll();
+
+        content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        String storagePath = "blobs/ab/" + SHA + ".mp4";
+        Path file = mediaStore.resolve(storagePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+
+        MediaBlob blob = new MediaBlob();
+        blob.setSha256(SHA);
+        blob.setMimeType("video/mp4");
+        blob.setSizeBytes((long) content.length);
+        blob.setStoragePath(storagePath);
+        blob.setRefCount(1);
+        blob.setCreatedAt(OffsetDateTime.now());
+        blob.setLastReferencedAt(OffsetDateTime.now());
+        blobRepository.save(blob);
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/media/blobs/{sha256}
+    // -------------------------------------------------------------------------
+
+    @Test
+    @DisplayName("A blob is served with its ingest-time type, a strong ETag and immutable caching")
+    void blob_servedWithStrongEtagAndImmutableCaching() throws Exception {
+        mockMvc.perform(get("/api/media/blobs/" + SHA))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("video/mp4"))
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    @DisplayName("A matching If-None-Match gets 304 without a body")
+    void blob_ifNoneMatch_returns304() throws Exception {
+        mockMvc.perform(get("/api/media/blobs/" + SHA).header(HttpHeaders.IF_NONE_MATCH, "W/" + ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @DisplayName("A single byte range is answered with 206 and only the requested bytes")
+    void blob_range_returnsPartialContent() throws Exception {
+        mockMvc.perform(get("/api/media/blobs/" + SHA).header(HttpHeaders.RANGE, "bytes=100-199"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-199/1000"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 100, 200)));
+
+        mockMvc.perform(get("/api/media/blobs/" + SHA).header(HttpHeaders.RANGE, "bytes=-10"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 990-999/1000"))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 990, 1000)));
+    }
+
+    @Test
+    @DisplayName("Over the real connector, whole files and ranges are sent intact")
+    void blob_overTomcat_sendsFileAndRange() {
+        ResponseEntity<byte[]> whole = restTemplate.getForEntity("/api/media/blobs/" + SHA, byte[].class);
+        assertThat(whole.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(whole.getBody()).isEqualTo(content);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=500-");
+        ResponseEntity<byte[]> tail = restTemplate.exchange("/api/media/blobs/" + SHA, HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+        assertThat(tail.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(tail.getBody()).isEqualTo(Arrays.copyOfRange(content, 500, 1000));
+    }
+
+    @Test
+    @DisplayName("A range under a stale If-Range gets the whole file")
+    void blob_staleIfRange_returnsWholeFile() throws Exception {
+        mockMvc.perform(get("/api/media/blobs/" + SHA)
+                        .header(HttpHeaders.RANGE, "bytes=100-199")
+                        .header(HttpHeaders.IF_RANGE, "\"something-else\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+
+        mockMvc.perform(get("/api/media/blobs/" + SHA)
+                        .header(HttpHeaders.RANGE, "bytes=100-199")
+                        .header(HttpHeaders.IF_RANGE, ETAG))
+                .andExpect(status().isPartialContent());
+    }
+
+    @Test
+    @DisplayName("A range beyond the end of the file gets 416")
+    void blob_unsatisfiableRange_returns416() throws Exception {
+        mockMvc.perform(get("/api/media/blobs/" + SHA).header(HttpHeaders.RANGE, "bytes=5000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1000"));
+    }
+
+    @Test
+    @DisplayName("A blob without a thumbnail serves the original from the thumbnail route")
+    void thumbnail_missing_fallsBackToOriginal() throws Exception {
+        mockMvc.perform(get("/api/media/blobs/" + SHA + "/thumbnail"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("video/mp4"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + SHA + "-thumbnail\""))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    @DisplayName("Malformed hashes get 400 and unknown ones 404")
+    void blob_invalidOrUnknown() throws Exception {
+        mockMvc.perform(get("/api/media/blobs/not-a-hash"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/media/blobs/" + "cd".repeat(32)))
+                .andExpect(status().isNotFound());
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/media/{groupId}/{filename}
+    // -------------------------------------------------------------------------
+
+    @Test
+    @DisplayName("Legacy per-message files get a weak ETag, honour it and serve ranges")
+    void legacyFile_weakEtagAndRange() throws Exception {
+        String groupId = UUID.randomUUID().toString();
+        Path file = mediaStore.resolve(groupId).resolve("legacy.pdf");
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+
+        String etag = mockMvc.perform(get("/api/media/" + groupId + "/legacy.pdf"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/pdf"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=86400"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("W/\"");
+
+        mockMvc.perform(get("/api/media/" + groupId + "/legacy.pdf").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/media/" + groupId + "/legacy.pdf").header(HttpHeaders.RANGE, "bytes=0-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 0, 10)));
+    }
+}
@@ -11,8 +11,15 @@ import com.tradeintel.common.entity.WhatsappGroup;
 import com.tradeintel.archive.RawMessageRepository;
 import com.tradeintel.archive.WhatsappGroupRepository;
 import com.tradeintel.listing.ListingRepository;
+import com.tradeintel.common.entity.NotificationOutboxItem;
+import com.tradeintel.notification.NotificationDeliveryService;
 import com.tradeintel.notification.NotificationDispatcher;
+import com.tradeintel.notification.NotificationOutboxRepository;
 import com.tradeintel.notification.NotificationRuleRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import com.tradeintel.processing.NotificationMatcher;
+import com.tradeintel.processing.NotificationRuleIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,6 +29,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.annotation.DirtiesContext;
@@ -30,19 +39,26 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
  * End-to-end tests for {@link NotificationDispatcher} and notification matching.
  *
  * <p>JavaMailSender is mocked so no actual emails are sent. Tests verify that
- * matching rules trigger email dispatch and non-matching rules do not.</p>
+ * matching rules trigger email dispatch and non-matching rules do not. Dispatch
+ * only queues outbox rows; tests drain the queue on the test thread with
+ * {@code NotificationDeliveryService.deliverDueNow()} (the digest window is 0 in
+ * the test profile).</p>
  *
  * <p>Tests are transactional to avoid lazy loading issues when the matcher
  * accesses the User entity through the NotificationRule relationship.</p>
@@ -61,6 +77,11 @@ class NotificationDispatcherTest {
     @Autowired private ListingRepository listingRepository;
     @Autowired private NotificationRuleRepository ruleRepository;
     @Autowired private NotificationDispatcher notificationDispatcher;
+    @Autowired private NotificationRuleIndex notificationRuleIndex;
+    @Autowired private NotificationDeliveryService notificationDeliveryService;
+    @Autowired private NotificationOutboxRepository outboxRepository;
+    @PersistenceContext private EntityManager entityManager;
+    @Autowired private NotificationMatcher notificationMatcher;
 
     @MockBean private JavaMailSender mailSender;
 
@@ -87,9 +108,12 @@ class NotificationDispatcherTest {
         Listing listing = createListing("Parker ball valves", IntentType.sell, new BigDecimal("50.00"));
 
         notificationDispatcher.dispatch(rule, listing);
+        verify(mailSender, never()).send(any(SimpleMailMessage.class));
+
+        assertThat(notificationDeliveryService.deliverDueNow()).isEqualTo(1);
 
         verify(mailSender).send(any(SimpleMailMessage.class));
-        log.info("Verified dispatch sends email via JavaMailSender");
+        log.info("Verified dispatch queues the email and the delivery worker sends it");
     }
 
     @Test
@@ -129,6 +153,7 @@ class NotificationDispatcherTest {
         Listing listing = createListing("Cheap valves", IntentType.sell, new BigDecimal("50.00"));
 
         notificationDispatcher.dispatch(rule, listing);
+        notificationDeliveryService.deliverDueNow();
 
         verify(mailSender).send(any(SimpleMailMessage.class));
         log.info("Verified dispatch sends email for price in range");
@@ -148,11 +173,168 @@ class NotificationDispatcherTest {
         Listing listing = createListing("Test item", IntentType.sell, null);
 
         notificationDispatcher.dispatch(rule, listing);
+        notificationDeliveryService.deliverDueNow();
 
-        verify(mailSender).send(any(SimpleMailMessage.class));
+        ArgumentCaptor<SimpleMailMessage> sent = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        verify(mailSender).send(sent.capture());
+        assertThat(sent.getValue().getTo()).containsExactly("dispatch-user@example.com");
         log.info("Verified dispatch uses user email as fallback");
     }
 
+    @Test
+    @DisplayName("Rule index applies keyword, intent and price criteria together")
+    void ruleIndex_matchesOnlyRulesSatisfyingAllCriteria() {
+        NotificationRule keywordRule = createRule(null, new String[]{"Submariner", "GMT"}, null, null);
+        NotificationRule sellInRange = createRule(IntentType.sell, null,
+                new BigDecimal("10000.00"), new BigDecimal("15000.00"));
+        NotificationRule buyRule = createRule(IntentType.want, new String[]{"submariner"}, null, null);
+        NotificationRule tooCheap = createRule(null, null, null, new BigDecimal("5000.00"));
+        NotificationRule openAbove = createRule(null, new String[]{"daytona"}, new BigDecimal("1.00"), null);
+        notificationRuleIndex.reload();
+
+        Listing sub = createListing("Rolex SUBMARINER 126610LN", IntentType.sell, new BigDecimal("12500.00"));
+        assertThat(notificationRuleIndex.match(sub))
+                .containsExactlyInAnyOrder(keywordRule.getId(), sellInRange.getId());
+
+        Listing unpriced = createListing("Rolex Daytona and GMT pair", IntentType.sell, null);
+        assertThat(notificationRuleIndex.match(unpriced)).containsExactly(keywordRule.getId());
+
+        Listing cheap = createListing("Seiko diver", IntentType.want, new BigDecimal("300.00"));
+        assertThat(notificationRuleIndex.match(cheap)).containsExactly(tooCheap.getId());
+
+        assertThat(buyRule.getId()).isNotNull();
+        assertThat(openAbove.getId()).isNotNull();
+        log.info("Verified rule index intersects keyword, intent and price criteria");
+    }
+
+    @Test
+    @DisplayName("Rule index finds every price interval containing the price across checkpoints")
+    void ruleIndex_priceIntervals_matchBruteForce() {
+        List<NotificationRule> rules = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            BigDecimal min = i % 7 == 0 ? null : BigDecimal.valueOf(i * 10L);
+            BigDecimal max = i % 11 == 0 ? null : BigDecimal.valueOf(i * 10L + 300);
+            rules.add(createRule(null, null, min, max));
+        }
+        notificationRuleIndex.reload();
+
+        for (BigDecimal price : List.of(new BigDecimal("0"), new BigDecimal("640"),
+                new BigDecimal("1000.50"), new BigDecimal("2290"), new BigDecimal("99999"))) {
+            List<UUID> expected = rules.stream()
+                    .filter(r -> r.getParsedPriceMin() == null || r.getParsedPriceMin().compareTo(price) <= 0)
+                    .filter(r -> r.getParsedPriceMax() == null || r.getParsedPriceMax().compareTo(price) >= 0)
+                    .map(NotificationRule::getId)
+                    .toList();
+            assertThat(notificationRuleIndex.match(createListing("Omega", IntentType.sell, price)))
+                    .as("price %s", price)
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+        log.info("Verified price interval lookup against a brute-force scan");
+    }
+
+    @Test
+    @DisplayName("Matcher dispatches only to rules the index reports as matching")
+    void matchAndDispatch_usesIndex() {
+        createRule(IntentType.sell, new String[]{"valves"}, null, null);
+        createRule(IntentType.sell, new String[]{"pumps"}, null, null);
+        notificationRuleIndex.reload();
+
+        notificationMatcher.matchAndDispatch(
+                createListing("Parker ball valves", IntentType.sell, new BigDecimal("50.00")));
+        notificationDeliveryService.deliverDueNow();
+
+        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
+        log.info("Verified matcher dispatches once for the single matching rule");
+    }
+
+    @Test
+    @DisplayName("Matches for the same recipient are sent as one digest and stamp every rule")
+    void deliverDueNow_batchesPerRecipientIntoDigest() {
+        NotificationRule valves = createRule(IntentType.sell, new String[]{"valves"}, null, null);
+        NotificationRule pumps = createRule(IntentType.sell, new String[]{"pumps"}, null, null);
+
+        notificationDispatcher.dispatch(valves, createListing("Parker ball valves", IntentType.sell, null));
+        notificationDispatcher.dispatch(pumps, createListing("Grundfos pumps", IntentType.sell, null));
+        notificationDispatcher.dispatch(valves, createListing("Swagelok valves", IntentType.sell, null));
+
+        assertThat(notificationDeliveryService.deliverDueNow()).isEqualTo(3);
+
+        ArgumentCaptor<SimpleMailMessage> sent = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        verify(mailSender, times(1)).send(sent.capture());
+        assertThat(sent.getValue().getSubject()).isEqualTo("[DialIntel.ai] 3 new listing alerts");
+        assertThat(sent.getValue().getText())
+                .contains("Parker ball valves", "Grundfos pumps", "Swagelok valves");
+
+        entityManager.clear();
+        assertThat(ruleRepository.findById(valves.getId()).orElseThrow().getLastTriggered()).isNotNull();
+        assertThat(ruleRepository.findById(pumps.getId()).orElseThrow().getLastTriggered()).isNotNull();
+        assertThat(outboxRepository.countByStatus("sent")).isEqualTo(3);
+        assertThat(notificationDeliveryService.deliverDueNow()).isZero();
+        log.info("Verified per-recipient digest delivery");
+    }
+
+    @Test
+    @DisplayName("A failed send is rescheduled with backoff instead of being dropped")
+    void deliverDueNow_mailFailure_schedulesRetry() {
+        doThrow(new MailSendException("SMTP unavailable")).when(mailSender).send(any(SimpleMailMessage.class));
+        NotificationRule rule = createRule(IntentType.sell, new String[]{"valves"}, null, null);
+        notificationDispatcher.dispatch(rule, createListing("Parker ball valves", IntentType.sell, null));
+
+        assertThat(notificationDeliveryService.deliverDueNow()).isZero();
+
+        entityManager.clear();
+        NotificationOutboxItem item = outboxRepository.findAll().get(0);
+        assertThat(item.getStatus()).isEqualTo("pending");
+        assertThat(item.getAttempts()).isEqualTo(1);
+        assertThat(item.getLastError()).contains("SMTP unavailable");
+        assertThat(item.getNextAttemptAt()).isAfter(OffsetDateTime.now());
+        // Not due again until the backoff elapses
+        assertThat(notificationDeliveryService.deliverDueNow()).isZero();
+        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
+        log.info("Verified failed delivery is retried later");
+    }
+
+    @Test
+    @DisplayName("A non-mail error during send also reschedules the rows")
+    void deliverDueNow_unexpectedError_schedulesRetry() {
+        doThrow(new IllegalStateException("client misconfigured")).when(mailSender).send(any(SimpleMailMessage.class));
+        NotificationRule rule = createRule(IntentType.sell, new String[]{"valves"}, null, null);
+        notificationDispatcher.dispatch(rule, createListing("Parker ball valves", IntentType.sell, null));
+
+        assertThat(notificationDeliveryService.deliverDueNow()).isZero();
+
+        entityManager.clear();
+        NotificationOutboxItem item = outboxRepository.findAll().get(0);
+        assertThat(item.getStatus()).isEqualTo("pending");
+        assertThat(item.getClaimedAt()).isNull();
+        assertThat(item.getLastError()).contains("client misconfigured");
+        log.info("Verified unexpected send errors are retried later");
+    }
+
+    @Test
+    @DisplayName("Only rows whose send claim timed out are returned to pending")
+    void reclaimExpiredClaims_releasesOnlyStaleClaims() {
+        NotificationRule rule = createRule(IntentType.sell, new String[]{"valves"}, null, null);
+        notificationDispatcher.dispatch(rule, createListing("Parker ball valves", IntentType.sell, null));
+        notificationDispatcher.dispatch(rule, createListing("Swagelok valves", IntentType.sell, null));
+        List<NotificationOutboxItem> items = outboxRepository.findAll();
+        items.get(0).setStatus("sending");
+        items.get(0).setClaimedAt(OffsetDateTime.now().minusHours(1));
+        items.get(1).setStatus("sending");
+        items.get(1).setClaimedAt(OffsetDateTime.now());
+        outboxRepository.saveAllAndFlush(items);
+
+        notificationDeliveryService.reclaimExpiredClaims();
+
+        entityManager.clear();
+        NotificationOutboxItem stale = outboxRepository.findById(items.get(0).getId()).orElseThrow();
+        assertThat(stale.getStatus()).isEqualTo("pending");
+        assertThat(stale.getAttempts()).isEqualTo(1);
+        assertThat(stale.getLastError()).isEqualTo("Claim expired");
+        assertThat(outboxRepository.findById(items.get(1).getId()).orElseThrow().getStatus()).isEqualTo("sending");
+        log.info("Verified claim timeout reclaims only stale rows");
+    }
+
     private NotificationRule createRule(IntentType intent, String[] keywords,
                                          BigDecimal priceMin, BigDecimal priceMax) {
         NotificationRule rule = new NotificationRule();
@@ -4,34 +4,74 @@ import com.tradeintel.admin.AuditLogRepository;
 import com.tradeintel.admin.ChatMessageRepository;
 import com.tradeintel.admin.ChatSessionRepository;
 import com.tradeintel.admin.UsageLedgerRepository;
+import com.tradeintel.archive.MediaBlobRepository;
+import com.tradeintel.archive.MediaDownloadRepository;
+import com.tradeintel.archive.MediaDownloadService;
+import com.tradeintel.archive.MediaStore;
+import com.tradeintel.archive.MessageArchiveService;
 import com.tradeintel.archive.RawMessageRepository;
 import com.tradeintel.archive.WhatsappGroupRepository;
 import com.tradeintel.auth.UserRepository;
+import com.tradeintel.common.paging.CursorPage;
 import com.tradeintel.common.entity.Category;
 import com.tradeintel.common.entity.Condition;
+import com.tradeintel.common.entity.ExchangeRate;
 import com.tradeintel.common.entity.IntentType;
 import com.tradeintel.common.entity.JargonEntry;
 import com.tradeintel.common.entity.Listing;
 import com.tradeintel.common.entity.ListingStatus;
+import com.tradeintel.common.entity.ProcessingJob;
 import com.tradeintel.common.entity.Manufacturer;
+import com.tradeintel.common.entity.MediaBlob;
+import com.tradeintel.common.entity.MediaDownload;
 import com.tradeintel.common.entity.RawMessage;
 import com.tradeintel.common.entity.Unit;
 import com.tradeintel.common.entity.User;
 import com.tradeintel.common.entity.UserRole;
 import com.tradeintel.common.entity.WhatsappGroup;
+import com.tradeintel.listing.CrossPostClusterService;
 import com.tradeintel.listing.ListingRepository;
+import com.tradeintel.listing.ListingService;
+import com.tradeintel.listing.ListingStatsService;
+import com.tradeintel.listing.ListingStatsSnapshot;
+import com.tradeintel.listing.PriceHistoryRepository;
+import com.tradeintel.listing.PriceHistoryService;
+import com.tradeintel.listing.dto.CrossPostDTO;
+import com.tradeintel.listing.dto.ListingDTO;
+import com.tradeintel.listing.dto.ListingSearchRequest;
+import com.tradeintel.listing.dto.PriceHistoryDTO;
+import com.tradeintel.listing.dto.PriceHistoryPointDTO;
 import com.tradeintel.normalize.CategoryRepository;
 import com.tradeintel.normalize.ConditionRepository;
 import com.tradeintel.normalize.JargonRepository;
+import com.tradeintel.normalize.JargonService;
 import com.tradeintel.normalize.ManufacturerRepository;
+import com.tradeintel.normalize.ManufacturerService;
 import com.tradeintel.normalize.UnitRepository;
+import com.tradeintel.normalize.dto.JargonCreateRequest;
+import com.tradeintel.normalize.dto.ManufacturerRequest;
 import com.tradeintel.notification.NotificationRuleRepository;
+import com.tradeintel.processing.CatchupProgress;
 import com.tradeintel.processing.ConfidenceRouter;
+import com.tradeintel.processing.ExchangeRateBackfillJob;
+import com.tradeintel.processing.ExchangeRateBackfillProgress;
+import com.tradeintel.processing.ExchangeRateRepository;
+import com.tradeintel.processing.ExchangeRateService;
+import com.tradeintel.processing.ExtractionCache;
 import com.tradeintel.processing.ExtractionResult;
 import com.tradeintel.processing.JargonExpander;
+import com.tradeintel.processing.MessageProcessingService;
+import com.tradeintel.processing.NormalizationResolver;
+import com.tradeintel.processing.ProcessingJobRepository;
+import com.tradeintel.processing.ProcessingQueueService;
 import com.tradeintel.processing.ReviewQueueItemRepository;
+import com.tradeintel.webhook.WhapiMessageDTO;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.persistence.EntityManagerFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -41,13 +81,41 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
-
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
  * End-to-end integration tests for the Phase 3 message processing pipeline.
@@ -55,9 +123,16 @@ import static org.assertj.core.api.Assertions.assertThat;
  * <p>Tests cover:
  * <ul>
  *   <li>Jargon expansion (verified terms replaced, unverified ignored)</li>
- *   <li>Confidence routing (auto-accept, review, discard)</li>
+ *   <li>Confidence routing (auto-accept, review, discard) and batched listing inserts</li>
+ *   <li>Exchange rate prefetch, business-day fallback and chunked listing backfill</li>
+ *   <li>Incrementally maintained listing statistics</li>
+ *   <li>Daily price-history aggregates and their roll-ups</li>
  *   <li>Review queue item creation for medium-confidence extractions</li>
  *   <li>Extraction result parsing and mapping to listings</li>
+ *   <li>Extraction result memoization and invalidation</li>
+ *   <li>Parallel catchup over the unprocessed backlog</li>
+ *   <li>Durable processing queue: enqueueing, lane priority and lease reclaim</li>
+ *   <li>Staged pipeline execution and per-stage metrics</li>
  * </ul>
  *
  * <p>The LLM and embedding calls are not tested here since they require real
@@ -86,7 +161,30 @@ class ProcessingPipelineTest {
     @Autowired private ChatMessageRepository chatMessageRepository;
     @Autowired private ChatSessionRepository chatSessionRepository;
     @Autowired private JargonExpander jargonExpander;
+    @Autowired private JargonService jargonService;
     @Autowired private ConfidenceRouter confidenceRouter;
+    @Autowired private NormalizationResolver normalizationResolver;
+    @Autowired private ManufacturerService manufacturerService;
+    @Autowired private ExtractionCache extractionCache;
+    @Autowired private MessageProcessingService messageProcessingService;
+    @Autowired private MessageArchiveService messageArchiveService;
+    @Autowired private ProcessingQueueService processingQueueService;
+    @Autowired private ProcessingJobRepository processingJobRepository;
+    @Autowired private MediaDownloadService mediaDownloadService;
+    @Autowired private MediaDownloadRepository mediaDownloadRepository;
+    @Autowired private MediaBlobRepository mediaBlobRepository;
+    @Autowired private MediaStore mediaStore;
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ExchangeRateService exchangeRateService;
+    @Autowired private ExchangeRateRepository exchangeRateRepository;
+    @Autowired private ExchangeRateBackfillJob exchangeRateBackfillJob;
+    @Autowired private ListingService listingService;
+    @Autowired private ListingStatsService listingStatsService;
+    @Autowired private PriceHistoryService priceHistoryService;
+    @Autowired private PriceHistoryRepository priceHistoryRepository;
+    @Autowired private CrossPostClusterService crossPostClusterService;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private EntityManagerFactory entityManagerFactory;
     @Autowired private TestDatabaseCleaner dbCleaner;
 
     private WhatsappGroup testGroup;
@@ -179,6 +277,21 @@ class ProcessingPipelineTest {
             log.info("Verified jargon expansion: {}", expanded);
         }
 
+        @Test
+        @DisplayName("Treats non-ASCII letters next to a term as word boundaries, like regex \\b")
+        void expand_nonAsciiNeighbour_isBoundary() {
+            JargonEntry entry = new JargonEntry();
+            entry.setAcronym("PVC");
+            entry.setExpansion("Polyvinyl Chloride");
+            entry.setSource("human");
+            entry.setConfidence(1.0);
+            entry.setVerified(true);
+            jargonRepository.save(entry);
+
+            assertThat(jargonExpander.expand("Tubo éPVC 2in, 5PVC"))
+                    .isEqualTo("Tubo éPolyvinyl Chloride (PVC) 2in, 5PVC");
+        }
+
         @Test
         @DisplayName("Does not expand unverified jargon terms")
         void expand_unverifiedTerms_notReplaced() {
@@ -251,6 +364,41 @@ class ProcessingPipelineTest {
             assertThat(expanded).contains("NOS");
             log.info("Verified word boundary matching: {}", expanded);
         }
+
+        @Test
+        @DisplayName("Expands several acronyms in one pass, preferring the longest match")
+        void expand_multipleTerms_longestMatchWins() {
+            for (String[] pair : new String[][]{
+                    {"RO", "Royal Oak"}, {"ROO", "Royal Oak Offshore"}, {"FS", "Full Set"}}) {
+                JargonEntry entry = new JargonEntry();
+                entry.setAcronym(pair[0]);
+                entry.setExpansion(pair[1]);
+                entry.setSource("seed");
+                entry.setConfidence(1.0);
+                entry.setVerified(true);
+                jargonRepository.save(entry);
+            }
+
+            String expanded = jargonExpander.expand("WTS ROO 26400 fs, also RO 15500 FS");
+
+            assertThat(expanded).isEqualTo(
+                    "WTS Royal Oak Offshore (ROO) 26400 Full Set (fs), "
+                            + "also Royal Oak (RO) 15500 Full Set (fs)");
+        }
+
+        @Test
+        @DisplayName("Rebuilds the matcher after JargonService evicts the jargon cache")
+        void expand_afterCreate_matcherRebuilt() {
+            assertThat(jargonExpander.expand("Selling SS Sub")).isEqualTo("Selling SS Sub");
+
+            JargonCreateRequest request = new JargonCreateRequest();
+            request.setAcronym("SS");
+            request.setExpansion("Stainless Steel");
+            jargonService.create(request);
+
+            assertThat(jargonExpander.expand("Selling SS Sub"))
+                    .isEqualTo("Selling Stainless Steel (SS) Sub");
+        }
     }
 
     // =========================================================================
@@ -374,6 +522,40 @@ class ProcessingPipelineTest {
             log.info("Verified normalized field resolution for listing {}", listing.getId());
         }
 
+        @Test
+        @DisplayName("Resolves from the normalization snapshot and rebuilds it on admin edits")
+        void route_snapshotRefreshedOnChange() {
+            Manufacturer mfr = new Manufacturer();
+            mfr.setName("Parker Hannifin");
+            mfr.setIsActive(true);
+            manufacturerRepository.save(mfr);
+
+            RawMessage msg = createRawMessage("route-snapshot-001", "Selling Parker valves");
+            ExtractionResult result = buildExtractionResult("sell", 0.9, List.of(
+                    buildItem("Parker valves", null, "  PARKER hannifin ", null, null, null, null),
+                    buildItem("Swagelok fittings", null, "Swagelok", null, null, null, null)));
+
+            List<Listing> listings = confidenceRouter.route(result, msg);
+            long version = normalizationResolver.snapshot().getVersion();
+
+            assertThat(listings.get(0).getManufacturer()).isNotNull();
+            assertThat(listings.get(0).getManufacturer().getName()).isEqualTo("Parker Hannifin");
+            assertThat(listings.get(1).getManufacturer()).isNull();
+
+            // Creating a manufacturer through the service evicts the snapshot
+            ManufacturerRequest request = new ManufacturerRequest();
+            request.setName("Swagelok");
+            manufacturerService.create(request);
+
+            RawMessage msg2 = createRawMessage("route-snapshot-002", "Selling Swagelok fittings");
+            List<Listing> second = confidenceRouter.route(buildExtractionResult("sell", 0.9, List.of(
+                    buildItem("Swagelok fittings", null, "swagelok", null, null, null, null))), msg2);
+
+            assertThat(normalizationResolver.snapshot().getVersion()).isGreaterThan(version);
+            assertThat(second.get(0).getManufacturer()).isNotNull();
+            assertThat(second.get(0).getManufacturer().getName()).isEqualTo("Swagelok");
+        }
+
         @Test
         @DisplayName("Leaves FK null when normalized value is not found")
         void route_unknownNormalizedValues_leavesNull() {
@@ -422,6 +604,70 @@ class ProcessingPipelineTest {
             log.info("Verified multiple items: {} listings created", listings.size());
         }
 
+        @Test
+        @DisplayName("Persists a multi-item price list with batched inserts")
+        void route_priceList_insertsInJdbcBatches() {
+            RawMessage msg = createRawMessage("route-batch-001", "Price list: 20 watches");
+            List<ExtractionResult.ExtractedItem> items = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                items.add(buildItem("Watch ref " + i, null, null, 1.0, null, null, null));
+            }
+
+            Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            boolean wasEnabled = stats.isStatisticsEnabled();
+            stats.setStatisticsEnabled(true);
+            stats.clear();
+            try {
+                List<Listing> listings = confidenceRouter.route(buildExtractionResult("sell", 0.9, items), msg);
+
+                assertThat(listings).hasSize(20).allMatch(l -> l.getId() != null);
+                assertThat(listingRepository.count()).isEqualTo(20);
+                assertThat(stats.getEntityInsertCount()).isEqualTo(20);
+                assertThat(stats.getEntityUpdateCount()).isZero();
+                // Without batching each insert would be its own statement; the commit adds
+                // one INSERT and one UPDATE for the single listing_stat_counters row touched
+                assertThat(stats.getPrepareStatementCount()).isLessThan(10 + 2);
+            } finally {
+                stats.setStatisticsEnabled(wasEnabled);
+            }
+        }
+
+        @Test
+        @DisplayName("Tracker work for a price list with part numbers does not grow with its length")
+        void route_priceListWithPartNumbers_trackerStatementsPerFlush() {
+            RawMessage msg = createRawMessage("route-batch-002", "Price list: 20 referenced watches");
+            msg.setSenderName("Ali");
+            msg = rawMessageRepository.save(msg);
+            List<ExtractionResult.ExtractedItem> items = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                ExtractionResult.ExtractedItem item = buildItem("Watch ref " + i, null, null, 1.0, null,
+                        1000.0 + i, null);
+                item.setPartNumber("REF-" + i);
+                items.add(item);
+            }
+
+            Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            boolean wasEnabled = stats.isStatisticsEnabled();
+            stats.setStatisticsEnabled(true);
+            stats.clear();
+            try {
+                List<Listing> listings = confidenceRouter.route(buildExtractionResult("sell", 0.9, items), msg);
+                long statements = stats.getPrepareStatementCount();
+
+                assertThat(listings).hasSize(20);
+                assertThat(listings).allMatch(l -> listingRepository.findById(l.getId()).orElseThrow()
+                        .getCrossPostClusterId() != null);
+                assertThat(priceHistoryRepository.count()).isEqualTo(20);
+                // Batched listing inserts as above; the stats counter adds 2, price history
+                // 5 (ensure, lock, read, delete, insert) and cross-posts 8 (read, owners,
+                // clusters, identities, re-check, assign, lock, recount), however many
+                // buckets and clusters the list touches
+                assertThat(statements).isLessThan(10 + 2 + 5 + 8);
+            } finally {
+                stats.setStatisticsEnabled(wasEnabled);
+            }
+        }
+
         @Test
         @DisplayName("Resolves unit by abbreviation when name lookup fails")
         void route_unitByAbbreviation_resolved() {
@@ -488,6 +734,616 @@ class ProcessingPipelineTest {
         }
     }
 
+    // =========================================================================
+    // Exchange rate tests
+    // =========================================================================
+
+    @Nested
+    @DisplayName("Exchange rates")
+    class ExchangeRateTests {
+
+        private LocalDate mostRecentSaturday() {
+            LocalDate day = LocalDate.now().minusDays(1);
+            while (day.getDayOfWeek() != DayOfWeek.SATURDAY) {
+                day = day.minusDays(1);
+            }
+            return day;
+        }
+
+        private Listing createPricedListing(String description, String price, String currency) {
+            RawMessage msg = createRawMessage("fx-" + description, description);
+            Listing listing = new Listing();
+            listing.setRawMessage(msg);
+            listing.setGroup(testGroup);
+            listing.setIntent(IntentType.sell);
+            listing.setItemDescription(description);
+            listing.setOriginalText(description);
+            listing.setPrice(new BigDecimal(price));
+            listing.setPriceCurrency(currency);
+            return listingRepository.save(listing);
+        }
+
+        @Test
+        @DisplayName("Prefetch stores daily rates; weekends fall back to the prior business day")
+        void prefetch_storesRates_weekendFallsBackToFriday() {
+            int inserted = exchangeRateService.prefetch();
+
+            assertThat(inserted).isPositive();
+            assertThat(exchangeRateRepository.count()).isEqualTo(inserted);
+            // Nothing new to fetch until the next day
+            assertThat(exchangeRateService.prefetch()).isZero();
+
+            LocalDate saturday = mostRecentSaturday();
+            assertThat(exchangeRateRepository.existsById(new ExchangeRate.Key(saturday, "EUR"))).isFalse();
+            assertThat(exchangeRateService.getRateToUsd("EUR", saturday)).isEqualByComparingTo("1.10");
+            assertThat(exchangeRateService.getRateToUsd("eur", saturday.plusDays(1))).isEqualByComparingTo("1.10");
+            assertThat(exchangeRateService.getRateToUsd("USD", saturday)).isEqualByComparingTo("1");
+
+            // Unknown currency, and a day older than anything prefetched within the fallback window
+            assertThat(exchangeRateService.getRateToUsd("JPY", saturday)).isNull();
+            assertThat(exchangeRateService.getRateToUsd("EUR", LocalDate.now().minusDays(60))).isNull();
+        }
+
+        @Test
+        @DisplayName("Prefetch reloads rates another instance stored even when it inserts nothing")
+        void prefetch_nothingNew_stillReloads() {
+            exchangeRateService.prefetch();
+            LocalDate latest = exchangeRateRepository.findLatestRateDate();
+            ExchangeRate other = new ExchangeRate();
+            other.setRateDate(latest);
+            other.setCurrency("JPY");
+            other.setRateToUsd(new BigDecimal("0.0067"));
+            other.setSource("other-instance");
+            exchangeRateRepository.save(other);
+            assertThat(exchangeRateService.getRateToUsd("JPY", latest)).isNull();
+
+            assertThat(exchangeRateService.prefetch()).isZero();
+
+            assertThat(exchangeRateService.getRateToUsd("JPY", latest)).isEqualByComparingTo("0.0067");
+        }
+
+        @Test
+        @DisplayName("Routing prices a listing in USD from the stored rates")
+        void route_pricesFromStoredRates() {
+            exchangeRateService.prefetch();
+            RawMessage msg = createRawMessage("fx-route-001", "Selling valve 100 EUR");
+            ExtractionResult.ExtractedItem item = buildItem("Valve", null, null, 1.0, null, 100.0, null);
+            item.setCurrency("EUR");
+
+            List<Listing> listings = confidenceRouter.route(buildExtractionResult("sell", 0.9, List.of(item)), msg);
+
+            assertThat(listings).hasSize(1);
+            assertThat(listings.get(0).getExchangeRateToUsd()).isEqualByComparingTo("1.10");
+            assertThat(listings.get(0).getPriceUsd()).isEqualByComparingTo("110.0000");
+        }
+
+        @Test
+        @DisplayName("Backfill job updates listings in keyset chunks and skips unknown currencies")
+        void backfillJob_fillsMissingRatesInChunks() throws Exception {
+            ExchangeRateBackfillProgress before = exchangeRateBackfillJob.getProgress();
+            exchangeRateService.prefetch();
+            // The prefetch starts a background run over the (empty) backlog; let it finish
+            long deadline = System.currentTimeMillis() + 10_000;
+            while ((exchangeRateBackfillJob.getProgress() == before || exchangeRateBackfillJob.isRunning())
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Listing gbp = createPricedListing("GBP pump", "200", "GBP");
+            Listing usd = createPricedListing("USD pump", "50", "USD");
+            Listing jpy = createPricedListing("JPY pump", "1000", "JPY");
+            Listing eur = createPricedListing("EUR pump", "10", "EUR");
+
+            assertThat(exchangeRateBackfillJob.run()).isTrue();
+
+            ExchangeRateBackfillProgress progress = exchangeRateBackfillJob.getProgress();
+            assertThat(progress.isFinished()).isTrue();
+            assertThat(progress.getError()).isNull();
+            assertThat(progress.getInitialBacklog()).isEqualTo(4);
+            // chunk-size is 2 in the test profile
+            assertThat(progress.getChunks()).isEqualTo(2);
+            assertThat(progress.getUpdated()).isEqualTo(3);
+            assertThat(progress.getSkipped()).isEqualTo(1);
+
+            Listing gbpAfter = listingRepository.findById(gbp.getId()).orElseThrow();
+            assertThat(gbpAfter.getExchangeRateToUsd()).isEqualByComparingTo("1.25");
+            assertThat(gbpAfter.getPriceUsd()).isEqualByComparingTo("250.0000");
+            assertThat(listingRepository.findById(usd.getId()).orElseThrow().getPriceUsd())
+                    .isEqualByComparingTo("50.0000");
+            assertThat(listingRepository.findById(eur.getId()).orElseThrow().getPriceUsd())
+                    .isEqualByComparingTo("11.0000");
+            Listing jpyAfter = listingRepository.findById(jpy.getId()).orElseThrow();
+            assertThat(jpyAfter.getExchangeRateToUsd()).isNull();
+            assertThat(jpyAfter.getPriceUsd()).isNull();
+
+            // A rerun only revisits the listing that still has no rate
+            assertThat(exchangeRateBackfillJob.run()).isTrue();
+            assertThat(exchangeRateBackfillJob.getProgress().getInitialBacklog()).isEqualTo(1);
+            assertThat(exchangeRateBackfillJob.getProgress().getUpdated()).isZero();
+        }
+    }
+
+    // =========================================================================
+    // Listing statistics tests
+    // =========================================================================
+
+    @Nested
+    @DisplayName("Materialized listing statistics")
+    class ListingStatsTests {
+
+        private Listing createListing(String description, IntentType intent, Manufacturer manufacturer) {
+            RawMessage msg = createRawMessage("stats-" + description, description);
+            Listing listing = new Listing();
+            listing.setRawMessage(msg);
+            listing.setGroup(testGroup);
+            listing.setIntent(intent);
+            listing.setItemDescription(description);
+            listing.setOriginalText(description);
+            listing.setManufacturer(manufacturer);
+            return listingRepository.save(listing);
+        }
+
+        private Manufacturer createManufacturer(String name) {
+            Manufacturer mfr = new Manufacturer();
+            mfr.setName(name);
+            mfr.setIsActive(true);
+            return manufacturerRepository.save(mfr);
+        }
+
+        private void assertMatchesRebuild() {
+            ListingStatsSnapshot incremental = listingStatsService.snapshot();
+            listingStatsService.rebuild();
+            ListingStatsSnapshot rebuilt = listingStatsService.snapshot();
+
+            assertThat(incremental.total()).isEqualTo(rebuilt.total()).isEqualTo(listingRepository.count());
+            assertThat(incremental.byStatus()).isEqualTo(rebuilt.byStatus());
+            assertThat(incremental.byIntent()).isEqualTo(rebuilt.byIntent());
+            assertThat(incremental.activeByManufacturer()).isEqualTo(rebuilt.activeByManufacturer());
+            assertThat(incremental.activeByGroup()).isEqualTo(rebuilt.activeByGroup());
+        }
+
+        @Test
+        @DisplayName("Inserts, status changes and soft deletes update the counters on commit")
+        void counters_trackEntityChanges() {
+            Manufacturer parker = createManufacturer("Parker");
+            Listing valve = createListing("valve", IntentType.sell, parker);
+            createListing("pump", IntentType.sell, parker);
+            createListing("gauge", IntentType.want, null);
+            RawMessage msg = createRawMessage("stats-route", "Selling seals and hoses");
+            confidenceRouter.route(buildExtractionResult("sell", 0.9, List.of(
+                    buildItem("Seal", null, null, 1.0, null, null, null),
+                    buildItem("Hose", null, null, 1.0, null, null, null))), msg);
+
+            ListingStatsSnapshot stats = listingStatsService.snapshot();
+            assertThat(stats.total()).isEqualTo(5);
+            assertThat(stats.countByIntent(IntentType.sell)).isEqualTo(4);
+            assertThat(stats.countByIntent(IntentType.want)).isEqualTo(1);
+            assertThat(stats.countByStatusNotDeleted(ListingStatus.active)).isEqualTo(5);
+            assertThat(stats.activeByManufacturer())
+                    .containsExactly(Map.entry(ListingStatsSnapshot.UNSPECIFIED, 3L), Map.entry("Parker", 2L));
+            assertThat(stats.activeByGroup()).containsExactly(Map.entry("Pipeline Test Group", 5L));
+
+            valve.setStatus(ListingStatus.sold);
+            listingRepository.save(valve);
+            Listing gauge = listingRepository.findAll().stream()
+                    .filter(l -> "gauge".equals(l.getItemDescription())).findFirst().orElseThrow();
+            listingService.softDelete(gauge.getId(), testUser);
+
+            stats = listingStatsService.snapshot();
+            assertThat(stats.total()).isEqualTo(5);
+            assertThat(stats.countByStatus(ListingStatus.sold)).isEqualTo(1);
+            assertThat(stats.countByStatusNotDeleted(ListingStatus.active)).isEqualTo(3);
+            assertThat(stats.activeByManufacturer()).containsEntry("Parker", 1L);
+            assertThat(listingService.getStats().getTotal()).isEqualTo(4);
+            assertThat(listingService.getStats().getByManufacturer()).containsEntry("Parker", 1L);
+
+            assertMatchesRebuild();
+        }
+
+        @Test
+        @DisplayName("Bulk expiry and reprocessing resets adjust the counters")
+        void counters_trackBulkStatements() {
+            Listing old = createListing("old valve", IntentType.sell, null);
+            old.setExpiresAt(OffsetDateTime.now().minusDays(1));
+            listingRepository.save(old);
+            Listing sold = createListing("sold pump", IntentType.sell, null);
+            sold.setStatus(ListingStatus.sold);
+            listingRepository.save(sold);
+            createListing("fresh gauge", IntentType.want, null);
+
+            listingService.expireListings();
+
+            ListingStatsSnapshot stats = listingStatsService.snapshot();
+            assertThat(stats.countByStatus(ListingStatus.expired)).isEqualTo(1);
+            assertThat(stats.countByStatus(ListingStatus.active)).isEqualTo(1);
+            assertMatchesRebuild();
+
+            messageProcessingService.resetForReprocessing();
+
+            stats = listingStatsService.snapshot();
+            // Only the sold listing survives a reset
+            assertThat(stats.total()).isEqualTo(1);
+            assertThat(stats.countByStatus(ListingStatus.sold)).isEqualTo(1);
+            assertMatchesRebuild();
+        }
+
+        @Test
+        @DisplayName("Rolled-back changes are not counted")
+        void counters_ignoreRolledBackTransactions() {
+            createListing("kept", IntentType.sell, null);
+
+            assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+                createListing("discarded", IntentType.sell, null);
+                throw new IllegalStateException("rollback");
+            })).isInstanceOf(IllegalStateException.class);
+
+            assertThat(listingStatsService.snapshot().total()).isEqualTo(1);
+            assertMatchesRebuild();
+        }
+    }
+
+    // =========================================================================
+    // Price history tests
+    // =========================================================================
+
+    @Nested
+    @DisplayName("Price history aggregates")
+    class PriceHistoryTests {
+
+        private List<Listing> routeReference(String msgId, String partNumber, double... prices) {
+            RawMessage msg = createRawMessage(msgId, "Selling " + partNumber);
+            List<ExtractionResult.ExtractedItem> items = new ArrayList<>();
+            for (double price : prices) {
+                ExtractionResult.ExtractedItem item = buildItem("Submariner", null, null, 1.0, null, price, null);
+                item.setPartNumber(partNumber);
+                item.setModelName("Submariner Date");
+                items.add(item);
+            }
+            return confidenceRouter.route(buildExtractionResult("sell", 0.9, items), msg);
+        }
+
+        private PriceHistoryPointDTO onlyPoint(String partNumber) {
+            PriceHistoryDTO history = priceHistoryService.getHistory(partNumber, null, null, null, null, null, "day");
+            assertThat(history.getPoints()).hasSize(1);
+            return history.getPoints().get(0);
+        }
+
+        @Test
+        @DisplayName("Routed listings are aggregated per part number and day with an exact median")
+        void route_aggregatesDailyBucket() {
+            routeReference("ph-001", "126610ln", 12000, 10000);
+            routeReference("ph-002", " 126610LN ", 11000, 15000);
+
+            PriceHistoryPointDTO point = onlyPoint("126610LN");
+            assertThat(point.getCurrency()).isEqualTo("USD");
+            assertThat(point.getPeriodStart()).isEqualTo(LocalDate.now(ZoneOffset.UTC));
+            assertThat(point.getListingCount()).isEqualTo(4);
+            assertThat(point.getSoldCount()).isZero();
+            assertThat(point.getMinPrice()).isEqualByComparingTo("10000");
+            assertThat(point.getMaxPrice()).isEqualByComparingTo("15000");
+            assertThat(point.getMedianPrice()).isEqualByComparingTo("11500");
+
+            // Model lookup, and a monthly roll-up of a single day, give the same figures
+            PriceHistoryDTO byModel = priceHistoryService.getHistory(
+                    null, "submariner", null, "usd", null, null, "month");
+            assertThat(byModel.getPoints()).singleElement().satisfies(p -> {
+                assertThat(p.getListingCount()).isEqualTo(4);
+                assertThat(p.getMedianPrice()).isEqualByComparingTo("11500");
+                assertThat(p.getPeriodStart()).isEqualTo(LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1));
+            });
+        }
+
+        @Test
+        @DisplayName("A 'Sold' reply and a soft delete recompute the bucket")
+        void soldReplyAndDelete_recomputeBucket() {
+            List<Listing> sold = routeReference("ph-sold", "5711/1A", 90000);
+            List<Listing> others = routeReference("ph-other", "5711/1A", 80000, 100000);
+
+            RawMessage reply = createRawMessage("ph-sold-reply", "Sold");
+            reply.setReplyToMsgId("ph-sold");
+            rawMessageRepository.save(reply);
+            messageProcessingService.processMessageSync(reply.getId());
+
+            PriceHistoryPointDTO point = onlyPoint("5711/1a");
+            assertThat(listingRepository.findById(sold.get(0).getId()).orElseThrow().getStatus())
+                    .isEqualTo(ListingStatus.sold);
+            assertThat(point.getSoldCount()).isEqualTo(1);
+            assertThat(point.getListingCount()).isEqualTo(3);
+
+            listingService.softDelete(others.get(1).getId(), testUser);
+
+            point = onlyPoint("5711/1A");
+            assertThat(point.getListingCount()).isEqualTo(2);
+            assertThat(point.getMaxPrice()).isEqualByComparingTo("90000");
+            assertThat(point.getMedianPrice()).isEqualByComparingTo("85000");
+        }
+
+        @Test
+        @DisplayName("Want and unpriced listings write no bucket, and a bucket emptied of listings is removed")
+        void untrackedListings_leaveNoRows() {
+            RawMessage wantMsg = createRawMessage("ph-want", "WTB 116500LN");
+            ExtractionResult.ExtractedItem wanted = buildItem("Daytona", null, null, 1.0, null, 25000.0, null);
+            wanted.setPartNumber("116500LN");
+            confidenceRouter.route(buildExtractionResult("want", 0.9, List.of(wanted)), wantMsg);
+
+            RawMessage unpricedMsg = createRawMessage("ph-unpriced", "Selling 116500LN, DM for price");
+            ExtractionResult.ExtractedItem unpriced = buildItem("Daytona", null, null, 1.0, null, null, null);
+            unpriced.setPartNumber("116500LN");
+            confidenceRouter.route(buildExtractionResult("sell", 0.9, List.of(unpriced)), unpricedMsg);
+
+            assertThat(listingRepository.count()).isEqualTo(2);
+            assertThat(priceHistoryRepository.count()).isZero();
+
+            List<Listing> priced = routeReference("ph-priced", "116500LN", 30000);
+            assertThat(priceHistoryRepository.count()).isEqualTo(1);
+
+            listingService.softDelete(priced.get(0).getId(), testUser);
+            assertThat(priceHistoryRepository.count()).isZero();
+        }
+
+        @Test
+        @DisplayName("Concurrent writers to one bucket update its row in place with exact figures")
+        void concurrentWriters_updateBucketInPlace() throws Exception {
+            routeReference("ph-seed", "126710BLRO", 10000);
+
+            List<CompletableFuture<List<Listing>>> writers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                double price = 11000 + i * 1000;
+                String msgId = "ph-writer-" + i;
+                writers.add(CompletableFuture.supplyAsync(() -> routeReference(msgId, "126710BLRO", price)));
+            }
+            CompletableFuture.allOf(writers.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+            PriceHistoryPointDTO point = onlyPoint("126710BLRO");
+            assertThat(point.getListingCount()).isEqualTo(5);
+            assertThat(point.getMinPrice()).isEqualByComparingTo("10000");
+            assertThat(point.getMaxPrice()).isEqualByComparingTo("14000");
+            assertThat(point.getMedianPrice()).isEqualByComparingTo("12000");
+            assertThat(priceHistoryRepository.count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Queries without a part number or model are rejected")
+        void getHistory_requiresPartNumberOrModel() {
+            assertThatThrownBy(() -> priceHistoryService.getHistory(null, " ", null, null, null, null, null))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> priceHistoryService.getHistory("126610LN", null, null, null, null, null, "year"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    // =========================================================================
+    // Cross-post cluster tests
+    // =========================================================================
+
+    @Nested
+    @DisplayName("Cross-post clusters")
+    class CrossPostTests {
+
+        private Listing routeFrom(String msgId, WhatsappGroup group, String senderName, String senderPhone,
+                                  String partNumber) {
+            RawMessage msg = createRawMessage(msgId, "Selling " + partNumber);
+            msg.setGroup(group);
+            msg.setSenderName(senderName);
+            msg.setSenderPhone(senderPhone);
+            msg = rawMessageRepository.save(msg);
+            ExtractionResult.ExtractedItem item = buildItem("Pump seal kit", null, null, 1.0, null, 250.0, null);
+            item.setPartNumber(partNumber);
+            return confidenceRouter.route(buildExtractionResult("sell", 0.9, List.of(item)), msg).get(0);
+        }
+
+        private WhatsappGroup otherGroup(int number) {
+            WhatsappGroup group = new WhatsappGroup();
+            group.setWhapiGroupId("pipeline-test-group-" + number + "@g.us");
+            group.setGroupName("Test Group " + number);
+            group.setIsActive(true);
+            return groupRepository.save(group);
+        }
+
+        private Map<UUID, Integer> counts(Listing... listings) {
+            List<ListingDTO> dtos = new ArrayList<>();
+            for (Listing listing : listings) {
+                ListingDTO dto = new ListingDTO();
+                dto.setId(listing.getId());
+                dtos.add(dto);
+            }
+            listingService.enrichWithCrossPostCounts(dtos);
+            Map<UUID, Integer> counts = new HashMap<>();
+            dtos.forEach(dto -> counts.put(dto.getId(), dto.getCrossPostCount()));
+            return counts;
+        }
+
+        private UUID clusterOf(Listing listing) {
+            return listingRepository.findById(listing.getId()).orElseThrow().getCrossPostClusterId();
+        }
+
+        @Test
+        @DisplayName("The same part from the same sender is clustered across groups and part-number spellings")
+        void route_clustersSameSenderAndPart() {
+            WhatsappGroup second = otherGroup(2);
+            Listing first = routeFrom("xp-001", testGroup, "Ali", "971500000001", "ABC-123");
+            Listing repost = routeFrom("xp-002", second, "ali ", null, " abc-123");
+            Listing sameGroup = routeFrom("xp-005", testGroup, "Ali", null, "ABC-123");
+            Listing otherPart = routeFrom("xp-003", second, "Ali", "971500000001", "XYZ-9");
+            Listing otherSender = routeFrom("xp-004", testGroup, "Omar", "971500000002", "ABC-123");
+
+            assertThat(clusterOf(first)).isNotNull().isEqualTo(clusterOf(repost)).isEqualTo(clusterOf(sameGroup));
+            assertThat(clusterOf(otherPart)).isNotEqualTo(clusterOf(first));
+            assertThat(clusterOf(otherSender)).isNotEqualTo(clusterOf(first));
+
+            // Re-posts in the same group share the cluster but are not counted as cross-posts
+            Map<UUID, Integer> counts = counts(first, repost, sameGroup, otherPart, otherSender);
+            assertThat(counts.get(first.getId())).isEqualTo(1);
+            assertThat(counts.get(repost.getId())).isEqualTo(2);
+            assertThat(counts.get(sameGroup.getId())).isEqualTo(1);
+            assertThat(counts.get(otherPart.getId())).isZero();
+            assertThat(counts.get(otherSender.getId())).isZero();
+
+            assertThat(listingService.getCrossPosts(first.getId()))
+                    .extracting(CrossPostDTO::getId).containsExactly(repost.getId());
+        }
+
+        @Test
+        @DisplayName("A listing linking two clusters by name and phone merges them; soft deletes drop out of the count")
+        void route_mergesClustersTransitively() {
+            Listing byName = routeFrom("xp-101", testGroup, "Ali", null, "ABC-123");
+            Listing byPhone = routeFrom("xp-102", otherGroup(2), "Ali Trading", "971500000001", "ABC-123");
+            assertThat(clusterOf(byName)).isNotEqualTo(clusterOf(byPhone));
+
+            Listing bridge = routeFrom("xp-103", otherGroup(3), "Ali", "971500000001", "ABC-123");
+            UUID cluster = clusterOf(bridge);
+            assertThat(clusterOf(byName)).isEqualTo(cluster);
+            assertThat(clusterOf(byPhone)).isEqualTo(cluster);
+            assertThat(counts(byName, byPhone, bridge).values()).containsOnly(2);
+
+            listingService.softDelete(bridge.getId(), testUser);
+
+            // The deleted listing still links the other two, but is no longer counted or returned
+            assertThat(counts(byName, byPhone).values()).containsOnly(1);
+            assertThat(listingService.getCrossPosts(byName.getId()))
+                    .extracting(CrossPostDTO::getId).containsExactly(byPhone.getId());
+        }
+
+        @Test
+        @DisplayName("Listings written in one transaction are clustered together with existing clusters")
+        void route_clustersWholeFlushAtOnce() {
+            Listing existing = routeFrom("xp-301", otherGroup(2), "Ali", null, "ABC-123");
+
+            RawMessage msg = createRawMessage("xp-302", "Selling ABC-123 x2 and XYZ-9");
+            msg.setSenderName("Ali");
+            msg.setSenderPhone("971500000001");
+            msg = rawMessageRepository.save(msg);
+            List<ExtractionResult.ExtractedItem> items = new ArrayList<>();
+            for (String partNumber : List.of("ABC-123", "abc-123", "XYZ-9")) {
+                ExtractionResult.ExtractedItem item = buildItem("Pump seal kit", null, null, 1.0, null, 250.0, null);
+                item.setPartNumber(partNumber);
+                items.add(item);
+            }
+            List<Listing> routed = confidenceRouter.route(buildExtractionResult("sell", 0.9, items), msg);
+
+            UUID cluster = clusterOf(existing);
+            assertThat(clusterOf(routed.get(0))).isEqualTo(cluster);
+            assertThat(clusterOf(routed.get(1))).isEqualTo(cluster);
+            assertThat(clusterOf(routed.get(2))).isNotNull().isNotEqualTo(cluster);
+
+            // Items of the same message are not cross-posts of each other
+            assertThat(counts(existing, routed.get(0), routed.get(1)))
+                    .containsEntry(existing.getId(), 2)
+                    .containsEntry(routed.get(0).getId(), 1)
+                    .containsEntry(routed.get(1).getId(), 1);
+        }
+
+        @Test
+        @DisplayName("A rebuild reproduces the incrementally assigned clusters")
+        void rebuild_matchesIncrementalClusters() {
+            Listing a = routeFrom("xp-201", testGroup, "Ali", null, "ABC-123");
+            Listing b = routeFrom("xp-202", testGroup, "Ali Trading", "971500000001", "ABC-123");
+            Listing c = routeFrom("xp-203", testGroup, "Ali", "971500000001", "ABC-123");
+            Listing d = routeFrom("xp-204", testGroup, "Omar", null, "ABC-123");
+            Map<UUID, Integer> before = counts(a, b, c, d);
+
+            assertThat(crossPostClusterService.rebuild()).isEqualTo(2);
+
+            assertThat(counts(a, b, c, d)).isEqualTo(before);
+            assertThat(clusterOf(a)).isEqualTo(clusterOf(b)).isEqualTo(clusterOf(c)).isNotEqualTo(clusterOf(d));
+
+            // New listings keep joining the rebuilt clusters
+            Listing e = routeFrom("xp-205", testGroup, "Omar", null, "abc-123");
+            assertThat(clusterOf(e)).isEqualTo(clusterOf(d));
+
+            // Listings without a sender are never clustered, so they do not trigger a startup rebuild
+            Listing anonymous = routeFrom("xp-206", testGroup, null, null, "ABC-123");
+            assertThat(clusterOf(anonymous)).isNull();
+            assertThat(listingRepository.existsUnclusteredPartNumber()).isFalse();
+        }
+    }
+
+    // =========================================================================
+    // Listing read model tests
+    // =========================================================================
+
+    @Nested
+    @DisplayName("Listing list read model")
+    class ListingReadModelTests {
+
+        private Listing createListing(int i, WhatsappGroup group) {
+            Category category = new Category();
+            category.setName("Category " + i);
+            category.setIsActive(true);
+            Manufacturer mfr = new Manufacturer();
+            mfr.setName("Maker " + i);
+            mfr.setIsActive(true);
+            Unit unit = new Unit();
+            unit.setName("unit " + i);
+            unit.setAbbreviation("u" + i);
+            unit.setIsActive(true);
+            Condition cond = new Condition();
+            cond.setName("Condition " + i);
+            cond.setIsActive(true);
+
+            Listing listing = new Listing();
+            listing.setRawMessage(createRawMessage("read-" + i, "Selling item " + i));
+            listing.setGroup(group);
+            listing.setIntent(IntentType.sell);
+            listing.setItemDescription("Item " + i);
+            listing.setOriginalText("Selling item " + i);
+            listing.setItemCategory(categoryRepository.save(category));
+            listing.setManufacturer(manufacturerRepository.save(mfr));
+            listing.setUnit(unitRepository.save(unit));
+            listing.setCondition(conditionRepository.save(cond));
+            listing.setPrice(BigDecimal.valueOf(100 + i));
+            listing.setPriceCurrency("USD");
+            return listingRepository.save(listing);
+        }
+
+        @Test
+        @DisplayName("A page of listings is read with a bounded number of statements")
+        void list_boundedStatementCount() {
+            WhatsappGroup second = new WhatsappGroup();
+            second.setWhapiGroupId("pipeline-test-group-3@g.us");
+            second.setGroupName("Third Test Group");
+            second.setIsActive(true);
+            second = groupRepository.save(second);
+            for (int i = 0; i < 8; i++) {
+                createListing(i, i % 2 == 0 ? testGroup : second);
+            }
+
+            ListingSearchRequest request = new ListingSearchRequest();
+            request.setSize(20);
+
+            Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            boolean wasEnabled = stats.isStatisticsEnabled();
+            stats.setStatisticsEnabled(true);
+            stats.clear();
+            try {
+                List<ListingDTO> page = listingService.list(request).getContent();
+                // One SELECT for the rows; the count is skipped since the page is not full
+                assertThat(stats.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+                assertThat(stats.getEntityLoadCount()).isZero();
+
+                assertThat(page).hasSize(8);
+                ListingDTO seven = page.stream()
+                        .filter(dto -> "Item 7".equals(dto.getItemDescription()))
+                        .findFirst().orElseThrow();
+                assertThat(seven.getGroupName()).isEqualTo("Third Test Group");
+                assertThat(seven.getItemCategoryName()).isEqualTo("Category 7");
+                assertThat(seven.getManufacturerName()).isEqualTo("Maker 7");
+                assertThat(seven.getUnitName()).isEqualTo("unit 7");
+                assertThat(seven.getConditionName()).isEqualTo("Condition 7");
+                assertThat(seven.getPrice()).isEqualByComparingTo("107");
+                assertThat(seven.getRawMessageId()).isNotNull();
+
+                stats.clear();
+                request.setSize(3);
+                CursorPage<ListingDTO> feed = listingService.listByCursor(request);
+                assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+                assertThat(feed.getContent()).hasSize(3).allMatch(dto -> dto.getManufacturerName() != null);
+                assertThat(feed.getNextCursor()).isNotNull();
+            } finally {
+                stats.setStatisticsEnabled(wasEnabled);
+            }
+        }
+    }
+
     // =========================================================================
     // ExtractionResult parsing tests
     // =========================================================================
@@ -586,6 +1442,617 @@ class ProcessingPipelineTest {
         }
     }
 
+    // =========================================================================
+    // ExtractionCache tests
+    // =========================================================================
+
+    @Nested
+    @DisplayName("ExtractionCache")
+    class ExtractionCacheTests {
+
+        private ExtractionResult llmResult() {
+            ExtractionResult result = new ExtractionResult();
+            result.setIntent("sell");
+            ExtractionResult.ExtractedItem item = new ExtractionResult.ExtractedItem();
+            item.setDescription("Rolex Submariner 126610LN");
+            item.setPartNumber("126610LN");
+            item.setPrice(12500.0);
+            result.setItems(List.of(item));
+            result.setUnknownTerms(List.of("BNIB"));
+            result.setConfidence(0.91);
+            result.setInputTokens(800);
+            result.setOutputTokens(120);
+            result.setModelUsed("gpt-4o-mini");
+            return result;
+        }
+
+        @Test
+        @DisplayName("Returns the stored result for identical text without cost fields")
+        void get_afterPut_returnsMemoizedResult() {
+            String text = "WTS Rolex Submariner 126610LN BNIB 12.5k";
+            assertThat(extractionCache.get(text)).isEmpty();
+
+            extractionCache.put(text, llmResult());
+
+            ExtractionResult cached = extractionCache.get(text).orElseThrow();
+            assertThat(cached.getIntent()).isEqualTo("sell");
+            assertThat(cached.getConfidence()).isEqualTo(0.91);
+            assertThat(cached.getUnknownTerms()).containsExactly("BNIB");
+            assertThat(cached.getItems()).hasSize(1);
+            assertThat(cached.getItems().get(0).getPartNumber()).isEqualTo("126610LN");
+            assertThat(cached.getInputTokens()).isZero();
+            assertThat(cached.getOutputTokens()).isZero();
+            assertThat(extractionCache.get(text + " ")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Does not store fallback results from failed extractions")
+        void put_fallbackResult_notCached() {
+            ExtractionResult fallback = new ExtractionResult();
+            fallback.setIntent("unknown");
+            fallback.setConfidence(0.0);
+
+            extractionCache.put("garbled text", fallback);
+
+            assertThat(extractionCache.get("garbled text")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Invalidates entries when the normalization dictionaries change")
+        void get_afterJargonChange_misses() {
+            String text = "WTS Rolex Submariner 126610LN BNIB 12.5k";
+            extractionCache.put(text, llmResult());
+            assertThat(extractionCache.get(text)).isPresent();
+
+            JargonCreateRequest request = new JargonCreateRequest();
+            request.setAcronym("BNIB");
+            request.setExpansion("Brand New In Box");
+            jargonService.create(request);
+
+            assertThat(extractionCache.get(text)).isEmpty();
+        }
+    }
+
+    // =========================================================================
+    // Parallel catchup tests
+    // =========================================================================
+
+    @Nested
+    @DisplayName("Parallel catchup")
+    class CatchupTests {
+
+        /** Starts a run and waits for it, ignoring the finished progress of an earlier test. */
+        private CatchupProgress runCatchupAndWait() throws InterruptedException {
+            CatchupProgress previous = messageProcessingService.getCatchupProgress();
+            messageProcessingService.runCatchup();
+
+            long deadline = System.currentTimeMillis() + 30_000;
+            while ((messageProcessingService.isCatchupRunning()
+                    || messageProcessingService.getCatchupProgress() == previous)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            return messageProcessingService.getCatchupProgress();
+        }
+
+        @Test
+        @DisplayName("Workers drain the backlog without processing any message twice")
+        void runCatchup_drainsBacklogAcrossWorkers() throws Exception {
+            // Blank bodies short-circuit before the LLM, so this exercises claiming only
+            for (int i = 0; i < 15; i++) {
+                createRawMessage("catchup-" + i, "");
+            }
+
+            CatchupProgress progress = runCatchupAndWait();
+            assertThat(progress.isFinished()).isTrue();
+            assertThat(progress.getProcessed()).isEqualTo(15);
+            assertThat(progress.getErrors()).isZero();
+            assertThat(rawMessageRepository.countUnprocessed()).isZero();
+            // Each claim's lease row is removed once its message is done
+            assertThat(processingJobRepository.count()).isZero();
+            assertThat(progress.toMap(0))
+                    .containsEntry("workers", 3)
+                    .containsEntry("initialBacklog", 15L)
+                    .containsKeys("throughputPerMinute", "etaSeconds", "elapsedSeconds");
+        }
+
+        @Test
+        @DisplayName("Workers take over catchup jobs the periodic sweep already queued")
+        void runCatchup_afterSweep_leasesQueuedCatchupJobs() throws Exception {
+            for (int i = 0; i < 15; i++) {
+                createRawMessage("swept-" + i, "");
+            }
+            processingQueueService.sweepUnqueued();
+            assertThat(processingJobRepository.countByLaneAndStatus(ProcessingQueueService.LANE_CATCHUP, "queued"))
+                    .isEqualTo(15);
+
+            CatchupProgress progress = runCatchupAndWait();
+            assertThat(progress.isFinished()).isTrue();
+            assertThat(progress.getProcessed()).isEqualTo(15);
+            assertThat(progress.getErrors()).isZero();
+            assertThat(rawMessageRepository.countUnprocessed()).isZero();
+            assertThat(processingJobRepository.count()).isZero();
+        }
+    }
+
+    // =========================================================================
+    // Processing queue tests
+    // =========================================================================
+
+    @Nested
+    @DisplayName("Processing Queue")
+    class ProcessingQueueTests {
+
+        @Test
+        @DisplayName("Archiving a message queues a live job that a drain processes and removes")
+        void archive_queuesLiveJob_drainProcessesIt() {
+            WhapiMessageDTO.Message dto = new WhapiMessageDTO.Message();
+            dto.setId("queue-live-001");
+            dto.setChatId(testGroup.getWhapiGroupId());
+            dto.setFrom("15550001234@s.whatsapp.net");
+            dto.setTimestamp(1_700_000_000L);
+
+            RawMessage saved = messageArchiveService.archive(dto);
+
+            assertThat(processingJobRepository.findById(saved.getId()))
+                    .hasValueSatisfying(job -> {
+                        assertThat(job.getLane()).isEqualTo(ProcessingQueueService.LANE_LIVE);
+                        assertThat(job.getStatus()).isEqualTo("queued");
+                    });
+
+            assertThat(processingQueueService.drainNow()).isEqualTo(1);
+            assertThat(processingJobRepository.findById(saved.getId())).isEmpty();
+            assertThat(rawMessageRepository.findById(saved.getId()))
+                    .hasValueSatisfying(m -> assertThat(m.getProcessed()).isTrue());
+        }
+
+        @Test
+        @DisplayName("Sweep queues unqueued backlog in the catchup lane; live jobs are leased first")
+        void sweep_queuesCatchupLane_liveLeasedFirst() {
+            RawMessage live = createRawMessage("queue-live-002", "");
+            processingQueueService.enqueue(live.getId(), ProcessingQueueService.LANE_LIVE);
+            for (int i = 0; i < 3; i++) {
+                createRawMessage("queue-catchup-" + i, "");
+            }
+
+            processingQueueService.sweepUnqueued();
+
+            assertThat(processingJobRepository.countByLaneAndStatus(ProcessingQueueService.LANE_CATCHUP, "queued"))
+                    .isEqualTo(3);
+            assertThat(processingJobRepository.countByLaneAndStatus(ProcessingQueueService.LANE_LIVE, "queued"))
+                    .isEqualTo(1);
+            assertThat(processingQueueService.lease(ProcessingQueueService.LANE_LIVE, 10))
+                    .extracting(ProcessingJob::getMessageId)
+                    .containsExactly(live.getId());
+
+            // Release the manual lease so the drain can pick everything up
+            processingJobRepository.findById(live.getId()).ifPresent(job -> {
+                job.setStatus("queued");
+                job.setLeaseOwner(null);
+                processingJobRepository.save(job);
+            });
+            assertThat(processingQueueService.drainNow()).isEqualTo(4);
+            assertThat(rawMessageRepository.countUnprocessed()).isZero();
+            assertThat(processingJobRepository.count()).isZero();
+        }
+
+        @Test
+        @DisplayName("A text message flows through the embedding, extraction and persist stages")
+        void textMessage_runsThroughAllStages() {
+            Map<String, Object> before = messageProcessingService.getPipelineStats();
+            RawMessage msg = createRawMessage("queue-stages-001", "WTS 2x hydraulic pumps");
+            processingQueueService.enqueue(msg.getId(), ProcessingQueueService.LANE_LIVE);
+
+            assertThat(processingQueueService.drainNow()).isEqualTo(1);
+
+            assertThat(rawMessageRepository.findById(msg.getId()))
+                    .hasValueSatisfying(m -> assertThat(m.getProcessed()).isTrue());
+            Map<String, Object> after = messageProcessingService.getPipelineStats();
+            assertThat(after).containsOnlyKeys("embedding", "extraction", "persist");
+            for (String stage : List.of("embedding", "extraction", "persist")) {
+                assertThat(stageCompleted(after, stage)).isEqualTo(stageCompleted(before, stage) + 1);
+                assertThat(stageStats(after, stage)).containsKeys("queueDepth", "avgWaitMs", "avgRunMs");
+            }
+        }
+
+        @Test
+        @DisplayName("A retry after a partial persist replaces the earlier attempt's listings")
+        void retryAfterPartialPersist_doesNotDuplicateListings() {
+            String text = "WTS Parker relief valve 250";
+            ExtractionResult result = buildExtractionResult("sell", 0.6,
+                    List.of(buildItem("Parker relief valve", null, null, 1.0, null, 250.0, null)));
+            result.setModelUsed("gpt-4o-mini");
+            extractionCache.put(jargonExpander.expand(text), result);
+            RawMessage msg = createRawMessage("queue-retry-001", text);
+
+            // An earlier attempt routed the listing but failed before marking the message processed
+            transactionTemplate.executeWithoutResult(status -> confidenceRouter.route(result, msg));
+            assertThat(listingRepository.findByRawMessageIdInAndDeletedAtIsNull(List.of(msg.getId()))).hasSize(1);
+
+            processingQueueService.enqueue(msg.getId(), ProcessingQueueService.LANE_LIVE);
+            assertThat(processingQueueService.drainNow()).isEqualTo(1);
+
+            List<Listing> listings = listingRepository.findByRawMessageIdInAndDeletedAtIsNull(List.of(msg.getId()));
+            assertThat(listings).hasSize(1);
+            assertThat(reviewQueueItemRepository.findByListingId(listings.get(0).getId())).hasSize(1);
+            assertThat(reviewQueueItemRepository.count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Resetting for reprocessing lets the sweep requeue messages whose job gave up")
+        void resetForReprocessing_clearsFailedJobs() {
+            RawMessage msg = createRawMessage("queue-failed-001", "");
+            processingQueueService.enqueue(msg.getId(), ProcessingQueueService.LANE_LIVE);
+            ProcessingJob job = processingJobRepository.findById(msg.getId()).orElseThrow();
+            job.setStatus("failed");
+            processingJobRepository.save(job);
+
+            processingQueueService.sweepUnqueued();
+            assertThat(processingJobRepository.countByLaneAndStatus(ProcessingQueueService.LANE_CATCHUP, "queued"))
+                    .isZero();
+
+            assertThat(messageProcessingService.resetForReprocessing()).containsEntry("failedJobsDeleted", 1);
+            processingQueueService.sweepUnqueued();
+
+            assertThat(processingJobRepository.findById(msg.getId()))
+                    .hasValueSatisfying(j -> assertThat(j.getStatus()).isEqualTo("queued"));
+        }
+
+        @Test
+        @DisplayName("Expired leases are reclaimed back to the queue")
+        void expiredLease_isReclaimed() {
+            RawMessage msg = createRawMessage("queue-lease-001", "");
+            processingQueueService.enqueue(msg.getId(), ProcessingQueueService.LANE_LIVE);
+            assertThat(processingQueueService.lease(ProcessingQueueService.LANE_LIVE, 1)).hasSize(1);
+
+            ProcessingJob job = processingJobRepository.findById(msg.getId()).orElseThrow();
+            assertThat(job.getStatus()).isEqualTo("leased");
+            job.setLeaseExpiresAt(OffsetDateTime.now().minusMinutes(5));
+            processingJobRepository.save(job);
+
+            processingQueueService.reclaimExpiredLeases();
+
+            ProcessingJob reclaimed = processingJobRepository.findById(msg.getId()).orElseThrow();
+            assertThat(reclaimed.getStatus()).isEqualTo("queued");
+            assertThat(reclaimed.getLeaseOwner()).isNull();
+            assertThat(reclaimed.getAttempts()).isEqualTo(1);
+            assertThat(processingQueueService.getQueueStats()).containsKeys("live", "catchup", "inFlight", "capacity");
+        }
+
+        private long stageCompleted(Map<String, Object> stats, String stage) {
+            return (Long) stageStats(stats, stage).get("completed");
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<String, Object> stageStats(Map<String, Object> stats, String stage) {
+            return (Map<String, Object>) stats.get(stage);
+        }
+    }
+
+    // =========================================================================
+    // Media download tests
+    // =========================================================================
+
+    @Nested
+    @DisplayName("Media Downloads")
+    class MediaDownloadTests {
+
+        private static final byte[] CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+        private static final String ETAG = "\"v1\"";
+
+        private HttpServer server;
+        private final List<String> rangeHeaders = new CopyOnWriteArrayList<>();
+        private final List<String> ifRangeHeaders = new CopyOnWriteArrayList<>();
+
+        @BeforeEach
+        void startServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/file.jpg", exchange -> {
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+                rangeHeaders.add(range != null ? range : "");
+                ifRangeHeaders.add(ifRange != null ? ifRange : "");
+                // Like a real server, a stale If-Range gets the whole (current) file
+                int from = range != null && (ifRange == null || ifRange.equals(ETAG))
+                        ? Integer.parseInt(range.substring("bytes=".length(), range.length() - 1)) : 0;
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                if (from > 0) {
+                    exchange.getResponseHeaders().add("Content-Range",
+                            "bytes " + from + "-" + (CONTENT.length - 1) + "/" + CONTENT.length);
+                }
+                exchange.sendResponseHeaders(from > 0 ? 206 : 200, CONTENT.length - from);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(CONTENT, from, CONTENT.length - from);
+                }
+            });
+            server.createContext("/photo.png", exchange -> {
+                byte[] png = pngImage(800, 400);
+                exchange.sendResponseHeaders(200, png.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(png);
+                }
+            });
+            server.createContext("/broken.jpg", exchange -> {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+            });
+            server.start();
+        }
+
+        @AfterEach
+        void stopServer() {
+            server.stop(0);
+        }
+
+        @Test
+        @DisplayName("Archiving queues the media and a download streams it to disk")
+        void archive_queuesDownload_fileStoredAndPathRecorded() throws IOException {
+            RawMessage saved = messageArchiveService.archive(imageMessage("media-dl-001", "/file.jpg"));
+            assertThat(mediaDownloadRepository.findById(saved.getId()))
+                    .hasValueSatisfying(d -> assertThat(d.getStatus()).isEqualTo("pending"));
+
+            assertThat(downloadDueNow()).isEqualTo(1);
+
+            RawMessage stored = rawMessageRepository.findById(saved.getId()).orElseThrow();
+            assertThat(stored.getMediaSha256()).isEqualTo(sha256(CONTENT));
+            assertThat(stored.getMediaLocalPath()).endsWith(sha256(CONTENT) + ".jpg");
+            assertThat(Files.readAllBytes(Path.of(stored.getMediaLocalPath()))).isEqualTo(CONTENT);
+            assertThat(mediaDownloadRepository.findById(saved.getId())).isEmpty();
+            assertThat(rangeHeaders).containsExactly("");
+        }
+
+        @Test
+        @DisplayName("The same file in two messages is stored once and referenced twice")
+        void sameContent_storedOnce_refCounted() {
+            RawMessage first = messageArchiveService.archive(imageMessage("media-dl-dup-1", "/file.jpg"));
+            RawMessage second = messageArchiveService.archive(imageMessage("media-dl-dup-2", "/file.jpg"));
+
+            assertThat(downloadDueNow()).isEqualTo(2);
+
+            String firstPath = rawMessageRepository.findById(first.getId()).orElseThrow().getMediaLocalPath();
+            String secondPath = rawMessageRepository.findById(second.getId()).orElseThrow().getMediaLocalPath();
+            assertThat(secondPath).isEqualTo(firstPath);
+            assertThat(mediaBlobRepository.findAll()).singleElement().satisfies(blob -> {
+                assertThat(blob.getSha256()).isEqualTo(sha256(CONTENT));
+                assertThat(blob.getRefCount()).isEqualTo(2);
+                assertThat(blob.getSizeBytes()).isEqualTo(CONTENT.length);
+                assertThat(blob.getThumbnailPath()).isNull();
+            });
+            assertThat(Files.exists(mediaStore.partialPath(second.getId()))).isFalse();
+            assertThat(mediaStore.getStats())
+                    .containsEntry("blobs", 1L)
+                    .containsEntry("references", 2L)
+                    .containsEntry("bytesSaved", (long) CONTENT.length);
+        }
+
+        @Test
+        @DisplayName("Images get a downscaled thumbnail at ingest, served for timeline views")
+        void image_thumbnailCreatedAndServed() throws Exception {
+            WhapiMessageDTO.Message dto = imageMessage("media-dl-thumb", "/photo.png");
+            dto.getImage().setMimeType("image/png");
+            RawMessage saved = messageArchiveService.archive(dto);
+
+            assertThat(downloadDueNow()).isEqualTo(1);
+
+            String sha = rawMessageRepository.findById(saved.getId()).orElseThrow().getMediaSha256();
+            MediaBlob blob = mediaBlobRepository.findById(sha).orElseThrow();
+            assertThat(blob.getThumbnailPath()).isNotNull();
+            BufferedImage thumbnail = ImageIO.read(mediaStore.resolve(blob.getThumbnailPath()).toFile());
+            assertThat(thumbnail.getWidth()).isEqualTo(320);
+            assertThat(thumbnail.getHeight()).isEqualTo(160);
+
+            mockMvc.perform(get("/api/media/blobs/" + sha + "/thumbnail"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("image/jpeg"));
+            mockMvc.perform(get("/api/media/blobs/" + sha))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("image/png"))
+                    .andExpect(content().bytes(Files.readAllBytes(mediaStore.resolve(blob.getStoragePath()))));
+        }
+
+        @Test
+        @DisplayName("A partial file left by an earlier attempt is resumed with a Range request")
+        void partialFile_isResumedWithRange() throws IOException {
+            RawMessage saved = messageArchiveService.archive(imageMessage("media-dl-002", "/file.jpg"));
+            Path part = mediaStore.partialPath(saved.getId());
+            Files.createDirectories(part.getParent());
+            Files.write(part, Arrays.copyOf(CONTENT, 10));
+            setResumeValidator(saved.getId(), ETAG);
+
+            assertThat(downloadDueNow()).isEqualTo(1);
+
+            RawMessage stored = rawMessageRepository.findById(saved.getId()).orElseThrow();
+            assertThat(Files.readAllBytes(Path.of(stored.getMediaLocalPath()))).isEqualTo(CONTENT);
+            // The hash covers the bytes kept from the first attempt as well
+            assertThat(stored.getMediaSha256()).isEqualTo(sha256(CONTENT));
+            assertThat(Files.exists(part)).isFalse();
+            assertThat(rangeHeaders).containsExactly("bytes=10-");
+            assertThat(ifRangeHeaders).containsExactly(ETAG);
+        }
+
+        @Test
+        @DisplayName("A partial file of a since-changed remote file is discarded and the download restarts")
+        void partialFile_staleValidator_restartsFromZero() throws IOException {
+            RawMessage saved = messageArchiveService.archive(imageMessage("media-dl-stale", "/file.jpg"));
+            Path part = mediaStore.partialPath(saved.getId());
+            Files.createDirectories(part.getParent());
+            Files.write(part, "XXXXXXXXXX".getBytes(StandardCharsets.US_ASCII));
+            setResumeValidator(saved.getId(), "\"v0\"");
+
+            assertThat(downloadDueNow()).isEqualTo(1);
+
+            RawMessage stored = rawMessageRepository.findById(saved.getId()).orElseThrow();
+            assertThat(Files.readAllBytes(Path.of(stored.getMediaLocalPath()))).isEqualTo(CONTENT);
+            assertThat(stored.getMediaSha256()).isEqualTo(sha256(CONTENT));
+            assertThat(rangeHeaders).containsExactly("bytes=10-");
+            assertThat(ifRangeHeaders).containsExactly("\"v0\"");
+        }
+
+        @Test
+        @DisplayName("A partial file without a recorded validator is not resumed")
+        void partialFile_withoutValidator_restartsFromZero() throws IOException {
+            RawMessage saved = messageArchiveService.archive(imageMessage("media-dl-novalidator", "/file.jpg"));
+            Path part = mediaStore.partialPath(saved.getId());
+            Files.createDirectories(part.getParent());
+            Files.write(part, "XXXXXXXXXX".getBytes(StandardCharsets.US_ASCII));
+
+            assertThat(downloadDueNow()).isEqualTo(1);
+
+            RawMessage stored = rawMessageRepository.findById(saved.getId()).orElseThrow();
+            assertThat(Files.readAllBytes(Path.of(stored.getMediaLocalPath()))).isEqualTo(CONTENT);
+            assertThat(rangeHeaders).containsExactly("");
+        }
+
+        @Test
+        @DisplayName("A download whose lease expired is reclaimed as a failed attempt; live leases are left alone")
+        void expiredLease_isReclaimed() {
+            RawMessage hung = messageArchiveService.archive(imageMessage("media-dl-hung", "/file.jpg"));
+            RawMessage running = messageArchiveService.archive(imageMessage("media-dl-running", "/file.jpg"));
+            mediaDownloadRepository.claim(hung.getId(), "hung", OffsetDateTime.now().minusSeconds(1));
+            mediaDownloadRepository.claim(running.getId(), "running", OffsetDateTime.now().plusMinutes(5));
+
+            mediaDownloadService.reclaimExpiredLeases();
+
+            MediaDownload reclaimed = mediaDownloadRepository.findById(hung.getId()).orElseThrow();
+            assertThat(reclaimed.getStatus()).isEqualTo("pending");
+            assertThat(reclaimed.getAttempts()).isEqualTo(1);
+            assertThat(reclaimed.getLeaseExpiresAt()).isNull();
+            assertThat(reclaimed.getLeaseOwner()).isNull();
+            MediaDownload live = mediaDownloadRepository.findById(running.getId()).orElseThrow();
+            assertThat(live.getStatus()).isEqualTo("downloading");
+            assertThat(live.getAttempts()).isZero();
+        }
+
+        @Test
+        @DisplayName("A worker whose lease was reclaimed can neither fail nor complete the download claimed after it")
+        void reclaimedWorker_cannotFailOrComplete() {
+            RawMessage saved = messageArchiveService.archive(imageMessage("media-dl-stale-owner", "/file.jpg"));
+            UUID id = saved.getId();
+            mediaDownloadRepository.claim(id, "stale", OffsetDateTime.now().minusSeconds(1));
+            mediaDownloadService.reclaimExpiredLeases();
+            assertThat(mediaDownloadRepository.claim(id, "current", OffsetDateTime.now().plusMinutes(5))).isEqualTo(1);
+
+            assertThat(mediaDownloadRepository.markFailed(id, "stale", "late failure",
+                    OffsetDateTime.now(), 0L, 5)).isZero();
+            MediaStore.StoredBlob blob = new MediaStore.StoredBlob(sha256(CONTENT), "image/jpeg",
+                    CONTENT.length, "blobs/xx/late.jpg", null);
+            assertThat(mediaDownloadService.complete(id, "stale", blob)).isFalse();
+
+            MediaDownload download = mediaDownloadRepository.findById(id).orElseThrow();
+            assertThat(download.getStatus()).isEqualTo("downloading");
+            assertThat(download.getLeaseOwner()).isEqualTo("current");
+            assertThat(download.getAttempts()).isEqualTo(1);
+            assertThat(mediaBlobRepository.count()).isZero();
+            assertThat(rawMessageRepository.findById(id).orElseThrow().getMediaSha256()).isNull();
+        }
+
+        @Test
+        @DisplayName("A download finishing while the message is being extracted keeps its link when the pipeline persists")
+        void downloadDuringExtraction_linkSurvivesPersist() {
+            // The pipeline's copy is read before the embedding and LLM calls
+            RawMessage pipelineCopy = messageArchiveService.archive(imageMessage("media-dl-race", "/file.jpg"));
+
+            assertThat(downloadDueNow()).isEqualTo(1);
+            messageProcessingService.persistResults(pipelineCopy, null,
+                    buildExtractionResult("unknown", 0.0, null));
+
+            RawMessage stored = rawMessageRepository.findById(pipelineCopy.getId()).orElseThrow();
+            assertThat(stored.getProcessed()).isTrue();
+            assertThat(stored.getMediaSha256()).isEqualTo(sha256(CONTENT));
+            assertThat(stored.getMediaLocalPath()).endsWith(sha256(CONTENT) + ".jpg");
+            assertThat(mediaBlobRepository.findById(sha256(CONTENT)).orElseThrow().getRefCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("The MIME type is resolved once at ingest, sniffing content when none was reported")
+        void mimeType_resolvedAtIngest() {
+            WhapiMessageDTO.Message sniffed = imageMessage("media-dl-mime-1", "/photo.png");
+            sniffed.getImage().setMimeType(null);
+            WhapiMessageDTO.Message parameterised = imageMessage("media-dl-mime-2", "/file.jpg");
+            parameterised.getImage().setMimeType("Image/JPEG; charset=binary");
+            RawMessage first = messageArchiveService.archive(sniffed);
+            RawMessage second = messageArchiveService.archive(parameterised);
+
+            assertThat(downloadDueNow()).isEqualTo(2);
+
+            String firstSha = rawMessageRepository.findById(first.getId()).orElseThrow().getMediaSha256();
+            String secondSha = rawMessageRepository.findById(second.getId()).orElseThrow().getMediaSha256();
+            assertThat(mediaBlobRepository.findById(firstSha).orElseThrow().getMimeType()).isEqualTo("image/png");
+            assertThat(mediaBlobRepository.findById(secondSha).orElseThrow().getMimeType()).isEqualTo("image/jpeg");
+        }
+
+        @Test
+        @DisplayName("A server error records the attempt and leaves the download pending for a retry")
+        void serverError_recordsAttemptAndStaysPending() {
+            RawMessage saved = messageArchiveService.archive(imageMessage("media-dl-003", "/broken.jpg"));
+
+            assertThat(downloadDueNow()).isZero();
+
+            MediaDownload download = mediaDownloadRepository.findById(saved.getId()).orElseThrow();
+            assertThat(download.getStatus()).isEqualTo("pending");
+            assertThat(download.getAttempts()).isEqualTo(1);
+            assertThat(download.getLastError()).contains("500");
+            assertThat(rawMessageRepository.findById(saved.getId()).orElseThrow().getMediaLocalPath()).isNull();
+            assertThat(mediaDownloadService.getQueueStats()).containsEntry("pending", 1L);
+        }
+
+        /**
+         * Runs one poll and waits for its downloads to finish.
+         *
+         * @return number of downloads that left the queue
+         */
+        private long downloadDueNow() {
+            long queued = mediaDownloadRepository.count();
+            mediaDownloadService.pollQueue();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (mediaDownloadService.getQueueStats().get("inFlight") > 0
+                    && System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            return queued - mediaDownloadRepository.count();
+        }
+
+        private void setResumeValidator(UUID messageId, String validator) {
+            MediaDownload download = mediaDownloadRepository.findById(messageId).orElseThrow();
+            download.setResumeValidator(validator);
+            mediaDownloadRepository.save(download);
+        }
+
+        private String sha256(byte[] bytes) {
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private byte[] pngImage(int width, int height) throws IOException {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+
+        private WhapiMessageDTO.Message imageMessage(String id, String path) {
+            WhapiMessageDTO.MediaContent image = new WhapiMessageDTO.MediaContent();
+            image.setLink("http://127.0.0.1:" + server.getAddress().getPort() + path);
+            image.setMimeType("image/jpeg");
+            WhapiMessageDTO.Message dto = new WhapiMessageDTO.Message();
+            dto.setId(id);
+            dto.setChatId(testGroup.getWhapiGroupId());
+            dto.setFrom("15550001234@s.whatsapp.net");
+            dto.setTimestamp(1_700_000_000L);
+            dto.setImage(image);
+            return dto;
+        }
+    }
+
     // =========================================================================
     // Review queue integration tests
     // =========================================================================
@@ -1,5 +1,6 @@
 package com.tradeintel;
 
+import com.jayway.jsonpath.JsonPath;
 import com.tradeintel.archive.RawMessageRepository;
 import com.tradeintel.archive.WhatsappGroupRepository;
 import com.tradeintel.auth.JwtTokenProvider;
@@ -19,11 +20,15 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
@@ -202,6 +207,63 @@ class ReplayControllerTest {
                 .andExpect(jsonPath("$.totalElements", equalTo(2)));
     }
 
+    @Test
+    @DisplayName("GET /api/messages?cursor walks every message once, newest first, across timestamp ties")
+    void getMessagesByCursor_walksFeedWithoutGapsOrDuplicates() throws Exception {
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, testUser);
+        // Three more messages sharing one timestamp, so pages split inside a tie
+        seedMessage(activeGroup, "msg-replay-003", "Carol", "Selling flanges", 1700000003L);
+        seedMessage(activeGroup, "msg-replay-004", "Dave",  "Selling gaskets", 1700000003L);
+        seedMessage(activeGroup, "msg-replay-005", "Erin",  "Selling bolts",   1700000003L);
+
+        List<String> seen = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            MvcResult result = mockMvc.perform(get("/api/messages")
+                            .param("cursor", cursor)
+                            .param("size", "2")
+                            .header("Authorization", auth)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").doesNotExist())
+                    .andReturn();
+            String body = result.getResponse().getContentAsString();
+            seen.addAll(JsonPath.read(body, "$.content[*].whapiMsgId"));
+            cursor = JsonPath.read(body, "$.nextCursor");
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(5).doesNotHaveDuplicates()
+                .endsWith("msg-replay-002", "msg-replay-001");
+    }
+
+    @Test
+    @DisplayName("GET /api/messages/groups/{id}/messages?cursor returns a capped total on request and rejects bad cursors")
+    void getGroupMessagesByCursor_approxTotalAndInvalidCursor() throws Exception {
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, testUser);
+
+        mockMvc.perform(get("/api/messages/groups/{groupId}/messages", activeGroup.getId())
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .param("approxTotal", "true")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content",    hasSize(1)))
+                .andExpect(jsonPath("$.content[0].whapiMsgId", equalTo("msg-replay-002")))
+                .andExpect(jsonPath("$.hasNext",    equalTo(true)))
+                .andExpect(jsonPath("$.total",      equalTo(2)))
+                .andExpect(jsonPath("$.totalExact", equalTo(true)));
+
+        mockMvc.perform(get("/api/messages/groups/{groupId}/messages", activeGroup.getId())
+                        .param("cursor", "not-a-cursor")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("GET /api/messages returns 401 for unauthenticated requests")
     void getMessages_unauthenticated_returns401() throws Exception {
@@ -227,7 +289,8 @@ class ReplayControllerTest {
                         .header("Authorization", auth)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.totalElements", equalTo(2)));
+                .andExpect(jsonPath("$.totalElements", equalTo(2)))
+                .andExpect(jsonPath("$.content[0].groupName", equalTo("Active Trade Group")));
 
         log.info("Verified search with no filters returns all group messages");
     }
@@ -372,6 +435,51 @@ class ReplayControllerTest {
         log.info("Verified semantic search without groupId returns 200 with cross-group results");
     }
 
+    @Test
+    @DisplayName("GET /api/messages/search applies sender filter in cross-group search")
+    void searchMessages_crossGroupWithSender_returnsFilteredMessages() throws Exception {
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, testUser);
+
+        mockMvc.perform(get("/api/messages/search")
+                        .param("sender", "bob")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", equalTo(1)))
+                .andExpect(jsonPath("$.content[0].senderName", equalTo("Bob")));
+    }
+
+    @Test
+    @DisplayName("GET /api/messages/search filters by date range")
+    void searchMessages_withDateRange_returnsMessagesInRange() throws Exception {
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, testUser);
+
+        mockMvc.perform(get("/api/messages/search")
+                        .param("groupId",  activeGroup.getId().toString())
+                        .param("dateFrom", "2023-11-14T22:13:22Z")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", equalTo(1)))
+                .andExpect(jsonPath("$.content[0].senderName", equalTo("Bob")));
+
+        log.info("Verified dateFrom excludes the earlier message");
+    }
+
+    @Test
+    @DisplayName("GET /api/messages/search with semantic param falls back to text match without pgvector")
+    void searchMessages_withSemanticParam_fallsBackToTextMatch() throws Exception {
+        String auth = TestHelper.bearerHeader(jwtTokenProvider, testUser);
+
+        mockMvc.perform(get("/api/messages/search")
+                        .param("semantic", "pumps")
+                        .header("Authorization", auth)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", equalTo(1)))
+                .andExpect(jsonPath("$.content[0].senderName", equalTo("Bob")));
+    }
+
     @Test
     @DisplayName("GET /api/messages/search returns 401 for unauthenticated requests")
     void searchMessages_unauthenticated_returns401() throws Exception {
@@ -1,5 +1,6 @@
 package com.tradeintel;
 
+import org.springframework.cache.CacheManager;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,14 +11,20 @@ import org.springframework.transaction.annotation.Transactional;
  * <p>Shared across integration test classes to avoid FK constraint violations
  * when tests running in different Spring contexts (e.g. those that use
  * {@code @MockBean}) share the same named H2 database.</p>
+ *
+ * <p>Also clears every Spring cache, since tests write reference data straight
+ * through repositories and would otherwise observe values (e.g. the compiled
+ * jargon matcher) cached by an earlier test.</p>
  */
 @Component
 public class TestDatabaseCleaner {
 
     private final JdbcTemplate jdbc;
+    private final CacheManager cacheManager;
 
-    public TestDatabaseCleaner(JdbcTemplate jdbc) {
+    public TestDatabaseCleaner(JdbcTemplate jdbc, CacheManager cacheManager) {
         this.jdbc = jdbc;
+        this.cacheManager = cacheManager;
     }
 
     /**
@@ -32,10 +39,18 @@ public class TestDatabaseCleaner {
         jdbc.execute("DELETE FROM chat_sessions");
         jdbc.execute("DELETE FROM usage_ledger");
         jdbc.execute("DELETE FROM audit_log");
+        jdbc.execute("DELETE FROM notification_outbox");
         jdbc.execute("DELETE FROM notification_rules");
         jdbc.execute("DELETE FROM review_queue");
         jdbc.execute("DELETE FROM listings");
+        jdbc.execute("DELETE FROM listing_stat_counters");
+        jdbc.execute("DELETE FROM price_history_daily");
+        jdbc.execute("DELETE FROM cross_post_identities");
+        jdbc.execute("DELETE FROM cross_post_clusters");
+        jdbc.execute("DELETE FROM processing_jobs");
+        jdbc.execute("DELETE FROM media_downloads");
         jdbc.execute("DELETE FROM raw_messages");
+        jdbc.execute("DELETE FROM media_blobs");
         jdbc.execute("DELETE FROM jargon_dictionary");
         jdbc.execute("DELETE FROM categories");
         jdbc.execute("DELETE FROM manufacturers");
@@ -43,5 +58,15 @@ public class TestDatabaseCleaner {
         jdbc.execute("DELETE FROM conditions");
         jdbc.execute("DELETE FROM whatsapp_groups");
         jdbc.execute("DELETE FROM users");
+        jdbc.execute("DELETE FROM embedding_cache");
+        jdbc.execute("DELETE FROM extraction_cache");
+        jdbc.execute("DELETE FROM exchange_rates");
+
+        for (String name : cacheManager.getCacheNames()) {
+            var cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
     }
 }
@@ -272,4 +272,45 @@ class WebhookControllerTest {
 
         log.info("Verified batch of 2 messages all archived");
     }
+
+    @Test
+    @DisplayName("Each message's JSON is stored exactly as it appeared in the payload")
+    void receiveMessage_storesRawMessageSlice() throws Exception {
+        String first  = "{\"id\":\"msg-slice-001\",\"chat_id\":\"group-slice@g.us\",\"from\":\"1555\","
+                + "\"timestamp\":1700000003,\"text\":{\"body\":\"Selling \\\"rare\\\" seals\"}}";
+        String second = "{ \"id\": \"msg-slice-002\", \"chat_id\": \"group-slice@g.us\", "
+                + "\"image\": { \"link\": \"http://127.0.0.1:9/none.jpg\", \"mime_type\": \"image/jpeg\" } }";
+        String payload = "{\"event\":{\"type\":\"messages\"},\"messages\":[" + first + ", null, " + second + "],\"channel_id\":\"x\"}";
+
+        mockMvc.perform(post("/api/webhooks/whapi")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Whapi-Signature", signedHeader(payload))
+                        .content(payload))
+                .andExpect(status().isOk());
+
+        assertThat(rawMessageRepository.findByWhapiMsgId("msg-slice-001")).hasValueSatisfying(m -> {
+            assertThat(m.getRawJson()).isEqualTo(first);
+            assertThat(m.getMessageBody()).isEqualTo("Selling \"rare\" seals");
+        });
+        // Media is fetched after the response; an unreachable host does not fail the delivery
+        assertThat(rawMessageRepository.findByWhapiMsgId("msg-slice-002")).hasValueSatisfying(m -> {
+            assertThat(m.getRawJson()).isEqualTo(second);
+            assertThat(m.getMessageType()).isEqualTo("image");
+        });
+        assertThat(whatsappGroupRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Malformed JSON returns 400 without persisting anything")
+    void receiveMessage_malformedJson_returns400() throws Exception {
+        String payload = "{\"messages\": [ {\"id\": \"msg-bad-001\", ";
+
+        mockMvc.perform(post("/api/webhooks/whapi")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Whapi-Signature", signedHeader(payload))
+                        .content(payload))
+                .andExpect(status().isBadRequest());
+
+        assertThat(rawMessageRepository.count()).isZero();
+    }
 }
@@ -156,6 +156,7 @@ CREATE TABLE IF NOT EXISTS listings (
     sold_at            TIMESTAMP WITH TIME ZONE,
     sold_message_id    VARCHAR(255),
     buyer_name         VARCHAR(255),
+    cross_post_cluster_id UUID,
     CONSTRAINT fk_listing_raw_msg   FOREIGN KEY (raw_message_id)   REFERENCES raw_messages(id),
     CONSTRAINT fk_listing_group     FOREIGN KEY (group_id)         REFERENCES whatsapp_groups(id),
     CONSTRAINT fk_listing_category  FOREIGN KEY (item_category_id) REFERENCES categories(id),
@@ -258,3 +259,151 @@ CREATE TABLE IF NOT EXISTS audit_log (
     created_at  TIMESTAMP WITH TIME ZONE,
     CONSTRAINT fk_audit_actor FOREIGN KEY (actor_id) REFERENCES users(id)
 );
+
+-- Embedding cache ----------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS embedding_cache (
+    content_hash VARCHAR(64)  NOT NULL PRIMARY KEY,
+    model        VARCHAR(100) NOT NULL,
+    dimensions   INT          NOT NULL,
+    vector       BYTEA        NOT NULL,
+    created_at   TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Extraction cache ---------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS extraction_cache (
+    cache_key      VARCHAR(64) NOT NULL PRIMARY KEY,
+    prompt_version VARCHAR(64) NOT NULL,
+    result_json    CLOB        NOT NULL,
+    created_at     TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Notification outbox -----------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id              UUID         NOT NULL DEFAULT RANDOM_UUID() PRIMARY KEY,
+    rule_id         UUID         NOT NULL,
+    listing_id      UUID         NOT NULL,
+    recipient       VARCHAR(255) NOT NULL,
+    status          VARCHAR(20)  NOT NULL DEFAULT 'pending',
+    attempts        INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error      CLOB,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at         TIMESTAMP WITH TIME ZONE,
+    claimed_at      TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT fk_outbox_rule    FOREIGN KEY (rule_id)    REFERENCES notification_rules(id) ON DELETE CASCADE,
+    CONSTRAINT fk_outbox_listing FOREIGN KEY (listing_id) REFERENCES listings(id) ON DELETE CASCADE
+);
+
+-- Processing queue --------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS processing_jobs (
+    message_id       UUID         NOT NULL PRIMARY KEY,
+    lane             VARCHAR(20)  NOT NULL DEFAULT 'live',
+    status           VARCHAR(20)  NOT NULL DEFAULT 'queued',
+    attempts         INTEGER      NOT NULL DEFAULT 0,
+    available_at     TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    lease_owner      VARCHAR(100),
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    last_error       CLOB,
+    enqueued_at      TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_processing_job_msg FOREIGN KEY (message_id) REFERENCES raw_messages(id) ON DELETE CASCADE
+);
+
+-- Exchange rates -----------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS exchange_rates (
+    rate_date    DATE           NOT NULL,
+    currency     VARCHAR(3)     NOT NULL,
+    rate_to_usd  NUMERIC(19,10) NOT NULL,
+    source       VARCHAR(32)    NOT NULL,
+    fetched_at   TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (rate_date, currency)
+);
+
+-- Listing stat counters ----------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS listing_stat_counters (
+    dims_key         VARCHAR(200) NOT NULL PRIMARY KEY,
+    status           VARCHAR(50)  NOT NULL,
+    intent           VARCHAR(50)  NOT NULL,
+    deleted          BOOLEAN      NOT NULL,
+    group_id         UUID,
+    manufacturer_id  UUID,
+    category_id      UUID,
+    listing_count    BIGINT       NOT NULL DEFAULT 0,
+    updated_at       TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS price_history_daily (
+    bucket_key       VARCHAR(320)  NOT NULL PRIMARY KEY,
+    manufacturer_id  UUID,
+    part_number      VARCHAR(255)  NOT NULL,
+    currency         VARCHAR(10)   NOT NULL,
+    price_date       DATE          NOT NULL,
+    model_name       VARCHAR(255),
+    listing_count    INT           NOT NULL DEFAULT 0,
+    sold_count       INT           NOT NULL DEFAULT 0,
+    min_price        NUMERIC(19,4),
+    max_price        NUMERIC(19,4),
+    median_price     NUMERIC(19,4),
+    updated_at       TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_price_history_part_date ON price_history_daily (part_number, price_date);
+
+CREATE TABLE IF NOT EXISTS cross_post_clusters (
+    id            UUID          NOT NULL PRIMARY KEY,
+    part_number   VARCHAR(255)  NOT NULL,
+    member_count  INT           NOT NULL DEFAULT 0,
+    created_at    TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at    TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS cross_post_identities (
+    part_number   VARCHAR(255)  NOT NULL,
+    identity      VARCHAR(320)  NOT NULL,
+    cluster_id    UUID          NOT NULL,
+    PRIMARY KEY (part_number, identity)
+);
+
+CREATE INDEX IF NOT EXISTS idx_cross_post_identities_cluster ON cross_post_identities (cluster_id);
+CREATE INDEX IF NOT EXISTS idx_listings_cross_post_cluster ON listings (cross_post_cluster_id);
+CREATE INDEX IF NOT EXISTS idx_listings_feed ON listings (created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_raw_msg_feed ON raw_messages (timestamp_wa DESC, id DESC);
+
+-- Media download queue ------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS media_downloads (
+    message_id       UUID         NOT NULL PRIMARY KEY,
+    status           VARCHAR(20)  NOT NULL DEFAULT 'pending',
+    attempts         INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    bytes_downloaded BIGINT       NOT NULL DEFAULT 0,
+    last_error       CLOB,
+    created_at       TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    resume_validator VARCHAR(512),
+    lease_owner      VARCHAR(100),
+    CONSTRAINT fk_media_download_msg FOREIGN KEY (message_id) REFERENCES raw_messages(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_media_downloads_due ON media_downloads (status, next_attempt_at);
+
+-- Content-addressed media store --------------------------------------------
+
+CREATE TABLE IF NOT EXISTS media_blobs (
+    sha256             VARCHAR(64)  NOT NULL PRIMARY KEY,
+    mime_type          VARCHAR(255),
+    size_bytes         BIGINT       NOT NULL,
+    storage_path       VARCHAR(1024) NOT NULL,
+    thumbnail_path     VARCHAR(1024),
+    ref_count          INTEGER      NOT NULL DEFAULT 0,
+    created_at         TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_referenced_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE raw_messages ADD COLUMN IF NOT EXISTS media_sha256 VARCHAR(64);
+CREATE INDEX IF NOT EXISTS idx_raw_msg_media_sha256 ON raw_messages (media_sha256);